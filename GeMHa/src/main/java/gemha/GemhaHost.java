@@ -0,0 +1,170 @@
+package gemha;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import gemha.servers.GenericMessageHandler;
+import gemha.support.HandlerExitException;
+import gemha.support.PipelineContext;
+
+/**
+  * Runs several LwGenericMessageHandler pipelines in the one JVM, one per settings file listed in a manifest,
+  * instead of a JVM per settings file (see GemhaBatch).
+  *
+  * The manifest is a text file naming one settings file (and optionally path) per line. Blank lines and
+  * lines starting with # are ignored. Each pipeline is named after its settings file (less any path and
+  * ".xml"), and runs on its own thread, with its own settings and log file. A pipeline that cannot continue
+  * stops alone; the others carry on. All pipelines are shut down gracefully when the JVM closes down.
+  *
+  * Only the timer for timed batch hand-overs is shared by the pipelines. Each pipeline still has its own
+  * response-processing threads, and its Processor its own worker threads and connections, so hosting many
+  * pipelines saves JVMs, not threads.
+  *
+  * The JVM exits with 0 if every pipeline finished normally, otherwise with -2.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  */
+public class GemhaHost {
+
+	/**
+	 * @param args manifestFileName
+	 */
+	public static void main(String args[]) {
+		if (args.length < 1) {
+			System.out.println("GemhaHost.main(): Fatal Error at startup: Too few args.");
+			System.exit(-1);
+		}
+
+		List<String> settingsFileNames = null;
+		try {
+			settingsFileNames = readManifest(args[0]);
+		} catch (IOException e) {
+			System.out.println("GemhaHost.main(): Fatal Error at startup: Could not read manifest " + args[0] + ": " + e);
+			System.exit(-1);
+		}
+
+		if (settingsFileNames.isEmpty()) {
+			System.out.println("GemhaHost.main(): Fatal Error at startup: No settings files listed in manifest " + args[0]);
+			System.exit(-1);
+		}
+
+		// Timer for timed batch hand-overs, shared by all pipelines. Thread started now, so it belongs to no pipeline
+		ScheduledThreadPoolExecutor sharedTimer = new ScheduledThreadPoolExecutor(1);
+		sharedTimer.prestartAllCoreThreads();
+
+		final List<GenericMessageHandler> apps = new ArrayList<GenericMessageHandler>();
+		final List<Thread> pipelineThreads = new ArrayList<Thread>();
+		final boolean[] failed = new boolean[settingsFileNames.size()];
+		Set<String> pipelineNames = new HashSet<String>();
+
+		for (int i = 0; i < settingsFileNames.size(); i++) {
+			final String settingsFileName = settingsFileNames.get(i);
+			final String pipelineName = uniqueName(pipelineNameFor(settingsFileName), pipelineNames);
+			final GenericMessageHandler app = new GenericMessageHandler(settingsFileName, pipelineName, sharedTimer);
+			final int pipelineIndex = i;
+
+			apps.add(app);
+			pipelineThreads.add(new Thread(new Runnable() {
+				public void run() {
+					PipelineContext.setPipelineName(pipelineName);
+					try {
+						app.start();
+					} catch (HandlerExitException e) {
+						System.out.println("GemhaHost: Pipeline " + pipelineName + " (" + settingsFileName + ") stopped with status " + e.getExitStatus());
+						failed[pipelineIndex] = true;
+						app.shutDown();
+					} catch (RuntimeException e) {
+						System.out.println("GemhaHost: Pipeline " + pipelineName + " (" + settingsFileName + ") stopped: " + e);
+						failed[pipelineIndex] = true;
+						app.shutDown();
+					}
+				}
+			}, "gemha-" + pipelineName));
+		}
+
+		// Register the thread to be called when the VM is shut down, shutting down every pipeline...
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				for (GenericMessageHandler app : apps) {
+					app.shutDown();
+				}
+			}
+		});
+
+		// Let's go...
+		for (Thread pipelineThread : pipelineThreads) {
+			pipelineThread.start();
+		}
+
+		boolean allFinishedNormally = true;
+		for (int i = 0; i < pipelineThreads.size(); i++) {
+			try {
+				pipelineThreads.get(i).join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				allFinishedNormally = false;
+				break;
+			}
+			allFinishedNormally &= ! failed[i]; // safe to read, after join()
+		}
+
+		sharedTimer.shutdown();
+
+		System.exit(allFinishedNormally ? 0 : -2);
+	}
+
+	/**
+	  * Read the names of the settings files from the manifest.
+	  *
+	  * @param manifestFileName (and optionally path) of the manifest
+	  * @return the settings file names, in the order listed
+	  * @throws IOException if the manifest could not be read
+	  */
+	private static List<String> readManifest(String manifestFileName) throws IOException {
+		List<String> settingsFileNames = new ArrayList<String>();
+
+		BufferedReader reader = new BufferedReader(new FileReader(manifestFileName));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.length() > 0 && ! line.startsWith("#")) {
+					settingsFileNames.add(line);
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+
+		return settingsFileNames;
+	}
+
+	/**
+	  * @return the name of the settings file, less any path and ".xml"
+	  */
+	private static String pipelineNameFor(String settingsFileName) {
+		String name = new File(settingsFileName).getName();
+		if (name.toLowerCase().endsWith(".xml")) {
+			name = name.substring(0, name.length() - 4);
+		}
+		return name;
+	}
+
+	/**
+	  * @return name, with a numeric suffix if already in use, after adding it to usedNames
+	  */
+	private static String uniqueName(String name, Set<String> usedNames) {
+		String uniqueName = name;
+		for (int suffix = 2; usedNames.contains(uniqueName); suffix++) {
+			uniqueName = name + "_" + suffix;
+		}
+		usedNames.add(uniqueName);
+		return uniqueName;
+	}
+}
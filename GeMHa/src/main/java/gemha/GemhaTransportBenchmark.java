@@ -0,0 +1,115 @@
+package gemha;
+
+import java.util.concurrent.Callable;
+
+import gemha.support.MessagingException;
+import gemha.support.OrderedTaskExecutor;
+import gemha.support.ProcessResponse;
+import gemha.support.ProcessResponse.ProcessResponseCode;
+import gemha.support.RingBuffer;
+
+/**
+  * Compares the cost of handing messages to a single-worker Processor, and its responses back, through the
+  * default executor queue and through the lock-free ring buffers, with each wait strategy.
+  *
+  * The "processing" does nothing but return a prebuilt response, so only the hand-off is measured.
+  * A warm-up round is run (and not reported) before the measured rounds, to let the JIT settle.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  */
+public class GemhaTransportBenchmark {
+
+	private static final int DEFAULT_MESSAGE_COUNT = 1000000;
+	private static final int RING_SIZE = 1024;
+
+	private static final ProcessResponse RESPONSE = new ProcessResponse.Builder(ProcessResponseCode.SUCCESS, 1).build();
+	private static final Callable<ProcessResponse> TASK = new Callable<ProcessResponse>() {
+		public ProcessResponse call() {
+			return RESPONSE;
+		} // end Callable.call()
+	};
+
+	/**
+	 * @param args [messageCount]
+	 */
+	public static void main(String args[]) {
+		int messageCount = DEFAULT_MESSAGE_COUNT;
+		if (args.length > 0) {
+			try {
+				messageCount = Integer.parseInt(args[0]);
+			} catch (NumberFormatException e) {
+				System.out.println("GemhaTransportBenchmark.main(): Fatal Error at startup: messageCount must be a number.");
+				System.exit(-1);
+			}
+		}
+
+		try {
+			System.out.println("Warming up...");
+			runAll(messageCount, false);
+
+			System.out.println("Handing off " + messageCount + " messages per transport:");
+			runAll(messageCount, true);
+		} catch (Exception e) {
+			System.out.println("GemhaTransportBenchmark.main(): Fatal Error: " + e);
+			System.exit(-2);
+		}
+
+		System.exit(0);
+	}
+
+	/**
+	  * Run one round against each transport.
+	  */
+	private static void runAll(int messageCount, boolean report) throws InterruptedException, MessagingException {
+		run("Queue", new OrderedTaskExecutor(1), messageCount, report);
+		run("Ring (BusySpin)", OrderedTaskExecutor.newRingBuffer(RING_SIZE, RingBuffer.WaitStrategy.BUSY_SPIN, null), messageCount, report);
+		run("Ring (Yield)", OrderedTaskExecutor.newRingBuffer(RING_SIZE, RingBuffer.WaitStrategy.YIELD, null), messageCount, report);
+		run("Ring (Park)", OrderedTaskExecutor.newRingBuffer(RING_SIZE, RingBuffer.WaitStrategy.PARK, null), messageCount, report);
+	}
+
+	/**
+	  * Submit messageCount tasks to the executor, with a separate thread taking the responses (as the
+	  * ResponseProcessorTask would), and time it from first submit to the last response taken.
+	  */
+	private static void run(String transportName, final OrderedTaskExecutor taskExecutor, final int messageCount, boolean report)
+																		throws InterruptedException, MessagingException {
+		final int[] taken = new int[1];
+		final Exception[] failure = new Exception[1];
+
+		Thread consumer = new Thread(new Runnable() {
+			public void run() {
+				try {
+					while (taskExecutor.take() != null) {
+						taken[0]++;
+					}
+				} catch (Exception e) {
+					failure[0] = e;
+				}
+			}
+		}, "gemha-benchmark-consumer");
+
+		long start = System.nanoTime();
+		consumer.start();
+		for (int i = 0; i < messageCount; i++) {
+			taskExecutor.submit(TASK);
+		}
+		taskExecutor.submitPoisonPill();
+		consumer.join();
+		long elapsedNanos = System.nanoTime() - start;
+
+		if (failure[0] != null) {
+			throw new MessagingException(transportName + " failed: " + failure[0]);
+		}
+		if (taken[0] != messageCount) {
+			throw new MessagingException(transportName + " returned " + taken[0] + " of " + messageCount + " responses.");
+		}
+
+		if (report) {
+			double elapsedMillis = elapsedNanos / 1000000.0;
+			long messagesPerSecond = (long) (messageCount / (elapsedNanos / 1000000000.0));
+			System.out.println(String.format("%-16s %10.1f ms %12d msgs/sec %8.1f ns/msg",
+											transportName, elapsedMillis, messagesPerSecond, (double) elapsedNanos / messageCount));
+		}
+	}
+}
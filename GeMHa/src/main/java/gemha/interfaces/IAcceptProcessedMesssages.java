@@ -0,0 +1,28 @@
+package gemha.interfaces;
+
+import gemha.support.*;
+
+/**
+  * Encapsulates methods for accepting messages, for a listener that must know when each message it handed out
+  * has been processed, not just when it was dispatched (see ProcessedMessageTracker).
+  *
+  * consumeMessage() is still called as each message is dispatched, and again once its response has been handled,
+  * so a listener implementing this interface will usually act on messageProcessed() alone.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  */
+public interface IAcceptProcessedMesssages extends IAcceptMesssages {
+
+/**
+  * Called once for each message accepted, in the order they were accepted, once that message and every one
+  * accepted before it has been processed and its response (if any) handled.
+  * Never called for a message that was stayed.
+  *
+  * @param auditKey the audit key values of the message processed
+  *
+  * @throws MessagingException when any error is encountered
+  */
+void messageProcessed(String auditKey) throws MessagingException;
+
+}
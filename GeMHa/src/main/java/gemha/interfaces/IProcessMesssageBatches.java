@@ -0,0 +1,28 @@
+package gemha.interfaces;
+
+import java.util.List;
+
+import gemha.support.*;
+
+/**
+  * Extends IProcessMesssage for Processors that gain from handling a batch of messages as a unit (e.g. one commit,
+  * or one write, per batch). Optional: when batching is configured, batches are handed to a Processor that doesn't
+  * implement this interface one message at a time (see BatchProcessingAdapter).
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  */
+public interface IProcessMesssageBatches extends IProcessMesssage {
+
+/**
+ * Process a batch of messages on another thread, non-blocking. One result per message, in batch order, to be
+ * collected by calling getResponse(), exactly as if each message had been passed to processMessageAsynch() in turn.
+ * To signal no more messages, call processMessageAsynch() with a null message, as usual.
+ *
+ * @param batch the messages to be processed (none may be null)
+ * 
+ * @throws MessagingException if a problem was encountered processing the messages
+ */
+public void processMessagesAsynch(List<ProcessRequest> batch) throws MessagingException;
+
+}
@@ -0,0 +1,57 @@
+package gemha.interfaces;
+
+import gemha.support.ResponseBackpressure;
+import gemha.support.RingBuffer;
+
+/**
+  * Extends IProcessMesssage for Processors that can process more than one message at the same time, and let the
+  * caller choose how messages are handed to their workers and how many responses may await collection.
+  * Optional: the handler only uses these methods if the Processor implements this interface, and only when the
+  * settings ask for something other than the defaults (Concurrency, ThreadPerMessage, RingBuffer, ResponseQueue),
+  * so Processors written against IProcessMesssage alone still load and run as before.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  */
+public interface IProcessMesssageConcurrently extends IProcessMesssage {
+
+/**
+  * Set the number of messages that may be processed at the same time.
+  * Responses will still be returned by getResponse() in the order in which the messages were submitted.
+  * Must be called before performSetup(), otherwise the default of 1 applies.
+  *
+  * @param concurrency the number of worker threads to process messages (1..n)
+  */
+public void setConcurrency(int concurrency);
+
+/**
+  * Run each message on its own thread, up to maxInFlight messages at a time, instead of on a fixed number of workers.
+  * Threads are created as messages arrive and reclaimed when idle, so a large limit suits Processors that spend
+  * nearly all their time waiting on I/O. Responses will still be returned by getResponse() in the order in which
+  * the messages were submitted.
+  * Must be called before performSetup(), in place of setConcurrency().
+  *
+  * @param maxInFlight the maximum number of messages that may be processed at the same time (1..n)
+  */
+public void setThreadPerMessage(int maxInFlight);
+
+/**
+  * Hand messages to a single worker, and its responses back, through preallocated lock-free ring buffers,
+  * instead of an executor queue, for the lowest hand-off latency.
+  * Must be called before performSetup(), in place of setConcurrency() and setThreadPerMessage().
+  *
+  * @param ringSize the number of slots in each ring (a power of 2)
+  * @param waitStrategy how the worker and the collector of responses wait for each other
+  */
+public void setRingBufferTransport(int ringSize, RingBuffer.WaitStrategy waitStrategy);
+
+/**
+  * Bound the queue of responses awaiting collection from getResponse() by the given backpressure's limits,
+  * telling it of each response submitted, completed and taken.
+  * Must be called before performSetup(), otherwise the queue is bounded only by a default count.
+  *
+  * @param backpressure tracks the responses awaiting collection
+  */
+public void setResponseBackpressure(ResponseBackpressure backpressure);
+
+}
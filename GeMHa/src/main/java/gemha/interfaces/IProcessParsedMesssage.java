@@ -0,0 +1,55 @@
+package gemha.interfaces;
+
+import lw.XML.XMLDocument;
+import gemha.support.*;
+
+/**
+  * Extends IProcessMesssage for Processors that can take a message already parsed, as well as its text, so
+  * they needn't parse it again. The caller hands over the parsed document and never uses it again, so the
+  * Processor may do with it as it likes. If no parsed document is given (null), the text is parsed as usual.
+  *
+  * Where a batch is handed over (see IProcessMesssageBatches), each ProcessRequest may carry the parsed document.
+  *
+  * A Processor may read messages of INSERTs, as fed from CSV files, straight from their text (see readsInsertRows()),
+  * in which case the caller should not parse them for it.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  */
+public interface IProcessParsedMesssage extends IProcessMesssage {
+
+/**
+ * Process a message on the same thread as the caller, blocking for result.
+ *
+ * @param messageText the message to be processed
+ * @param messageDoc the message to be processed, already parsed, null to have messageText parsed. Handed over - not used by the caller again
+ * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+ * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+ *
+ * @return the next response from process, null if no more results will ever arrive
+ *
+ * @throws MessagingException if a problem was encountered processing the message
+ */
+public ProcessResponse processMessageSynch(String messageText, XMLDocument messageDoc, final XMLDocument inputDoc, String auditKeyValues) throws MessagingException;
+
+/**
+ * Process a message on another thread, non-blocking. Result to be collected by calling getResponse().
+ *
+ * @param messageText the message to be processed
+ * @param messageDoc the message to be processed, already parsed, null to have messageText parsed. Handed over - not used by the caller again
+ * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+ * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+ *
+ * @throws MessagingException if a problem was encountered processing the message
+ */
+public void processMessageAsynch(String messageText, XMLDocument messageDoc, final XMLDocument inputDoc, String auditKeyValues) throws MessagingException;
+
+/**
+ * Find out whether messages of INSERTs, as fed from CSV files, are read straight from their text (see InsertRows).
+ * Only meaningful once performSetup() has been called.
+ *
+ * @return true if messages of INSERTs are read from their text, so no parsed document need be handed over for them
+ */
+public boolean readsInsertRows();
+
+}
@@ -1,451 +1,1428 @@
-package gemha.servers;
-
-import java.util.logging.*;
-import java.util.Arrays;
-import java.util.ArrayList;
-import java.util.StringTokenizer;
-import java.io.*;
-
-import lw.XML.*;
-import lw.utils.LwFilenameFilter;
-import lw.utils.LwLogger;
-import lw.utils.SettingsException;
-import gemha.support.MessagingException;
-import gemha.interfaces.IAcceptMesssages;
-
-/**
-  * This class retrieves messages from files.
-  * A message may be a record from CSV file
-  * or
-  * the complete contents of the file, in which case a 'filter' list of filenames may be processed.
-  *
-  * @author Liam Wade
-  * @version 1.0 30/10/2008
-  */
-public class AcceptMessagesFromFiles implements IAcceptMesssages {
-
-    private static final Logger logger = Logger.getLogger("gemha");
-
-	public AcceptMessagesFromFiles(String inputFileDir, String inputFileNameFilter, boolean sortOnFileName, ArrayList<String> colNameList,
-										String dataFormat, String fieldSeparator, int maxRecsPerMessage, String XMLFormat,
-										String actionOnError, String preparedStatementName, String immediateCommit, int numRecsToSkip)
-																								throws SettingsException {
-		this.inputFileDir = inputFileDir;
-		this.inputFileNameFilter = inputFileNameFilter;
-		this.sortOnFileName = sortOnFileName;
-		this.colNameList = colNameList;
-		this.dataFormat = dataFormat;
-		if (fieldSeparator != null) {this.fieldSeparator = fieldSeparator;}
-		this.maxRecsPerMessage = maxRecsPerMessage;
-		this.XMLFormat = (XMLFormat == null ? "SELECT" : XMLFormat.toUpperCase());
-		this.actionOnError = actionOnError;
-		this.preparedStatementName = preparedStatementName;
-		this.immediateCommit = immediateCommit;
-		this.numRecsToSkip = numRecsToSkip;
-
-		if (dataFormat == null) {
-			throw new SettingsException("LwAcceptMessagesFromFiles.constructor(): dataFormat parameter is null.");
-		}
-
-		if (dataFormat.equals("CSV")) {
-			if (colNameList == null) {
-				throw new SettingsException("LwAcceptMessagesFromFiles.constructor(): colNameList parameter is null.");
-			}
-		}
-	}
-
-	//////////////////////////////////////////////////////////////////
-	// Start: Implementation methods for LwIProcessMesssage Interface...
-	//////////////////////////////////////////////////////////////////
-	/**
-	  * Set the wait interval for accepting messages
-	  *
-	  * @param waitInterval how many milliseconds to wait for a message before returning nothing (0 = block indefinitely)
-	  */
-	@Override
-	public void setWaitInterval(int waitInterval) {
-	}
-
-	/**
-	  * Set the wait interval setting to block forever
-	  *
-	  */
-	@Override
-	public void setWaitIntervalBlockIndefinitely() {
-	}
-
-	/**
-	  * Set up conditions for accepting messages.
-	  *
-	  * @return true for success, false for failure
-	  */
-	@Override
-	public boolean performSetup()
-								throws MessagingException {
-
-		logger.finer("Starting Files-input setup now...");
-
-		if (inputFileDir == null || inputFileNameFilter == null) {
-			logger.severe("Could not perform setup. Missing File-selection information");
-			return false;
-		}
-
-		logger.finest("Instructed to get input data from files.");
-		File searchdir = new File(inputFileDir);
-		LwFilenameFilter filter = new LwFilenameFilter(inputFileNameFilter);
-
-		inputFileNames = searchdir.list(filter);
-
-		if (inputFileNames == null || inputFileNames.length < 1) {
-			logger.severe("No files matched the FileNameFilter pattern. Nothing to process.");
-			throw new MessagingException("No files matched the FileNameFilter pattern. Nothing to process.");
-		}
-		else {
-			if (sortOnFileName) { // sort the file names first, using the compareTo() method of String
-				Arrays.sort(inputFileNames);
-			}
-
-			// Add the path to each file name...
-			for (int i = 0; i < inputFileNames.length; i++) {
-				inputFileNames[i] = inputFileDir + inputFileNames[i];
-			}
-		}
-
-		logger.finer("Files-input setup was successful.");
-
-		return true;
-	}
-
-	/**
-	  * Process a message
-	  *
-	  * @return the next message retrieved
-	  */
-	@Override
-	public String acceptNextMessage()
-									throws MessagingException {
-
-		if (inputFileNames == null || fileNum > (inputFileNames.length-1)) { // then am finished file list
-			return null;
-		}
-
-		String receivedMessage = null;
-
-		try {
-			if (dataFormat.equals("CSV")) { // then we're processing n number of records from file(s) for a given message
-				receivedMessage = getNextMessage();
-			}
-			else { // each file is one message
-				inputFileName = getNextFileName();
-				if (inputFileName == null) {
-					return null;
-				}
-
-				receivedMessage = getFileContents(inputFileName);
-				logger.info("Message loaded from file " + inputFileName);
-			}
-		}
-		catch(IOException e) {
-			throw new MessagingException("IOException encountered while reading next message from File " + inputFileName + ": " + e);
-		}
-		catch(XMLException e) {
-			throw new MessagingException("LwXMLException encountered while reading CSV messages from File " + inputFileName + ": " + e);
-		}
-
-		if (receivedMessage == null) { // then no records left - report
-			if (inputFileNames != null) {
-				logger.info(inputFileNames.length + " file(s) processed.");
-				return null;
-			}
-		}
-
-		return receivedMessage;
-	}
-
-	/**
-	  * Do not consume the message
-	  *
-	  */
-	@Override
-	public void stayMessage(String auditKey)
-							throws MessagingException {
-	}
-
-	/**
-	  * Consume the message now
-	  *
-	  */
-	@Override
-	public void consumeMessage(String auditKey)
-							throws MessagingException {
-	}
-
-	/**
-	  * Perform any clean-up actions before closing down
-	  *
-	  */
-	@Override
-	public void performCleanup(LwLogger shutdownLogger) {
-		try {
-			shutdownLogger.appendln("I0100 LwAcceptMessagesFromFiles.performCleanup(): Total of " + recsRead + " record(s) read from file(s)");
-			shutdownLogger.appendln("I0101 LwAcceptMessagesFromFiles.performCleanup(): Total of " + recsReturnedForAllMessages + " record(s) loaded from file(s)");
-
-			if (inputFileNames != null) {
-				shutdownLogger.appendln("I0102 LwAcceptMessagesFromFiles.performCleanup(): " + inputFileNames.length + " file(s) processed.");
-			}
-		}
-		catch(IOException e) {
-			System.out.println("E0100 LwAcceptMessagesFromFiles.performCleanup(): could not write to shutDownLogFile.");
-		}
-
-		if (inputSource != null) {
-			try { inputSource.close();} catch(IOException e) { /* do nothing */}
-			inputSource = null;
-		}
-	}
-
-	//////////////////////////////////////////////////////////////////
-	// End: Implementation methods for LwIProcessMesssage Interface...
-	//////////////////////////////////////////////////////////////////
-
-	/**
-	  * Fetch the entire contents of a text file, and return it in a String.
-	  *
-	  * @param fileName is the name of the file to read.
-	  *
-	  * @return the message from the file
-	  */
-	private String getFileContents(String fileName)
-									throws IOException {
-		// This is the important terminator check for CSV file processing!!!!
-		if (fileName == null) {
-			return null;
-		}
-
-		StringBuilder contents = new StringBuilder();
-
-		//use buffering, reading one line at a time
-		//FileReader always assumes default encoding is OK!
-		BufferedReader inputSource =  new BufferedReader(new FileReader(fileName));
-		try {
-			String line = null; //not declared within while loop
-			/*
-			* readLine is a bit quirky :
-			* it returns the content of a line MINUS the newline.
-			* it returns null only for the END of the stream.
-			* it returns an empty String if two newlines appear in a row.
-			*/
-			while (( line = inputSource.readLine()) != null) {
-				contents.append(line);
-				contents.append(System.getProperty("line.separator"));
-			}
-		}
-		finally {
-			inputSource.close();
-		}
-
-		return contents.toString();
-	}
-
-
-	/**
-	  * Fetch the message for sending and return it in a String.
-	  * It will contain maxRecsPerMessage records (which may originate from different files)
-	  *
-	  *
-	  * @return the the next message built from CSV records
-	  */
-	private String getNextMessage()
-								throws IOException, XMLException {
-
-		// Start new doc
-		recsReturnedForCurrentMessage = 0;
-		feederXML = createFeederDoc();
-
-		// Add records to the doc
-		String nextRec = "";
-		while (recsReturnedForCurrentMessage < maxRecsPerMessage && nextRec != null) {
-			nextRec = getNextRec();
-			logger.finer("Got record to process from file :" + nextRec);
-
-			if (nextRec != null) {
-				if (recsRead > numRecsToSkip) { // then have skipped first n recs (or wasn't due to skip any)
-					recsReturnedForCurrentMessage++;
-					addRecToResponse(feederXML, nextRec);
-					logger.finer("Added record " + recsRead + " to Response from file " + inputFileName);
-				}
-				else {
-					logger.finer("Skipped record " + recsRead + " from file " + inputFileName);
-				}
-			}
-		}
-
-		if (recsReturnedForCurrentMessage == 0) { // then no records were found - don't return the XML "shell"
-			logger.info("Total of " + recsRead + " record(s) read from file(s)");
-			logger.info("Total of " + recsReturnedForAllMessages + " record(s) loaded from file(s)");
-			return null;
-		}
-		else {
-			recsReturnedForAllMessages += recsReturnedForCurrentMessage;
-			logger.info("Batch of " + recsReturnedForCurrentMessage + " record(s) loaded from file(s)");
-			return feederXML.toString();
-		}
-	}
-
-	/**
-	  * Fetch the next row from the current file, and return it in a String.
-	  * If we run out of records, the next file will be opened and tried.
-	  *
-	  * @return the next record from the file(s)
-	  */
-	private String getNextRec()
-							throws IOException {
-
-		// See if we've run out of records in a file (or are just beginning)
-		// Open next file if needs be
-		if (inputSource == null) { // open next file
-			String nextFileName = getNextFileName();
-			if (nextFileName == null) {
-				return null;
-			}
-			else {
-				//use buffering, reading one line at a time
-				//FileReader always assumes default encoding is OK!
-				inputSource =  new BufferedReader(new FileReader(nextFileName));
-				inputFileName = nextFileName; // for logging purposes only
-				logger.info("Opened file " + inputFileName + " for input.");
-			}
-		}
-
-		String line = null; //not declared within while loop
-		/*
-		* readLine is a bit quirky :
-		* it returns the content of a line MINUS the newline.
-		* it returns null only for the END of the stream.
-		* it returns an empty String if two newlines appear in a row.
-		*/
-		if (( line = inputSource.readLine()) == null) { // then no more data in this file
-			inputSource.close();
-			inputSource = null;
-			return getNextRec(); // try for another file - will return null immediately if no more files
-		}
-		else {
-			recsRead++;
-			return line;
-		}
-	}
-
-	/**
-	  * Start a feeder doc
-	  *
-	  *
-	  * @return the new Feeder XML doc
-	  */
-	private XMLDocument createFeederDoc()
-								throws XMLException {
-
-		XMLDocument newFeederDoc = null;
-
-		try {
-			if (XMLFormat != null && XMLFormat.equals("INSERT")) {
-				actionObject = "DBACTION";
-			}
-
-			String newDoc = "<MESSAGE><" + actionObject + "></" + actionObject + "></MESSAGE>";
-			newFeederDoc = XMLDocument.createDoc(newDoc, XMLDocument.SCHEMA_VALIDATION_OFF);
-
-			// Go to DBACTION node and add ACTION_ON_ERROR value, if exists
-			newFeederDoc.setCurrentNodeByPath("/MESSAGE/DBACTION", 1);
-			if (XMLFormat != null && XMLFormat.equals("INSERT") && actionOnError != null) { // add actionOnError
-				newFeederDoc.addElement(null, "ACTION_ON_ERROR", actionOnError);
-			}
-		}
-		catch(XMLException e) {
-			logger.severe("Caught LwXMLException creating a new XML doc for feeding: " + e.getMessage());
-			throw new XMLException("LwProcessMessageForDb.buildErrorResponse(): Caught Exception creating a new XML doc for feeding: " + e.getMessage());
-		}
-
-		return newFeederDoc;
-	}
-
-	/**
-	  * Add a row to the supplied XML doc
-	  *
-	  * @param responseXML the XML document to which a row should be added.
-	  * @param row the data to be parsed and added to the doc.
-	  */
-	private void addRecToResponse(XMLDocument responseXML, String row)
-															throws XMLException {
-
-		// Defaults are for format of a SELECT statement...
-		String action = "ROW";
-
-		if (XMLFormat != null && XMLFormat.equals("INSERT")) {
-			action = "INSERT";
-		}
-
-		// Go to DBACTION node
-		responseXML.setCurrentNodeByPath("/MESSAGE/DBACTION", 1);
-
-		// Create a new ROW or INSERT aggregate and set current node to that new node
-		responseXML.setCurrentNode(responseXML.addElement(null, action, null));
-		if (XMLFormat != null && XMLFormat.equals("INSERT") && preparedStatementName != null) { // add preparedStatementName
-			responseXML.addElement(null, "PREPARED_STATEMENT_NAME", preparedStatementName);
-		}
-		if (XMLFormat != null && XMLFormat.equals("INSERT") && immediateCommit != null) { // add immediateCommit
-			responseXML.addElement(null, "IMMEDIATE_COMMIT", immediateCommit);
-		}
-
-
-		// Create a new COLUMN aggregate under the latest ROW and set current node to that new node
-		responseXML.setCurrentNode(responseXML.addElement(null, "COLUMNS", null));
-
-		StringTokenizer rowData = new StringTokenizer(row, fieldSeparator);
-		for (String colName : colNameList) {
-			if (rowData.hasMoreTokens()) {
-				String colData = rowData.nextToken();
-				responseXML.addElement(null, colName, colData);
-			}
-		}
-	}
-
-
-	/**
-	  * Get the next file name in the list
-	  *
-	  * @return the next file name
-	  */
-	private String getNextFileName() {
-		if (inputFileNames == null || fileNum >= (inputFileNames.length-1)) { // then am finished file list
-			return null;
-		}
-		else {
-			return inputFileNames[++fileNum];
-		}
-	}
-
-	private String inputFileDir = null;			// the directory in which candidate files reside
-	private String inputFileNameFilter = null;	// how to identify files to be processed
-	private boolean sortOnFileName = false;		// should the lsit of file anmes be sorted by filename?
-	private String dataFormat = "XML";			// input messages data format - XML, TEXT, CSV
-	private String fieldSeparator = "	";		// spearator for parsing fields within a CSV record (\t doesn't work here!!!)
-	private String XMLFormat = null;			// signify the shape of XML to be created, for example possibly matching a database action (SELECT, INSERT)
-	private String actionOnError = null;		// the action to be taken when the created INSERT fails - RESPOND or EXCEPTION
-	private String preparedStatementName = null;// the name of a Prepared Statement to use with the created INSERT
-	private String immediateCommit = null;		// the setting for whether the created action should be immediately committed
-	private int numRecsToSkip = 0;				// number of records to skip during reading of files i.e ignore first n recs (when handling CSV file(s))
-
-	// vars used when handling CSV file(s)
-	private int maxRecsPerMessage = 1;				// number of records to add to a particular message, before starting a new message (when handling CSV file(s))
-	private int recsReturnedForCurrentMessage = 0;	// number of records added to the current message being processed (when handling CSV file(s))
-	private int recsReturnedForAllMessages = 0;		// number of records returned from all files being processed (when handling CSV file(s))
-	private int recsRead = 0;						// number of records read so far from all files being processed (when handling CSV file(s))
-	private XMLDocument feederXML = null;		// build XML message in this doc (when handling CSV file(s))
-	private ArrayList<String> colNameList = null;	// the list of column names for naming XML tags (when handling CSV file(s))
-	private BufferedReader inputSource = null;		// Used when we're reading single CSV records from file(s)
-
-	private String[] inputFileNames = null;		// the list of files to process
-	private String inputFileName = null;		// Holds name of file currently being processed (for XML/TEXT file)
-	private int fileNum = -1;					// the next file name inputFileNames in the  array
-	private String actionObject = "TABLE";		// highest =level object in response - could be TABLE or DBACTION
-}
+package gemha.servers;
+
+import java.util.logging.*;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.io.*;
+import java.nio.charset.Charset;
+
+import lw.XML.*;
+import lw.utils.LwFilenameFilter;
+import lw.utils.LwLogger;
+import lw.utils.SettingsException;
+import gemha.support.DecompressingInputStream;
+import gemha.support.MappedCSVReader;
+import gemha.support.MessagingException;
+import gemha.support.ThreadPerMessagePool;
+import gemha.interfaces.IAcceptProcessedMesssages;
+
+/**
+  * This class retrieves messages from files.
+  * A message may be a record from CSV file
+  * or
+  * the complete contents of the file, in which case a 'filter' list of filenames may be processed.
+  *
+  * CSV records formatted for INSERT are written straight to the message text, without building a DOM.
+  * CSV files may be read through memory-mapped regions (see MappedCSVReader), in which case fields are
+  * only decoded as they are added to a message.
+  *
+  * Files may be read and converted to messages parallelReaders at a time, each file by its own reader
+  * (see FileIngestion), so each file's messages keep their order. If the file names are sorted, files' messages
+  * are then handed on in file name order too, otherwise as they become available. When read in parallel,
+  * a message never holds records from more than one file, and numRecsToSkip applies to each file.
+  *
+  * Alternatively, the directory may be watched (see setWatchMode()), so that files are processed as they arrive,
+  * for as long as the handler runs. The directory is polled for files matching the filter, and a file is only
+  * read once its size and last-modified time have not changed between two polls. It is moved to the done directory
+  * only once every message holding its records has been processed (see messageProcessed()), not as soon as it's read.
+  * Once a message is stayed, no more files are moved, so a restart reads them again. When watching, numRecsToSkip
+  * applies to each file.
+  *
+  * When reading CSV files through memory-mapped regions, a checkpoint may be kept (see setCheckpoint()): the file,
+  * byte offset and record number reached by the messages processed so far. Each message handed out is queued with
+  * the checkpoint it reaches, which is taken once that message has been processed (see messageProcessed()), not
+  * when it's dispatched. It's written to the checkpoint file (and synced to disk) at most every syncIntervalMillis,
+  * and at cleanup. Once a message is stayed, the checkpoint goes no further, so a restart reads that message again.
+  * At setup, reading resumes straight from the offset in the checkpoint file, if there is one. It's deleted once
+  * all files are read and their messages processed. A checkpoint can't be kept while watching the directory.
+  *
+  * Files compressed with gzip or zip (found by extension, or by their first bytes) are decompressed as they're read
+  * (see DecompressingInputStream), whether each file is a message or holds CSV records. A compressed file can't be
+  * memory-mapped, so is read by BufferedReader, and its checkpoint holds no byte offset, resuming by reading past
+  * the records already taken. The decompression throughput is reported at cleanup.
+  *
+  * @author Liam Wade
+  * @version 1.0 30/10/2008
+  * @version 1.1 16/10/2026 CSV records formatted for INSERT written straight to the message text, rather than through a DOM.
+  * @version 1.2 16/10/2026 Optionally read CSV files through memory-mapped regions.
+  * @version 1.3 16/10/2026 Optionally read and convert files in parallel.
+  * @version 1.4 16/10/2026 Optionally watch the directory for files, rather than read those there at setup.
+  * @version 1.5 16/10/2026 Optionally checkpoint the byte offset reached in CSV files, and resume from it.
+  * @version 1.6 16/10/2026 Decompress gzip and zip files as they're read.
+  */
+public class AcceptMessagesFromFiles implements IAcceptProcessedMesssages {
+
+    private static final Logger logger = Logger.getLogger("gemha");
+
+	private static final int MESSAGES_AHEAD_PER_FILE = 16;	// how many messages a parallel reader may convert before they are taken
+
+	public AcceptMessagesFromFiles(String inputFileDir, String inputFileNameFilter, boolean sortOnFileName, ArrayList<String> colNameList,
+										String dataFormat, String fieldSeparator, int maxRecsPerMessage, String XMLFormat,
+										String actionOnError, String preparedStatementName, String immediateCommit, int numRecsToSkip)
+																								throws SettingsException {
+		this(inputFileDir, inputFileNameFilter, sortOnFileName, colNameList, dataFormat, fieldSeparator, maxRecsPerMessage, XMLFormat,
+				actionOnError, preparedStatementName, immediateCommit, numRecsToSkip, false, 1);
+	}
+
+	public AcceptMessagesFromFiles(String inputFileDir, String inputFileNameFilter, boolean sortOnFileName, ArrayList<String> colNameList,
+										String dataFormat, String fieldSeparator, int maxRecsPerMessage, String XMLFormat,
+										String actionOnError, String preparedStatementName, String immediateCommit, int numRecsToSkip,
+										boolean memoryMappedCSVReader, int parallelReaders)
+																								throws SettingsException {
+		this.inputFileDir = inputFileDir;
+		this.inputFileNameFilter = inputFileNameFilter;
+		this.sortOnFileName = sortOnFileName;
+		this.colNameList = colNameList;
+		this.dataFormat = dataFormat;
+		if (fieldSeparator != null) {this.fieldSeparator = fieldSeparator;}
+		this.maxRecsPerMessage = maxRecsPerMessage;
+		this.XMLFormat = (XMLFormat == null ? "SELECT" : XMLFormat.toUpperCase());
+		this.actionOnError = actionOnError;
+		this.preparedStatementName = preparedStatementName;
+		this.immediateCommit = immediateCommit;
+		this.numRecsToSkip = numRecsToSkip;
+		this.memoryMappedCSVReader = memoryMappedCSVReader;
+		this.parallelReaders = parallelReaders;
+
+		if (parallelReaders < 1) {
+			throw new SettingsException("LwAcceptMessagesFromFiles.constructor(): parallelReaders parameter must be at least 1.");
+		}
+
+		if (dataFormat == null) {
+			throw new SettingsException("LwAcceptMessagesFromFiles.constructor(): dataFormat parameter is null.");
+		}
+
+		if (dataFormat.equals("CSV")) {
+			if (colNameList == null) {
+				throw new SettingsException("LwAcceptMessagesFromFiles.constructor(): colNameList parameter is null.");
+			}
+			if (memoryMappedCSVReader && ! MappedCSVReader.supports(Charset.defaultCharset(), this.fieldSeparator)) {
+				throw new SettingsException("LwAcceptMessagesFromFiles.constructor(): memory-mapped reading not supported for the default charset " + Charset.defaultCharset().name() + " or fieldSeparator.");
+			}
+		}
+	}
+
+	/**
+	  * Constructor for the reader of one file of a parallel read, taking its settings from the parent
+	  *
+	  * @param parent the instance reading the whole list of files
+	  * @param fileName the name of the one file to be read, path included
+	  */
+	private AcceptMessagesFromFiles(AcceptMessagesFromFiles parent, String fileName) {
+		this.inputFileDir = parent.inputFileDir;
+		this.inputFileNameFilter = parent.inputFileNameFilter;
+		this.colNameList = parent.colNameList;
+		this.dataFormat = parent.dataFormat;
+		this.fieldSeparator = parent.fieldSeparator;
+		this.maxRecsPerMessage = parent.maxRecsPerMessage;
+		this.XMLFormat = parent.XMLFormat;
+		this.actionOnError = parent.actionOnError;
+		this.preparedStatementName = parent.preparedStatementName;
+		this.immediateCommit = parent.immediateCommit;
+		this.numRecsToSkip = parent.numRecsToSkip;
+		this.memoryMappedCSVReader = parent.memoryMappedCSVReader;
+		this.inputFileNames = new String[] {fileName};
+	}
+
+	//////////////////////////////////////////////////////////////////
+	// Start: Implementation methods for LwIProcessMesssage Interface...
+	//////////////////////////////////////////////////////////////////
+	/**
+	  * Set the wait interval for accepting messages
+	  *
+	  * @param waitInterval how many milliseconds to wait for a message before returning nothing (0 = block indefinitely)
+	  */
+	@Override
+	public void setWaitInterval(int waitInterval) {
+		this.waitInterval = waitInterval;
+	}
+
+	/**
+	  * Set the wait interval setting to block forever
+	  *
+	  */
+	@Override
+	public void setWaitIntervalBlockIndefinitely() {
+		this.waitInterval = 0;
+	}
+
+	/**
+	  * Watch the directory for files, rather than read only those there at setup. To be called before performSetup().
+	  * When watching, acceptNextMessage() waits for up to the wait interval for a file to arrive.
+	  *
+	  * @param doneDir the directory to which files are moved once their messages are processed
+	  * @param pollIntervalMillis how often to look for new files, and check the size and last-modified time of files found
+	  */
+	public void setWatchMode(String doneDir, int pollIntervalMillis) {
+		if (doneDir == null) throw new IllegalArgumentException("AcceptMessagesFromFiles.setWatchMode: doneDir must be supplied.");
+		if (pollIntervalMillis < 1) throw new IllegalArgumentException("AcceptMessagesFromFiles.setWatchMode: pollIntervalMillis must be at least 1.");
+		if (parallelReaders > 1) throw new IllegalStateException("AcceptMessagesFromFiles.setWatchMode: files cannot be both watched for and read in parallel.");
+		if (checkpointFileName != null) throw new IllegalStateException("AcceptMessagesFromFiles.setWatchMode: files cannot be both watched for and checkpointed.");
+
+		this.watchDoneDir = doneDir;
+		this.watchPollIntervalMillis = pollIntervalMillis;
+	}
+
+	/**
+	  * Keep a checkpoint of how far messages have been processed, and resume from it at setup. To be called before performSetup().
+	  * Messages must be handed to the Processor in the order they're accepted, so not through a read-ahead pipeline.
+	  *
+	  * @param checkpointFileName the file in which to keep the checkpoint
+	  * @param syncIntervalMillis how often, at most, to write the checkpoint to the file, syncing it to disk (0 = on every consume)
+	  */
+	public void setCheckpoint(String checkpointFileName, int syncIntervalMillis) {
+		if (checkpointFileName == null) throw new IllegalArgumentException("AcceptMessagesFromFiles.setCheckpoint: checkpointFileName must be supplied.");
+		if (syncIntervalMillis < 0) throw new IllegalArgumentException("AcceptMessagesFromFiles.setCheckpoint: syncIntervalMillis must not be negative.");
+		if ( ! dataFormat.equals("CSV") || ! memoryMappedCSVReader) throw new IllegalStateException("AcceptMessagesFromFiles.setCheckpoint: only CSV files read through memory-mapped regions can be checkpointed.");
+		if (parallelReaders > 1) throw new IllegalStateException("AcceptMessagesFromFiles.setCheckpoint: files cannot be both checkpointed and read in parallel.");
+		if (isWatching()) throw new IllegalStateException("AcceptMessagesFromFiles.setCheckpoint: files cannot be both checkpointed and watched for.");
+
+		this.checkpointFileName = checkpointFileName;
+		this.checkpointSyncIntervalMillis = syncIntervalMillis;
+	}
+
+	/**
+	  * @return true if the directory is being watched for files (see setWatchMode())
+	  */
+	public boolean isWatching() {
+		return watchDoneDir != null;
+	}
+
+	/**
+	  * Set up conditions for accepting messages.
+	  *
+	  * @return true for success, false for failure
+	  */
+	@Override
+	public boolean performSetup()
+								throws MessagingException {
+
+		logger.finer("Starting Files-input setup now...");
+
+		if (checkpointFileName != null) {
+			resumeFrom = readCheckpoint();
+		}
+
+		if (inputFileDir == null || inputFileNameFilter == null) {
+			logger.severe("Could not perform setup. Missing File-selection information");
+			return false;
+		}
+
+		if (isWatching()) {
+			if ( ! new File(inputFileDir).isDirectory() || ! new File(watchDoneDir).isDirectory()) {
+				logger.severe("Could not perform setup. Watched directory " + inputFileDir + " or done directory " + watchDoneDir + " not found.");
+				throw new MessagingException("Watched directory " + inputFileDir + " or done directory " + watchDoneDir + " not found.");
+			}
+			logger.info("Watching directory " + inputFileDir + " for files, polling every " + watchPollIntervalMillis + "ms, moving them to " + watchDoneDir + " once processed.");
+			return true;
+		}
+
+		logger.finest("Instructed to get input data from files.");
+		File searchdir = new File(inputFileDir);
+		LwFilenameFilter filter = new LwFilenameFilter(inputFileNameFilter);
+
+		inputFileNames = searchdir.list(filter);
+
+		if (inputFileNames == null || inputFileNames.length < 1) {
+			logger.severe("No files matched the FileNameFilter pattern. Nothing to process.");
+			throw new MessagingException("No files matched the FileNameFilter pattern. Nothing to process.");
+		}
+		else {
+			if (sortOnFileName) { // sort the file names first, using the compareTo() method of String
+				Arrays.sort(inputFileNames);
+			}
+
+			// Add the path to each file name...
+			for (int i = 0; i < inputFileNames.length; i++) {
+				inputFileNames[i] = inputFileDir + inputFileNames[i];
+			}
+
+			if (parallelReaders > 1 && inputFileNames.length > 1) {
+				startParallelReaders();
+			}
+
+			if (resumeFrom != null) { // go straight to the file where we left off
+				int resumeFileNum = Arrays.asList(inputFileNames).indexOf(resumeFrom.fileName);
+				if (resumeFileNum < 0) {
+					logger.severe("File " + resumeFrom.fileName + " in checkpoint file " + checkpointFileName + " is not among the files to process. Remove the checkpoint file to start afresh.");
+					throw new MessagingException("File " + resumeFrom.fileName + " in checkpoint file " + checkpointFileName + " is not among the files to process.");
+				}
+				fileNum = resumeFileNum - 1;
+			}
+		}
+
+		logger.finer("Files-input setup was successful.");
+
+		return true;
+	}
+
+	/**
+	  * Process a message
+	  *
+	  * @return the next message retrieved
+	  */
+	@Override
+	public String acceptNextMessage()
+									throws MessagingException {
+
+		if (ingestions != null) { // then files are being read in parallel
+			return acceptNextIngestedMessage();
+		}
+
+		if (isWatching()) {
+			return acceptNextWatchedMessage();
+		}
+
+		if (inputFileNames == null || fileNum > (inputFileNames.length-1)) { // then am finished file list
+			return null;
+		}
+
+		String receivedMessage = readNextMessage();
+
+		if (receivedMessage == null) { // then no records left - report
+			allFilesRead = true;
+			if (inputFileNames != null) {
+				logger.info(inputFileNames.length + " file(s) processed.");
+				return null;
+			}
+		}
+
+		return receivedMessage;
+	}
+
+	/**
+	  * Read the next message from the file(s) to hand
+	  *
+	  * @return the next message, null if none left in the file(s) to hand
+	  */
+	private String readNextMessage()
+								throws MessagingException {
+
+		String receivedMessage = null;
+
+		try {
+			if (dataFormat.equals("CSV")) { // then we're processing n number of records from file(s) for a given message
+				receivedMessage = getNextMessage();
+			}
+			else { // each file is one message
+				inputFileName = getNextFileName();
+				if (inputFileName == null) {
+					return null;
+				}
+
+				receivedMessage = getFileContents(inputFileName);
+				logger.info("Message loaded from file " + inputFileName);
+				fileFinished(inputFileName, true);
+			}
+
+			if (receivedMessage != null && isTrackingProcessed()) {
+				messageHandedOut();
+			}
+		}
+		catch(IOException e) {
+			throw new MessagingException("IOException encountered while reading next message from File " + inputFileName + ": " + e);
+		}
+		catch(XMLException e) {
+			throw new MessagingException("LwXMLException encountered while reading CSV messages from File " + inputFileName + ": " + e);
+		}
+
+		return receivedMessage;
+	}
+
+	/**
+	  * Read the next message from the watched directory, waiting for up to the wait interval for a file to arrive.
+	  *
+	  * @return the next message, null if none arrived in time (or interrupted while waiting)
+	  */
+	private String acceptNextWatchedMessage()
+										throws MessagingException {
+
+		long giveUpAt = (waitInterval > 0 ? System.currentTimeMillis() + waitInterval : Long.MAX_VALUE);
+
+		while (true) {
+			if ( ! isFileInHand()) {
+				pollWatchedDirectory();
+			}
+
+			if (isFileInHand()) {
+				String receivedMessage = readNextMessage();
+				if (receivedMessage != null) {
+					return receivedMessage;
+				}
+				continue; // everything to hand was read (perhaps all skipped), so look again
+			}
+
+			long remaining = giveUpAt - System.currentTimeMillis();
+			if (remaining <= 0) {
+				return null;
+			}
+
+			try {
+				Thread.sleep(Math.min(remaining, watchPollIntervalMillis));
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		}
+	}
+
+	/**
+	  * @return true if, while watching, a file is open or ready to be read
+	  */
+	private boolean isFileInHand() {
+		return (inputSource != null || mappedSource != null || ! watchReadyFiles.isEmpty());
+	}
+
+	/**
+	  * Look in the watched directory for files matching the filter. Those whose size and last-modified time are
+	  * unchanged since the last look are ready to be read. The rest are remembered, for the next look.
+	  * Files already taken for reading are left alone, as they stay in the directory until their messages are processed.
+	  */
+	private void pollWatchedDirectory() {
+		String[] fileNames = new File(inputFileDir).list(new LwFilenameFilter(inputFileNameFilter));
+		if (fileNames == null) {
+			logger.warning("Could not list watched directory " + inputFileDir);
+			return;
+		}
+
+		if (sortOnFileName) { // sort the file names first, using the compareTo() method of String
+			Arrays.sort(fileNames);
+		}
+
+		Map<String, String> unstableFiles = new HashMap<String, String>();
+		for (String fileName : fileNames) {
+			File file = new File(inputFileDir + fileName);
+			if ( ! file.isFile() || isWatchFileTaken(inputFileDir + fileName)) {
+				continue;
+			}
+
+			String sizeAndTime = file.length() + "/" + file.lastModified();
+			if (sizeAndTime.equals(watchUnstableFiles.get(fileName))) { // then unchanged since last look
+				watchReadyFiles.add(inputFileDir + fileName);
+				synchronized (this) {
+					watchFilesTaken.add(inputFileDir + fileName);
+				}
+			}
+			else {
+				unstableFiles.put(fileName, sizeAndTime);
+			}
+		}
+		watchUnstableFiles = unstableFiles;
+	}
+
+	/**
+	  * @param fileName the name of the file, path included
+	  * @return true if the file has been taken for reading from the watched directory, and not yet moved from it
+	  */
+	private synchronized boolean isWatchFileTaken(String fileName) {
+		return watchFilesTaken.contains(fileName);
+	}
+
+	/**
+	  * Note that a file has been read to the end. If watching, it is to be moved to the done directory once the last
+	  * message holding its records has been processed. If that's the message being read, it is noted for that message.
+	  * Otherwise it's an earlier message, so the file is noted for the last message handed out, or moved now if every
+	  * message handed out has been processed.
+	  *
+	  * @param fileName the name of the file, path included
+	  * @param inCurrentMessage true if the message being read may hold records from the file
+	  *
+	  * @throws IOException if the file could not be moved
+	  */
+	private void fileFinished(String fileName, boolean inCurrentMessage)
+							throws IOException {
+
+		if ( ! isWatching()) {
+			return;
+		}
+
+		if (inCurrentMessage) {
+			watchFilesInMessage.add(fileName);
+			return;
+		}
+
+		synchronized (this) {
+			if ( ! pendingMessages.isEmpty()) {
+				pendingMessages.getLast().finishedFiles.add(fileName);
+			}
+			else if ( ! messageStayed) {
+				moveToDoneDir(fileName);
+			}
+		}
+	}
+
+	/**
+	  * @return true if messages handed out must be followed until processed, to move files or take a checkpoint
+	  */
+	private boolean isTrackingProcessed() {
+		return (isWatching() || checkpointFileName != null);
+	}
+
+	/**
+	  * Note that a message has been handed out, along with the files whose last records it holds, so they can be moved
+	  * once it has been processed (see messageProcessed()). If checkpointing, note how far the message takes us.
+	  */
+	private void messageHandedOut() {
+		Checkpoint checkpoint = (checkpointFileName == null ? null : new Checkpoint(positionFileName, positionOffset, recsReadFromFile, recsRead));
+		synchronized (this) {
+			pendingMessages.add(new PendingMessage(watchFilesInMessage, checkpoint));
+		}
+		watchFilesInMessage = new ArrayList<String>();
+	}
+
+	/**
+	  * Move a file that has been read, and whose messages have been processed, to the done directory.
+	  * (Guarded by this)
+	  *
+	  * @param fileName the name of the file, path included
+	  *
+	  * @throws IOException if the file could not be moved
+	  */
+	private void moveToDoneDir(String fileName)
+							throws IOException {
+
+		File file = new File(fileName);
+		File doneFile = new File(watchDoneDir, file.getName());
+		if (doneFile.exists()) { // don't overwrite an earlier file of the same name
+			doneFile = new File(watchDoneDir, file.getName() + "." + System.currentTimeMillis());
+		}
+
+		if ( ! file.renameTo(doneFile)) {
+			logger.severe("Could not move file " + fileName + " to " + doneFile.getPath());
+			throw new IOException("Could not move file " + fileName + " to " + doneFile.getPath() + " (it would be read again)");
+		}
+
+		watchFilesTaken.remove(fileName);
+		watchFilesDone++;
+		logger.info("Moved file " + fileName + " to " + doneFile.getPath());
+	}
+
+	/**
+	  * Do not consume the message. If watching, no more files are moved to the done directory, so a restart reads
+	  * those not yet moved again. If checkpointing, the checkpoint goes no further, so a restart reads the message again.
+	  *
+	  */
+	@Override
+	public synchronized void stayMessage(String auditKey)
+							throws MessagingException {
+		if ( ! isTrackingProcessed() || messageStayed) {
+			return;
+		}
+
+		messageStayed = true;
+		if (isWatching()) {
+			logger.warning("Message with AuditKey Value " + auditKey + " not consumed, so files not yet moved will be left in watched directory " + inputFileDir);
+		}
+		if (checkpointFileName != null) {
+			logger.warning("Message with AuditKey Value " + auditKey + " not consumed, so checkpoint will go no further than " + (consumedCheckpoint == null ? "the start" : consumedCheckpoint.toString()));
+			if (consumedCheckpoint != null) {
+				writeCheckpoint(consumedCheckpoint);
+			}
+		}
+	}
+
+	/**
+	  * Consume the message now. Nothing to do here: files are moved, and the checkpoint taken, only once the
+	  * message has been processed (see messageProcessed()).
+	  *
+	  */
+	@Override
+	public void consumeMessage(String auditKey)
+							throws MessagingException {
+	}
+
+	/**
+	  * Note that the next message handed out has been processed, unless a message has been stayed. If checkpointing,
+	  * take the checkpoint it reaches. If watching, move the files whose last records it held to the done directory.
+	  *
+	  */
+	@Override
+	public void messageProcessed(String auditKey)
+							throws MessagingException {
+		if ( ! isTrackingProcessed()) {
+			return;
+		}
+
+		synchronized (this) {
+			PendingMessage message = pendingMessages.poll();
+			if (message == null || messageStayed) {
+				return;
+			}
+
+			if (message.checkpoint != null) {
+				consumedCheckpoint = message.checkpoint;
+
+				long now = System.currentTimeMillis();
+				if (now >= nextCheckpointSync) {
+					writeCheckpoint(consumedCheckpoint);
+					nextCheckpointSync = now + checkpointSyncIntervalMillis;
+				}
+			}
+
+			for (String fileName : message.finishedFiles) {
+				try {
+					moveToDoneDir(fileName);
+				}
+				catch(IOException e) {
+					throw new MessagingException("IOException encountered moving File " + fileName + " to done directory: " + e);
+				}
+			}
+		}
+	}
+
+	/**
+	  * Perform any clean-up actions before closing down
+	  *
+	  */
+	@Override
+	public void performCleanup(LwLogger shutdownLogger) {
+		if (readerService != null) { // stop the parallel readers, so their counts can be read
+			readerService.shutdownNow();
+			try {
+				readerService.awaitTermination(1, TimeUnit.MINUTES);
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		closeInputSources(); // so the decompression of the last file is counted
+
+		int totalRecsRead = recsRead;
+		int totalRecsReturned = recsReturnedForAllMessages;
+		int totalCompressedFiles = compressedFilesRead;
+		long totalCompressedBytes = compressedBytesRead;
+		long totalDecompressedBytes = decompressedBytes;
+		long totalDecompressNanos = decompressNanos;
+		if (ingestions != null) {
+			for (FileIngestion ingestion : ingestions) {
+				totalRecsRead += ingestion.reader.recsRead;
+				totalRecsReturned += ingestion.reader.recsReturnedForAllMessages;
+				totalCompressedFiles += ingestion.reader.compressedFilesRead;
+				totalCompressedBytes += ingestion.reader.compressedBytesRead;
+				totalDecompressedBytes += ingestion.reader.decompressedBytes;
+				totalDecompressNanos += ingestion.reader.decompressNanos;
+			}
+		}
+
+		try {
+			shutdownLogger.appendln("I0100 LwAcceptMessagesFromFiles.performCleanup(): Total of " + totalRecsRead + " record(s) read from file(s)");
+			shutdownLogger.appendln("I0101 LwAcceptMessagesFromFiles.performCleanup(): Total of " + totalRecsReturned + " record(s) loaded from file(s)");
+
+			if (inputFileNames != null) {
+				shutdownLogger.appendln("I0102 LwAcceptMessagesFromFiles.performCleanup(): " + inputFileNames.length + " file(s) processed.");
+			}
+
+			if (totalCompressedFiles > 0) {
+				long millis = totalDecompressNanos / 1000000;
+				shutdownLogger.appendln("I0106 LwAcceptMessagesFromFiles.performCleanup(): " + totalCompressedFiles + " compressed file(s): " + totalCompressedBytes + " byte(s) decompressed to "
+											+ totalDecompressedBytes + " byte(s) in " + millis + "ms"
+											+ (millis > 0 ? " (" + (totalDecompressedBytes * 1000 / millis / (1024 * 1024)) + " MB/s)" : ""));
+			}
+
+			if (isWatching()) {
+				shutdownLogger.appendln("I0104 LwAcceptMessagesFromFiles.performCleanup(): " + watchFilesDone + " file(s) processed from watched directory " + inputFileDir);
+				int filesLeft = filesAwaitingProcessing();
+				if (filesLeft > 0) {
+					shutdownLogger.appendln("I0107 LwAcceptMessagesFromFiles.performCleanup(): " + filesLeft + " file(s) read but left in watched directory, their messages not all processed");
+				}
+			}
+
+			if (ingestions != null) {
+				for (FileIngestion ingestion : ingestions) {
+					shutdownLogger.appendln("I0103 LwAcceptMessagesFromFiles.performCleanup(): File " + ingestion.fileName + ": " + ingestion.reader.recsRead + " record(s) read, "
+												+ ingestion.reader.recsReturnedForAllMessages + " record(s) loaded" + (ingestion.finished ? "" : ", NOT finished"));
+				}
+			}
+		}
+		catch(IOException e) {
+			System.out.println("E0100 LwAcceptMessagesFromFiles.performCleanup(): could not write to shutDownLogFile.");
+		}
+
+		if (checkpointFileName != null) {
+			synchronized (this) {
+				try {
+					if (allFilesRead && ! messageStayed && pendingMessages.isEmpty()) { // then all done, nothing to resume
+						new File(checkpointFileName).delete();
+						shutdownLogger.appendln("I0105 LwAcceptMessagesFromFiles.performCleanup(): All files read and their messages processed, checkpoint file " + checkpointFileName + " removed.");
+					}
+					else if (consumedCheckpoint != null) {
+						writeCheckpoint(consumedCheckpoint);
+						shutdownLogger.appendln("I0105 LwAcceptMessagesFromFiles.performCleanup(): Checkpoint " + consumedCheckpoint + " written to " + checkpointFileName);
+					}
+				}
+				catch(MessagingException e) {
+					System.out.println("E0101 LwAcceptMessagesFromFiles.performCleanup(): " + e.getMessage());
+				}
+				catch(IOException e) {
+					System.out.println("E0100 LwAcceptMessagesFromFiles.performCleanup(): could not write to shutDownLogFile.");
+				}
+			}
+		}
+	}
+
+	/**
+	  * @return the number of files read to the end, but not moved as their messages are yet to be processed
+	  */
+	private synchronized int filesAwaitingProcessing() {
+		int files = watchFilesInMessage.size();
+		for (PendingMessage message : pendingMessages) {
+			files += message.finishedFiles.size();
+		}
+		return files;
+	}
+
+	/**
+	  * Read the checkpoint file, if there is one
+	  *
+	  * @return the checkpoint, null if no checkpoint file
+	  */
+	private Checkpoint readCheckpoint()
+								throws MessagingException {
+		File file = new File(checkpointFileName);
+		if ( ! file.exists()) {
+			logger.info("No checkpoint file " + checkpointFileName + ", so starting from the beginning.");
+			return null;
+		}
+
+		Properties p = new Properties();
+		try {
+			FileInputStream in = new FileInputStream(file);
+			try {
+				p.load(in);
+			}
+			finally {
+				in.close();
+			}
+			Checkpoint checkpoint = new Checkpoint(p.getProperty("FileName"), Long.parseLong(p.getProperty("ByteOffset")),
+													Integer.parseInt(p.getProperty("FileRecordNumber")), Integer.parseInt(p.getProperty("TotalRecordNumber")));
+			if (checkpoint.fileName == null) {
+				throw new NumberFormatException("no FileName");
+			}
+			logger.info("Resuming from checkpoint " + checkpoint + " in checkpoint file " + checkpointFileName);
+			return checkpoint;
+		}
+		catch(IOException e) {
+			throw new MessagingException("IOException encountered reading checkpoint file " + checkpointFileName + ": " + e);
+		}
+		catch(NumberFormatException e) { // includes a missing property
+			throw new MessagingException("Invalid checkpoint file " + checkpointFileName + ": " + e);
+		}
+	}
+
+	/**
+	  * Write the checkpoint to the checkpoint file, synced to disk. Written to a new file first, then renamed, so
+	  * a failure part-way through never leaves a damaged checkpoint file.
+	  *
+	  * @param checkpoint the checkpoint to be written
+	  */
+	private void writeCheckpoint(Checkpoint checkpoint)
+								throws MessagingException {
+		Properties p = new Properties();
+		p.setProperty("FileName", checkpoint.fileName);
+		p.setProperty("ByteOffset", String.valueOf(checkpoint.byteOffset));
+		p.setProperty("FileRecordNumber", String.valueOf(checkpoint.fileRecordNumber));
+		p.setProperty("TotalRecordNumber", String.valueOf(checkpoint.totalRecordNumber));
+
+		File newFile = new File(checkpointFileName + ".new");
+		File file = new File(checkpointFileName);
+		try {
+			FileOutputStream out = new FileOutputStream(newFile);
+			try {
+				p.store(out, "LwAcceptMessagesFromFiles checkpoint");
+				out.getFD().sync();
+			}
+			finally {
+				out.close();
+			}
+
+			if ( ! newFile.renameTo(file)) { // some platforms won't rename over an existing file
+				file.delete();
+				if ( ! newFile.renameTo(file)) {
+					throw new IOException("could not rename " + newFile.getPath() + " to " + file.getPath());
+				}
+			}
+		}
+		catch(IOException e) {
+			throw new MessagingException("IOException encountered writing checkpoint file " + checkpointFileName + ": " + e);
+		}
+		logger.fine("Checkpoint " + checkpoint + " written to " + checkpointFileName);
+	}
+
+	/**
+	  * Close whichever input file is open
+	  */
+	private void closeInputSources() {
+		if (inputSource != null) {
+			try { inputSource.close();} catch(IOException e) { /* do nothing */}
+			inputSource = null;
+			countDecompression();
+		}
+
+		if (mappedSource != null) {
+			try { mappedSource.close();} catch(IOException e) { /* do nothing */}
+			mappedSource = null;
+		}
+	}
+
+	/**
+	  * How far messages have reached in the files: the file, the byte offset of the next record to be read, and the
+	  * number of records read from that file and from all files.
+	  */
+	private static class Checkpoint {
+		private final String fileName;
+		private final long byteOffset;
+		private final int fileRecordNumber;
+		private final int totalRecordNumber;
+
+		private Checkpoint(String fileName, long byteOffset, int fileRecordNumber, int totalRecordNumber) {
+			this.fileName = fileName;
+			this.byteOffset = byteOffset;
+			this.fileRecordNumber = fileRecordNumber;
+			this.totalRecordNumber = totalRecordNumber;
+		}
+
+		@Override
+		public String toString() {
+			return fileName + " record " + fileRecordNumber + (byteOffset < 0 ? "" : " (byte offset " + byteOffset + ")");
+		}
+	}
+
+	/**
+	  * A message handed out but not yet processed, with the files whose last records it holds, to be moved to the
+	  * done directory once it's processed, and the checkpoint it reaches (null if not checkpointing).
+	  */
+	private static class PendingMessage {
+		private final List<String> finishedFiles;
+		private final Checkpoint checkpoint;
+
+		private PendingMessage(List<String> finishedFiles, Checkpoint checkpoint) {
+			this.finishedFiles = finishedFiles;
+			this.checkpoint = checkpoint;
+		}
+	}
+
+	/**
+	  * Reads one file of a parallel read, converting it to messages with its own reader (so with its own
+	  * record counts), and queueing them for acceptNextIngestedMessage(), followed by an end-of-file marker.
+	  */
+	private class FileIngestion implements Runnable {
+		private final String fileName;
+		private final AcceptMessagesFromFiles reader;
+		private final BlockingQueue<IngestedMessage> messages;
+		private volatile boolean finished = false;
+		private volatile Exception failure = null;
+
+		private FileIngestion(String fileName, BlockingQueue<IngestedMessage> messages) {
+			this.fileName = fileName;
+			this.reader = new AcceptMessagesFromFiles(AcceptMessagesFromFiles.this, fileName);
+			this.messages = messages;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (dataFormat.equals("CSV")) {
+					String message = null;
+					while ((message = reader.getNextMessage()) != null) {
+						messages.put(new IngestedMessage(this, message));
+					}
+				}
+				else { // the file is one message
+					messages.put(new IngestedMessage(this, reader.getFileContents(fileName)));
+					logger.info("Message loaded from file " + fileName);
+				}
+				finished = true;
+			}
+			catch(InterruptedException e) { // shutting down
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch(Exception e) {
+				logger.severe("Exception encountered while reading messages from File " + fileName + ": " + e);
+				failure = e;
+			}
+			finally {
+				reader.closeInputSources();
+			}
+
+			try {
+				messages.put(new IngestedMessage(this, null)); // end-of-file marker
+			}
+			catch(InterruptedException e) { // shutting down
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	  * A message converted by a parallel reader, or, if message is null, the end of its file.
+	  */
+	private static class IngestedMessage {
+		private final FileIngestion from;
+		private final String message;
+
+		private IngestedMessage(FileIngestion from, String message) {
+			this.from = from;
+			this.message = message;
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////
+	// End: Implementation methods for LwIProcessMesssage Interface...
+	//////////////////////////////////////////////////////////////////
+
+	/**
+	  * Start reading and converting the files in parallel, parallelReaders at a time. Files are started in list order,
+	  * so if messages are taken in that order too, the file whose messages are next always has a reader.
+	  */
+	private void startParallelReaders() {
+		ingestions = new ArrayList<FileIngestion>(inputFileNames.length);
+		if ( ! sortOnFileName) { // then take messages from whichever file has them ready
+			mergedMessages = new ArrayBlockingQueue<IngestedMessage>(MESSAGES_AHEAD_PER_FILE * parallelReaders);
+		}
+
+		readerService = ThreadPerMessagePool.newExecutor("FileReader", Math.min(parallelReaders, inputFileNames.length));
+		for (String fileName : inputFileNames) {
+			FileIngestion ingestion = new FileIngestion(fileName, (mergedMessages != null ? mergedMessages : new ArrayBlockingQueue<IngestedMessage>(MESSAGES_AHEAD_PER_FILE)));
+			ingestions.add(ingestion);
+			readerService.execute(ingestion);
+		}
+		readerService.shutdown(); // no more files to come, so let the threads end once all are read
+
+		logger.info("Reading " + inputFileNames.length + " file(s), " + parallelReaders + " at a time, messages handed on " + (sortOnFileName ? "in file name order." : "as they become available."));
+	}
+
+	/**
+	  * Take the next message converted by the parallel readers. If the file names are sorted, each file's
+	  * messages are all taken before the next file's.
+	  *
+	  * @return the next message, null if all files have been read
+	  */
+	private String acceptNextIngestedMessage()
+										throws MessagingException {
+
+		while (ingestionsFinished < ingestions.size()) {
+			// files finish in list order, when taken in file name order
+			BlockingQueue<IngestedMessage> messages = (mergedMessages != null ? mergedMessages : ingestions.get(ingestionsFinished).messages);
+
+			IngestedMessage next = null;
+			try {
+				next = messages.take();
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MessagingException("Interrupted while waiting for next message from files.");
+			}
+
+			if (next.message != null) {
+				return next.message;
+			}
+
+			// Otherwise that file is finished
+			ingestionsFinished++;
+			FileIngestion ingestion = next.from;
+			if (ingestion.failure != null) {
+				throw new MessagingException("Exception encountered while reading messages from File " + ingestion.fileName + ": " + ingestion.failure);
+			}
+			logger.info("Finished file " + ingestion.fileName + ": " + ingestion.reader.recsRead + " record(s) read, " + ingestion.reader.recsReturnedForAllMessages + " record(s) loaded.");
+		}
+
+		logger.info(inputFileNames.length + " file(s) processed.");
+		return null;
+	}
+
+	/**
+	  * Fetch the entire contents of a text file, and return it in a String.
+	  *
+	  * @param fileName is the name of the file to read.
+	  *
+	  * @return the message from the file
+	  */
+	private String getFileContents(String fileName)
+									throws IOException {
+		// This is the important terminator check for CSV file processing!!!!
+		if (fileName == null) {
+			return null;
+		}
+
+		StringBuilder contents = new StringBuilder();
+
+		//use buffering, reading one line at a time
+		BufferedReader inputSource =  openBufferedReader(fileName, DecompressingInputStream.compressionOf(fileName));
+		try {
+			String line = null; //not declared within while loop
+			/*
+			* readLine is a bit quirky :
+			* it returns the content of a line MINUS the newline.
+			* it returns null only for the END of the stream.
+			* it returns an empty String if two newlines appear in a row.
+			*/
+			while (( line = inputSource.readLine()) != null) {
+				contents.append(line);
+				contents.append(System.getProperty("line.separator"));
+			}
+		}
+		finally {
+			inputSource.close();
+			countDecompression();
+		}
+
+		return contents.toString();
+	}
+
+	/**
+	  * Open a file for reading a line at a time, decompressing it if compressed.
+	  * FileReader (or InputStreamReader) always assumes default encoding is OK!
+	  *
+	  * @param fileName the name of the file, path included
+	  * @param compression how the file is compressed (see DecompressingInputStream.compressionOf()), null if not
+	  * @return the reader
+	  */
+	private BufferedReader openBufferedReader(String fileName, String compression)
+									throws IOException {
+		if (compression == null) {
+			return new BufferedReader(new FileReader(fileName));
+		}
+
+		decompressingSource = new DecompressingInputStream(fileName, compression);
+		return new BufferedReader(new InputStreamReader(decompressingSource), DECOMPRESSED_CHARS_BUFFER_SIZE);
+	}
+
+	/**
+	  * Add the counts of the compressed file just closed, if it was compressed, to the decompression statistics
+	  */
+	private void countDecompression() {
+		if (decompressingSource != null) {
+			compressedFilesRead++;
+			compressedBytesRead += decompressingSource.getCompressedSize();
+			decompressedBytes += decompressingSource.getDecompressedBytes();
+			decompressNanos += decompressingSource.getReadNanos();
+			logger.fine("File " + inputFileName + " (" + decompressingSource.getCompression() + "): " + decompressingSource.getCompressedSize() + " byte(s) decompressed to "
+							+ decompressingSource.getDecompressedBytes() + " byte(s) in " + (decompressingSource.getReadNanos() / 1000000) + "ms");
+			decompressingSource = null;
+		}
+	}
+
+
+	/**
+	  * Fetch the message for sending and return it in a String.
+	  * It will contain maxRecsPerMessage records (which may originate from different files)
+	  *
+	  *
+	  * @return the the next message built from CSV records
+	  */
+	private String getNextMessage()
+								throws IOException, XMLException {
+
+		// Start new doc (or just its text, for INSERT)
+		recsReturnedForCurrentMessage = 0;
+		boolean feedAsText = XMLFormat.equals("INSERT");
+		if (feedAsText) {
+			startFeederText();
+		}
+		else {
+			feederXML = createFeederDoc();
+		}
+
+		// Add records to the doc
+		// (when memory-mapped, nextRec is left null, the record being held by mappedSource)
+		String nextRec = null;
+		boolean gotRec = true;
+		while (recsReturnedForCurrentMessage < maxRecsPerMessage && gotRec) {
+			gotRec = getNextRec();
+			nextRec = currentRec;
+			if (gotRec && logger.isLoggable(Level.FINER)) {
+				logger.finer("Got record to process from file :" + (nextRec == null ? mappedSource.getRecord() : nextRec));
+			}
+
+			if (gotRec) {
+				if ((isWatching() ? recsReadFromFile : recsRead) > numRecsToSkip) { // then have skipped first n recs (or wasn't due to skip any)
+					recsReturnedForCurrentMessage++;
+					if (feedAsText) {
+						addRecToFeederText(nextRec);
+					}
+					else {
+						addRecToResponse(feederXML, nextRec);
+					}
+					logger.finer("Added record " + recsRead + " to Response from file " + inputFileName);
+				}
+				else {
+					logger.finer("Skipped record " + recsRead + " from file " + inputFileName);
+				}
+			}
+		}
+
+		if (recsReturnedForCurrentMessage == 0) { // then no records were found - don't return the XML "shell"
+			logger.info("Total of " + recsRead + " record(s) read from file(s)");
+			logger.info("Total of " + recsReturnedForAllMessages + " record(s) loaded from file(s)");
+			return null;
+		}
+		else {
+			recsReturnedForAllMessages += recsReturnedForCurrentMessage;
+			logger.info("Batch of " + recsReturnedForCurrentMessage + " record(s) loaded from file(s)");
+			return (feedAsText ? finishFeederText() : feederXML.toString());
+		}
+	}
+
+	/**
+	  * Move on to the next row from the current file, leaving it in currentRec, or, if the file is read through
+	  * memory-mapped regions, in mappedSource (currentRec being left null).
+	  * If we run out of records, the next file will be opened and tried.
+	  *
+	  * @return true if there was another record in the file(s)
+	  */
+	private boolean getNextRec()
+							throws IOException {
+
+		// See if we've run out of records in a file (or are just beginning)
+		// Open next file if needs be
+		if (inputSource == null && mappedSource == null) { // open next file
+			if ( ! openNextFile()) {
+				return false;
+			}
+		}
+
+		boolean gotRec;
+		if (mappedSource != null) {
+			currentRec = null;
+			gotRec = mappedSource.nextRecord();
+		}
+		else {
+			/*
+			* readLine is a bit quirky :
+			* it returns the content of a line MINUS the newline.
+			* it returns null only for the END of the stream.
+			* it returns an empty String if two newlines appear in a row.
+			*/
+			currentRec = inputSource.readLine();
+			gotRec = (currentRec != null);
+		}
+
+		if ( ! gotRec) { // then no more data in this file
+			closeInputSources();
+			fileFinished(inputFileName, recsReturnedForCurrentMessage > 0);
+			return getNextRec(); // try for another file - will return false immediately if no more files
+		}
+		else {
+			recsRead++;
+			recsReadFromFile++;
+			positionOffset = (mappedSource != null ? mappedSource.getNextRecordOffset() : -1);
+			return true;
+		}
+	}
+
+	/**
+	  * Open the next file for reading its records, through memory-mapped regions if so configured and the file is
+	  * not compressed, otherwise by BufferedReader. If resuming from a checkpoint in this file, skip to where we left off.
+	  *
+	  * @return false if there are no more files
+	  */
+	private boolean openNextFile()
+							throws IOException {
+		String nextFileName = getNextFileName();
+		if (nextFileName == null) {
+			return false;
+		}
+
+		String compression = DecompressingInputStream.compressionOf(nextFileName);
+		inputFileName = nextFileName; // for logging purposes only
+		recsReadFromFile = 0;
+		positionFileName = nextFileName;
+		positionOffset = 0;
+
+		if (memoryMappedCSVReader && compression == null) {
+			mappedSource = new MappedCSVReader(nextFileName, fieldSeparator, Charset.defaultCharset());
+			logger.info("Opened file " + inputFileName + " for memory-mapped input.");
+		}
+		else {
+			inputSource = openBufferedReader(nextFileName, compression);
+			positionOffset = -1;
+			logger.info("Opened file " + inputFileName + " for input" + (compression == null ? "." : ", decompressing it (" + compression + ")."));
+		}
+
+		if (resumeFrom != null && resumeFrom.fileName.equals(nextFileName)) { // then skip to where we left off
+			if (mappedSource != null && resumeFrom.byteOffset >= 0) { // straight there
+				mappedSource.seek(resumeFrom.byteOffset);
+				positionOffset = resumeFrom.byteOffset;
+			}
+			else { // by reading past the records already taken
+				for (int i = 0; i < resumeFrom.fileRecordNumber; i++) {
+					if ((mappedSource != null ? ! mappedSource.nextRecord() : inputSource.readLine() == null)) {
+						throw new IOException("file " + nextFileName + " has fewer records than checkpoint " + resumeFrom);
+					}
+				}
+				if (mappedSource != null) {
+					positionOffset = mappedSource.getNextRecordOffset();
+				}
+			}
+			recsReadFromFile = resumeFrom.fileRecordNumber;
+			recsRead = resumeFrom.totalRecordNumber;
+			logger.info("Resumed file " + inputFileName + " at record " + recsReadFromFile + (positionOffset < 0 ? "." : " (byte offset " + positionOffset + ")."));
+			resumeFrom = null;
+		}
+
+		return true;
+	}
+
+	/**
+	  * Start a feeder doc
+	  *
+	  *
+	  * @return the new Feeder XML doc
+	  */
+	private XMLDocument createFeederDoc()
+								throws XMLException {
+
+		XMLDocument newFeederDoc = null;
+
+		try {
+			if (XMLFormat != null && XMLFormat.equals("INSERT")) {
+				actionObject = "DBACTION";
+			}
+
+			String newDoc = "<MESSAGE><" + actionObject + "></" + actionObject + "></MESSAGE>";
+			newFeederDoc = XMLDocument.createDoc(newDoc, XMLDocument.SCHEMA_VALIDATION_OFF);
+
+			// Go to DBACTION node and add ACTION_ON_ERROR value, if exists
+			newFeederDoc.setCurrentNodeByPath("/MESSAGE/DBACTION", 1);
+			if (XMLFormat != null && XMLFormat.equals("INSERT") && actionOnError != null) { // add actionOnError
+				newFeederDoc.addElement(null, "ACTION_ON_ERROR", actionOnError);
+			}
+		}
+		catch(XMLException e) {
+			logger.severe("Caught LwXMLException creating a new XML doc for feeding: " + e.getMessage());
+			throw new XMLException("LwProcessMessageForDb.buildErrorResponse(): Caught Exception creating a new XML doc for feeding: " + e.getMessage());
+		}
+
+		return newFeederDoc;
+	}
+
+	/**
+	  * Add a row to the supplied XML doc
+	  *
+	  * @param responseXML the XML document to which a row should be added.
+	  * @param row the data to be parsed and added to the doc, null to take the fields from mappedSource.
+	  */
+	private void addRecToResponse(XMLDocument responseXML, String row)
+															throws XMLException {
+
+		// Defaults are for format of a SELECT statement...
+		String action = "ROW";
+
+		if (XMLFormat != null && XMLFormat.equals("INSERT")) {
+			action = "INSERT";
+		}
+
+		// Go to DBACTION node
+		responseXML.setCurrentNodeByPath("/MESSAGE/DBACTION", 1);
+
+		// Create a new ROW or INSERT aggregate and set current node to that new node
+		responseXML.setCurrentNode(responseXML.addElement(null, action, null));
+		if (XMLFormat != null && XMLFormat.equals("INSERT") && preparedStatementName != null) { // add preparedStatementName
+			responseXML.addElement(null, "PREPARED_STATEMENT_NAME", preparedStatementName);
+		}
+		if (XMLFormat != null && XMLFormat.equals("INSERT") && immediateCommit != null) { // add immediateCommit
+			responseXML.addElement(null, "IMMEDIATE_COMMIT", immediateCommit);
+		}
+
+
+		// Create a new COLUMN aggregate under the latest ROW and set current node to that new node
+		responseXML.setCurrentNode(responseXML.addElement(null, "COLUMNS", null));
+
+		if (row == null) { // then memory-mapped
+			int numFields = Math.min(colNameList.size(), mappedSource.getFieldCount());
+			for (int i = 0; i < numFields; i++) {
+				responseXML.addElement(null, colNameList.get(i), mappedSource.getField(i));
+			}
+			return;
+		}
+
+		StringTokenizer rowData = new StringTokenizer(row, fieldSeparator);
+		for (String colName : colNameList) {
+			if (rowData.hasMoreTokens()) {
+				String colData = rowData.nextToken();
+				responseXML.addElement(null, colName, colData);
+			}
+		}
+	}
+
+
+	/**
+	  * Start the text of a feeder message for INSERT, as createFeederDoc() would build it
+	  */
+	private void startFeederText() {
+		actionObject = "DBACTION";
+
+		feederText.setLength(0);
+		feederText.append("<MESSAGE><").append(actionObject).append('>');
+		if (actionOnError != null) { // add actionOnError
+			appendElement("ACTION_ON_ERROR", actionOnError);
+		}
+	}
+
+	/**
+	  * Add a row to the text of the feeder message for INSERT, as addRecToResponse() would add it
+	  *
+	  * @param row the data to be parsed and added to the message, null to take the fields from mappedSource.
+	  */
+	private void addRecToFeederText(String row) {
+		feederText.append("<INSERT>");
+		if (preparedStatementName != null) { // add preparedStatementName
+			appendElement("PREPARED_STATEMENT_NAME", preparedStatementName);
+		}
+		if (immediateCommit != null) { // add immediateCommit
+			appendElement("IMMEDIATE_COMMIT", immediateCommit);
+		}
+
+		feederText.append("<COLUMNS>");
+		if (row == null) { // then memory-mapped
+			int numFields = Math.min(colNameList.size(), mappedSource.getFieldCount());
+			for (int i = 0; i < numFields; i++) {
+				appendElement(colNameList.get(i), mappedSource.getField(i));
+			}
+		}
+		else {
+			StringTokenizer rowData = new StringTokenizer(row, fieldSeparator);
+			for (String colName : colNameList) {
+				if (rowData.hasMoreTokens()) {
+					appendElement(colName, rowData.nextToken());
+				}
+			}
+		}
+		feederText.append("</COLUMNS></INSERT>");
+	}
+
+	/**
+	  * @return the text of the feeder message for INSERT, closed off
+	  */
+	private String finishFeederText() {
+		feederText.append("</").append(actionObject).append("></MESSAGE>");
+		return feederText.toString();
+	}
+
+	/**
+	  * Append an element holding text to the feeder message text, escaping the text as need be
+	  */
+	private void appendElement(String name, String value) {
+		feederText.append('<').append(name).append('>');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '&': feederText.append("&amp;"); break;
+			case '<': feederText.append("&lt;"); break;
+			case '>': feederText.append("&gt;"); break;
+			default: feederText.append(c);
+			}
+		}
+		feederText.append("</").append(name).append('>');
+	}
+
+	/**
+	  * Get the next file name in the list
+	  *
+	  * @return the next file name
+	  */
+	private String getNextFileName() {
+		if (isWatching()) {
+			return watchReadyFiles.poll();
+		}
+
+		if (inputFileNames == null || fileNum >= (inputFileNames.length-1)) { // then am finished file list
+			return null;
+		}
+		else {
+			return inputFileNames[++fileNum];
+		}
+	}
+
+	private String inputFileDir = null;			// the directory in which candidate files reside
+	private String inputFileNameFilter = null;	// how to identify files to be processed
+	private boolean sortOnFileName = false;		// should the lsit of file anmes be sorted by filename?
+	private String dataFormat = "XML";			// input messages data format - XML, TEXT, CSV
+	private String fieldSeparator = "	";		// spearator for parsing fields within a CSV record (\t doesn't work here!!!)
+	private String XMLFormat = null;			// signify the shape of XML to be created, for example possibly matching a database action (SELECT, INSERT)
+	private String actionOnError = null;		// the action to be taken when the created INSERT fails - RESPOND or EXCEPTION
+	private String preparedStatementName = null;// the name of a Prepared Statement to use with the created INSERT
+	private String immediateCommit = null;		// the setting for whether the created action should be immediately committed
+	private int numRecsToSkip = 0;				// number of records to skip during reading of files i.e ignore first n recs (when handling CSV file(s))
+	private boolean memoryMappedCSVReader = false;	// read CSV file(s) through memory-mapped regions, rather than a BufferedReader
+	private int parallelReaders = 1;				// number of files to read and convert at the same time
+
+	// vars used when handling CSV file(s)
+	private int maxRecsPerMessage = 1;				// number of records to add to a particular message, before starting a new message (when handling CSV file(s))
+	private int recsReturnedForCurrentMessage = 0;	// number of records added to the current message being processed (when handling CSV file(s))
+	private int recsReturnedForAllMessages = 0;		// number of records returned from all files being processed (when handling CSV file(s))
+	private int recsRead = 0;						// number of records read so far from all files being processed (when handling CSV file(s))
+	private int recsReadFromFile = 0;				// number of records read so far from the current file (when handling CSV file(s))
+	private XMLDocument feederXML = null;		// build XML message in this doc (when handling CSV file(s))
+	private final StringBuilder feederText = new StringBuilder(1024);	// or build XML message text here, for INSERT (when handling CSV file(s))
+	private ArrayList<String> colNameList = null;	// the list of column names for naming XML tags (when handling CSV file(s))
+	private BufferedReader inputSource = null;		// Used when we're reading single CSV records from file(s)
+	private MappedCSVReader mappedSource = null;	// or this, when memory-mapped
+	private String currentRec = null;				// the record last read by inputSource (null if held by mappedSource)
+
+	// vars used when decompressing files
+	private static final int DECOMPRESSED_CHARS_BUFFER_SIZE = 64 * 1024;	// chars buffered when reading decompressed files
+	private DecompressingInputStream decompressingSource = null;	// the compressed file being read, if any
+	private int compressedFilesRead = 0;				// number of compressed files read
+	private long compressedBytesRead = 0;				// their compressed size
+	private long decompressedBytes = 0;					// the bytes decompressed from them
+	private long decompressNanos = 0;					// the time spent reading and decompressing them
+
+	private String[] inputFileNames = null;		// the list of files to process
+	private String inputFileName = null;		// Holds name of file currently being processed (for XML/TEXT file)
+	private int fileNum = -1;					// the next file name inputFileNames in the  array
+	private String actionObject = "TABLE";		// highest =level object in response - could be TABLE or DBACTION
+
+	// vars used when reading files in parallel
+	private ExecutorService readerService = null;				// runs the readers
+	private List<FileIngestion> ingestions = null;				// one per file, in list order
+	private BlockingQueue<IngestedMessage> mergedMessages = null;	// all files' messages, when not taken in file name order
+	private int ingestionsFinished = 0;							// number of files whose messages have all been taken
+
+	// vars used when watching the directory for files
+	private int waitInterval = 0;						// how many milliseconds to wait for a file to arrive (0 = block indefinitely)
+	private String watchDoneDir = null;					// the directory to which files are moved once processed, null if not watching
+	private int watchPollIntervalMillis = 1000;			// how often to look in the directory
+	private Map<String, String> watchUnstableFiles = new HashMap<String, String>();	// files found on the last look, not yet ready, with their size/last-modified time
+	private final LinkedList<String> watchReadyFiles = new LinkedList<String>();		// files ready to be read, path included
+	private int watchFilesDone = 0;						// number of files read and moved to the done directory (Guarded by this)
+	private List<String> watchFilesInMessage = new ArrayList<String>();	// files read to the end whose last records are in the message being read
+	private final LinkedList<PendingMessage> pendingMessages = new LinkedList<PendingMessage>();	// messages handed out, not yet processed, in order (Guarded by this)
+	private final Set<String> watchFilesTaken = new HashSet<String>();	// files taken for reading, not yet moved to the done directory, path included (Guarded by this)
+	private boolean messageStayed = false;				// true once a message has been stayed, so no more files are moved nor checkpoints taken (Guarded by this)
+
+	// vars used when checkpointing
+	private String checkpointFileName = null;			// the file in which to keep the checkpoint, null if not checkpointing
+	private int checkpointSyncIntervalMillis = 1000;	// how often, at most, to write the checkpoint file
+	private Checkpoint resumeFrom = null;				// where to resume reading, from the checkpoint file at setup
+	private String positionFileName = null;				// the file the last record was read from
+	private long positionOffset = 0;					// the byte offset of the record after the last one read (-1 if not known)
+	private Checkpoint consumedCheckpoint = null;		// how far the messages processed reach (Guarded by this)
+	private long nextCheckpointSync = 0;				// when the checkpoint may next be written (Guarded by this)
+	private boolean allFilesRead = false;				// true once all files have been read to the end
+}
@@ -1,1245 +1,2264 @@
-package gemha.servers;
-
-import java.io.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.logging.*;
-import java.util.*;
-
-import lw.utils.*;
-import lw.XML.*;
-import gemha.interfaces.*;
-import gemha.support.*;
-
-/**
-  * This server class processes a message from a chosen source (e.g. MQ, Database, Socket or File(s)) and places the response(s) on an MQ queue, to a Socket or in file(s).
-  * The sequence of events is as follows:
-  * Messages flow in the direction: messageListener --> messageProcessor --> messageResponder
-  * We accept messages from the messageListener, which retrieves them from a File/Queue/Socket.
-  * The messageProcessor is passed the message, processes it, sends it to the Database/Socket/File and returns
-  * a response (if required).
-  * If a response IS required the ResponseProcessorTask will accept the response from the messageProcessor and
-  * send it to the appropriate medium (File/Socket/HTTP Connection), via the messageResponder.
-  * 
-  * One example would be a (simple) SELECT request retrieved from a Queue, processed against the database and
-  * the resulting dataset returned to another Queue.
-  *  
-  * This class employs the services of IApp interface to allow graceful shutdown.
-  * 
-  * NOTE: This implementation will only work/be useful for a source input that can be read continuously by one thread
-  * 	  and processed by other threads, without having to commit the retrieval of the input message.
-  * 	  For example, retrieving from a queue usually means only committing the "get" after the message has been
-  * 	  successfully processed, effectively killing any possibility of processing in parallel.
-  * 
-  * @author Liam Wade
-  * @version 1.0 15/10/2008
-  * @version 1.1 30/09/2013 Implemented ResponseProcessorTask as runnable, accepting responses from Processor on separate thread. 
-  */
-public class GenericMessageHandler implements IApp
-{
-    private static final Logger logger = Logger.getLogger("gemha");
-
-	private final String settingsFileName;
-	private volatile GenericMessageHandlerSettings settings = null;
-	private IAcceptMesssages messageListener = null;		// the interface for accepting messages
-	private IProcessMesssage messageProcessor = null;	// the interface for processing messages
-	private IStoreMesssage messageResponder = null;		// the interface for storing responses
-	
-	private volatile boolean mainProcessToCloseDown = false;	// controls main while-loop (can be set by ResponseProcessorTask)
-    // Executor for processing messages
-    private final ExecutorService execPool = Executors.newSingleThreadExecutor();
-	private ResponseProcessorTask responseProcessorTask;		// Handles responses from messageProcessor. Will be null if messageResponder supplied in constructor
-
-
-	/**
-	  * Constructor used when LwGenericMessageHandler itself will decide from which
-	  * object it is to receive messages. 
-	  *
-	  * @param settingsFileName (and optionally path) of file from which settings are to be read
-	  */
-	public GenericMessageHandler(String settingsFileName) {
-		this.settingsFileName = settingsFileName;
-	}
-
-	/**
-	  * Constructor used when LwGenericMessageHandler is given the object
-	  * from which it is to receive messages. 
-	  *
-	  * @param settingsFileName Name (and optionally path) of file from which settings are to be read
-	  * @param messageListener object that will supply messages.
-	  */
-	public GenericMessageHandler(String settingsFileName, IAcceptMesssages messageListener) {
-		this.settingsFileName = settingsFileName;
-		this.messageListener = messageListener;
-	}
-
-
-	/**
-	  * Constructor used when LwGenericMessageHandler is given the object
-	  * from which it is to receive messages and to which it should send any Responses.
-	  * That is, the incoming messages AND responses are handled programatically (perhaps by the same process.)
-	  *
-	  * @param settingsFileName Name (and optionally path) of file from which settings are to be read
-	  * @param messageListener object that will supply messages - implements interface LwIAcceptMesssages.
-	  * @param messageResponder object that will forward response messages - implements interface LwIStoreMesssage.
-	  */
-	public GenericMessageHandler(String settingsFileName, IAcceptMesssages messageListener, IStoreMesssage messageResponder) {
-		this.settingsFileName = settingsFileName;
-		this.messageListener = messageListener;
-		this.messageResponder = messageResponder;
-	}
-
-	/**
-	  *
-	  * Start the application
-	  */
-	public void start() {
-		final long start;
-		final long end;
-
-		start = System.nanoTime();
-		
-		logger.info("<*<*<*<*< Starting Up >*>*>*>*>");
-
-		try {
-			settings = new GenericMessageHandlerSettings(settingsFileName, XMLDocument.SCHEMA_VALIDATION_ON);
-		}
-		catch(SettingsException e) {
-			logger.severe("Exception encountered loading application configuration settings from file " + settingsFileName + ": " + e);
-			System.out.println("Exception encountered loading application configuration settings from file " + settingsFileName + ": " + e);
-			System.exit(-10);
-		}
-
-		//////////////////////////////////////////////////////////////////
-		// Load the procesing interface...
-		// This dynamically-loaded class will perform whatever procesing
-		// is necessary for this particular instance of LwGenericMessageHandler
-		//////////////////////////////////////////////////////////////////
-		messageProcessor = loadMessageProcessor();
-
-		logger.info("<*<*<*<*< Startup completed successfully >*>*>*>*>");
-
-		//////////////////////////////////////////////////////////////////
-		//////////////////////////////////////////////////////////////////
-		//                M a i n  P r o c e s s i n g...
-		//////////////////////////////////////////////////////////////////
-		//////////////////////////////////////////////////////////////////
-
-		//////////////////////////////////////////////////////////////////
-		// Determine and prepare input medium, if not already supplied
-		// in a constructor...
-		//////////////////////////////////////////////////////////////////
-		setupMessageListener();
-
-
-		//////////////////////////////////////////////////////////////////
-		// Determine and prepare output medium...
-		// No problem if no output medium, if don't want to output anything.
-		//////////////////////////////////////////////////////////////////
-		setupMessageResponder();
-
-
-		//////////////////////////////////////////////////////////////////
-		// Start handling messages...
-		//////////////////////////////////////////////////////////////////
-		try {
-
-			handleMessages(settings);
-			
-			// Finished now, but give executors time to flush results
-			if (responseProcessorTask != null)
-				try {
-					messageProcessor.awaitTermination(1, TimeUnit.MINUTES);
-					// Flush execPool buffer and shut it down (no waiting)...
-					execPool.shutdown();
-					execPool.awaitTermination(1, TimeUnit.MINUTES);
-				} catch (InterruptedException e) {
-					// Reset interrupted, finishing anyway
-					Thread.currentThread().interrupt();
-				}
-		}
-		catch (MessagingException e) {
-			logger.severe("Stopped processing: Caught LwMessagingException exception: " + e);
-			System.exit(-16);
-		}
-//		catch (Exception e) {
-//			logger.severe("Stopped processing: Caught unknown exception: " + e);
-//		}
-		finally { // but probably won't even get here, as normally terminated by interrupt
-			logger.info("Shutting down (further messages may only be sent to file " + settings.getShutDownLogFileName() + ")");
-
-			end = System.nanoTime();
-			logger.info("Finished processing: LwGenericMessageHandler ran for " + (end - start)/1.0e9 + " seconds");
-
-			// Stop the response-processing thread
-			// BEST NOT DO THIS. Allow the Processor tell the response-processing thread that all finished
-//			if (responseProcessorTask != null)
-//				responseProcessorTask.interrupt();
-			// Close log file now. Is no use during shutdown anyway, as the Logger has its own shutdown hook
-			// and can therefore be shut down by the virtual machine before our shutdown hook.
-			settings.releaseResourses();
-		}
-		
-		logger.exiting("LwGenericMessageHandler", "start");
-	}
-
-	/**
-	 *  Load the class chosen to process messages.
-	 *  Application will exit if any problem encountered either loading class
-	 *  or performing its setup procedure.
-	 *  
-	 *  @return the loaded message processor
-	 */
-	private IProcessMesssage loadMessageProcessor() {
-		IProcessMesssage messageProcessor = null;
-		try {
-			messageProcessor = (IProcessMesssage)(Class.forName(settings.getMessageProcessingClassName()).newInstance());
-			messageProcessor.performSetup(settings.getMessageProcessingSettingsFileName());
-		}
-		catch(ClassNotFoundException e1) {
-			logger.severe("Could not load message-processing class " + settings.getMessageProcessingClassName() + ", specified in TagName MessageProcessingClassName.");
-			System.exit(-6);
-		}
-		catch(InstantiationException e2) {
-			logger.severe("Could not instantiate message-processing class " + settings.getMessageProcessingClassName() + ", specified in TagName MessageProcessingClassName.");
-			System.exit(-7);
-		}
-		catch(IllegalAccessException e3) {
-			logger.severe("IllegalAccessException instantiating message-processing class " + settings.getMessageProcessingClassName() + ", specified in TagName MessageProcessingClassName. " + e3.getMessage());
-			System.exit(-8);
-		}
-		catch(SettingsException e4) {
-			logger.severe("LwSettingsException instantiating message-processing class " + settings.getMessageProcessingClassName() + ", specified in TagName MessageProcessingClassName. " + e4.getMessage());
-			System.exit(-9);
-		}
-
-		if (messageProcessor == null) {
-			logger.severe("Could not load message-processing class " + settings.getMessageProcessingClassName() + ", specified in TagName MessageProcessingClassName. Unknown reason.");
-			System.exit(-11);
-		}
-		
-		return messageProcessor;
-	}
-
-	/**
-	 * Instantiate the correct Message Listener (input) and tell it to perform any setup, if appropriate.
-	 */
-	private void setupMessageListener() {
-		if (messageListener == null) {
-			try {
-				if (settings.getInputQueueName() != null) { // then am to read messages from MQ
-					messageListener = new AcceptMessagesFromQueue(settings.getInputQueueName(), settings.getInputUrlJMSserver());
-				}
-				else if (settings.getPortNumber() > 0) {
-					messageListener = new AcceptMessagesFromSocket(settings.getPortNumber());
-				}
-				else if (settings.getInputFileNameFilter() != null) {
-						messageListener = new AcceptMessagesFromFiles(settings.getInputFileDir(), settings.getInputFileNameFilter(), settings.sortFilteredFileNames(), settings.getColNameList(),
-																		settings.getInputDataFormat(), settings.getFieldSeparator(), settings.getMaxRecsPerMessage(),
-																		settings.getXMLFormat(), settings.getActionOnError(), settings.getPreparedStatementName(),
-																		settings.getImmediateCommit(), settings.getNumRecordsToSkip());
-				}
-				else { // something very wrong indeed!
-					logger.severe("Missing essential information for input source - for example inputQueueName, input portNumber or inputFileNameFilter (or was LwGenericMessageHandler called with incorrect Constructor?)");
-					System.exit(-12);
-				}
-			} catch (SettingsException e) {
-				logger.severe("Stopped processing at setupMessageListener: Caught LwSettingsException exception: " + e);
-				System.exit(-13);
-			}
-		}
-
-		try {
-			messageListener.performSetup();
-		} catch (MessagingException e) {
-			logger.severe("Stopped processing calling messageListener.performSetup(): Caught LwMessagingException exception: " + e);
-			System.exit(-14);
-		}
-	}
-
-	/**
-	 * Instantiate the correct Message Responder and tell it to open the storage medium, if appropriate.
-	 * 
-	 * @throws MessagingException if openStorage() encounters a problem
-	 */
-	private void setupMessageResponder()  {
-		if (messageResponder == null) { // but don't check if has already been supplied in a Constructor
-			if (settings.getOutputQueueName() != null) { // then am to send messages to MQ
-				if (settings.getReplyToQueueName() == null) { // no instruction on where to return a response
-					messageResponder = new StoreMesssageToQueue(settings.getOutputQueueName(), settings.getOutputUrlJMSserver());
-				}
-				else {
-					messageResponder = new StoreMesssageToQueue(settings.getOutputQueueName(), settings.getReplyToQueueName());
-				}
-			}
-			else if (settings.getOutputFileNameTemplate() != null) {
-				messageResponder = new StoreMesssageToFile(settings.getOutputFileNameTemplate(), settings.getConvertedInputDataFormat());
-			}
-			else if (settings.getHTTPServerUrl() != null) {
-				messageResponder = new StoreMesssageToHTTP(settings.getHTTPServerUrl(), settings.getHTTPEndPointName(), settings.getHTTPWithBackoff(), settings.getConvertedInputDataFormat());
-			}
-			
-			// Only set this up if we know messageResponder is one of the "inbuilt" types - i.e. messageResponder was NOT
-			// supplied in a constructor (if it were, we wouldn't know how to handle responses)
-			// messageListener should always be populated by now
-			// inLoopMode of ResponseProcessorTask set to true here to tell it to loop for responses,
-			// as will run in its own thread.
-			responseProcessorTask = new ResponseProcessorTask(true, messageResponder, messageListener);
-			execPool.execute(responseProcessorTask);
-		}
-
-		if (messageResponder != null) {
-			try {
-				messageResponder.openStorage();
-			} catch (MessagingException e) {
-				logger.severe("Stopped processing calling messageResponder.openStorage(): Caught LwMessagingException exception: " + e);
-				System.exit(-15);
-			}
-		}
-	}
-
-
-	/**
-	  *
-	  * This is the main control loop
-	  *
-	  * @param settings the loaded application config settings
-	  *
-	  */
-	private void handleMessages(GenericMessageHandlerSettings settings)
-																throws MessagingException {
-		int numMessagesProcessed = 0;
-
-		while ( ! mainProcessToCloseDown) {
-			String receivedMessage = null;
-			boolean skipMessage = false;	// set to true if there is a problem with a message and it is to be skipped, that is removed from the input queue
-
-
-			//////////////////////////////////////////////////////////////////
-			// Get a message, waiting if necessary
-			//////////////////////////////////////////////////////////////////
-			messageListener.setWaitInterval(settings.getMilliSecondsBeforeQuiet()); // block for n seconds (if blocking relevant)
-			receivedMessage = messageListener.acceptNextMessage();
-
-			if (receivedMessage == null) { // then no message available, might want to try again, depending on input medium
-				receivedMessage = handleIncomingEmptyMessage(settings);
-			}
-
-			//////////////////////////////////////////////////////////////////
-			// Give client chance to close us down
-			//////////////////////////////////////////////////////////////////
-			if (Thread.currentThread().isInterrupted()) {
-				// Will process next message, if relevant, then exit
-				mainProcessToCloseDown = true;
-			}
-				
-			//////////////////////////////////////////////////////////////////
-			// Handle the incoming Message...
-			//////////////////////////////////////////////////////////////////
-			if (receivedMessage != null) { // then have something to work on
-
-				numMessagesProcessed = handleIncomingMessage(settings, numMessagesProcessed, skipMessage, receivedMessage);
-			}
-
-
-			if (settings.getInputLimit() > 0) { // then a limit was set on the number of messages to process
-				if (numMessagesProcessed >= settings.getInputLimit()) {
-					mainProcessToCloseDown = true;
-					logger.info("Specfied limit of " + settings.getInputLimit() + " message(s) reached.");
-				}
-			}
-
-			if ( mainProcessToCloseDown) { // There's a slight chance this msg may not output, if another thread sets mainProcessToCloseDown just after checking.
-				logger.info("Stopping processing and going to close down. (mainProcessToCloseDown is true)");
-			}
-		} // end while(mainProcessToCloseDown)
-	
-		if (messageProcessor != null) { // Tell it no more messages to process
-			messageProcessor.processMessageAsynch(null, null, null); // Send Poison Pill to processor
-		}
-	}
-
-	/**
-	 * Handle an incoming message, performing some validation, before forwarding to the Message Processor.
-	 * 
-	 * @param settings the application settings
-	 * @param numMessagesProcessed minds the total number of messages processed by the Processor
-	 * @param skipMessage whether message should be skipped or not
-	 * 
-	 * @return the new value for numMessagesProcessed
-	 * @throws MessagingException
-	 */
-	private int handleIncomingMessage(GenericMessageHandlerSettings settings, int numMessagesProcessed,
-									  boolean skipMessage, String receivedMessage) throws MessagingException {
-		numMessagesProcessed++;
-
-		String auditKeyValues = "unknown";
-		String messageForProcessor = null;
-		XMLDocument inputDoc = null;			// the XML version of the received input message
-
-		//////////////////////////////////////////////////////////////////
-		// Perform XML-based checks and actions or simply pass on message "as is"...
-		//////////////////////////////////////////////////////////////////
-		if ("XML".equals(settings.getConvertedInputDataFormat())) { // CSV input would be converted to XML
-			inputDoc = createXMLDocFromInput(receivedMessage, settings);
-
-			if (inputDoc != null) {
-
-				// Determine auditKeyValues
-				auditKeyValues = getAuditKeyValuesForXMLMessage(inputDoc, settings);
-				if ( ! auditKeysFound(inputDoc, settings)) { // will be valid only if ALL auditkeys found in message
-					skipMessage = determineActionOnMissingAuditKeys(settings, skipMessage, auditKeyValues, inputDoc);
-				}
-
-				// Determine Data Contract Name
-				if ( ! skipMessage && ! dataContractNameValid(inputDoc, settings)) { // will be valid if no name to check, or is matched
-					skipMessage = determineActionOnInvalidDataContractName(settings, skipMessage, auditKeyValues, inputDoc);
-				}
-
-				// Build Target
-				if ( ! skipMessage) {
-					try {
-						messageForProcessor = buildMessageForTarget(inputDoc, settings);
-						logger.info("Message for target with AuditKey Value " + auditKeyValues + " built. See next line for content (if logging @ level FINE)...");
-						logger.fine(messageForProcessor);
-					}
-					catch (XMLException e) {
-						logger.severe("Message with AuditKey Value " + auditKeyValues + " caused an LwXMLException: "  + e);
-						messageListener.stayMessage(auditKeyValues);
-						throw new MessagingException("Caught LwXMLException from buildMessageForTarget() (see root cause)", e);
-					}
-				}
-			}
-		}
-		else { // pass on whole message to processor
-			messageForProcessor = receivedMessage;
-		}
-
-		if ( ! skipMessage) {
-			if (messageForProcessor == null) { // then nothing to process - BIG PROBLEM!
-				logger.severe("No Target message was built from Message with AuditKey Value " + auditKeyValues);
-				messageListener.stayMessage(auditKeyValues);
-				mainProcessToCloseDown = true;
-				throw new MessagingException("No Target message was built from Message with AuditKey Value " + auditKeyValues);
-			}
-			else {
-				//////////////////////////////////////////////////////////////////
-				// All OK, get the Processor to deal with the message
-				//////////////////////////////////////////////////////////////////
-				messageProcessor.processMessageAsynch(messageForProcessor, inputDoc, auditKeyValues);
-
-			} // end if (messageForProcessor == null)
-		} // end if ( ! skipMessage)
-		
-		messageListener.consumeMessage(auditKeyValues);
-		return numMessagesProcessed;
-	}
-
-	/**
-	 * Wait for a message to arrive or quit handling messages, depending on the input medium.
-	 * A null message has different meaning based on input medium:
-	 * 		Queue 		- we'll wait for another message to arrive, blocking indefinitely
-	 * 		Socket 		- we'll stop handling messages
-	 * 		File 		- we'll stop handling messages, sending a Poison Pill to Processor
-	 * 		Java Object - we'll stop handling messages
-	 * 
-	 * @param settings the application settings
-	 * @return the next message, if is Queue-based input, otherwise null
-	 * @throws MessagingException
-	 */
-	private String handleIncomingEmptyMessage(GenericMessageHandlerSettings settings) throws MessagingException {
-		
-//		messageProcessor.goQuiet(); // tell processor we're not busy now, but only when running in blocking mode (i.e. not batch).
-
-		if (messageListener instanceof AcceptMessagesFromQueue) { // then want to block now, await next message and, possibly, close output queue
-			// Close targetConnection here, if is a Queue, because not busy
-			if (settings.getOutputQueueName() != null) {
-				if (messageResponder != null) {
-					messageResponder.closeStorage(); // will be opened automatically by messageResponder, if needed (and trying to close when open causes no problem
-				}
-			}
-
-			messageListener.setWaitIntervalBlockIndefinitely();
-			return messageListener.acceptNextMessage();
-		}
-		else if (messageListener instanceof AcceptMessagesFromSocket) { // then am finished, so close down
-			mainProcessToCloseDown = true;
-			logger.info("Socket Server returned null, so closing down.");
-		}
-		else if (messageListener instanceof AcceptMessagesFromFiles) { // then am finished, so close down
-			mainProcessToCloseDown = true;
-			logger.info("No more files to process, so closing down.");
-		}
-		else { // then message listener is java object supplied in constructor, am finished, so close down
-			mainProcessToCloseDown = true;
-			logger.info("No more messages to process from object " + messageListener.getClass().getName() + ", so closing down.");
-		}
-		
-		return null;
-	}
-
-	/**
-	 * If Data Contract Name is expected AND was found to not match that in the input message,
-	 * then we need to decide whether to continue or not.
-	 *  
-	 * @param settings the application settings
-	 * @param skipMessage whether message should be skipped or not
-	 * @param auditKeyValues transaction ID for message being processed
-	 * @param inputDoc the original input message
-	 * @return true if should skip this message, false if should continue processing the message
-	 * @throws MessagingException if problem encountered staying or consuming message
-	 */
-	private boolean determineActionOnInvalidDataContractName(GenericMessageHandlerSettings settings, boolean skipMessage,
-															 String auditKeyValues, XMLDocument inputDoc) throws MessagingException {
-		XMLTagValue dataContractName = settings.getDataContractName();
-		String actionOnError = null;
-		if (dataContractName != null) { actionOnError = dataContractName.getAttributeValue("ActionOnError");}
-
-		if (actionOnError == null || actionOnError.equals("shutdown")) {
-			logger.severe("Data Contract Name did not match" + (settings.getDataContractName() == null ? "" : " " + settings.getDataContractName().getTagValue()) + ". Message with AuditKey Value " + auditKeyValues + " rejected. Will shut down.");
-			messageListener.stayMessage(auditKeyValues);
-			skipMessage = true;
-			mainProcessToCloseDown = true;
-			throw new MessagingException("Data Contract Name did not match" + (settings.getDataContractName() == null ? "" : " " + settings.getDataContractName().getTagValue()) + ". Message with AuditKey Value " + auditKeyValues + " rejected. Will shut down.");
-		}
-		else if (actionOnError.equals("discard")) {
-			logger.warning("Data Contract Name did not match" + (settings.getDataContractName() == null ? "" : " " + settings.getDataContractName().getTagValue()) + ". Message with AuditKey Value " + auditKeyValues + " rejected. Will discard message.");
-			String errorMessageFileName = LwLogger.createFileNameFromTemplate(settings.getErrorFileNameTemplate(), auditKeyValues);
-
-			if (errorMessageFileName != null) {
-				inputDoc.toFile(errorMessageFileName, false);
-				logger.warning("Message with AuditKey Value " + auditKeyValues + " saved to file " + errorMessageFileName);
-				logger.info("Processing of messages will continue.");
-			}
-
-			skipMessage = true;
-		}
-		else { // can assume actionOnError == "none", so just ignore problem
-			logger.warning("Data Contract Name did not match" + (settings.getDataContractName() == null ? "" : " " + settings.getDataContractName().getTagValue()) + ". Message with AuditKey Value " + auditKeyValues + " rejected. But will still process message.");
-		}
-		return skipMessage;
-	}
-
-	/**
-	 * @param settings the application settings
-	 * @param skipMessage whether message should be skipped or not
-	 * @param auditKeyValues transaction ID for message being processed
-	 * @param inputDoc the original input message
-	 * @return true if should skip this message, false if should continue processing the message
-	 * @throws MessagingException if problem encountered staying or consuming message
-	 */
-	private boolean determineActionOnMissingAuditKeys(GenericMessageHandlerSettings settings, boolean skipMessage,
-														String auditKeyValues, XMLDocument inputDoc) throws MessagingException {
-		String actionOnError = settings.getAuditKeysAggregate().getAttributeValue("ActionOnError");
-		if (actionOnError == null || actionOnError.equals("shutdown")) {
-			logger.severe("Audit key (or keys) not found in Message with AuditKey Value " + auditKeyValues + " Will shut down.");
-			messageListener.stayMessage(auditKeyValues);
-			skipMessage = true;
-			mainProcessToCloseDown = true;
-			throw new MessagingException("Audit key (or keys) not found in Message with AuditKey Value " + auditKeyValues + " Will shut down.");
-		}
-		else if (actionOnError.equals("discard")) {
-			logger.warning("Audit key (or keys) not found in Message with AuditKey Value " + auditKeyValues + " Will discard message.");
-			String errorMessageFileName = LwLogger.createFileNameFromTemplate(settings.getErrorFileNameTemplate(), auditKeyValues);
-
-			if (errorMessageFileName != null) {
-				inputDoc.toFile(errorMessageFileName, false);
-				logger.warning("Message with AuditKey Value " + auditKeyValues + " saved to file " + errorMessageFileName);
-				logger.info("Processing of messages will continue.");
-			}
-
-			skipMessage = true;
-		}
-		else { // can assume actionOnError == "none", so just ignore problem
-			logger.warning("Audit key (or keys) not found in Message with AuditKey Value " + auditKeyValues + " But will still process message.");
-		}
-		return skipMessage;
-	}
-
-	/**
-	  *
-	  * Create a new LwXMLDocument, loading the XML from a String.
-	  *
-	  * Notes:
-	  *		If validation is "off", the XML messge will not be validated against a Schema
-	  *		If validation is "on", the XML messge will be validated against a Schema, with two options:
-	  *			1) If SchemaDefinitionFileName is supplied in the settings file, that .xsd file will be used to validate,
-	  *			   employing "http://www.w3.org/2001/XMLSchema" rules.
-	  *			2) If no SchemaDefinitionFileName setting is supplied, the document MUST supply the Schema definition, otherwise
-	  *			   a parsing error will occur: for example [cvc-elt.1: Cannot find the declaration of element 'root'],
-	  *			   where root is the name of the root element in the message.
-	  *
-	  * @param message the XML text from which to make a document
-	  * @param settings
-	  *
-	  * @return a new LwXMLDocument
-	  */
-	private XMLDocument createXMLDocFromInput(String message, GenericMessageHandlerSettings settings) {
-
-		XMLDocument newDoc = null;
-
-		try {
-			if (settings.getInputValidationSettings() == null) { // then no validation requested
-				newDoc = XMLDocument.createDoc(message, XMLDocument.SCHEMA_VALIDATION_OFF);
-			}
-			else {
-				boolean validateAgainstSchema = (settings.getInputValidationSettings().getAttributeValue("SchemaValidation") == null ? false : (settings.getInputValidationSettings().getAttributeValue("SchemaValidation").equals("on")));
-				if (validateAgainstSchema) {
-					// note that SchemaDefinitionFileName may be null, in which case the message should have the Schema definition
-					// also that SchemaLanguage may be null, in which case the default Schema Language is assumed
-					// neither depends on the other
-					newDoc = XMLDocument.createDoc(message, XMLDocument.SCHEMA_VALIDATION_ON, settings.getInputValidationSettings().getAttributeValue("SchemaDefinitionFileName"), settings.getInputValidationSettings().getAttributeValue("SchemaLanguage"));
-					logger.info("Input message was validated successfully.");
-				}
-				else { // then no validation turned off
-					newDoc = XMLDocument.createDoc(message, XMLDocument.SCHEMA_VALIDATION_OFF);
-				}
-			}
-
-			return newDoc;
-		}
-		catch(XMLException e) {
-			logger.warning("LwXMLException: " + e.getMessage());
-			logger.warning("InputMessage was :" + message);
-			return null;
-		}
-	}
-
-	/**
-	  *
-	  * Extract the aggregates to be sent to the target for processing
-	  *
-	  * @param inputDoc the XML message received from MQ
-	  * @param settings
-	  *
-	  * @return a the XML string to be sent to the target for processing
-	  */
-	private String buildMessageForTarget(XMLDocument inputDoc, GenericMessageHandlerSettings settings)
-																	throws XMLException {
-		if (inputDoc == null || settings.getSendElementSet() == null) {
-			return null;
-		}
-
-		//////////////////////////////////////////////////////////////////////////
-		// Create a new doc...
-		// We'll either send the whole message to the target, or choose tags/aggregates.
-		//
-		// Notes:
-		// We must allow for the fact that the top-level element of the Target Message
-		// might not have the same Name as that of the input message.
-		//
-		// Both aggregates and TAGs may be sent.
-		// The path to the aggregate or tag will be created in the Target Message, if it does not already exist.
-		// Individual TAGs specified with the same path will appear in the same aggregate in the sent message (i.e the parent aggregate will not be duplicated).
-		// If a TAG appears in the list after an aggregate existing along the same path, the TAG will be duplicated in the sent message.
-		// If a TAG appears in the list before an aggregate existing along the same path, the aggregate will be duplicated in the sent message.
-		//
-		// Here's the sequence...
-		// Loop through the "send" list
-		//		If special name "*" encountered
-		//			Import all from inputDoc, changing top-level element's name, if settings.getTargetMainDocElementName() specified
-		//		Otherwise...
-		//			Create a new, empty, Target message (with top-level element's name=settings.getTargetMainDocElementName(), or same as that of inputDoc, if not specified)
-		//			Find the "minded" element in inputDoc
-		//			Find the parent of "minded" element in targetDoc (will fail if names of top-level elements differ in docs, or if sub-aggregate not yet there)
-		//			If didn't find parent, create it in targetDoc (ignoring top-level element of Location attribute), and then find it
-		//			Import the node into targetDoc at the found parent
-		//
-		//////////////////////////////////////////////////////////////////////////
-		XMLDocument targetDoc = null;
-
-
-		if (sendAllElementsToTarget(settings)) { // then import ALL from the inputDoc - just send whole input message
-			String targetMainDocElementName = settings.getTargetMainDocElementName();
-			if (targetMainDocElementName == null) { // then just want input doc, with no additional wrapper
-				targetMainDocElementName = inputDoc.getCurrentNodeName();
-				targetDoc = inputDoc;
-			}
-			else { // wrap input doc in new tag...
-				try {
-					targetDoc = XMLDocument.createDoc("<" + targetMainDocElementName + "></" + targetMainDocElementName + ">", XMLDocument.SCHEMA_VALIDATION_OFF);
-					inputDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
-					targetDoc.importNodesChildren(inputDoc.getCurrentNode(), true);
-				}
-				catch(XMLException e2) {
-					throw new XMLException("LwGenericMessageHandler.buildMessageForTarget(): Fatal Exception creating a new doc: " + e2.getMessage());
-				}
-			}
-		}
-		else { // want to include certain child aggregates from the input doc, so must be wrapped
-			String targetMainDocElementName = settings.getTargetMainDocElementName();
-			if (targetMainDocElementName == null) { // then just use that of input doc
-				inputDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
-				targetMainDocElementName = inputDoc.getCurrentNodeName();
-			}
-
-			try {
-				targetDoc = XMLDocument.createDoc("<" + targetMainDocElementName + "></" + targetMainDocElementName + ">", XMLDocument.SCHEMA_VALIDATION_OFF);
-
-				// Add the elements from inputDoc...
-				Enumeration<XMLTagValue> sendElements = settings.getSendElementSet();
-				while (sendElements.hasMoreElements()) {
-					XMLTagValue nextSendElement = sendElements.nextElement();
-
-					inputDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
-
-					if (inputDoc.setCurrentNodeByPath(nextSendElement.getTagValue(), 1)) { // no prob if we don't find the element
-
-						targetDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
-
-						// Position "pointer" in targetDoc to correct parent aggregate, creating it if we have to...
-						// (Note that the first ELEMENT in the path for the input may have a different name than the new Target message, so we may ignore it)
-						XMLTagValue tempTagNoValue = new XMLTagValue(nextSendElement.getTagValue(), null); // just to help split out path 
-						String pathToParent = tempTagNoValue.getPathToParent();
-						if (pathToParent == null) { // then SendElement is the top-level element - so no parent
-							pathToParent = nextSendElement.getTagValue();
-						}
-
-						//search under both inputDoc top-level Name and that of Target top-level Name
-						if ( ! (targetDoc.setCurrentNodeByPath(pathToParent, 1) || targetDoc.setCurrentNodeByPath(("/" + targetMainDocElementName + "/" + tempTagNoValue.getPathToParentLessFirstElement()), 1))
-						   ) { // try to go to parent recipient (if specified), create path if can't
-							String pathToParentLessFirstElement = tempTagNoValue.getPathToParentLessFirstElement();
-
-							if (pathToParentLessFirstElement != null) { // would be null if TAG is child of first ELEMENT in doc
-								targetDoc.addElement(null, pathToParentLessFirstElement, null);
-								targetDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
-								targetDoc.setCurrentNodeByPath(tempTagNoValue.getPathToParent(), 1);
-							}
-						}
-
-						// Finally, copy the found node from inputDoc to the target message
-						targetDoc.importNode(inputDoc.getCurrentNode(), true);
-					}
-				}
-
-			}
-			catch(XMLException e2) {
-				throw new XMLException("LwGenericMessageHandler.buildMessageForTarget(): Fatal Exception creating a new doc: " + e2.getMessage());
-			}
-		}
-
-		return targetDoc.toString();
-	}
-
-	/**
-	  *
-	  * This is a helper method to determine if the * option has been used in the settings.getSendElementSet()
-	  *
-	  * @param settings
-	  *
-	  * @return true if ALL ("*") included in set, otherwise false
-	  */
-	private boolean sendAllElementsToTarget(GenericMessageHandlerSettings settings) {
-		Enumeration<XMLTagValue> sendElements = settings.getSendElementSet();
-		while (sendElements.hasMoreElements()) {
-			XMLTagValue tv = sendElements.nextElement();
-
-			if (tv.getTagValue().equals("*")) { // then "import ALL from the inputDoc" is requested
-				return true;
-			}
-		}
-
-		return false;
-	}
-
-	/**
-	  *
-	  * Check that all Audit keys have a value in the given message
-	  *
-	  * @param doc the XML document
-	  * @param settings
-	  *
-	  * @return true if a value for all keys found
-	  */
-	private boolean auditKeysFound(XMLDocument doc, GenericMessageHandlerSettings settings) {
-
-		Enumeration<XMLTagValue> enumAuditKeyNames = settings.getAuditKeyNamesSet();
-		while (enumAuditKeyNames.hasMoreElements()) {
-			XMLTagValue tv = enumAuditKeyNames.nextElement();
-
-			if (doc.getValueForTag(tv.getTagValue()) == null) {
-				return false;
-			}
-		}
-
-		return true;
-	}
-
-	/**
-	  *
-	  * Shut down the application gracefully - will be called by the Java VM when closing down
-	  *
-	  * @param doc the XML document
-	  * @param settings
-	  *
-	  * @return the concatenated audit key values for this message, the empty string if no values
-	  */
-	private String getAuditKeyValuesForXMLMessage(XMLDocument doc, GenericMessageHandlerSettings settings) {
-
-		String concatenatedValues = "";
-
-		Enumeration<XMLTagValue> enumAuditKeyNames = settings.getAuditKeyNamesSet();
-		while (enumAuditKeyNames.hasMoreElements()) {
-			XMLTagValue tv = enumAuditKeyNames.nextElement();
-
-			String nextValue = doc.getValueForTag(tv.getTagValue());
-
-			if (nextValue != null) {
-				concatenatedValues += nextValue + ((settings.getAuditKeysSeparator() != null && enumAuditKeyNames.hasMoreElements()) ? settings.getAuditKeysSeparator() : "");
-			}
-		}
-
-		return concatenatedValues;
-	}
-
-	/**
-	  *
-	  * Match the name of the message's Contract to the one expected
-	  *
-	  * @param doc the XML document
-	  * @param settings.getDataContractName() contains the name of the tag at which to find the data contract name and the value to match
-	  *
-	  * @return the true if the name of the contract for this message matches the expected one (or the expected one doesn't exist), otherwise false
-	  */
-	private boolean dataContractNameValid(XMLDocument doc, GenericMessageHandlerSettings settings) {
-
-		if (settings.getDataContractName() == null) { // then will always return true
-			return true;
-		}
-
-		doc.setCurrentNodeToFirstElement(); // go back to beginning of doc
-		String dataContractNameForThisMessage = doc.getValueForTag(settings.getDataContractName().getAttributeValue("Location"));
-
-		if (dataContractNameForThisMessage == null) {
-			logger.warning("No Data contract name was found in current message, at location " + settings.getDataContractName().getAttributeValue("Location"));
-		}
-
-		String expectedDataContractName = settings.getDataContractName().getTagValue();
-
-		return (expectedDataContractName != null && dataContractNameForThisMessage != null && (dataContractNameForThisMessage.equals(expectedDataContractName)) );
-	}
-
-	/**
-	  *
-	  * Shut down the application gracefully - will be called by the Java VM when closing down
-	  *
-	  * NOTE : NEVER call System.exit() from this method, or you'll go into a continuous loop!
-	  *
-	  */
-	public void shutDown() {
-		// Do a graceful shutdown here
-		// NOTE: Do not use the java.util.Logger here, use LwLogger.
-		// The Logger has its own shutdown hook so it can be shut down by the
-		// virtual machine before our shutdown hook calls this method.
-
-		LwLogger shutdownLogger = null;
-
-		try {
-			if (settings == null || settings.getShutDownLogFileName() == null) {
-				return;
-			}
-			else {
-				shutdownLogger = new LwLogger(settings.getShutDownLogFileName(), true);
-			}
-		}
-		catch(IOException e) {
-			System.out.println("LwGenericMessageHandler.shutDown(): could not open file " + (settings.getShutDownLogFileName() == null ? "unknown" : settings.getShutDownLogFileName()) + " to record shutdown.");
-			return;
-		}
-
-		try {
-			shutdownLogger.appendln("LwGenericMessageHandler.shutDown(): Shutting down");
-		}
-		catch(IOException e) {
-			try { shutdownLogger.close(); } catch (IOException e1) { /* do nothing */}
-			System.out.println("LwGenericMessageHandler.shutDown(): could not write to file " + settings.getShutDownLogFileName() + " to record shutdown.");
-			return;
-		}
-
-
-		//////////////////////////////////////////////////////////////////
-		// Shut-down commands here...
-		//////////////////////////////////////////////////////////////////
-		if (messageListener != null) {
-			messageListener.performCleanup(shutdownLogger);
-		}
-
-		if (messageProcessor != null) {
-			messageProcessor.performCleanup(shutdownLogger);
-		}
-
-		if (messageResponder != null) {
-			messageResponder.performStoreMessageCleanup(shutdownLogger);
-		}
-
-		// Flush exec buffer and shut it down, if not already done (no waiting)...
-		execPool.shutdown();
-
-		try {
-			shutdownLogger.appendln("LwGenericMessageHandler.shutDown(): Shutdown completed successfully");
-			shutdownLogger.close();
-		}
-		catch(IOException e) {
-			System.out.println("LwGenericMessageHandler.shutDown(): could not write to file " + settings.getShutDownLogFileName() + " to record shutdown completed successfully.");
-		}
-	}
-
-	/**
-	  *
-	  * Processor of response messages
-	  *
-	  * NOTE : inputDoc is the only var we use from the main object (populated by the main thread)
-	  *
-	  */
-	private class ResponseProcessorTask implements Runnable {
-		private final IStoreMesssage messageResponder;
-		private final IAcceptMesssages messageListener;		// the interface for accepting messages
-		private final boolean inLoopMode;						// true if we want to keep looping (i.e. this is run in its own thread)
-		private boolean errorEncountered = false;				// true if we find any error
-
-		public ResponseProcessorTask(boolean inLoopMode, IStoreMesssage messageResponder, IAcceptMesssages messageListener) {
-			if (messageResponder == null) throw new IllegalArgumentException("ResponseProcessorTask: messageResponder cannot be null.");
-			if (messageListener == null) throw new IllegalArgumentException("ResponseProcessorTask: messageListener cannot be null.");
-
-			this.inLoopMode = inLoopMode;
-			this.messageResponder = messageResponder;
-			this.messageListener = messageListener;
-		}
-		
-		public void run() {
-			logger.entering("ResponseProcessorTask", "run");
-			do {
-				// Get the response object from the messageProcessor (may block)...
-				ProcessResponse processedResponse = getProcessedResponse();
-				if ( processedResponse == null) { // null is Poison Pill
-					logger.info("Received null value (Poison Pill) from Processor - will stop processing responses now.");
-					break;
-				}
-
-				// Now check for any problems with response...
-				if (foundProblemInResponse(processedResponse)) {
-					break;
-				}
-				
-				//////////////////////////////////////////////////////////////////
-				// If got here, have valid response, with no errors reported from processor
-				//////////////////////////////////////////////////////////////////
-				String processorResponseMessage = processedResponse.getResponse();
-				if (processorResponseMessage == null) { // No response expected, so consume input message now
-					logger.info("Message with AuditKey Value " + processedResponse.getAuditKeyValues() + " succcessfully processed by processing class, and no response returned or expected.");
-					try {
-						messageListener.consumeMessage(processedResponse.getAuditKeyValues());
-					} catch (MessagingException e) {
-						logger.severe("Error: Received LwMessagingException trying to consume message with AuditKey Value " + processedResponse.getAuditKeyValues() + ": " + e);
-						logger.severe("Going to tell main thread to stop processing.");
-						mainProcessToCloseDown = true;
-						break;
-					}
-				}
-				else { // then response is ready after success, see if we should do something with it...
-					logger.info("Response message with AuditKey Value " + processedResponse.getAuditKeyValues() + " returned from processing class. See next line for content (if logging @ level FINE)...");
-					logger.fine(processorResponseMessage);
-
-					//////////////////////////////////////////////////////////////////
-					// Target message processed OK, build response...
-					//////////////////////////////////////////////////////////////////
-					String applicationResponseMessage = null;
-					if (settings.getInputDataFormat() != null && settings.getConvertedInputDataFormat().equals("XML")) {
-						try {
-							applicationResponseMessage = buildResponseMessage(processorResponseMessage.toString(), processedResponse.getInputDoc(), settings);
-						}
-						catch (XMLException e) {
-							logger.severe("Message with AuditKey Value " + processedResponse.getAuditKeyValues() + " caused an LwXMLException building Response message: " + e);
-							logger.severe("Going to tell main thread to stop processing.");
-							mainProcessToCloseDown = true;
-							break;
-						}
-					}
-					else { // don't make any changes, just return response
-						applicationResponseMessage = processorResponseMessage;
-					}
-
-					if (applicationResponseMessage == null) {
-						logger.severe("Error: No Response message was built. Message with AuditKey Value " + processedResponse.getAuditKeyValues());
-						logger.severe("Going to tell main thread to stop processing.");
-						mainProcessToCloseDown = true;
-						break;
-					}
-					else {
-						//////////////////////////////////////////////////////////////////
-						// Response message built OK, send it to MQ or File...
-						//////////////////////////////////////////////////////////////////
-						forwardApplicationResponse(processedResponse, applicationResponseMessage);
-					}
-				} // end if (response == null)
-			
-				// Check to see if an error occurred during processing of response.
-				// If a problem, "stay" the input message and stop processing.
-				// If no problem, "consume" the input message and continue processing.
-				try {
-					if (errorEncountered) { 
-						messageListener.stayMessage(processedResponse.getAuditKeyValues());
-					} else {
-						messageListener.consumeMessage(processedResponse.getAuditKeyValues());
-						logger.info("Message with AuditKey Value " + processedResponse.getAuditKeyValues() + " consumed after processing to output medium.");
-					}
-				} catch (MessagingException e) {
-					logger.severe("ResponseProcessorTask: Caught LwMessagingException exception Staying or consuming message: " + e);
-					logger.severe("Going to tell main thread to stop processing.");
-					errorEncountered = true;
-					break;
-				}
-
-			} while (inLoopMode && !errorEncountered);
-			
-			if (errorEncountered) {
-				mainProcessToCloseDown = true;				
-			}
-			logger.exiting("ResponseProcessorTask", "run");
-		}
-
-		/**
-		 * @param processedResponse the response from the processor
-		 * @param applicationResponseMessage the response message to be forwarded (for interpretation by the originating app 
-		 */
-		private void forwardApplicationResponse(ProcessResponse processedResponse, String applicationResponseMessage) {
-			if (messageResponder != null) {
-				String messageResponderInstructions = null;		// Optional, implementation-specific instructions to be passed to the message responder
-				if (messageListener instanceof AcceptMessagesFromQueue) { // might have ReplytoQ URI from accepted message
-					String replytoQueueURI = ((AcceptMessagesFromQueue)messageListener).getReplytoQueueURI();
-					if (replytoQueueURI != null) {
-						messageResponderInstructions = replytoQueueURI;
-					}
-				}
-
-				try {
-					messageResponder.putMessage(applicationResponseMessage, processedResponse.getAuditKeyValues(), messageResponderInstructions);
-				} catch (MessagingException e) {
-					logger.severe("ResponseProcessorTask: Caught LwMessagingException exception from messageResponder.putMessage(): ");
-					errorEncountered = true;
-				}
-			}
-
-		}
-
-		/**
-		 * Get the response object from the messageProcessor (may block)
-		 * 
-		 * @return the processed response
-		 */
-		private ProcessResponse getProcessedResponse() {
-			try {
-				return messageProcessor.getResponse();
-			} catch (MessagingException e) {
-				logger.severe("ResponseProcessorTask: Caught LwMessagingException exception from messageProcessor.getResponse(): " + e);
-				logger.severe("ResponseProcessorTask: Going to tell main thread to stop processing.");
-				errorEncountered = true;
-			} catch (InterruptedException e) {
-				// Close down thread
-				logger.info("ResponseProcessorTask interrupted while getting response from messageProcessor - shutting down");
-				errorEncountered = true;
-			}
-			
-			return null;
-		}
-
-		/**
-		 * Now check for any problems with response.
-		 * 
-		 * @param processedResponse the response object to be checked/validated
-		 * 
-		 * @return true if we encountered a problem
-		 */
-		private boolean foundProblemInResponse(ProcessResponse processedResponse) {
-			if (processedResponse == null) {
-				logger.info("ResponseProcessorTask received null response - shutting down");
-				logger.info("Received PoisonPill from Processor: Going to tell main thread to stop processing.");
-				errorEncountered = true;
-				return true;
-			}
-			
-			if (processedResponse.getResponseCode() != ProcessResponse.ProcessResponseCode.SUCCESS) {
-				logger.severe("Message with AuditKey Value " + processedResponse.getAuditKeyValues() + " was not processed properly by messageProcessor. Error returned was " + processedResponse.getResponse());
-				logger.severe("ResponseProcessorTask: Going to tell main thread to stop processing.");
-				errorEncountered = true;
-				return true;
-			}
-			
-			if (settings.getMinResponsesExpected() > 0 && processedResponse.getRowsProcessed() < settings.getMinResponsesExpected()) { // then serious problem
-				logger.severe("Message with AuditKey Value " + processedResponse.getAuditKeyValues() + " was not processed properly by messageProcessor. Insufficient Number of responses returned. Expected at least " + settings.getMinResponsesExpected() + ", received " + processedResponse.getRowsProcessed());
-				logger.severe("ResponseProcessorTask: Going to tell main thread to stop processing.");
-				errorEncountered = true;
-				return true;
-			}
-			
-			return false;
-		}
-
-		/**
-		  *
-		  * Build the final response message, for returning to MQ
-		  *
-		  * @param processedResponse the response from the processing Class
-		  * @param inputDoc the original XML message received from MQ
-		  * @param settings the application settings
-		  *
-		  * @return a the XML string to be sent to the target for processing
-		  */
-		private String buildResponseMessage(String processedResponse, XMLDocument inputDoc, GenericMessageHandlerSettings settings)
-																		throws XMLException {
-			if (processedResponse == null || inputDoc == null || settings.getMindElementSet() == null) {
-				return null;
-			}
-
-			//////////////////////////////////////////////////////////////////////////
-			// Create a new doc from the processed response...
-			//////////////////////////////////////////////////////////////////////////
-			XMLDocument processedResponseDoc = null;
-			try {
-				processedResponseDoc = XMLDocument.createDoc(processedResponse, XMLDocument.SCHEMA_VALIDATION_OFF);
-			}
-			catch(XMLException e2) {
-				throw new XMLException("LwGenericMessageHandler.buildMessageForTarget(): Fatal Exception creating a new XML doc from processed response: " + e2.getMessage());
-			}
-
-			String responseMainDocElementName = settings.getResponseMainDocElementName();
-
-			//////////////////////////////////////////////////////////////////////////
-			// Create a new response doc (or just use processedResponse)...
-			//////////////////////////////////////////////////////////////////////////
-			XMLDocument responseDoc = null;
-			try {
-				if (responseMainDocElementName == null) { // then don't want to wrap response in any tag
-					responseMainDocElementName = processedResponseDoc.getCurrentNodeName();
-					responseDoc = processedResponseDoc;
-				}
-				else {
-					responseDoc = XMLDocument.createDoc("<" + responseMainDocElementName + "></" + responseMainDocElementName + ">", XMLDocument.SCHEMA_VALIDATION_OFF);
-					responseDoc.importNode(processedResponseDoc.getCurrentNode(), true);
-				}
-			}
-			catch(XMLException e2) {
-				throw new XMLException("LwGenericMessageHandler.buildMessageForTarget(): Fatal Exception creating a new doc: " + e2.getMessage());
-			}
-
-			addMindedElementsToMessage(inputDoc, settings,	responseMainDocElementName, responseDoc);
-
-			setValuesForResponseLiterals(settings, responseDoc);
-
-			return responseDoc.toString();
-		}
-
-		/**
-		 * Set the values for any response literals...
-		 *
-		 * Notes:
-		 * If the TAG does not exist, it will be created (along with any missing aggregates along it's path)
-		 *
-		 * Here's the sequence...
-		 * Loop through the "literal" list
-		 *		Find the element in responseDoc (as specified in the Location attribute)
-		 *		If found, set the text value to that from the settings file
-		 *		If NOT found
-		 *			Add the element (creating parents if necessary along the way)
-		 *			Find the newly created element in responseDoc
-		 *			Set the text value to that from the settings file
-		 *
-		 * 
-		 * 
-		 * @param settings application settings
-		 * @param responseDoc the XML doc to be amended
-		 */
-		private void setValuesForResponseLiterals( GenericMessageHandlerSettings settings, XMLDocument responseDoc) {
-			Enumeration<XMLTagValue> enumLiteralNames = settings.getResponseLiteralsSet();
-			while (enumLiteralNames.hasMoreElements()) {
-				XMLTagValue tv = enumLiteralNames.nextElement();
-
-				responseDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
-				if ( responseDoc.setCurrentNodeByPath(tv.getAttributeValue("Location"), 1)) {
-					responseDoc.setTextContentForCurrentNode(tv.getTagValue());
-				}
-				else { // no prob if we don't find the aggregate, we'll add it
-					XMLTagValue tempTagNoValue = new XMLTagValue(tv.getAttributeValue("Location"), null); // just to help split out path e.g. MESSAGE.DELV.ORD or MESSAGE.DELV.ORD.ORDER_NUMBER
-
-					if (tempTagNoValue.getPathToNameLessFirstElement() != null) {
-						if (responseDoc.addElement(null, tempTagNoValue.getPathToNameLessFirstElement(), null) != null) {
-
-							responseDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
-							if (responseDoc.setCurrentNodeByPath(tempTagNoValue.getPathToName(), 1)) {
-								responseDoc.setTextContentForCurrentNode(tv.getTagValue());
-							}
-						}
-					}
-				}
-			}
-		}
-
-		/**
-		 * Add the "mind"ed aggregates or tags...
-		 *
-		 * Notes:
-		 * We must allow for the fact that the top-level element of the response
-		 * might not have the same Name as that of the input message.
-		 *
-		 * Both aggregates and TAGs may be minded.
-		 * The path to the aggregate or tag will be created in the response, if it does not already exist.
-		 * Individual TAGs specified with the same path will appear in the same aggregate in the response message (i.e the parent aggregate will not be duplicated).
-		 * If a TAG appears in the list after an aggregate existing along the same path, the TAG will be duplicated in the response message.
-		 * If a TAG appears in the list before an aggregate existing along the same path, the aggregate will be duplicated in the response message.
-		 *
-		 * Here's the sequence...
-		 * Loop through the "minded" list
-		 *		If special name "*" encountered, import all from inputDoc
-		 *		Otherwise...
-		 *			Find the "minded" element in inputDoc
-		 *			Find the parent of "minded" element in responseDoc (will fail if names of top-level elements differ in docs, or if sub-aggregate not yet there)
-		 *			If didn't find parent, create it in responseDoc (ignoring top-level element of Location attribute), and then find it
-		 *			Import the node into responseDoc at the found parent
-		 * 
-		 * 
-		 * @param inputDoc the original input doc (source of the whole transaction)
-		 * @param settings application settings
-		 * @param responseMainDocElementName the name of the root element for the responseDoc
-		 * @param responseDoc the XML doc to be amended
-		 */
-		private void addMindedElementsToMessage(XMLDocument inputDoc, GenericMessageHandlerSettings settings,
-												String responseMainDocElementName, XMLDocument responseDoc) {
-			Enumeration<XMLTagValue> mindElements = settings.getMindElementSet();
-			while (mindElements.hasMoreElements()) {
-				XMLTagValue tv = mindElements.nextElement();
-
-				inputDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
-				responseDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
-
-				if (tv.getTagValue().equals("*")) { // then import ALL from the inputDoc, but excluding the "wrapper" TAG (e.g. "MESSAGE")
-					responseDoc.importNodesChildren(inputDoc.getCurrentNode(), true);
-				}
-				else { // find the node and import it
-					if (inputDoc.setCurrentNodeByPath(tv.getTagValue(), 1)) { // no prob if we don't find the aggregate in input, we'll ignore then
-						responseDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
-
-						// Position "pointer" in responseDoc to correct parent aggregate, creating it if we have to...
-						// (Note that the first ELEMENT in the path for the input may have a different name than the response, so we may ignore it)
-						XMLTagValue tempTagNoValue = new XMLTagValue(tv.getTagValue(), null); // just to help split out path e.g. MESSAGE.DELV.ORD or MESSAGE.DELV.ORD.ORDER_NUMBER
-
-						//search under both inputDoc top-level Name and that of Target top-level Name
-						if ( ! (responseDoc.setCurrentNodeByPath(tempTagNoValue.getPathToParent(), 1) || responseDoc.setCurrentNodeByPath(("/" + responseMainDocElementName + "/" + tempTagNoValue.getPathToParentLessFirstElement()), 1))
-						   ) { // try to go to parent recipient (if specified), create path if can't
-							String pathToParentLessFirstElement = tempTagNoValue.getPathToParentLessFirstElement();
-
-							if (pathToParentLessFirstElement != null) { // would be null if TAG is child of first ELEMENT in doc
-								responseDoc.addElement(null, pathToParentLessFirstElement, null);
-								responseDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
-								responseDoc.setCurrentNodeByPath(tempTagNoValue.getPathToParent(), 1);
-							}
-						}
-
-						// Now can import the minded node
-						responseDoc.importNode(inputDoc.getCurrentNode(), true);
-					}
-				}
-			}
-		}
-	} // end class ResponseProcessorTask
+package gemha.servers;
+
+import java.io.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.*;
+import java.util.*;
+
+import javax.xml.transform.TransformerException;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+import lw.utils.*;
+import lw.XML.*;
+import gemha.interfaces.*;
+import gemha.support.*;
+
+/**
+  * This server class processes a message from a chosen source (e.g. MQ, Database, Socket or File(s)) and places the response(s) on an MQ queue, to a Socket or in file(s).
+  * The sequence of events is as follows:
+  * Messages flow in the direction: messageListener --> messageProcessor --> messageResponder
+  * We accept messages from the messageListener, which retrieves them from a File/Queue/Socket.
+  * The messageProcessor is passed the message, processes it, sends it to the Database/Socket/File and returns
+  * a response (if required).
+  * If a response IS required the ResponseProcessorTask will accept the response from the messageProcessor and
+  * send it to the appropriate medium (File/Socket/HTTP Connection), via the messageResponder.
+  * 
+  * One example would be a (simple) SELECT request retrieved from a Queue, processed against the database and
+  * the resulting dataset returned to another Queue.
+  *  
+  * This class employs the services of IApp interface to allow graceful shutdown.
+  * 
+  * NOTE: This implementation will only work/be useful for a source input that can be read continuously by one thread
+  * 	  and processed by other threads, without having to commit the retrieval of the input message.
+  * 	  For example, retrieving from a queue usually means only committing the "get" after the message has been
+  * 	  successfully processed, effectively killing any possibility of processing in parallel.
+  * 
+  * @author Liam Wade
+  * @version 1.0 15/10/2008
+  * @version 1.1 30/09/2013 Implemented ResponseProcessorTask as runnable, accepting responses from Processor on separate thread. 
+  * @version 1.2 16/10/2026 Optional concurrency and transports (partitioned lanes, staged pipeline, batching, thread-per-message, ring buffers, adaptive limit, response backpressure), hosting in GemhaHost, compiled copy plans, schemas, templates and stylesheets, and faster file input (mapped, parallel, watched, checkpointed).
+  */
+public class GenericMessageHandler implements IApp
+{
+    private static final Logger logger = Logger.getLogger("gemha");
+
+	private final String settingsFileName;
+	private volatile GenericMessageHandlerSettings settings = null;
+	private IAcceptMesssages messageListener = null;		// the interface for accepting messages
+	private IProcessMesssage messageProcessor = null;	// the interface for processing messages
+	private IStoreMesssage messageResponder = null;		// the interface for storing responses
+	
+	private volatile boolean mainProcessToCloseDown = false;	// controls main while-loop (can be set by ResponseProcessorTask)
+    // Executor for processing responses (a second thread acknowledges forwarded responses, if responder runs thread-per-message)
+    private final ExecutorService execPool = Executors.newFixedThreadPool(2);
+	private ResponseProcessorTask responseProcessorTask;		// Handles responses from messageProcessor. Will be null if messageResponder supplied in constructor
+	private PartitionedTaskExecutor laneDispatcher = null;		// If partitioning configured, runs messages on lanes by key, in front of messageProcessor
+	private XPathExpression partitionKeyExpression = null;		// If partitioning by XPath, yields the key (only used by the dispatching thread)
+	private volatile MessagePipeline messagePipeline = null;	// If pipelining configured, the stages between accepting and dispatching a message
+	private ResponseBackpressure responseBackpressure = null;	// If ResponseQueue limits configured, pauses accepting messages while too many responses await collection
+	private MessageBatcher messageBatcher = null;				// If batching configured, gathers messages into batches for messageProcessor
+	private volatile AdaptiveConcurrencyLimiter concurrencyLimiter = null;	// If AdaptiveConcurrency configured, limits messages in flight at messageProcessor by latency
+	private StreamingTargetBuilder streamingTargetBuilder = null;	// If TargetBuilder is Streaming (or Compact), and no DOM is needed, builds the target message without one
+	private boolean insertRowsFromText = false;				// If true, messages are INSERTs fed from CSV, read by the Processor from their text (see InsertRows), so no target DOM is handed over
+	private ProcessedMessageTracker processedMessageTracker = null;	// If messageListener must know when messages are processed (see IAcceptProcessedMesssages), tells it in order
+	private final String pipelineName;							// If hosted (see GemhaHost), the name of this pipeline, otherwise null
+	private final ScheduledExecutorService sharedTimer;			// If hosted, the timer shared by all pipelines, otherwise null
+	private final AtomicLong messagesForValidation = new AtomicLong(0);	// Counts input messages for which validation is on, to validate only 1 in every n
+	private final AtomicBoolean shutDownStarted = new AtomicBoolean(false);	// shutDown() may be called by both a host and the VM, but must only run once
+
+
+	/**
+	  * Constructor used when LwGenericMessageHandler itself will decide from which
+	  * object it is to receive messages. 
+	  *
+	  * @param settingsFileName (and optionally path) of file from which settings are to be read
+	  */
+	public GenericMessageHandler(String settingsFileName) {
+		this(settingsFileName, (String) null, null);
+	}
+
+	/**
+	  * Constructor used when LwGenericMessageHandler is one of several pipelines hosted in the same JVM (see GemhaHost).
+	  * Instead of exiting the JVM, a hosted handler that cannot continue throws HandlerExitException from start().
+	  * Its log file only receives records logged on its own behalf (see PipelineContext).
+	  * Only the timer is shared with other pipelines: each pipeline still has its own response threads, and its
+	  * Processor its own workers and connections.
+	  *
+	  * @param settingsFileName (and optionally path) of file from which settings are to be read
+	  * @param pipelineName the name of this pipeline, unique within the host (null if not hosted)
+	  * @param sharedTimer a timer shared by all hosted pipelines, for timed batch hand-overs (null to use its own)
+	  */
+	public GenericMessageHandler(String settingsFileName, String pipelineName, ScheduledExecutorService sharedTimer) {
+		this.settingsFileName = settingsFileName;
+		this.pipelineName = pipelineName;
+		this.sharedTimer = sharedTimer;
+	}
+
+	/**
+	  * Constructor used when LwGenericMessageHandler is given the object
+	  * from which it is to receive messages. 
+	  *
+	  * @param settingsFileName Name (and optionally path) of file from which settings are to be read
+	  * @param messageListener object that will supply messages.
+	  */
+	public GenericMessageHandler(String settingsFileName, IAcceptMesssages messageListener) {
+		this.settingsFileName = settingsFileName;
+		this.messageListener = messageListener;
+		this.pipelineName = null;
+		this.sharedTimer = null;
+	}
+
+
+	/**
+	  * Constructor used when LwGenericMessageHandler is given the object
+	  * from which it is to receive messages and to which it should send any Responses.
+	  * That is, the incoming messages AND responses are handled programatically (perhaps by the same process.)
+	  *
+	  * @param settingsFileName Name (and optionally path) of file from which settings are to be read
+	  * @param messageListener object that will supply messages - implements interface LwIAcceptMesssages.
+	  * @param messageResponder object that will forward response messages - implements interface LwIStoreMesssage.
+	  */
+	public GenericMessageHandler(String settingsFileName, IAcceptMesssages messageListener, IStoreMesssage messageResponder) {
+		this.settingsFileName = settingsFileName;
+		this.messageListener = messageListener;
+		this.messageResponder = messageResponder;
+		this.pipelineName = null;
+		this.sharedTimer = null;
+	}
+
+	/**
+	  *
+	  * Start the application
+	  */
+	public void start() {
+		final long start;
+		final long end;
+
+		start = System.nanoTime();
+		
+		logger.info("<*<*<*<*< Starting Up >*>*>*>*>");
+
+		try {
+			settings = new GenericMessageHandlerSettings(settingsFileName, XMLDocument.SCHEMA_VALIDATION_ON);
+		}
+		catch(SettingsException e) {
+			logger.severe("Exception encountered loading application configuration settings from file " + settingsFileName + ": " + e);
+			System.out.println("Exception encountered loading application configuration settings from file " + settingsFileName + ": " + e);
+			exitApplication(-10);
+		}
+
+		//////////////////////////////////////////////////////////////////
+		// Load the procesing interface...
+		// This dynamically-loaded class will perform whatever procesing
+		// is necessary for this particular instance of LwGenericMessageHandler
+		//////////////////////////////////////////////////////////////////
+		messageProcessor = loadMessageProcessor();
+
+		//////////////////////////////////////////////////////////////////
+		// Set up processing lanes, if messages are to be partitioned by key...
+		//////////////////////////////////////////////////////////////////
+		setupLaneDispatcher();
+
+		//////////////////////////////////////////////////////////////////
+		// Set up batching of messages for the Processor, if requested...
+		//////////////////////////////////////////////////////////////////
+		setupMessageBatcher();
+
+		//////////////////////////////////////////////////////////////////
+		// Set up streaming of target messages, if requested...
+		//////////////////////////////////////////////////////////////////
+		setupStreamingTargetBuilder();
+
+		logger.info("<*<*<*<*< Startup completed successfully >*>*>*>*>");
+
+		//////////////////////////////////////////////////////////////////
+		//////////////////////////////////////////////////////////////////
+		//                M a i n  P r o c e s s i n g...
+		//////////////////////////////////////////////////////////////////
+		//////////////////////////////////////////////////////////////////
+
+		//////////////////////////////////////////////////////////////////
+		// Determine and prepare input medium, if not already supplied
+		// in a constructor...
+		//////////////////////////////////////////////////////////////////
+		setupMessageListener();
+		setupProcessedMessageTracker();
+
+
+		//////////////////////////////////////////////////////////////////
+		// Determine and prepare output medium...
+		// No problem if no output medium, if don't want to output anything.
+		//////////////////////////////////////////////////////////////////
+		setupMessageResponder();
+
+
+		//////////////////////////////////////////////////////////////////
+		// Start handling messages...
+		//////////////////////////////////////////////////////////////////
+		try {
+
+			handleMessages(settings);
+			
+			// Finished now, but give executors time to flush results
+			if (responseProcessorTask != null)
+				try {
+					if (laneDispatcher != null) {
+						laneDispatcher.awaitTermination(1, TimeUnit.MINUTES);
+					}
+					messageProcessor.awaitTermination(1, TimeUnit.MINUTES);
+					// Flush execPool buffer and shut it down (no waiting)...
+					execPool.shutdown();
+					execPool.awaitTermination(1, TimeUnit.MINUTES);
+				} catch (InterruptedException e) {
+					// Reset interrupted, finishing anyway
+					Thread.currentThread().interrupt();
+				}
+		}
+		catch (MessagingException e) {
+			logger.severe("Stopped processing: Caught LwMessagingException exception: " + e);
+			exitApplication(-16);
+		}
+//		catch (Exception e) {
+//			logger.severe("Stopped processing: Caught unknown exception: " + e);
+//		}
+		finally { // but probably won't even get here, as normally terminated by interrupt
+			logger.info("Shutting down (further messages may only be sent to file " + settings.getShutDownLogFileName() + ")");
+
+			end = System.nanoTime();
+			logger.info("Finished processing: LwGenericMessageHandler ran for " + (end - start)/1.0e9 + " seconds");
+
+			// Stop the response-processing thread
+			// BEST NOT DO THIS. Allow the Processor tell the response-processing thread that all finished
+//			if (responseProcessorTask != null)
+//				responseProcessorTask.interrupt();
+			// Close log file now. Is no use during shutdown anyway, as the Logger has its own shutdown hook
+			// and can therefore be shut down by the virtual machine before our shutdown hook.
+			settings.releaseResourses();
+		}
+		
+		logger.exiting("LwGenericMessageHandler", "start");
+	}
+
+	/**
+	 *  Stop the application: exit the JVM with the given status or, if hosted, throw HandlerExitException
+	 *  so only this pipeline stops.
+	 *  
+	 *  @param status the exit status
+	 */
+	private void exitApplication(int status) {
+		if (pipelineName == null) {
+			System.exit(status);
+		}
+		else {
+			if (settings != null) { // stop logging to this pipeline's file, as the JVM carries on
+				settings.releaseResourses();
+			}
+			throw new HandlerExitException("LwGenericMessageHandler: pipeline " + pipelineName + " stopped with status " + status, status);
+		}
+	}
+
+	/**
+	 *  Load the class chosen to process messages.
+	 *  Application will exit if any problem encountered either loading class
+	 *  or performing its setup procedure.
+	 *  
+	 *  @return the loaded message processor
+	 */
+	private IProcessMesssage loadMessageProcessor() {
+		IProcessMesssage messageProcessor = null;
+		try {
+			messageProcessor = (IProcessMesssage)(Class.forName(settings.getMessageProcessingClassName()).newInstance());
+			// When partitioned, each lane needs its own worker (e.g. Db connection) in the processor.
+			// When limited adaptively, there must be a worker for the highest limit.
+			int workers = Math.max(settings.getConcurrency(), settings.getPartitionLanes());
+			if (settings.isAdaptiveConcurrency()) {
+				workers = Math.max(workers, settings.getAdaptiveMaxLimit());
+			}
+
+			if (settings.isThreadPerMessage() && messageProcessor instanceof IProcessMesssageConcurrently) {
+				((IProcessMesssageConcurrently) messageProcessor).setThreadPerMessage(Math.max(settings.getMaxInFlight(), workers));
+			}
+			else if (settings.isRingBuffer() && workers == 1 && messageProcessor instanceof IProcessMesssageConcurrently) {
+				((IProcessMesssageConcurrently) messageProcessor).setRingBufferTransport(settings.getRingBufferSize(), settings.getRingBufferWaitStrategy());
+			}
+			else {
+				if (settings.isThreadPerMessage()) {
+					logger.warning("Message-processing class " + settings.getMessageProcessingClassName() + " does not implement IProcessMesssageConcurrently, so ThreadPerMessage is ignored.");
+				}
+				else if (settings.isRingBuffer() && workers == 1) {
+					logger.warning("Message-processing class " + settings.getMessageProcessingClassName() + " does not implement IProcessMesssageConcurrently, so RingBuffer is ignored.");
+				}
+				else if (settings.isRingBuffer()) {
+					logger.warning("RingBuffer is ignored unless Concurrency is 1, with no ThreadPerMessage or Partitioning.");
+				}
+				if (workers > 1) { // otherwise leave the Processor as it is, so any Processor will do
+					if (messageProcessor instanceof IProcessMesssageConcurrently) {
+						((IProcessMesssageConcurrently) messageProcessor).setConcurrency(workers);
+					}
+					else {
+						logger.warning("Message-processing class " + settings.getMessageProcessingClassName() + " does not implement IProcessMesssageConcurrently, so will process one message at a time.");
+					}
+				}
+			}
+			if (settings.isResponseQueueBounded()) {
+				responseBackpressure = new ResponseBackpressure(settings.getResponseQueueMaxResponses(), settings.getResponseQueueMaxBytes(),
+																settings.getResponseQueueHighWatermarkPercent(), settings.getResponseQueueLowWatermarkPercent());
+				if (messageProcessor instanceof IProcessMesssageConcurrently) {
+					((IProcessMesssageConcurrently) messageProcessor).setResponseBackpressure(responseBackpressure);
+				}
+				else if (settings.getPartitionLanes() > 0) { // the lanes' response queue is still bounded
+					logger.warning("Message-processing class " + settings.getMessageProcessingClassName() + " does not implement IProcessMesssageConcurrently, so ResponseQueue limits will only bound the Partitioning lanes.");
+				}
+				else { // nothing would tell the backpressure of responses
+					logger.warning("Message-processing class " + settings.getMessageProcessingClassName() + " does not implement IProcessMesssageConcurrently, so ResponseQueue limits are ignored.");
+					responseBackpressure = null;
+				}
+			}
+			messageProcessor.performSetup(settings.getMessageProcessingSettingsFileName());
+		}
+		catch(ClassNotFoundException e1) {
+			logger.severe("Could not load message-processing class " + settings.getMessageProcessingClassName() + ", specified in TagName MessageProcessingClassName.");
+			exitApplication(-6);
+		}
+		catch(InstantiationException e2) {
+			logger.severe("Could not instantiate message-processing class " + settings.getMessageProcessingClassName() + ", specified in TagName MessageProcessingClassName.");
+			exitApplication(-7);
+		}
+		catch(IllegalAccessException e3) {
+			logger.severe("IllegalAccessException instantiating message-processing class " + settings.getMessageProcessingClassName() + ", specified in TagName MessageProcessingClassName. " + e3.getMessage());
+			exitApplication(-8);
+		}
+		catch(SettingsException e4) {
+			logger.severe("LwSettingsException instantiating message-processing class " + settings.getMessageProcessingClassName() + ", specified in TagName MessageProcessingClassName. " + e4.getMessage());
+			exitApplication(-9);
+		}
+
+		if (messageProcessor == null) {
+			logger.severe("Could not load message-processing class " + settings.getMessageProcessingClassName() + ", specified in TagName MessageProcessingClassName. Unknown reason.");
+			exitApplication(-11);
+		}
+		
+		return messageProcessor;
+	}
+
+	/**
+	 *  If messages are to be partitioned by key, create the lanes on which they will be processed.
+	 *  Messages with the same key are processed in order on the same lane, while messages with different
+	 *  keys may be processed at the same time. Responses are still handled in the order messages were received.
+	 *  Application will exit if the partition key XPath cannot be compiled.
+	 */
+	private void setupLaneDispatcher() {
+		if (settings.getPartitionLanes() < 1) {
+			return; // not partitioned, messages go straight to messageProcessor
+		}
+
+		if ("XPath".equals(settings.getPartitionKeySource())) {
+			try {
+				partitionKeyExpression = XPathFactory.newInstance().newXPath().compile(settings.getPartitionKeyXPath());
+			} catch (XPathExpressionException e) {
+				logger.severe("Could not compile Partitioning KeyXPath " + settings.getPartitionKeyXPath() + ": " + e.getMessage());
+				exitApplication(-17);
+			}
+		}
+
+		laneDispatcher = new PartitionedTaskExecutor(settings.getPartitionLanes(), responseBackpressure);
+		logger.info("Messages will be partitioned onto " + laneDispatcher.getLaneCount() + " lane(s).");
+	}
+
+	/**
+	 *  If messages are to be handed to the Processor in batches, create the batcher that will gather them.
+	 *  Batching is not used when messages are partitioned, as each lane hands its messages to the Processor one at a time.
+	 */
+	private void setupMessageBatcher() {
+		if ( ! settings.isBatched()) {
+			return;
+		}
+
+		if (laneDispatcher != null) {
+			logger.warning("Batching is ignored when messages are partitioned onto lanes.");
+			return;
+		}
+
+		messageBatcher = new MessageBatcher(settings.getBatchMaxMessages(), settings.getBatchMaxWaitMilliSeconds());
+		logger.info("Messages will be handed to the Processor in batches of up to " + settings.getBatchMaxMessages() + " message(s).");
+	}
+
+	/**
+	 *  If the target message is to be built by streaming, create the builder, unless the settings need a DOM
+	 *  of the input message anyway: schema validation, elements to be minded, partitioning by XPath, or paths
+	 *  the stream cannot follow. The audit key values and data contract name are collected in the same pass.
+	 *
+	 *  Messages of INSERTs fed from CSV files, where the Processor reads them from their text (see InsertRows),
+	 *  are streamed too, even if TargetBuilder is not set, so no DOM is built for them unless one is needed.
+	 */
+	private void setupStreamingTargetBuilder() {
+		insertRowsFromText = ("CSV".equals(settings.getInputDataFormat()) && "INSERT".equalsIgnoreCase(settings.getXMLFormat())
+								&& messageProcessor instanceof IProcessParsedMesssage && ((IProcessParsedMesssage) messageProcessor).readsInsertRows());
+		if (insertRowsFromText) {
+			logger.info("Messages of INSERTs will be read by the Processor from their text, so will not be handed over parsed.");
+		}
+
+		if ( ! settings.isStreamingTargetBuilder() && ! insertRowsFromText) {
+			return;
+		}
+
+		String reasonForDOM = null;
+		XMLTagValue inputValidationSettings = settings.getInputValidationSettings();
+		if (inputValidationSettings != null && "on".equals(inputValidationSettings.getAttributeValue("SchemaValidation"))) {
+			reasonForDOM = "input messages are validated against a schema";
+		}
+		else if (settings.hasMindElements()) {
+			reasonForDOM = "elements are minded from input messages";
+		}
+		else if ("XPath".equals(settings.getPartitionKeySource())) {
+			reasonForDOM = "messages are partitioned by XPath";
+		}
+
+		List<String> headerPaths = settings.getMessageHeaderExtractor().getHeaderPaths();
+
+		if (reasonForDOM == null && ! StreamingTargetBuilder.canStream(settings.getSendElementPlan(), headerPaths)) {
+			reasonForDOM = "not all SendElements, audit key and data contract paths are simple absolute paths";
+		}
+
+		if (reasonForDOM != null && ! settings.isStreamingTargetBuilder()) { // only streaming for INSERTs, so nothing was asked for
+			logger.info("Target messages will be built by DOM, as " + reasonForDOM + ".");
+			return;
+		}
+		else if (reasonForDOM != null) {
+			logger.warning("TargetBuilder " + (settings.isCompactTargetBuilder() ? "Compact" : "Streaming") + " is ignored, as " + reasonForDOM + ". Target messages will be built by DOM.");
+			return;
+		}
+
+		streamingTargetBuilder = new StreamingTargetBuilder(settings.getSendElementPlan(), settings.getTargetMainDocElementName(), headerPaths, settings.isCompactTargetBuilder());
+		logger.info("Target messages will be built by " + (settings.isCompactTargetBuilder() ? "reading input messages into a compact model." : "streaming input messages."));
+	}
+
+	/**
+	 * Instantiate the correct Message Listener (input) and tell it to perform any setup, if appropriate.
+	 */
+	private void setupMessageListener() {
+		if (messageListener == null) {
+			try {
+				if (settings.getInputQueueName() != null) { // then am to read messages from MQ
+					messageListener = new AcceptMessagesFromQueue(settings.getInputQueueName(), settings.getInputUrlJMSserver());
+				}
+				else if (settings.getPortNumber() > 0) {
+					messageListener = new AcceptMessagesFromSocket(settings.getPortNumber());
+				}
+				else if (settings.getInputFileNameFilter() != null) {
+						messageListener = new AcceptMessagesFromFiles(settings.getInputFileDir(), settings.getInputFileNameFilter(), settings.sortFilteredFileNames(), settings.getColNameList(),
+																		settings.getInputDataFormat(), settings.getFieldSeparator(), settings.getMaxRecsPerMessage(),
+																		settings.getXMLFormat(), settings.getActionOnError(), settings.getPreparedStatementName(),
+																		settings.getImmediateCommit(), settings.getNumRecordsToSkip(), settings.isMemoryMappedCSVReader(),
+																		settings.getParallelFileReaders());
+						if (settings.getInputFileWatchDoneDir() != null) {
+							((AcceptMessagesFromFiles) messageListener).setWatchMode(settings.getInputFileWatchDoneDir(), settings.getInputFileWatchPollIntervalMillis());
+						}
+						if (settings.getCSVCheckpointFileName() != null) {
+							((AcceptMessagesFromFiles) messageListener).setCheckpoint(settings.getCSVCheckpointFileName(), settings.getCSVCheckpointSyncIntervalMillis());
+						}
+				}
+				else { // something very wrong indeed!
+					logger.severe("Missing essential information for input source - for example inputQueueName, input portNumber or inputFileNameFilter (or was LwGenericMessageHandler called with incorrect Constructor?)");
+					exitApplication(-12);
+				}
+			} catch (SettingsException e) {
+				logger.severe("Stopped processing at setupMessageListener: Caught LwSettingsException exception: " + e);
+				exitApplication(-13);
+			}
+		}
+
+		try {
+			messageListener.performSetup();
+		} catch (MessagingException e) {
+			logger.severe("Stopped processing calling messageListener.performSetup(): Caught LwMessagingException exception: " + e);
+			exitApplication(-14);
+		}
+	}
+
+	/**
+	 * If the Message Listener must know when each message has been processed (see IAcceptProcessedMesssages),
+	 * track messages from dispatch until their responses have been handled.
+	 * 
+	 * Responses are only collected here if the Message Responder was not supplied in a Constructor. If it was,
+	 * a message is taken as processed once dispatched, as that is all that can be known here.
+	 */
+	private void setupProcessedMessageTracker() {
+		if ( ! (messageListener instanceof IAcceptProcessedMesssages)) {
+			return;
+		}
+
+		processedMessageTracker = new ProcessedMessageTracker((IAcceptProcessedMesssages) messageListener);
+		if (messageResponder != null) { // supplied in a Constructor, so responses won't be collected by ResponseProcessorTask
+			logger.warning("The Message Responder is supplied in the Constructor, so messages will be taken as processed once dispatched to the Processor.");
+		}
+	}
+
+	/**
+	 * Instantiate the correct Message Responder and tell it to open the storage medium, if appropriate.
+	 * 
+	 * @throws MessagingException if openStorage() encounters a problem
+	 */
+	private void setupMessageResponder()  {
+		if (messageResponder == null) { // but don't check if has already been supplied in a Constructor
+			if (settings.getOutputQueueName() != null) { // then am to send messages to MQ
+				if (settings.getReplyToQueueName() == null) { // no instruction on where to return a response
+					messageResponder = new StoreMesssageToQueue(settings.getOutputQueueName(), settings.getOutputUrlJMSserver());
+				}
+				else {
+					messageResponder = new StoreMesssageToQueue(settings.getOutputQueueName(), settings.getReplyToQueueName());
+				}
+			}
+			else if (settings.getOutputFileNameTemplate() != null) {
+				messageResponder = new StoreMesssageToFile(settings.getOutputFileNameTemplate(), settings.getConvertedInputDataFormat(), settings.getOutputFilePrettyPrint(), settings.getOutputFileCheckWellFormed());
+			}
+			else if (settings.getHTTPServerUrl() != null) {
+				messageResponder = new StoreMesssageToHTTP(settings.getHTTPServerUrl(), settings.getHTTPEndPointName(), settings.getHTTPWithBackoff(), settings.getConvertedInputDataFormat());
+			}
+			
+			// Only set this up if we know messageResponder is one of the "inbuilt" types - i.e. messageResponder was NOT
+			// supplied in a constructor (if it were, we wouldn't know how to handle responses)
+			// messageListener should always be populated by now
+			// inLoopMode of ResponseProcessorTask set to true here to tell it to loop for responses,
+			// as will run in its own thread.
+			responseProcessorTask = new ResponseProcessorTask(true, messageResponder, messageListener);
+			if (settings.isAdaptiveConcurrency()) { // responses are collected by responseProcessorTask, so latency can be measured
+				concurrencyLimiter = new AdaptiveConcurrencyLimiter(settings.getAdaptiveMinLimit(), settings.getAdaptiveMaxLimit(),
+																	settings.getAdaptiveLatencyTolerancePercent());
+				logger.info("Messages in flight at the Processor will be limited adaptively, between " + settings.getAdaptiveMinLimit() + " and " + settings.getAdaptiveMaxLimit() + ".");
+			}
+			execPool.execute(responseProcessorTask);
+		}
+		else if (settings.isAdaptiveConcurrency()) {
+			logger.warning("AdaptiveConcurrency is ignored when the Message Responder is supplied in the Constructor.");
+		}
+
+		if (messageResponder != null) {
+			try {
+				messageResponder.openStorage();
+			} catch (MessagingException e) {
+				logger.severe("Stopped processing calling messageResponder.openStorage(): Caught LwMessagingException exception: " + e);
+				exitApplication(-15);
+			}
+		}
+	}
+
+
+	/**
+	  *
+	  * This is the main control loop
+	  *
+	  * @param settings the loaded application config settings
+	  *
+	  */
+	private void handleMessages(GenericMessageHandlerSettings settings)
+																throws MessagingException {
+		int numMessagesProcessed = 0;
+
+		if (settings.isPipelined()) { // then the main loop just accepts messages, the other stages run on their own threads
+			if (messageListener instanceof AcceptMessagesFromQueue || messageListener instanceof AcceptMessagesFromSocket) { // only if supplied in a Constructor, otherwise refused by settings
+				throw new MessagingException("Pipeline not allowed with input from a Queue or Socket, as messages must be consumed or stayed on the thread that accepted them.");
+			}
+			messagePipeline = new MessagePipeline(settings);
+		}
+
+		while ( ! mainProcessToCloseDown) {
+			String receivedMessage = null;
+			boolean skipMessage = false;	// set to true if there is a problem with a message and it is to be skipped, that is removed from the input queue
+
+
+			//////////////////////////////////////////////////////////////////
+			// Hold off while too many responses await collection
+			//////////////////////////////////////////////////////////////////
+			if (responseBackpressure != null) {
+				try {
+					responseBackpressure.awaitCapacity();
+				} catch (InterruptedException e) {
+					logger.info("Interrupted waiting for response queue to empty. Going to close down.");
+					mainProcessToCloseDown = true;
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+
+			//////////////////////////////////////////////////////////////////
+			// Get a message, waiting if necessary
+			//////////////////////////////////////////////////////////////////
+			messageListener.setWaitInterval(settings.getMilliSecondsBeforeQuiet()); // block for n seconds (if blocking relevant)
+			receivedMessage = messageListener.acceptNextMessage();
+
+			if (receivedMessage == null) { // then no message available, might want to try again, depending on input medium
+				if (messageBatcher != null) { // don't hold messages back while waiting (maybe indefinitely) for more
+					messageBatcher.flush();
+				}
+				receivedMessage = handleIncomingEmptyMessage(settings);
+			}
+
+			//////////////////////////////////////////////////////////////////
+			// Give client chance to close us down
+			//////////////////////////////////////////////////////////////////
+			if (Thread.currentThread().isInterrupted()) {
+				// Will process next message, if relevant, then exit
+				mainProcessToCloseDown = true;
+			}
+				
+			//////////////////////////////////////////////////////////////////
+			// Handle the incoming Message...
+			//////////////////////////////////////////////////////////////////
+			if (receivedMessage != null) { // then have something to work on
+
+				if (messagePipeline != null) {
+					messagePipeline.acceptMessage(receivedMessage, skipMessage);
+					numMessagesProcessed++;
+				}
+				else {
+					numMessagesProcessed = handleIncomingMessage(settings, numMessagesProcessed, skipMessage, receivedMessage);
+				}
+			}
+
+
+			if (settings.getInputLimit() > 0) { // then a limit was set on the number of messages to process
+				if (numMessagesProcessed >= settings.getInputLimit()) {
+					mainProcessToCloseDown = true;
+					logger.info("Specfied limit of " + settings.getInputLimit() + " message(s) reached.");
+				}
+			}
+
+			if ( mainProcessToCloseDown) { // There's a slight chance this msg may not output, if another thread sets mainProcessToCloseDown just after checking.
+				logger.info("Stopping processing and going to close down. (mainProcessToCloseDown is true)");
+			}
+		} // end while(mainProcessToCloseDown)
+
+		if (messagePipeline != null) { // Let the stages finish with messages already accepted
+			messagePipeline.finish();
+		}
+	
+		if (messageBatcher != null) { // Hand over any part-filled batch
+			messageBatcher.close();
+		}
+
+		if (laneDispatcher != null) { // Tell lanes no more messages to process
+			laneDispatcher.submitPoisonPill();
+		}
+
+		if (messageProcessor != null) { // Tell it no more messages to process
+			messageProcessor.processMessageAsynch(null, null, null); // Send Poison Pill to processor
+		}
+	}
+
+	/**
+	 * Handle an incoming message, performing some validation, before forwarding to the Message Processor.
+	 * 
+	 * @param settings the application settings
+	 * @param numMessagesProcessed minds the total number of messages processed by the Processor
+	 * @param skipMessage whether message should be skipped or not
+	 * 
+	 * @return the new value for numMessagesProcessed
+	 * @throws MessagingException
+	 */
+	private int handleIncomingMessage(GenericMessageHandlerSettings settings, int numMessagesProcessed,
+									  boolean skipMessage, String receivedMessage) throws MessagingException {
+		numMessagesProcessed++;
+
+		StagedMessage stagedMessage = new StagedMessage(receivedMessage, skipMessage);
+
+		parseAndValidateMessage(settings, stagedMessage);
+		buildTargetForMessage(settings, stagedMessage);
+		dispatchMessage(stagedMessage);
+
+		return numMessagesProcessed;
+	}
+
+	/**
+	 * Get the number of messages waiting in the hand-off queue of each stage of the pipeline, to help see which stage is the bottleneck.
+	 * A deep queue means the stage after it is not keeping up.
+	 * 
+	 * @return the queue depth for each stage, keyed on stage name, in pipeline order. Empty if not pipelining.
+	 */
+	public Map<String, Integer> getPipelineQueueDepths() {
+		MessagePipeline pipeline = messagePipeline;
+		if (pipeline == null) {
+			return new LinkedHashMap<String, Integer>();
+		}
+
+		return pipeline.getQueueDepths();
+	}
+
+	/**
+	 * Parse/Validate stage: perform XML-based checks on the incoming message or simply pass on message "as is".
+	 * 
+	 * @param settings the application settings
+	 * @param stagedMessage the message being handled, updated with its XML version, audit key values and whether it is to be skipped
+	 * @throws MessagingException if the message failed validation and we are to shut down
+	 */
+	private void parseAndValidateMessage(GenericMessageHandlerSettings settings, StagedMessage stagedMessage) throws MessagingException {
+		if ("XML".equals(settings.getConvertedInputDataFormat())) { // CSV input would be converted to XML
+			if (streamingTargetBuilder != null && ! stagedMessage.skipMessage && buildTargetByStreaming(settings, stagedMessage)) {
+				return; // target built, no document needed
+			}
+
+			stagedMessage.inputDoc = createXMLDocFromInput(stagedMessage.receivedMessage, settings);
+
+			if (stagedMessage.inputDoc != null) {
+
+				// Determine auditKeyValues and Data Contract Name, in one pass
+				stagedMessage.header = settings.getMessageHeaderExtractor().extract(stagedMessage.inputDoc);
+				stagedMessage.auditKeyValues = stagedMessage.header.getAuditKeyValues();
+				if ( ! stagedMessage.header.areAllAuditKeysFound()) { // will be valid only if ALL auditkeys found in message
+					stagedMessage.skipMessage = determineActionOnMissingAuditKeys(settings, stagedMessage.skipMessage, stagedMessage.auditKeyValues, stagedMessage.inputDoc);
+				}
+
+				// Check Data Contract Name
+				if ( ! stagedMessage.skipMessage && ! dataContractNameValid(stagedMessage.header, settings)) { // will be valid if no name to check, or is matched
+					stagedMessage.skipMessage = determineActionOnInvalidDataContractName(settings, stagedMessage.skipMessage, stagedMessage.auditKeyValues, stagedMessage.inputDoc);
+				}
+			}
+		}
+		else { // pass on whole message to processor
+			stagedMessage.messageForProcessor = stagedMessage.receivedMessage;
+		}
+	}
+
+	/**
+	 * Build the target message, and find the audit key values, in one streaming pass over the received message.
+	 * 
+	 * Anything out of the ordinary is left to the DOM, which handles (and logs) it as always: the message could not
+	 * be streamed (e.g. not well-formed), an audit key is missing, or the data contract name doesn't match.
+	 * 
+	 * @param settings the application settings
+	 * @param stagedMessage the message being handled, updated with its audit key values and the message for the Processor, if built
+	 * @return true if the message for the Processor was built, false if the message must be handled using a DOM instead
+	 */
+	private boolean buildTargetByStreaming(GenericMessageHandlerSettings settings, StagedMessage stagedMessage) {
+		StreamingTargetBuilder.StreamedTarget streamedTarget = streamingTargetBuilder.build(stagedMessage.receivedMessage);
+		if (streamedTarget == null) {
+			return false;
+		}
+
+		MessageHeader header = settings.getMessageHeaderExtractor().newHeader(streamedTarget.getHeaderValues());
+		if ( ! header.areAllAuditKeysFound() || ! header.isDataContractNameValid()) {
+			return false;
+		}
+
+		String messageForProcessor = streamedTarget.getMessage();
+		if (settings.getTargetStylesheet() != null) {
+			try {
+				messageForProcessor = settings.getTargetStylesheet().transform(messageForProcessor);
+			}
+			catch (TransformerException e) { // leave it to the DOM, which will report it
+				return false;
+			}
+		}
+
+		stagedMessage.header = header;
+		stagedMessage.auditKeyValues = header.getAuditKeyValues();
+		stagedMessage.messageForProcessor = messageForProcessor;
+		logger.info("Message for target with AuditKey Value " + stagedMessage.auditKeyValues + " built by streaming. See next line for content (if logging @ level FINE)...");
+		logger.fine(stagedMessage.messageForProcessor);
+
+		return true;
+	}
+
+	/**
+	 * Build Target stage: extract the aggregates to be sent to the target, if the message is XML and not being skipped.
+	 * 
+	 * @param settings the application settings
+	 * @param stagedMessage the message being handled, updated with the message for the Processor
+	 * @throws MessagingException if the target could not be built
+	 */
+	private void buildTargetForMessage(GenericMessageHandlerSettings settings, StagedMessage stagedMessage) throws MessagingException {
+		if (stagedMessage.inputDoc == null || stagedMessage.skipMessage) {
+			return;
+		}
+
+		try {
+			XMLDocument targetDoc = buildMessageForTarget(stagedMessage.inputDoc, settings);
+			if (targetDoc != null && settings.getTargetStylesheet() != null) { // transform straight from the doc, no need to serialize it first
+				targetDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+				stagedMessage.messageForProcessor = settings.getTargetStylesheet().transform(targetDoc.getCurrentNode());
+			}
+			else if (targetDoc != null) {
+				stagedMessage.messageForProcessor = targetDoc.toString();
+
+				// Hand over the doc too, if the Processor can take it, so it needn't parse the text again.
+				// Not if it's the input doc itself and that is to go back with the response,
+				// nor if the Processor would rather read the text (INSERTs fed from CSV).
+				if (messageProcessor instanceof IProcessParsedMesssage && ! insertRowsFromText && ! (targetDoc == stagedMessage.inputDoc && settings.hasMindElements())) {
+					stagedMessage.targetDoc = targetDoc;
+				}
+			}
+			logger.info("Message for target with AuditKey Value " + stagedMessage.auditKeyValues + " built. See next line for content (if logging @ level FINE)...");
+			logger.fine(stagedMessage.messageForProcessor);
+		}
+		catch (XMLException e) {
+			logger.severe("Message with AuditKey Value " + stagedMessage.auditKeyValues + " caused an LwXMLException: "  + e);
+			messageListener.stayMessage(stagedMessage.auditKeyValues);
+			throw new MessagingException("Caught LwXMLException from buildMessageForTarget() (see root cause)", e);
+		}
+		catch (TransformerException e) {
+			logger.severe("Message with AuditKey Value " + stagedMessage.auditKeyValues + " caused a TransformerException transforming target by stylesheet: "  + e);
+			messageListener.stayMessage(stagedMessage.auditKeyValues);
+			throw new MessagingException("Caught TransformerException from transforming target (see root cause)", e);
+		}
+	}
+
+	/**
+	 * Dispatch stage: forward the message to the Message Processor, unless it is being skipped, then consume it.
+	 * 
+	 * @param stagedMessage the message being handled
+	 * @throws MessagingException if no target message was built, or the Processor could not accept the message
+	 */
+	private void dispatchMessage(StagedMessage stagedMessage) throws MessagingException {
+		String auditKeyValues = stagedMessage.auditKeyValues;
+
+		if ( ! stagedMessage.skipMessage) {
+			if (stagedMessage.messageForProcessor == null) { // then nothing to process - BIG PROBLEM!
+				logger.severe("No Target message was built from Message with AuditKey Value " + auditKeyValues);
+				messageListener.stayMessage(auditKeyValues);
+				mainProcessToCloseDown = true;
+				throw new MessagingException("No Target message was built from Message with AuditKey Value " + auditKeyValues);
+			}
+			else {
+				//////////////////////////////////////////////////////////////////
+				// All OK, get the Processor to deal with the message
+				//////////////////////////////////////////////////////////////////
+				if (processedMessageTracker != null) { // before dispatching, as the response could come back at once
+					processedMessageTracker.dispatched(auditKeyValues, responseProcessorTask == null);
+				}
+				dispatchToProcessor(stagedMessage.messageForProcessor, stagedMessage.targetDoc, stagedMessage.inputDoc, auditKeyValues);
+
+			} // end if (messageForProcessor == null)
+		} // end if ( ! skipMessage)
+		else if (processedMessageTracker != null) { // nothing to process, so done with already
+			processedMessageTracker.dispatched(auditKeyValues, true);
+		}
+		
+		messageListener.consumeMessage(auditKeyValues);
+	}
+
+	/**
+	 * Pass a message to the Message Processor. If messages are partitioned, the message is run on the
+	 * lane chosen by its partition key. If messages are batched, it's added to the current batch.
+	 * Otherwise it is handed straight to the Processor.
+	 * 
+	 * The input document is only handed to the Processor (which returns it with the response, untouched) if
+	 * elements are to be minded from it into the response. It is not used here again once handed over.
+	 * 
+	 * The message already parsed, if given, is handed to the Processor with its text (see IProcessParsedMesssage).
+	 * 
+	 * @param messageForProcessor the message to be processed
+	 * @param messageDoc the message to be processed, already parsed, null if the Processor is to parse it
+	 * @param inputDoc the original input message as an XML document, null if message was not XML
+	 * @param auditKeyValues audit Key Values for the message
+	 * @throws MessagingException if the Processor could not accept the message
+	 */
+	private void dispatchToProcessor(final String messageForProcessor, final XMLDocument messageDoc, final XMLDocument inputDoc,
+									 final String auditKeyValues) throws MessagingException {
+		final XMLDocument inputDocForResponse = (settings.hasMindElements() ? inputDoc : null);
+
+		if (messageBatcher != null) { // limited per batch, as it's handed over (see MessageBatcher.flush())
+			messageBatcher.add(new ProcessRequest(messageForProcessor, messageDoc, inputDocForResponse, auditKeyValues));
+			return;
+		}
+
+		awaitConcurrencyLimit(1);
+
+		if (laneDispatcher == null) {
+			if (messageDoc != null) {
+				((IProcessParsedMesssage) messageProcessor).processMessageAsynch(messageForProcessor, messageDoc, inputDocForResponse, auditKeyValues);
+			}
+			else {
+				messageProcessor.processMessageAsynch(messageForProcessor, inputDocForResponse, auditKeyValues);
+			}
+			return;
+		}
+
+		Callable<ProcessResponse> laneTask = new Callable<ProcessResponse>() {
+			@Override
+			public ProcessResponse call() throws MessagingException {
+				if (messageDoc != null) {
+					return ((IProcessParsedMesssage) messageProcessor).processMessageSynch(messageForProcessor, messageDoc, inputDocForResponse, auditKeyValues);
+				}
+				return messageProcessor.processMessageSynch(messageForProcessor, inputDocForResponse, auditKeyValues);
+			} // end Callable.call()
+		};
+
+		try {
+			laneDispatcher.submit(laneTask, getPartitionKeyForMessage(inputDoc, auditKeyValues));
+		} catch(InterruptedException e) { // thrown by laneDispatcher.submit
+			logger.info("[" + Thread.currentThread().getName() + "]: put to lane queue interrupted.");
+			// Flush lanes (response thread then has option to close down itself, on receiving this Poison Pill)
+			laneDispatcher.submitPoisonPill();
+
+			// Set back to interrupted - main loop will notice and close down
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * If messages in flight are limited adaptively, wait until another message, or a batch of them, may be handed
+	 * to the Processor. If interrupted, the messages are handed over anyway, and the main loop will notice and close down.
+	 * 
+	 * @param messages the number of messages to be handed over together
+	 */
+	private void awaitConcurrencyLimit(int messages) {
+		AdaptiveConcurrencyLimiter limiter = concurrencyLimiter;
+		if (limiter == null) {
+			return;
+		}
+
+		try {
+			limiter.acquire(messages);
+		} catch(InterruptedException e) {
+			logger.info("[" + Thread.currentThread().getName() + "]: wait for concurrency limit interrupted.");
+			// Set back to interrupted - main loop will notice and close down
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Get the adaptive concurrency limiter's current state, for monitoring.
+	 * 
+	 * @return the current in-flight limit and number in flight, and the smoothed and lowest latencies in microseconds. Empty if not limited adaptively.
+	 */
+	public Map<String, Long> getConcurrencyLimiterStats() {
+		Map<String, Long> stats = new LinkedHashMap<String, Long>();
+		AdaptiveConcurrencyLimiter limiter = concurrencyLimiter;
+		if (limiter != null) {
+			stats.put("limit", (long) limiter.getLimit());
+			stats.put("inFlight", (long) limiter.getInFlight());
+			stats.put("smoothedLatencyMicros", limiter.getSmoothedLatencyMicros());
+			stats.put("minLatencyMicros", limiter.getMinLatencyMicros());
+		}
+
+		return stats;
+	}
+
+	/**
+	 * Determine the key on which a message is to be partitioned: either its audit key values or
+	 * the result of the configured XPath expression.
+	 * 
+	 * @param inputDoc the original input message as an XML document, null if message was not XML
+	 * @param auditKeyValues audit Key Values for the message
+	 * @return the partition key
+	 * @throws MessagingException if the XPath expression could not be evaluated against the message
+	 */
+	private String getPartitionKeyForMessage(XMLDocument inputDoc, String auditKeyValues) throws MessagingException {
+		if (partitionKeyExpression == null || inputDoc == null) { // then partition on audit keys
+			return auditKeyValues;
+		}
+
+		try {
+			return partitionKeyExpression.evaluate(inputDoc.getCurrentNode());
+		} catch (XPathExpressionException e) {
+			logger.severe("Message with AuditKey Value " + auditKeyValues + " caused an XPathExpressionException evaluating Partitioning KeyXPath: "  + e);
+			messageListener.stayMessage(auditKeyValues);
+			throw new MessagingException("Caught XPathExpressionException evaluating Partitioning KeyXPath (see root cause)", e);
+		}
+	}
+
+	/**
+	 * Wait for a message to arrive or quit handling messages, depending on the input medium.
+	 * A null message has different meaning based on input medium:
+	 * 		Queue 		- we'll wait for another message to arrive, blocking indefinitely
+	 * 		Socket 		- we'll stop handling messages
+	 * 		File 		- we'll stop handling messages, sending a Poison Pill to Processor (unless watching the directory,
+	 * 					  when we'll wait for another file to arrive, blocking indefinitely)
+	 * 		Java Object - we'll stop handling messages
+	 * 
+	 * @param settings the application settings
+	 * @return the next message, if is Queue-based input, otherwise null
+	 * @throws MessagingException
+	 */
+	private String handleIncomingEmptyMessage(GenericMessageHandlerSettings settings) throws MessagingException {
+		
+//		messageProcessor.goQuiet(); // tell processor we're not busy now, but only when running in blocking mode (i.e. not batch).
+
+		if (messageListener instanceof AcceptMessagesFromQueue) { // then want to block now, await next message and, possibly, close output queue
+			// Close targetConnection here, if is a Queue, because not busy
+			if (settings.getOutputQueueName() != null) {
+				if (messageResponder != null) {
+					messageResponder.closeStorage(); // will be opened automatically by messageResponder, if needed (and trying to close when open causes no problem
+				}
+			}
+
+			messageListener.setWaitIntervalBlockIndefinitely();
+			return messageListener.acceptNextMessage();
+		}
+		else if (messageListener instanceof AcceptMessagesFromSocket) { // then am finished, so close down
+			mainProcessToCloseDown = true;
+			logger.info("Socket Server returned null, so closing down.");
+		}
+		else if (messageListener instanceof AcceptMessagesFromFiles && ((AcceptMessagesFromFiles) messageListener).isWatching()) { // then block now, awaiting the next file
+			messageListener.setWaitIntervalBlockIndefinitely();
+			return messageListener.acceptNextMessage();
+		}
+		else if (messageListener instanceof AcceptMessagesFromFiles) { // then am finished, so close down
+			mainProcessToCloseDown = true;
+			logger.info("No more files to process, so closing down.");
+		}
+		else { // then message listener is java object supplied in constructor, am finished, so close down
+			mainProcessToCloseDown = true;
+			logger.info("No more messages to process from object " + messageListener.getClass().getName() + ", so closing down.");
+		}
+		
+		return null;
+	}
+
+	/**
+	 * If Data Contract Name is expected AND was found to not match that in the input message,
+	 * then we need to decide whether to continue or not.
+	 *  
+	 * @param settings the application settings
+	 * @param skipMessage whether message should be skipped or not
+	 * @param auditKeyValues transaction ID for message being processed
+	 * @param inputDoc the original input message
+	 * @return true if should skip this message, false if should continue processing the message
+	 * @throws MessagingException if problem encountered staying or consuming message
+	 */
+	private boolean determineActionOnInvalidDataContractName(GenericMessageHandlerSettings settings, boolean skipMessage,
+															 String auditKeyValues, XMLDocument inputDoc) throws MessagingException {
+		XMLTagValue dataContractName = settings.getDataContractName();
+		String actionOnError = null;
+		if (dataContractName != null) { actionOnError = dataContractName.getAttributeValue("ActionOnError");}
+
+		if (actionOnError == null || actionOnError.equals("shutdown")) {
+			logger.severe("Data Contract Name did not match" + (settings.getDataContractName() == null ? "" : " " + settings.getDataContractName().getTagValue()) + ". Message with AuditKey Value " + auditKeyValues + " rejected. Will shut down.");
+			messageListener.stayMessage(auditKeyValues);
+			skipMessage = true;
+			mainProcessToCloseDown = true;
+			throw new MessagingException("Data Contract Name did not match" + (settings.getDataContractName() == null ? "" : " " + settings.getDataContractName().getTagValue()) + ". Message with AuditKey Value " + auditKeyValues + " rejected. Will shut down.");
+		}
+		else if (actionOnError.equals("discard")) {
+			logger.warning("Data Contract Name did not match" + (settings.getDataContractName() == null ? "" : " " + settings.getDataContractName().getTagValue()) + ". Message with AuditKey Value " + auditKeyValues + " rejected. Will discard message.");
+			String errorMessageFileName = LwLogger.createFileNameFromTemplate(settings.getErrorFileNameTemplate(), auditKeyValues);
+
+			if (errorMessageFileName != null) {
+				inputDoc.toFile(errorMessageFileName, false);
+				logger.warning("Message with AuditKey Value " + auditKeyValues + " saved to file " + errorMessageFileName);
+				logger.info("Processing of messages will continue.");
+			}
+
+			skipMessage = true;
+		}
+		else { // can assume actionOnError == "none", so just ignore problem
+			logger.warning("Data Contract Name did not match" + (settings.getDataContractName() == null ? "" : " " + settings.getDataContractName().getTagValue()) + ". Message with AuditKey Value " + auditKeyValues + " rejected. But will still process message.");
+		}
+		return skipMessage;
+	}
+
+	/**
+	 * @param settings the application settings
+	 * @param skipMessage whether message should be skipped or not
+	 * @param auditKeyValues transaction ID for message being processed
+	 * @param inputDoc the original input message
+	 * @return true if should skip this message, false if should continue processing the message
+	 * @throws MessagingException if problem encountered staying or consuming message
+	 */
+	private boolean determineActionOnMissingAuditKeys(GenericMessageHandlerSettings settings, boolean skipMessage,
+														String auditKeyValues, XMLDocument inputDoc) throws MessagingException {
+		String actionOnError = settings.getAuditKeysAggregate().getAttributeValue("ActionOnError");
+		if (actionOnError == null || actionOnError.equals("shutdown")) {
+			logger.severe("Audit key (or keys) not found in Message with AuditKey Value " + auditKeyValues + " Will shut down.");
+			messageListener.stayMessage(auditKeyValues);
+			skipMessage = true;
+			mainProcessToCloseDown = true;
+			throw new MessagingException("Audit key (or keys) not found in Message with AuditKey Value " + auditKeyValues + " Will shut down.");
+		}
+		else if (actionOnError.equals("discard")) {
+			logger.warning("Audit key (or keys) not found in Message with AuditKey Value " + auditKeyValues + " Will discard message.");
+			String errorMessageFileName = LwLogger.createFileNameFromTemplate(settings.getErrorFileNameTemplate(), auditKeyValues);
+
+			if (errorMessageFileName != null) {
+				inputDoc.toFile(errorMessageFileName, false);
+				logger.warning("Message with AuditKey Value " + auditKeyValues + " saved to file " + errorMessageFileName);
+				logger.info("Processing of messages will continue.");
+			}
+
+			skipMessage = true;
+		}
+		else { // can assume actionOnError == "none", so just ignore problem
+			logger.warning("Audit key (or keys) not found in Message with AuditKey Value " + auditKeyValues + " But will still process message.");
+		}
+		return skipMessage;
+	}
+
+	/**
+	  *
+	  * Create a new LwXMLDocument, loading the XML from a String.
+	  *
+	  * Notes:
+	  *		If validation is "off", the XML messge will not be validated against a Schema
+	  *		If validation is "on", the XML messge will be validated against a Schema, with two options:
+	  *			1) If SchemaDefinitionFileName is supplied in the settings file, that .xsd file will be used to validate,
+	  *			   employing "http://www.w3.org/2001/XMLSchema" rules.
+	  *			2) If no SchemaDefinitionFileName setting is supplied, the document MUST supply the Schema definition, otherwise
+	  *			   a parsing error will occur: for example [cvc-elt.1: Cannot find the declaration of element 'root'],
+	  *			   where root is the name of the root element in the message.
+	  *		The .xsd file of 1) is compiled once, at startup (and again if changed - see SchemaCache), and the message
+	  *		validated against it once parsed, so it is parsed only once.
+	  *		If SampleOneIn is set to n, only 1 in every n messages is validated, the others are just parsed.
+	  *
+	  * @param message the XML text from which to make a document
+	  * @param settings
+	  *
+	  * @return a new LwXMLDocument
+	  */
+	private XMLDocument createXMLDocFromInput(String message, GenericMessageHandlerSettings settings) {
+
+		XMLDocument newDoc = null;
+
+		try {
+			if (settings.getInputValidationSettings() == null) { // then no validation requested
+				newDoc = XMLDocument.createDoc(message, XMLDocument.SCHEMA_VALIDATION_OFF);
+			}
+			else {
+				boolean validateAgainstSchema = (settings.getInputValidationSettings().getAttributeValue("SchemaValidation") == null ? false : (settings.getInputValidationSettings().getAttributeValue("SchemaValidation").equals("on")));
+				if (validateAgainstSchema && settings.getInputValidationSampleOneIn() > 1) {
+					validateAgainstSchema = (messagesForValidation.getAndIncrement() % settings.getInputValidationSampleOneIn() == 0);
+				}
+
+				if (validateAgainstSchema && settings.getInputSchemaCache() != null) {
+					// parse without validating, then validate the parsed document against the Schema compiled at startup
+					newDoc = XMLDocument.createDoc(message, XMLDocument.SCHEMA_VALIDATION_OFF);
+					newDoc.setCurrentNodeToFirstElement();
+					settings.getInputSchemaCache().validate(newDoc.getCurrentNode().getOwnerDocument());
+					logger.info("Input message was validated successfully.");
+				}
+				else if (validateAgainstSchema) {
+					// no SchemaDefinitionFileName, so the message should have the Schema definition
+					// note that SchemaLanguage may be null, in which case the default Schema Language is assumed
+					newDoc = XMLDocument.createDoc(message, XMLDocument.SCHEMA_VALIDATION_ON, null, settings.getInputValidationSettings().getAttributeValue("SchemaLanguage"));
+					logger.info("Input message was validated successfully.");
+				}
+				else { // then no validation turned off
+					newDoc = XMLDocument.createDoc(message, XMLDocument.SCHEMA_VALIDATION_OFF);
+				}
+			}
+
+			return newDoc;
+		}
+		catch(XMLException e) {
+			logger.warning("LwXMLException: " + e.getMessage());
+			logger.warning("InputMessage was :" + message);
+			return null;
+		}
+		catch(SAXException e) {
+			logger.warning("LwGenericMessageHandler: Input message failed Schema validation: " + e.getMessage());
+			logger.warning("InputMessage was :" + message);
+			return null;
+		}
+		catch(IOException e) {
+			logger.warning("LwGenericMessageHandler: Input message could not be read for Schema validation: " + e.getMessage());
+			logger.warning("InputMessage was :" + message);
+			return null;
+		}
+	}
+
+	/**
+	  *
+	  * Extract the aggregates to be sent to the target for processing
+	  *
+	  * @param inputDoc the XML message received from MQ
+	  * @param settings
+	  *
+	  * @return the XML document to be sent to the target for processing (may be inputDoc itself)
+	  */
+	private XMLDocument buildMessageForTarget(XMLDocument inputDoc, GenericMessageHandlerSettings settings)
+																	throws XMLException {
+		if (inputDoc == null || settings.getSendElementSet() == null) {
+			return null;
+		}
+
+		//////////////////////////////////////////////////////////////////////////
+		// Create a new doc...
+		// We'll either send the whole message to the target, or choose tags/aggregates.
+		//
+		// Notes:
+		// We must allow for the fact that the top-level element of the Target Message
+		// might not have the same Name as that of the input message.
+		//
+		// Both aggregates and TAGs may be sent.
+		// The path to the aggregate or tag will be created in the Target Message, if it does not already exist.
+		// Individual TAGs specified with the same path will appear in the same aggregate in the sent message (i.e the parent aggregate will not be duplicated).
+		// If a TAG appears in the list after an aggregate existing along the same path, the TAG will be duplicated in the sent message.
+		// If a TAG appears in the list before an aggregate existing along the same path, the aggregate will be duplicated in the sent message.
+		//
+		// Here's the sequence...
+		// Loop through the "send" list
+		//		If special name "*" encountered
+		//			Import all from inputDoc, changing top-level element's name, if settings.getTargetMainDocElementName() specified
+		//		Otherwise...
+		//			Create a new, empty, Target message (with top-level element's name=settings.getTargetMainDocElementName(), or same as that of inputDoc, if not specified)
+		//			Find the "minded" element in inputDoc
+		//			Find the parent of "minded" element in targetDoc (will fail if names of top-level elements differ in docs, or if sub-aggregate not yet there)
+		//			If didn't find parent, create it in targetDoc (ignoring top-level element of Location attribute), and then find it
+		//			Import the node into targetDoc at the found parent
+		//
+		//////////////////////////////////////////////////////////////////////////
+		XMLDocument targetDoc = null;
+		ElementCopyPlan sendElementPlan = settings.getSendElementPlan(); // paths already split out, at startup
+
+
+		if (sendElementPlan.isCopyAll()) { // then import ALL from the inputDoc - just send whole input message
+			String targetMainDocElementName = settings.getTargetMainDocElementName();
+			if (targetMainDocElementName == null) { // then just want input doc, with no additional wrapper
+				targetMainDocElementName = inputDoc.getCurrentNodeName();
+				targetDoc = inputDoc;
+			}
+			else { // wrap input doc in new tag...
+				try {
+					targetDoc = XMLDocument.createDoc("<" + targetMainDocElementName + "></" + targetMainDocElementName + ">", XMLDocument.SCHEMA_VALIDATION_OFF);
+					inputDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+					targetDoc.importNodesChildren(inputDoc.getCurrentNode(), true);
+				}
+				catch(XMLException e2) {
+					throw new XMLException("LwGenericMessageHandler.buildMessageForTarget(): Fatal Exception creating a new doc: " + e2.getMessage());
+				}
+			}
+		}
+		else { // want to include certain child aggregates from the input doc, so must be wrapped
+			String targetMainDocElementName = settings.getTargetMainDocElementName();
+			if (targetMainDocElementName == null) { // then just use that of input doc
+				inputDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+				targetMainDocElementName = inputDoc.getCurrentNodeName();
+			}
+
+			try {
+				targetDoc = XMLDocument.createDoc("<" + targetMainDocElementName + "></" + targetMainDocElementName + ">", XMLDocument.SCHEMA_VALIDATION_OFF);
+
+				// Find the elements in inputDoc, in one walk over it...
+				inputDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+				Node[] sourceNodes = sendElementPlan.findSourceNodes(inputDoc.getCurrentNode());
+
+				// Add the elements from inputDoc...
+				List<ElementCopyPlan.Step> sendElementSteps = sendElementPlan.getSteps();
+				for (int i = 0; i < sendElementSteps.size(); i++) {
+					ElementCopyPlan.Step nextSendElement = sendElementSteps.get(i);
+					Node sourceNode = findSourceNode(inputDoc, nextSendElement, sourceNodes[i]);
+
+					if (sourceNode != null) { // no prob if we don't find the element
+
+						targetDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+
+						// Position "pointer" in targetDoc to correct parent aggregate, creating it if we have to...
+						// (Note that the first ELEMENT in the path for the input may have a different name than the new Target message, so we may ignore it)
+						String pathToParent = nextSendElement.getPathToParent();
+						if (pathToParent == null) { // then SendElement is the top-level element - so no parent
+							pathToParent = nextSendElement.getPath();
+						}
+						String targetPathToParent = nextSendElement.getRecipientPathToParent(targetMainDocElementName); // null if parent is top-level, so nothing more to search
+
+						//search under both inputDoc top-level Name and that of Target top-level Name
+						if ( ! (targetDoc.setCurrentNodeByPath(pathToParent, 1) || (targetPathToParent != null && ! targetPathToParent.equals(pathToParent) && targetDoc.setCurrentNodeByPath(targetPathToParent, 1)))
+						   ) { // try to go to parent recipient (if specified), create path if can't
+							String pathToParentLessFirstElement = nextSendElement.getPathToParentLessFirstElement();
+
+							if (pathToParentLessFirstElement != null) { // would be null if TAG is child of first ELEMENT in doc
+								targetDoc.addElement(null, pathToParentLessFirstElement, null);
+								targetDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+								targetDoc.setCurrentNodeByPath(nextSendElement.getPathToParent(), 1);
+							}
+						}
+
+						// Finally, copy the found node from inputDoc to the target message
+						targetDoc.importNode(sourceNode, true);
+					}
+				}
+
+			}
+			catch(XMLException e2) {
+				throw new XMLException("LwGenericMessageHandler.buildMessageForTarget(): Fatal Exception creating a new doc: " + e2.getMessage());
+			}
+		}
+
+		return targetDoc;
+	}
+
+	/**
+	  * Get the node to be copied from the input document for the given Step.
+	  *
+	  * @param inputDoc the XML message received
+	  * @param step the element to be copied
+	  * @param walkedNode the node found for the Step by ElementCopyPlan.findSourceNodes()
+	  *
+	  * @return walkedNode, if the Step is walkable, otherwise the node found by searching inputDoc from the top (null if not found)
+	  */
+	private static Node findSourceNode(XMLDocument inputDoc, ElementCopyPlan.Step step, Node walkedNode) {
+		if (step.isWalkable()) {
+			return walkedNode;
+		}
+
+		inputDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+		return (inputDoc.setCurrentNodeByPath(step.getPath(), 1) ? inputDoc.getCurrentNode() : null);
+	}
+
+	/**
+	  *
+	  * Match the name of the message's Contract to the one expected
+	  *
+	  * @param header the header values of the message, already found
+	  * @param settings.getDataContractName() contains the name of the tag at which to find the data contract name and the value to match
+	  *
+	  * @return the true if the name of the contract for this message matches the expected one (or the expected one doesn't exist), otherwise false
+	  */
+	private boolean dataContractNameValid(MessageHeader header, GenericMessageHandlerSettings settings) {
+
+		if (settings.getDataContractName() == null) { // then will always return true
+			return true;
+		}
+
+		if (header.getDataContractName() == null) {
+			logger.warning("No Data contract name was found in current message, at location " + settings.getDataContractName().getAttributeValue("Location"));
+		}
+
+		return header.isDataContractNameValid();
+	}
+
+	/**
+	  *
+	  * Shut down the application gracefully - will be called by the Java VM when closing down
+	  *
+	  * NOTE : NEVER call System.exit() from this method, or you'll go into a continuous loop!
+	  *
+	  */
+	public void shutDown() {
+		// Only shut down once, whether called by a host, the VM, or both
+		if ( ! shutDownStarted.compareAndSet(false, true)) {
+			return;
+		}
+
+		// Do a graceful shutdown here
+		// NOTE: Do not use the java.util.Logger here, use LwLogger.
+		// The Logger has its own shutdown hook so it can be shut down by the
+		// virtual machine before our shutdown hook calls this method.
+
+		LwLogger shutdownLogger = null;
+
+		try {
+			if (settings == null || settings.getShutDownLogFileName() == null) {
+				return;
+			}
+			else {
+				shutdownLogger = new LwLogger(settings.getShutDownLogFileName(), true);
+			}
+		}
+		catch(IOException e) {
+			System.out.println("LwGenericMessageHandler.shutDown(): could not open file " + (settings.getShutDownLogFileName() == null ? "unknown" : settings.getShutDownLogFileName()) + " to record shutdown.");
+			return;
+		}
+
+		try {
+			shutdownLogger.appendln("LwGenericMessageHandler.shutDown(): Shutting down");
+		}
+		catch(IOException e) {
+			try { shutdownLogger.close(); } catch (IOException e1) { /* do nothing */}
+			System.out.println("LwGenericMessageHandler.shutDown(): could not write to file " + settings.getShutDownLogFileName() + " to record shutdown.");
+			return;
+		}
+
+
+		//////////////////////////////////////////////////////////////////
+		// Shut-down commands here...
+		//////////////////////////////////////////////////////////////////
+		if (messageListener != null) {
+			messageListener.performCleanup(shutdownLogger);
+		}
+
+		if (messageProcessor != null) {
+			messageProcessor.performCleanup(shutdownLogger);
+		}
+
+		if (messageResponder != null) {
+			messageResponder.performStoreMessageCleanup(shutdownLogger);
+		}
+
+		// Release the main thread, if held waiting for the concurrency limit
+		if (concurrencyLimiter != null) {
+			concurrencyLimiter.close();
+		}
+
+		// Flush exec buffer and shut it down, if not already done (no waiting)...
+		execPool.shutdown();
+
+		try {
+			shutdownLogger.appendln("LwGenericMessageHandler.shutDown(): Shutdown completed successfully");
+			shutdownLogger.close();
+		}
+		catch(IOException e) {
+			System.out.println("LwGenericMessageHandler.shutDown(): could not write to file " + settings.getShutDownLogFileName() + " to record shutdown completed successfully.");
+		}
+	}
+
+	/**
+	  * A message on its way through the stages of handling: parse/validate, build target, dispatch.
+	  * When pipelined, is handed between threads only through the stages' queues, so is safely published.
+	  */
+	private static class StagedMessage {
+		private final String receivedMessage;
+		private String auditKeyValues = "unknown";
+		private XMLDocument inputDoc = null;			// the XML version of the received input message
+		private MessageHeader header = null;			// the audit key values and data contract name, found once, null if message not XML
+		private String messageForProcessor = null;
+		private XMLDocument targetDoc = null;			// messageForProcessor, already parsed, if the Processor can take it, otherwise null
+		private boolean skipMessage;					// set to true if there is a problem with a message and it is to be skipped
+
+		public StagedMessage(String receivedMessage, boolean skipMessage) {
+			this.receivedMessage = receivedMessage;
+			this.skipMessage = skipMessage;
+		}
+	}
+
+	/**
+	  *
+	  * Staged read-ahead pipeline for incoming messages.
+	  *
+	  * The main thread accepts messages and submits them to the parse/validate stage. A relay thread takes
+	  * parsed messages, in order, and submits them to the build-target stage. A dispatch thread takes built messages,
+	  * in order, and hands them to the Processor. So waiting on the messageListener overlaps with the XML work.
+	  * Each stage hands off through a bounded queue, so a slow stage holds back those feeding it.
+	  *
+	  * If a stage fails, mainProcessToCloseDown is set, the rest of the messages already accepted are drained
+	  * without processing and finish() re-throws the first failure.
+	  *
+	  * Messages are consumed or stayed on the stage threads, not the thread that accepted them, and while later
+	  * messages are already accepted. So not for input from a Queue (whose session may only be used by one thread,
+	  * and whose commit or rollback would cover the messages read ahead too) or a Socket (which hands over one
+	  * message at a time, waiting for it to be consumed or stayed).
+	  *
+	  */
+	private class MessagePipeline {
+		private final GenericMessageHandlerSettings settings;
+		private final PipelineStage<StagedMessage> parseStage;
+		private final PipelineStage<StagedMessage> buildStage;
+		private final ExecutorService relayPool = Executors.newFixedThreadPool(2);	// runs the relay and dispatch loops
+		private volatile MessagingException firstFailure = null;
+
+		public MessagePipeline(GenericMessageHandlerSettings settings) {
+			this.settings = settings;
+			this.parseStage = new PipelineStage<StagedMessage>("parse", settings.getPipelineStageThreads(), settings.getPipelineQueueCapacity());
+			this.buildStage = new PipelineStage<StagedMessage>("build", settings.getPipelineStageThreads(), settings.getPipelineQueueCapacity());
+
+			relayPool.execute(new Runnable() {
+				public void run() {
+					relayParsedMessages();
+				}
+			});
+			relayPool.execute(new Runnable() {
+				public void run() {
+					dispatchBuiltMessages();
+				}
+			});
+
+			logger.info("Pipelining incoming messages, with " + settings.getPipelineStageThreads() + " thread(s) per stage and queue capacity " + settings.getPipelineQueueCapacity());
+		}
+
+		/**
+		 * Accept stage: submit a newly-received message for parsing/validation (blocks if that stage's queue is full).
+		 * 
+		 * @param receivedMessage the message as received from the messageListener
+		 * @param skipMessage whether message should be skipped or not
+		 */
+		public void acceptMessage(final String receivedMessage, final boolean skipMessage) {
+			try {
+				parseStage.submit(new Callable<StagedMessage>() {
+					public StagedMessage call() throws MessagingException {
+						StagedMessage stagedMessage = new StagedMessage(receivedMessage, skipMessage);
+						parseAndValidateMessage(settings, stagedMessage);
+						return stagedMessage;
+					}
+				});
+			} catch (InterruptedException e) {
+				logger.info("[" + Thread.currentThread().getName() + "]: put to parse stage interrupted.");
+				mainProcessToCloseDown = true;
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Take parsed messages in order and submit them to the build-target stage, until end-of-data.
+		 */
+		private void relayParsedMessages() {
+			try {
+				boolean endOfData = false;
+				while ( ! endOfData) {
+					try {
+						final StagedMessage parsedMessage = parseStage.take();
+						if (parsedMessage == null) {
+							endOfData = true;
+						}
+						else if (firstFailure == null) { // otherwise just draining
+							buildStage.submit(new Callable<StagedMessage>() {
+								public StagedMessage call() throws MessagingException {
+									buildTargetForMessage(settings, parsedMessage);
+									return parsedMessage;
+								}
+							});
+						}
+					} catch (MessagingException e) {
+						recordFailure(e);
+					} catch (RuntimeException e) {
+						recordFailure(new MessagingException("Caught RuntimeException in parse stage (see root cause)", e));
+					}
+				}
+
+				buildStage.submitEndOfData();
+			} catch (InterruptedException e) {
+				logger.info("Pipeline relay interrupted - shutting down");
+				mainProcessToCloseDown = true;
+				buildStage.shutdownNow();
+			}
+		}
+
+		/**
+		 * Take built messages in order and dispatch them to the Processor, until end-of-data.
+		 */
+		private void dispatchBuiltMessages() {
+			try {
+				boolean endOfData = false;
+				while ( ! endOfData) {
+					try {
+						StagedMessage builtMessage = buildStage.take();
+						if (builtMessage == null) {
+							endOfData = true;
+						}
+						else if (firstFailure == null) { // otherwise just draining
+							dispatchMessage(builtMessage);
+						}
+					} catch (MessagingException e) {
+						recordFailure(e);
+					} catch (RuntimeException e) {
+						recordFailure(new MessagingException("Caught RuntimeException in build/dispatch stage (see root cause)", e));
+					}
+				}
+			} catch (InterruptedException e) {
+				logger.info("Pipeline dispatcher interrupted - shutting down");
+				mainProcessToCloseDown = true;
+			}
+		}
+
+		/**
+		 * Remember the first stage failure and tell the main thread to stop accepting messages.
+		 */
+		private synchronized void recordFailure(MessagingException e) {
+			logger.severe("Pipeline stage failed: " + e);
+			if (firstFailure == null) {
+				firstFailure = e;
+			}
+			mainProcessToCloseDown = true;
+		}
+
+		/**
+		 * Tell the pipeline no more messages will be accepted and wait for it to empty.
+		 * 
+		 * @throws MessagingException the first failure encountered by any stage
+		 */
+		public void finish() throws MessagingException {
+			try {
+				parseStage.submitEndOfData();
+
+				relayPool.shutdown();
+				while ( ! relayPool.awaitTermination(1, TimeUnit.MINUTES)) {
+					logger.info("Waiting for pipeline to empty. Queue depths: " + getQueueDepths());
+				}
+			} catch (InterruptedException e) {
+				// Reset interrupted, finishing anyway
+				Thread.currentThread().interrupt();
+				relayPool.shutdownNow();
+				parseStage.shutdownNow();
+				buildStage.shutdownNow();
+			}
+
+			if (firstFailure != null) {
+				throw firstFailure;
+			}
+		}
+
+		/**
+		 * @return the queue depth for each stage, keyed on stage name, in pipeline order
+		 */
+		public Map<String, Integer> getQueueDepths() {
+			Map<String, Integer> depths = new LinkedHashMap<String, Integer>();
+			depths.put(parseStage.getName(), parseStage.getQueueDepth());
+			depths.put(buildStage.getName(), buildStage.getQueueDepth());
+			return depths;
+		}
+	}
+
+	/**
+	  * Gathers messages into batches for the Processor (see IProcessMesssageBatches.processMessagesAsynch()).
+	  * A Processor that doesn't implement IProcessMesssageBatches is handed each message of the batch in turn.
+	  * If messages in flight are limited adaptively, a batch takes a permit for each of its messages as it's handed over.
+	  * A batch is handed over when it holds maxMessages messages, or maxWaitMilliSeconds after its first message
+	  * arrived, whichever comes first. The timed hand-over runs on the batcher's own timer thread (or the host's
+	  * shared timer, if hosted); if it fails,
+	  * the failure is re-thrown to the next caller of add(), flush() or close().
+	  *
+	  */
+	private class MessageBatcher {
+		private final int maxMessages;
+		private final long maxWaitMilliSeconds;
+		private final ScheduledExecutorService timer = (sharedTimer != null ? sharedTimer : Executors.newSingleThreadScheduledExecutor());
+
+		// Guarded by this
+		private List<ProcessRequest> batch;
+		private ScheduledFuture<?> pendingFlush = null;
+		private MessagingException timerFailure = null;
+
+		public MessageBatcher(int maxMessages, long maxWaitMilliSeconds) {
+			this.maxMessages = maxMessages;
+			this.maxWaitMilliSeconds = maxWaitMilliSeconds;
+			this.batch = new ArrayList<ProcessRequest>(maxMessages);
+		}
+
+		/**
+		 * Add a message to the current batch, handing the batch to the Processor if now full.
+		 * 
+		 * @param request the message
+		 * @throws MessagingException if the Processor could not accept the batch, or a timed hand-over failed
+		 */
+		public synchronized void add(ProcessRequest request) throws MessagingException {
+			rethrowTimerFailure();
+
+			batch.add(request);
+			if (batch.size() >= maxMessages) {
+				flush();
+			}
+			else if (batch.size() == 1) { // first message of a new batch, so start its clock
+				final List<ProcessRequest> scheduledBatch = batch;
+				pendingFlush = timer.schedule(PipelineContext.wrap(new Runnable() {
+					public void run() {
+						flushOnTimer(scheduledBatch);
+					}
+				}), maxWaitMilliSeconds, TimeUnit.MILLISECONDS);
+			}
+		}
+
+		/**
+		 * Hand the current batch, if any, to the Processor now.
+		 * 
+		 * @throws MessagingException if the Processor could not accept the batch, or a timed hand-over failed
+		 */
+		public synchronized void flush() throws MessagingException {
+			rethrowTimerFailure();
+
+			if (pendingFlush != null) {
+				pendingFlush.cancel(false);
+				pendingFlush = null;
+			}
+
+			if (batch.isEmpty()) {
+				return;
+			}
+
+			List<ProcessRequest> fullBatch = batch;
+			batch = new ArrayList<ProcessRequest>(maxMessages);
+			awaitConcurrencyLimit(fullBatch.size()); // only now, so time spent filling the batch isn't taken as latency
+			logger.fine("Handing batch of " + fullBatch.size() + " message(s) to Processor.");
+			if (messageProcessor instanceof IProcessMesssageBatches) {
+				((IProcessMesssageBatches) messageProcessor).processMessagesAsynch(fullBatch);
+			}
+			else {
+				BatchProcessingAdapter.processMessagesAsynch(messageProcessor, fullBatch);
+			}
+		}
+
+		/**
+		 * Hand over any part-filled batch and stop the timer. No more messages may be added.
+		 * 
+		 * @throws MessagingException if the Processor could not accept the batch, or a timed hand-over failed
+		 */
+		public synchronized void close() throws MessagingException {
+			try {
+				flush();
+			}
+			finally {
+				if (timer != sharedTimer) { // a shared timer belongs to the host
+					timer.shutdown();
+				}
+			}
+		}
+
+		/**
+		 * Hand over the given batch, if it's still the current one (it may already have been handed over when full).
+		 */
+		private synchronized void flushOnTimer(List<ProcessRequest> scheduledBatch) {
+			if (batch != scheduledBatch || timerFailure != null) {
+				return;
+			}
+
+			try {
+				flush();
+			} catch (MessagingException e) {
+				logger.severe("Caught MessagingException handing timed batch to Processor: " + e.getMessage());
+				timerFailure = e;
+			}
+		}
+
+		private void rethrowTimerFailure() throws MessagingException {
+			if (timerFailure != null) {
+				throw timerFailure;
+			}
+		}
+	}
+
+	/**
+	  *
+	  * Processor of response messages
+	  *
+	  * NOTE : inputDoc is the only var we use from the main object (populated by the main thread)
+	  *
+	  */
+	private class ResponseProcessorTask implements Runnable {
+		private final IStoreMesssage messageResponder;
+		private final IAcceptMesssages messageListener;		// the interface for accepting messages
+		private final boolean inLoopMode;						// true if we want to keep looping (i.e. this is run in its own thread)
+		private volatile boolean errorEncountered = false;		// true if we find any error (can be set by acknowledgeForwardedResponses)
+		private final PipelineStage<ForwardedResponse> forwardStage;	// if responder runs thread-per-message, forwards responses, handing them back in order to be acknowledged. Otherwise null
+
+		public ResponseProcessorTask(boolean inLoopMode, IStoreMesssage messageResponder, IAcceptMesssages messageListener) {
+			if (messageResponder == null) throw new IllegalArgumentException("ResponseProcessorTask: messageResponder cannot be null.");
+			if (messageListener == null) throw new IllegalArgumentException("ResponseProcessorTask: messageListener cannot be null.");
+
+			this.inLoopMode = inLoopMode;
+			this.messageResponder = messageResponder;
+			this.messageListener = messageListener;
+
+			// Only the HTTP responder is known to be safe to call from many threads at once
+			if (inLoopMode && settings.isThreadPerMessage() && messageResponder instanceof StoreMesssageToHTTP) {
+				this.forwardStage = PipelineStage.newThreadPerMessage("responder", settings.getMaxInFlight(), settings.getMaxInFlight());
+				logger.info("Responses will be forwarded on a thread each, with up to " + settings.getMaxInFlight() + " in flight.");
+			}
+			else {
+				this.forwardStage = null;
+			}
+		}
+		
+		public void run() {
+			logger.entering("ResponseProcessorTask", "run");
+
+			if (forwardStage != null) { // acknowledge forwarded responses in order, on execPool's other thread
+				execPool.execute(new Runnable() {
+					public void run() {
+						acknowledgeForwardedResponses();
+					}
+				});
+			}
+
+			do {
+				// Get the response object from the messageProcessor (may block)...
+				ProcessResponse processedResponse = getProcessedResponse();
+				if ( processedResponse == null) { // null is Poison Pill
+					logger.info("Received null value (Poison Pill) from Processor - will stop processing responses now.");
+					break;
+				}
+
+				// Now check for any problems with response...
+				if (foundProblemInResponse(processedResponse)) {
+					break;
+				}
+				
+				//////////////////////////////////////////////////////////////////
+				// If got here, have valid response, with no errors reported from processor
+				//////////////////////////////////////////////////////////////////
+				String processorResponseMessage = processedResponse.getResponse();
+				if (processorResponseMessage == null) { // No response expected, so consume input message now
+					logger.info("Message with AuditKey Value " + processedResponse.getAuditKeyValues() + " succcessfully processed by processing class, and no response returned or expected.");
+					if (forwardStage != null) { // nothing to forward, but must still be acknowledged in turn
+						forwardApplicationResponse(processedResponse, null);
+					}
+					else {
+						try {
+							messageListener.consumeMessage(processedResponse.getAuditKeyValues());
+						} catch (MessagingException e) {
+							logger.severe("Error: Received LwMessagingException trying to consume message with AuditKey Value " + processedResponse.getAuditKeyValues() + ": " + e);
+							logger.severe("Going to tell main thread to stop processing.");
+							mainProcessToCloseDown = true;
+							break;
+						}
+					}
+				}
+				else { // then response is ready after success, see if we should do something with it...
+					logger.info("Response message with AuditKey Value " + processedResponse.getAuditKeyValues() + " returned from processing class. See next line for content (if logging @ level FINE)...");
+					logger.fine(processorResponseMessage);
+
+					//////////////////////////////////////////////////////////////////
+					// Target message processed OK, build response...
+					//////////////////////////////////////////////////////////////////
+					String applicationResponseMessage = null;
+					if (settings.getInputDataFormat() != null && settings.getConvertedInputDataFormat().equals("XML")) {
+						try {
+							applicationResponseMessage = buildResponseMessage(processorResponseMessage.toString(), processedResponse.getInputDoc(), settings);
+						}
+						catch (XMLException e) {
+							logger.severe("Message with AuditKey Value " + processedResponse.getAuditKeyValues() + " caused an LwXMLException building Response message: " + e);
+							logger.severe("Going to tell main thread to stop processing.");
+							mainProcessToCloseDown = true;
+							break;
+						}
+					}
+					else { // don't make any changes, just return response
+						applicationResponseMessage = processorResponseMessage;
+					}
+
+					if (applicationResponseMessage == null) {
+						logger.severe("Error: No Response message was built. Message with AuditKey Value " + processedResponse.getAuditKeyValues());
+						logger.severe("Going to tell main thread to stop processing.");
+						mainProcessToCloseDown = true;
+						break;
+					}
+					else {
+						//////////////////////////////////////////////////////////////////
+						// Response message built OK, send it to MQ or File...
+						//////////////////////////////////////////////////////////////////
+						forwardApplicationResponse(processedResponse, applicationResponseMessage);
+					}
+				} // end if (response == null)
+
+				if (forwardStage != null) { // will be consumed or stayed by acknowledgeForwardedResponses(), once forwarded
+					continue;
+				}
+			
+				// Check to see if an error occurred during processing of response.
+				// If a problem, "stay" the input message and stop processing.
+				// If no problem, "consume" the input message and continue processing.
+				try {
+					if (errorEncountered) { 
+						messageListener.stayMessage(processedResponse.getAuditKeyValues());
+					} else {
+						messageListener.consumeMessage(processedResponse.getAuditKeyValues());
+						if (processedMessageTracker != null) {
+							processedMessageTracker.processed(processedResponse.getAuditKeyValues());
+						}
+						logger.info("Message with AuditKey Value " + processedResponse.getAuditKeyValues() + " consumed after processing to output medium.");
+					}
+				} catch (MessagingException e) {
+					logger.severe("ResponseProcessorTask: Caught LwMessagingException exception Staying or consuming message: " + e);
+					logger.severe("Going to tell main thread to stop processing.");
+					errorEncountered = true;
+					break;
+				}
+
+			} while (inLoopMode && !errorEncountered);
+
+			if (forwardStage != null) { // let acknowledgeForwardedResponses() finish with responses already forwarded
+				try {
+					forwardStage.submitEndOfData();
+				} catch (InterruptedException e) {
+					forwardStage.shutdownNow();
+					Thread.currentThread().interrupt();
+				}
+			}
+			
+			if (errorEncountered) {
+				mainProcessToCloseDown = true;				
+			}
+			if (inLoopMode && concurrencyLimiter != null) { // no more responses will be collected, so stop holding messages back
+				concurrencyLimiter.close();
+			}
+			logger.exiting("ResponseProcessorTask", "run");
+		}
+
+		/**
+		 * @param processedResponse the response from the processor
+		 * @param applicationResponseMessage the response message to be forwarded (for interpretation by the originating app 
+		 */
+		private void forwardApplicationResponse(final ProcessResponse processedResponse, final String applicationResponseMessage) {
+			if (messageResponder != null) {
+				String messageResponderInstructions = null;		// Optional, implementation-specific instructions to be passed to the message responder
+				if (messageListener instanceof AcceptMessagesFromQueue) { // might have ReplytoQ URI from accepted message
+					String replytoQueueURI = ((AcceptMessagesFromQueue)messageListener).getReplytoQueueURI();
+					if (replytoQueueURI != null) {
+						messageResponderInstructions = replytoQueueURI;
+					}
+				}
+
+				if (forwardStage != null) { // forward on its own thread, acknowledgeForwardedResponses() will consume or stay the message in turn
+					final String instructions = messageResponderInstructions;
+					try {
+						forwardStage.submit(new Callable<ForwardedResponse>() {
+							public ForwardedResponse call() {
+								boolean forwarded = (applicationResponseMessage == null || putResponse(processedResponse, applicationResponseMessage, instructions));
+								return new ForwardedResponse(processedResponse, forwarded);
+							} // end Callable.call()
+						});
+					} catch (InterruptedException e) { // thrown by forwardStage.submit
+						logger.info("ResponseProcessorTask interrupted while forwarding response - shutting down");
+						errorEncountered = true;
+						Thread.currentThread().interrupt();
+					}
+				}
+				else if ( ! putResponse(processedResponse, applicationResponseMessage, messageResponderInstructions)) {
+					errorEncountered = true;
+				}
+			}
+
+		}
+
+		/**
+		 * Pass the response message to the messageResponder.
+		 * 
+		 * @param processedResponse the response from the processor
+		 * @param applicationResponseMessage the response message to be forwarded
+		 * @param messageResponderInstructions implementation-specific instructions for the message responder (can be null)
+		 * @return true if the response was forwarded successfully
+		 */
+		private boolean putResponse(ProcessResponse processedResponse, String applicationResponseMessage, String messageResponderInstructions) {
+			try {
+				messageResponder.putMessage(applicationResponseMessage, processedResponse.getAuditKeyValues(), messageResponderInstructions);
+				return true;
+			} catch (MessagingException e) {
+				logger.severe("ResponseProcessorTask: Caught LwMessagingException exception from messageResponder.putMessage(): " + e);
+				return false;
+			}
+		}
+
+		/**
+		 * Consume (or, on the first failure, stay) each input message once its response has been forwarded,
+		 * in the order the responses were received from the Processor. After a failure, the remaining responses
+		 * are drained without being acknowledged and the main thread is told to stop processing.
+		 * Runs on its own thread until forwardStage signals end-of-data.
+		 */
+		private void acknowledgeForwardedResponses() {
+			boolean endOfData = false;
+			boolean failed = false;
+
+			while ( ! endOfData) {
+				try {
+					ForwardedResponse forwardedResponse = forwardStage.take();
+					if (forwardedResponse == null) {
+						endOfData = true;
+					}
+					else if ( ! failed) {
+						String auditKeyValues = forwardedResponse.processedResponse.getAuditKeyValues();
+						if (forwardedResponse.forwarded) {
+							messageListener.consumeMessage(auditKeyValues);
+							if (processedMessageTracker != null) {
+								processedMessageTracker.processed(auditKeyValues);
+							}
+							logger.info("Message with AuditKey Value " + auditKeyValues + " consumed after processing to output medium.");
+						}
+						else {
+							messageListener.stayMessage(auditKeyValues);
+							failed = true;
+						}
+					}
+				} catch (MessagingException e) {
+					logger.severe("ResponseProcessorTask: Caught LwMessagingException exception Staying or consuming message: " + e);
+					failed = true;
+				} catch (InterruptedException e) {
+					logger.info("ResponseProcessorTask interrupted while acknowledging forwarded responses - shutting down");
+					forwardStage.shutdownNow();
+					failed = true;
+					endOfData = true;
+				}
+
+				if (failed && ! errorEncountered) {
+					logger.severe("Going to tell main thread to stop processing.");
+					errorEncountered = true;
+					mainProcessToCloseDown = true;
+				}
+			}
+		}
+
+		/**
+		 * Get the response object from the messageProcessor (may block)
+		 * 
+		 * @return the processed response
+		 */
+		private ProcessResponse getProcessedResponse() {
+			try {
+				ProcessResponse processedResponse = (laneDispatcher == null ? messageProcessor.getResponse() : laneDispatcher.take());
+				if (processedResponse != null && concurrencyLimiter != null) { // null is Poison Pill, never limited
+					concurrencyLimiter.release(processedResponse.getResponseCode() == ProcessResponse.ProcessResponseCode.SUCCESS);
+				}
+				return processedResponse;
+			} catch (MessagingException e) {
+				logger.severe("ResponseProcessorTask: Caught LwMessagingException exception from messageProcessor.getResponse(): " + e);
+				logger.severe("ResponseProcessorTask: Going to tell main thread to stop processing.");
+				errorEncountered = true;
+			} catch (InterruptedException e) {
+				// Close down thread
+				logger.info("ResponseProcessorTask interrupted while getting response from messageProcessor - shutting down");
+				errorEncountered = true;
+			}
+			
+			return null;
+		}
+
+		/**
+		 * Now check for any problems with response.
+		 * 
+		 * @param processedResponse the response object to be checked/validated
+		 * 
+		 * @return true if we encountered a problem
+		 */
+		private boolean foundProblemInResponse(ProcessResponse processedResponse) {
+			if (processedResponse == null) {
+				logger.info("ResponseProcessorTask received null response - shutting down");
+				logger.info("Received PoisonPill from Processor: Going to tell main thread to stop processing.");
+				errorEncountered = true;
+				return true;
+			}
+			
+			if (processedResponse.getResponseCode() != ProcessResponse.ProcessResponseCode.SUCCESS) {
+				logger.severe("Message with AuditKey Value " + processedResponse.getAuditKeyValues() + " was not processed properly by messageProcessor. Error returned was " + processedResponse.getResponse());
+				logger.severe("ResponseProcessorTask: Going to tell main thread to stop processing.");
+				errorEncountered = true;
+				return true;
+			}
+			
+			if (settings.getMinResponsesExpected() > 0 && processedResponse.getRowsProcessed() < settings.getMinResponsesExpected()) { // then serious problem
+				logger.severe("Message with AuditKey Value " + processedResponse.getAuditKeyValues() + " was not processed properly by messageProcessor. Insufficient Number of responses returned. Expected at least " + settings.getMinResponsesExpected() + ", received " + processedResponse.getRowsProcessed());
+				logger.severe("ResponseProcessorTask: Going to tell main thread to stop processing.");
+				errorEncountered = true;
+				return true;
+			}
+			
+			return false;
+		}
+
+		/**
+		  *
+		  * Build the final response message, for returning to MQ
+		  *
+		  * @param processedResponse the response from the processing Class
+		  * @param inputDoc the original XML message received from MQ, null if there are no elements to mind
+		  * @param settings the application settings
+		  *
+		  * @return a the XML string to be sent to the target for processing
+		  */
+		private String buildResponseMessage(String processedResponse, XMLDocument inputDoc, GenericMessageHandlerSettings settings)
+																		throws XMLException {
+			if (processedResponse == null) {
+				return null;
+			}
+
+			//////////////////////////////////////////////////////////////////////////
+			// Build from the template compiled at startup, if possible...
+			//////////////////////////////////////////////////////////////////////////
+			ResponseTemplate responseTemplate = settings.getResponseTemplate();
+			if (responseTemplate != null && (inputDoc == null || responseTemplate.isMindableWithoutDOM())) {
+				XMLDocument mindedDoc = null;
+				if (inputDoc != null) { // mind the elements into a doc of their own, to be written into the template
+					String responseMainDocElementName = settings.getResponseMainDocElementName();
+					try {
+						mindedDoc = XMLDocument.createDoc("<" + responseMainDocElementName + "></" + responseMainDocElementName + ">", XMLDocument.SCHEMA_VALIDATION_OFF);
+					}
+					catch(XMLException e2) {
+						throw new XMLException("LwGenericMessageHandler.buildResponseMessage(): Fatal Exception creating a new doc: " + e2.getMessage());
+					}
+					addMindedElementsToMessage(inputDoc, settings, responseMainDocElementName, mindedDoc);
+				}
+
+				String response = responseTemplate.build(processedResponse, mindedDoc);
+				if (response != null && settings.getResponseStylesheet() != null) {
+					try {
+						return settings.getResponseStylesheet().transform(response);
+					}
+					catch(TransformerException e2) {
+						throw new XMLException("LwGenericMessageHandler.buildResponseMessage(): Fatal Exception transforming response by stylesheet: " + e2.getMessage());
+					}
+				}
+				else if (response != null) {
+					return response;
+				}
+				// otherwise, build by DOM, as below
+			}
+
+			//////////////////////////////////////////////////////////////////////////
+			// Create a new doc from the processed response...
+			//////////////////////////////////////////////////////////////////////////
+			XMLDocument processedResponseDoc = null;
+			try {
+				processedResponseDoc = XMLDocument.createDoc(processedResponse, XMLDocument.SCHEMA_VALIDATION_OFF);
+			}
+			catch(XMLException e2) {
+				throw new XMLException("LwGenericMessageHandler.buildMessageForTarget(): Fatal Exception creating a new XML doc from processed response: " + e2.getMessage());
+			}
+
+			String responseMainDocElementName = settings.getResponseMainDocElementName();
+
+			//////////////////////////////////////////////////////////////////////////
+			// Create a new response doc (or just use processedResponse)...
+			//////////////////////////////////////////////////////////////////////////
+			XMLDocument responseDoc = null;
+			try {
+				if (responseMainDocElementName == null) { // then don't want to wrap response in any tag
+					responseMainDocElementName = processedResponseDoc.getCurrentNodeName();
+					responseDoc = processedResponseDoc;
+				}
+				else {
+					responseDoc = XMLDocument.createDoc("<" + responseMainDocElementName + "></" + responseMainDocElementName + ">", XMLDocument.SCHEMA_VALIDATION_OFF);
+					responseDoc.importNode(processedResponseDoc.getCurrentNode(), true);
+				}
+			}
+			catch(XMLException e2) {
+				throw new XMLException("LwGenericMessageHandler.buildMessageForTarget(): Fatal Exception creating a new doc: " + e2.getMessage());
+			}
+
+			if (inputDoc != null) { // null if nothing to be minded (see dispatchToProcessor())
+				addMindedElementsToMessage(inputDoc, settings,	responseMainDocElementName, responseDoc);
+			}
+
+			setValuesForResponseLiterals(settings, responseDoc);
+
+			if (settings.getResponseStylesheet() != null) { // transform straight from the doc, no need to serialize it first
+				responseDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+				try {
+					return settings.getResponseStylesheet().transform(responseDoc.getCurrentNode());
+				}
+				catch(TransformerException e2) {
+					throw new XMLException("LwGenericMessageHandler.buildResponseMessage(): Fatal Exception transforming response by stylesheet: " + e2.getMessage());
+				}
+			}
+
+			return responseDoc.toString();
+		}
+
+		/**
+		 * Set the values for any response literals...
+		 *
+		 * Notes:
+		 * If the TAG does not exist, it will be created (along with any missing aggregates along it's path)
+		 *
+		 * Here's the sequence...
+		 * Loop through the "literal" list
+		 *		Find the element in responseDoc (as specified in the Location attribute)
+		 *		If found, set the text value to that from the settings file
+		 *		If NOT found
+		 *			Add the element (creating parents if necessary along the way)
+		 *			Find the newly created element in responseDoc
+		 *			Set the text value to that from the settings file
+		 *
+		 * 
+		 * 
+		 * @param settings application settings
+		 * @param responseDoc the XML doc to be amended
+		 */
+		private void setValuesForResponseLiterals( GenericMessageHandlerSettings settings, XMLDocument responseDoc) {
+			Enumeration<XMLTagValue> enumLiteralNames = settings.getResponseLiteralsSet();
+			while (enumLiteralNames.hasMoreElements()) {
+				XMLTagValue tv = enumLiteralNames.nextElement();
+
+				responseDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+				if ( responseDoc.setCurrentNodeByPath(tv.getAttributeValue("Location"), 1)) {
+					responseDoc.setTextContentForCurrentNode(tv.getTagValue());
+				}
+				else { // no prob if we don't find the aggregate, we'll add it
+					XMLTagValue tempTagNoValue = new XMLTagValue(tv.getAttributeValue("Location"), null); // just to help split out path e.g. MESSAGE.DELV.ORD or MESSAGE.DELV.ORD.ORDER_NUMBER
+
+					if (tempTagNoValue.getPathToNameLessFirstElement() != null) {
+						if (responseDoc.addElement(null, tempTagNoValue.getPathToNameLessFirstElement(), null) != null) {
+
+							responseDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+							if (responseDoc.setCurrentNodeByPath(tempTagNoValue.getPathToName(), 1)) {
+								responseDoc.setTextContentForCurrentNode(tv.getTagValue());
+							}
+						}
+					}
+				}
+			}
+		}
+
+		/**
+		 * Add the "mind"ed aggregates or tags...
+		 *
+		 * Notes:
+		 * We must allow for the fact that the top-level element of the response
+		 * might not have the same Name as that of the input message.
+		 *
+		 * Both aggregates and TAGs may be minded.
+		 * The path to the aggregate or tag will be created in the response, if it does not already exist.
+		 * Individual TAGs specified with the same path will appear in the same aggregate in the response message (i.e the parent aggregate will not be duplicated).
+		 * If a TAG appears in the list after an aggregate existing along the same path, the TAG will be duplicated in the response message.
+		 * If a TAG appears in the list before an aggregate existing along the same path, the aggregate will be duplicated in the response message.
+		 *
+		 * Here's the sequence...
+		 * Loop through the "minded" list
+		 *		If special name "*" encountered, import all from inputDoc
+		 *		Otherwise...
+		 *			Find the "minded" element in inputDoc
+		 *			Find the parent of "minded" element in responseDoc (will fail if names of top-level elements differ in docs, or if sub-aggregate not yet there)
+		 *			If didn't find parent, create it in responseDoc (ignoring top-level element of Location attribute), and then find it
+		 *			Import the node into responseDoc at the found parent
+		 * 
+		 * 
+		 * @param inputDoc the original input doc (source of the whole transaction)
+		 * @param settings application settings
+		 * @param responseMainDocElementName the name of the root element for the responseDoc
+		 * @param responseDoc the XML doc to be amended
+		 */
+		private void addMindedElementsToMessage(XMLDocument inputDoc, GenericMessageHandlerSettings settings,
+												String responseMainDocElementName, XMLDocument responseDoc) {
+			ElementCopyPlan mindElementPlan = settings.getMindElementPlan(); // paths already split out, at startup
+
+			// Find the minded elements in inputDoc, in one walk over it...
+			inputDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+			Node inputTopLevelElement = inputDoc.getCurrentNode();
+			Node[] sourceNodes = mindElementPlan.findSourceNodes(inputTopLevelElement);
+
+			List<ElementCopyPlan.Step> mindElementSteps = mindElementPlan.getSteps();
+			for (int i = 0; i < mindElementSteps.size(); i++) {
+				ElementCopyPlan.Step tv = mindElementSteps.get(i);
+				responseDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+
+				if (tv.isCopyAll()) { // then import ALL from the inputDoc, but excluding the "wrapper" TAG (e.g. "MESSAGE")
+					responseDoc.importNodesChildren(inputTopLevelElement, true);
+				}
+				else { // find the node and import it
+					Node sourceNode = findSourceNode(inputDoc, tv, sourceNodes[i]);
+
+					if (sourceNode != null) { // no prob if we don't find the aggregate in input, we'll ignore then
+						responseDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+
+						// Position "pointer" in responseDoc to correct parent aggregate, creating it if we have to...
+						// (Note that the first ELEMENT in the path for the input may have a different name than the response, so we may ignore it)
+						String pathToParent = tv.getPathToParent();
+						String responsePathToParent = tv.getRecipientPathToParent(responseMainDocElementName); // null if parent is top-level, so nothing more to search
+
+						//search under both inputDoc top-level Name and that of Target top-level Name
+						if ( ! (responseDoc.setCurrentNodeByPath(pathToParent, 1) || (responsePathToParent != null && ! responsePathToParent.equals(pathToParent) && responseDoc.setCurrentNodeByPath(responsePathToParent, 1)))
+						   ) { // try to go to parent recipient (if specified), create path if can't
+							String pathToParentLessFirstElement = tv.getPathToParentLessFirstElement();
+
+							if (pathToParentLessFirstElement != null) { // would be null if TAG is child of first ELEMENT in doc
+								responseDoc.addElement(null, pathToParentLessFirstElement, null);
+								responseDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+								responseDoc.setCurrentNodeByPath(pathToParent, 1);
+							}
+						}
+
+						// Now can import the minded node
+						responseDoc.importNode(sourceNode, true);
+					}
+				}
+			}
+		}
+	} // end class ResponseProcessorTask
+
+	/**
+	  * A response from the Processor, after an attempt to forward it to the messageResponder.
+	  */
+	private static class ForwardedResponse {
+		private final ProcessResponse processedResponse;
+		private final boolean forwarded;		// true if forwarded successfully (or there was nothing to forward)
+
+		public ForwardedResponse(ProcessResponse processedResponse, boolean forwarded) {
+			this.processedResponse = processedResponse;
+			this.forwarded = forwarded;
+		}
+	}
 }
\ No newline at end of file
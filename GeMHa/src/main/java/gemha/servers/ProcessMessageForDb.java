@@ -1,457 +1,831 @@
-package gemha.servers;
-
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.logging.*;
-import java.util.Vector;
-
-import lw.XML.*;
-import lw.db.*;
-import lw.utils.*;
-import gemha.support.ProcessMessageForDbSettings;
-import gemha.support.MessagingException;
-import gemha.support.ProcessResponse;
-import gemha.support.ProcessResponse.ProcessResponseCode;
-import gemha.interfaces.IProcessMesssage;
-
-/**
-  * This class transforms an XML message into a SQL statement and submits it to the database for processing.
-  *
-  * @author Liam Wade
-  * @version 1.0 20/11/2008
-  */
-public class ProcessMessageForDb implements IProcessMesssage {
-
-    private static final Logger logger = Logger.getLogger("gemha");
-
-	// Determines whether a message is to be processed asynchronously or not.
-	static private enum ProcessingMode {
-		SYNCHRONOUS,
-		ASYNCHRONOUS;
-	}
-	
-    // Executor for processing messages
-    private final ExecutorService execPool = Executors.newSingleThreadExecutor();
-    
-    // Queue for handing off responses, with fixed capacity of 1000.
-    // End-of-data will be signaled by a null record
-    private final BlockingQueue<Future<ProcessResponse>> responseQueue = new LinkedBlockingQueue<Future<ProcessResponse>>(1000);
-
-	private DbConnection dbConn = null;
-	private ProcessMessageForDbSettings settings = null;
-	
-	public ProcessMessageForDb() {
-	}
-
-	//////////////////////////////////////////////////////////////////
-	// Start: Implementation methods for LwIProcessMesssage Interface...
-	//////////////////////////////////////////////////////////////////
-	/**
-	  * Set up conditions for processing messages
-	  *
-	  * @return true for success, false for failure
-	  */
-	public void performSetup(String settingsFileName) throws SettingsException {
-
-		if (settingsFileName == null) {
-			throw new SettingsException("Parameter settingsFileName was null.");
-		}
-
-		settings = new ProcessMessageForDbSettings(settingsFileName, XMLDocument.SCHEMA_VALIDATION_ON);
-
-		try {
-			// Note: if autoCommitting() true, all SQL statements will be executed and committed as individual transactions
-			// with no need to call commit(), otherwise transactions are grouped until commited
-			 dbConn = new DbConnection(settings.getJdbcClass(), settings.getDbURL(), settings.getUserName(), settings.getUserPass(), settings.autoCommitting());
-		}
-		catch(DbException e) {
-			logger.severe("Couldn't create new LwDbConnection: " + e.getMessage());
-			throw new SettingsException("Couldn't create new LwDbConnection: " + e.getMessage());
-		}
-
-		//////////////////////////////////////////////////////////////////
-		// Set the db date format...
-		//////////////////////////////////////////////////////////////////
-		try {
-			String dateFormat = settings.getDateFormat();
-
-			if (dateFormat != null) {
-				dbConn.setDateFormat(dateFormat);
-			}
-		}
-		catch(DbException e) {
-			logger.severe("Couldn't set Date Format: " + e.getMessage());
-			throw new SettingsException("Couldn't set Date Format: " + e.getMessage());
-		}
-
-		try {
-			 // Prepare any supplied Prepared Statements now...
-			 // Note:	Looks like oracle does not support precompilation. In this case, the statement may not be sent to
-			 // 		the database until the PreparedStatement object is executed.
-			 //			This means we cannot tell if the SQL is valid until the first message comes along to execute it!!!!!
-			 for (LwPreparedStatementTemplate pst : settings.getPreparedStatementTemplates()) {
-				 dbConn.prepareStatement(pst);
-			 }
-		}
-		catch(DbException e) {
-			logger.severe("Couldn't prepare a supplied Prepared Statement: " + e.getMessage());
-			throw new SettingsException("Couldn't prepare a supplied Prepared Statement: " + e.getMessage());
-		}
-	}
-
-	/**
-	  * Process a message on the same thread as the caller, blocking for result.
-	  * As only processing one message at a time, not bothering to check for isInterrupted() - let it finish
-	  *
-	  * @param messageText the message to be processed
-	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
-	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
-	  *
-	  * @return the next response from process, null if no more results will ever arrive
-	  * 
-	  * @throws MessagingException if a problem was encountered processing the message
-	  */
-	@Override
-	public ProcessResponse processMessageSynch(final String messageText, final XMLDocument inputDoc, String auditKeyValues)
-											throws MessagingException {
-		return processMessage(messageText, inputDoc, auditKeyValues, ProcessingMode.SYNCHRONOUS);
-	}
-	
-	/**
-	  * Process a message on another thread, non-blocking. Result to be collected by calling getResponse().
-	  * As only processing one message at a time, not bothering to check for isInterrupted() - let it finish
-	  *
-	  * @param messageText the message to be processed
-	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
-	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
-	  *
-	  * @throws MessagingException if a problem was encountered processing the message
-	  */
-	@Override
-	public void processMessageAsynch(final String messageText, final XMLDocument inputDoc, String auditKeyValues)
-											throws MessagingException {
-		processMessage(messageText, inputDoc, auditKeyValues, ProcessingMode.ASYNCHRONOUS);
-	}
-
-	/**
-	/**
-	  * Process a message to perform an action against the database
-	  * A LwMessagingException will be thrown when a technical problem arises.
-	  * If the error is related to the database action being requested, a negative error code will be returned and the reason will appear in the response message
-	  *
-	  * @param messageText the message to be processed
-	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
-	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
-	  * @param synchronous 	if true, the message is to be processed on the same thread as the caller, blocking for result
-	  * 					if false, the message is to be processed on another thread, non-blocking. Result to be collected by calling getResponse().
-	  *
-	  * @return the next response from process, null if no more results will ever arrive
-	  * 
-	  * @throws MessagingException if a problem was encountered processing the message
-	  */
-	private ProcessResponse processMessage(final String messageText, final XMLDocument inputDoc, final String auditKeyValues, ProcessingMode processingMode)
-											throws MessagingException {
-
-		Callable<ProcessResponse> processMessageTask = new Callable<ProcessResponse>() {
-			@Override
-			public ProcessResponse call() throws MessagingException {
-				logger.info("Control now in messageProcessor.");
-				logger.finer("Processing message: " + messageText);
-		
-				XMLDocument response = createResponseDoc(); // create doc shell
-
-				//////////////////////////////////////////////////////////////////
-				// Set up a new XML doc
-				//////////////////////////////////////////////////////////////////
-				XMLDocument newDoc = null;
-				try {
-					newDoc = XMLDocument.createDoc(messageText, XMLDocument.SCHEMA_VALIDATION_OFF);
-				}
-				catch(XMLException e) {
-					logger.severe("LwXMLException: " + e.getMessage());
-					logger.warning("InputMessage was :" + messageText);
-					throw new MessagingException("Could not create new XML document: " + e.getMessage());
-				}
-		
-
-				//////////////////////////////////////////////////////////////////
-				// Open a Db connection, if one not already open.
-				//////////////////////////////////////////////////////////////////
-				if ( ! dbConn.connectionOpen()) { // then just open it - assume was closed because things were quiet.
-					try {
-						dbConn.reOpen();
-					}
-					catch(DbException e) {
-						logger.severe("LwDbException: " + e.getMessage());
-						throw new MessagingException("Caught LwDbException trying to re-open database connection: " + e.getMessage());
-					}
-				}
-		
-				//////////////////////////////////////////////////////////////////
-				// Do the work, committing if successful, rolling back if not...
-				// Beware that a transaction may commit immediately, if requested in message
-				//////////////////////////////////////////////////////////////////
-		
-				// Store all actions in this Vector
-				Vector<ProcessMessageForDbAction> allActions = new Vector<ProcessMessageForDbAction>();
-		
-				int numActionsApplied;
-				try {
-					numActionsApplied = performActions(newDoc, allActions);
-		
-					try {
-						//////////////////////////////////////////////////////////////////////////
-						// Commit transactions (not already committed immediately on instrs)
-						//////////////////////////////////////////////////////////////////////////
-						dbConn.sessionCommit();
-						logger.info("Committed outstanding Db transaction(s).");
-	
-						//////////////////////////////////////////////////////////////////////////
-						// Add all Action results to response, marking appropriate ones as committed...
-						//////////////////////////////////////////////////////////////////////////
-						for (ProcessMessageForDbAction dbAction : allActions) {
-							dbAction.markExecutedAsCommitted();
-							dbAction.addResultToResponse(response);
-						}
-					}
-					catch(DbException e) {
-						throw new MessagingException("Caught LwDbException trying to commit transaction(s): " + e.getMessage());
-					}
-				}
-				catch(Exception e) {
-					// Just temporarily catch ANY exception, so can roll back trancaction, if we got an error...
-					try { dbConn.sessionRollback();} catch(DbException e2) {/* can't do any more anyway - already Exceptioned */}
-					logger.warning("Rolled back Db transaction(s). Throwing LwMessagingException...");
-					e.printStackTrace();
-					throw new MessagingException(e.toString() + ": see console for Stack Trace."); // gives name and getMessage()
-				}
-
-				ProcessResponse.Builder responseBuilder = new ProcessResponse.Builder(ProcessResponseCode.SUCCESS, numActionsApplied)
-					.setAuditKeyValues(auditKeyValues)
-					.setResponse(response.toString())
-					.setInputDoc(inputDoc);
-		
-				logger.info("[" + Thread.currentThread().getName() + "]: Returning response from Processor Task...");
-				
-				return responseBuilder.build();
-			} // end Callable.call()
-		};
-
-		if (processingMode == ProcessingMode.ASYNCHRONOUS) { // submit for processing on a pool thread
-			// If null message supplied, no more messages to process, so return PoisonPill to response handler...
-			if (messageText == null) {
-				subMitPoisonPill();
-				return null;
-			}
-			
-			// Submit this message for processing...
-			// (See subMitPoisonPill() re flushing the executor.)
-			// Note: exceptions thrown within the Callable will not return to the caller, but will re-appear in the Future :-)
-			try {
-				responseQueue.put(execPool.submit(processMessageTask));
-				
-				return null;
-			} catch(InterruptedException e) { // thrown by responseQueue.put
-				// Flush responseQueue (reading thread then has option to close down itself, on receiving this Poison Pill)
-				subMitPoisonPill();
-				
-				// Quit processing now, but as we don't own the Thread, set back to interrupted - the caller will decide what to do with Thread
-				// (in case queue will have called interrupted(), which clears the interrupted flag for the thread)
-				Thread.currentThread().interrupt();
-				return null; // Interrupted
-			}
-		} else { // process now, on caller's thread
-			try {
-				return processMessageTask.call();
-			} catch (Exception e) {
-				throw new MessagingException("[" + Thread.currentThread().getName() + "]: Caught Exception calling processMessageTask: " + e);
-			}
-		}
-	}
-
-	/**
-	  * Return the next response message.
-	  * When all responses have been received, null will be returned.
-	  *
-	  * LwProcessResponse is immutable
-	  * 
-	  * @return the next response from process, null if no more results will ever arrive
-	  * @throws MessagingException if a problem was encountered processing the message
-	  * @throws InterruptedException if CALLING thread is noticed as interrupted while getting response
-	  */
-	@Override
-	public ProcessResponse getResponse() throws MessagingException, InterruptedException {
-		ProcessResponse response = null;
-		try {
-			Future<ProcessResponse> fr = responseQueue.take(); // will block here if queue empty (will never return null - BlockingQueue doesn't allow)
-			response = fr.get(); // will block here if next task in queue not yet finished
-		} catch (ExecutionException e) {
-			Throwable cause = e.getCause();
-			if (cause instanceof MessagingException)
-				throw (MessagingException) cause;
-			else
-				throw launderThrowable(cause);
-		}
-
-		logger.info("[" + Thread.currentThread().getName() + "]: Returning response retrieved from Response Queue Future to response handler.");
-		return response;
-	}
-
-	/**
-	  * Do whatever you like when things are quiet
-	  *
-	  */
-	public void goQuiet() {
-		logger.info("All quiet, going to close database connection.");
-		dbConn.close(null);
-	}
-
-	/**
-	  * Perform any clean-up actions before closing down
-	  *
-	  */
-	public void performCleanup(LwLogger shutdownLogger) {
-		if (dbConn != null) {
-			dbConn.close(shutdownLogger);
-		}
-	}
-
-	/**
-	  * Allow caller block until all tasks have completed execution after a shutdown request, or the timeout occurs,
-	  * or the current thread is interrupted, whichever happens first.
-	  *
-	  * @param timeout the number of units to wait before giving up wait.
-	  * @param unit the unit of time of the timeout value
-	 * @throws InterruptedException if current thread interrupted while waiting
-	  * 
-	  */
-	@Override
-	public void  awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
-			execPool.awaitTermination(timeout, unit) ;
-	}
-		
-
-	//////////////////////////////////////////////////////////////////
-	// End: Implementation methods for LwIProcessMesssage Interface...
-	//////////////////////////////////////////////////////////////////
-
-	/**
-	  * Perform an action against the database.
-	  * NOTE: this method may be called on a separate thread, in processMessage
-	  *
-	  * @param inputDoc the XML containing the database commands
-	  * @param allActions store actions and their results in this Vector
-	  *
-	  * @return 0 for success with no response necessary, n for success and response(s) ready, less than zero for error that will be explained in the response.
-	  */
-	private int performActions(XMLDocument inputDoc, Vector<ProcessMessageForDbAction> allActions)
-											throws MessagingException {
-
-		logger.finer("Going to perform all actions...");
-
-		String actionOnError = "respond";
-
-		//////////////////////////////////////////////////////////////////////////
-		// Find out what to do with errors...
-		//////////////////////////////////////////////////////////////////////////
-		String dbLevelactionOnError = inputDoc.getValueForTag("/MESSAGE/DBACTION/ACTION_ON_ERROR"); // respond, exception
-		if (dbLevelactionOnError != null) {
-			actionOnError = dbLevelactionOnError;
-		}
-
-		inputDoc.setCurrentNodeToFirstElement(); // need to go back to top of doc, for next search
-
-		//////////////////////////////////////////////////////////////////////////
-		// Process all actions...
-		// The processing order is, all INSERTs, then all UPDATEs, then all DELETEs, and finally all  SELECTs  
-		//////////////////////////////////////////////////////////////////////////
-		int totalActionsApplied = 0;
-		String[] actions = {"INSERT", "UPDATE", "DELETE", "SELECT"}; // aid to select actions in order
-		for (String action : actions) {
-			int numThisTypeOfActionApplied = 0;
-			while (inputDoc.setCurrentNodeByPath("/MESSAGE/DBACTION/" + action, ++numThisTypeOfActionApplied)) {
-				logger.fine("Found " + action + " action to process.");
-				ProcessMessageForDbAction dbAction = new ProcessMessageForDbAction(action, inputDoc, settings.getAuditKeyNamesSet(action), settings.getAuditKeysSeparator());
-				allActions.addElement(dbAction);
-
-				dbAction.buildAction(settings.getDefaultTablename());
-				dbAction.performAction(dbConn, actionOnError);
-
-				totalActionsApplied += dbAction.getNumActions();
-				inputDoc.setCurrentNodeToFirstElement(); // need to go back to top of doc, for next search
-			}
-		}
-
-		return totalActionsApplied;
-	}
-
-	/**
-	  * Start a response doc
-	  *
-	  */
-	private XMLDocument createResponseDoc()
-								throws MessagingException {
-
-		XMLDocument newResponse = null;
-
-		try {
-			newResponse = XMLDocument.createDoc("<MESSAGE><DBACTION></DBACTION></MESSAGE>", XMLDocument.SCHEMA_VALIDATION_OFF);
-		}
-		catch(XMLException e) {
-			logger.severe("Caught LwXMLException creating a new XML doc for response: " + e.getMessage());
-			throw new MessagingException("LwProcessMessageForDb.buildErrorResponse(): Caught Exception creating a new XML doc for error response: " + e.getMessage());
-		}
-		
-		return newResponse;
-	}
-
-	/**
-	  * Extract and validate a Throwable that would have been contained within another Exception (eg ExcutionException)
-	  *
-	  * @param t the Throwable to be interpreted
-	  * 
-	  * @return a RuntimeException
-	  * @throws IllegalStateException if the Exception was not expected (known exceptions should have been dealt with prior to calling launderThrowable
-	  */
-	private static RuntimeException launderThrowable(Throwable t) {
-		if (t instanceof RuntimeException) 
-			return (RuntimeException) t;
-		else if (t instanceof Error)
-			throw (Error) t;
-		else
-			throw new IllegalStateException("launderThrowable: Exception not checked! : ", t);
-	}
-	
-	/**
-	  * This method creates a Poison Pill and places it in the queue for the Executor, which will be returned to the
-	  * response handler.
-	  * It then tells the executor to shut down.
-	  *
-	  * 
-	  */
-	private void subMitPoisonPill() {
-		logger.info("Submitting Poison Pill to Executor queue, so will cause responseProcessor to close down.");
-		try {
-			if ( ! execPool.isShutdown()) { // this check in case we,ve already called this method
-				responseQueue.put(execPool.submit( new Callable<ProcessResponse>() {
-					public ProcessResponse call() throws MessagingException {
-						return null;
-					} // end Callable.call()
-				}));
-				// Flush execPool buffer and shut it down (no waiting)...
-				execPool.shutdown();
-			}
-			
-		} catch(InterruptedException e) { // thrown by responseQueue.put
-			// Set back to interrupted - the caller will decide what to do with Thread
-			// (in case queue will have called interrupted(), which clears the interrupted flag for the thread)
-			Thread.currentThread().interrupt();
-		}
-	}
-}
+package gemha.servers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.*;
+import java.util.Vector;
+
+import lw.XML.*;
+import lw.db.*;
+import lw.utils.*;
+import gemha.support.InsertRows;
+import gemha.support.ProcessMessageForDbSettings;
+import gemha.support.MessagingException;
+import gemha.support.OrderedTaskExecutor;
+import gemha.support.ResponseBackpressure;
+import gemha.support.RingBuffer;
+import gemha.support.ProcessRequest;
+import gemha.support.ProcessResponse;
+import gemha.support.ProcessResponse.ProcessResponseCode;
+import gemha.interfaces.IProcessMesssage;
+import gemha.interfaces.IProcessMesssageBatches;
+import gemha.interfaces.IProcessMesssageConcurrently;
+import gemha.interfaces.IProcessParsedMesssage;
+
+/**
+  * This class transforms an XML message into a SQL statement and submits it to the database for processing.
+  *
+  * When more than one worker is configured (see setConcurrency), each worker uses its own database connection,
+  * taken from a pool of connections opened in performSetup. In thread-per-message mode (see setThreadPerMessage),
+  * just one connection is opened in performSetup, others being opened as needed, up to one per in-flight message.
+  * Each message is still committed or rolled back
+  * as a single unit, but messages may be committed in a different order to that in which they were received.
+  *
+  * A batch of messages (see processMessagesAsynch) is applied on one connection and committed or rolled back
+  * as a single unit.
+  *
+  * A message made up only of INSERTs, as fed from CSV files, is read straight into rows of column values
+  * (see InsertRows), which are bound to the Prepared Statements (or inserted into the default table) with no DOM
+  * in between. It is read from its text even if handed over already parsed.
+  * Responses, auditing and errors are as for any other message.
+  *
+  * @author Liam Wade
+  * @version 1.0 20/11/2008
+  * @version 1.1 16/10/2026 Messages may be processed by several workers, each with its own connection.
+  * @version 1.2 16/10/2026 A batch of messages may be applied with a single commit.
+  * @version 1.3 16/10/2026 A message already parsed by the caller is not parsed again (see IProcessParsedMesssage).
+  * @version 1.4 16/10/2026 A message of INSERTs against Prepared Statements is read into rows, without a DOM.
+  */
+public class ProcessMessageForDb implements IProcessParsedMesssage, IProcessMesssageConcurrently, IProcessMesssageBatches {
+
+    private static final Logger logger = Logger.getLogger("gemha");
+
+	// Determines whether a message is to be processed asynchronously or not.
+	static private enum ProcessingMode {
+		SYNCHRONOUS,
+		ASYNCHRONOUS;
+	}
+	
+    // Executor for processing messages, handing off responses in the order the messages were submitted.
+    // End-of-data will be signaled by a null record
+    private volatile OrderedTaskExecutor taskExecutor = new OrderedTaskExecutor(1);
+
+    // One connection per worker (or per in-flight message). A worker takes a connection for the duration of a message and then returns it.
+	private final BlockingQueue<DbConnection> idleDbConns = new LinkedBlockingQueue<DbConnection>();
+	private final CopyOnWriteArrayList<DbConnection> allDbConns = new CopyOnWriteArrayList<DbConnection>();
+	private ProcessMessageForDbSettings settings = null;
+	private boolean insertRowsReadable = false;	// true if messages of INSERTs may be read without a DOM (see InsertRows)
+	
+	public ProcessMessageForDb() {
+	}
+
+	//////////////////////////////////////////////////////////////////
+	// Start: Implementation methods for LwIProcessMesssage Interface...
+	//////////////////////////////////////////////////////////////////
+	/**
+	  * Set up conditions for processing messages
+	  *
+	  * @return true for success, false for failure
+	  */
+	public void performSetup(String settingsFileName) throws SettingsException {
+
+		if (settingsFileName == null) {
+			throw new SettingsException("Parameter settingsFileName was null.");
+		}
+
+		settings = new ProcessMessageForDbSettings(settingsFileName, XMLDocument.SCHEMA_VALIDATION_ON);
+
+		insertRowsReadable = InsertRows.canResolveAuditKeys(settings.getAuditKeyNamesSet("INSERT"));
+		logger.config("Messages of INSERTs will " + (insertRowsReadable ? "" : "NOT ") + "be read into rows without a DOM"
+						+ (insertRowsReadable ? "." : " (insert AuditKeys must all be COLUMNS/name or INSERT/COLUMNS/name)."));
+
+		// In thread-per-message mode, the in-flight limit may be large, so just open the first connection now
+		int numConnections = (taskExecutor.isThreadPerMessage() ? 1 : taskExecutor.getConcurrency());
+		for (int i = 0; i < numConnections; i++) {
+			DbConnection dbConn = openDbConnection();
+			allDbConns.add(dbConn);
+			idleDbConns.add(dbConn);
+		}
+
+		if (numConnections > 1) {
+			logger.config("Opened " + numConnections + " database connections, one per worker.");
+		}
+	}
+
+	/**
+	  * Set the number of messages that may be processed at the same time.
+	  * A database connection will be opened for each worker in performSetup().
+	  *
+	  * @param concurrency the number of worker threads to process messages (1..n)
+	  */
+	@Override
+	public void setConcurrency(int concurrency) {
+		if ( ! allDbConns.isEmpty())
+			throw new IllegalStateException("ProcessMessageForDb.setConcurrency must be called before performSetup");
+
+		taskExecutor = new OrderedTaskExecutor(concurrency, taskExecutor.getBackpressure());
+	}
+
+	/**
+	  * Run each message on its own thread, up to maxInFlight at a time.
+	  * Connections are opened as needed, up to one per in-flight message, so keep maxInFlight
+	  * to what the database will allow.
+	  *
+	  * @param maxInFlight the maximum number of messages that may be processed at the same time (1..n)
+	  */
+	@Override
+	public void setThreadPerMessage(int maxInFlight) {
+		if ( ! allDbConns.isEmpty())
+			throw new IllegalStateException("ProcessMessageForDb.setThreadPerMessage must be called before performSetup");
+
+		taskExecutor = OrderedTaskExecutor.newThreadPerMessage(maxInFlight, taskExecutor.getBackpressure());
+	}
+
+	/**
+	  * Hand messages to a single worker, and its responses back, through preallocated lock-free ring buffers.
+	  *
+	  * @param ringSize the number of slots in each ring (a power of 2)
+	  * @param waitStrategy how the worker and the collector of responses wait for each other
+	  */
+	@Override
+	public void setRingBufferTransport(int ringSize, RingBuffer.WaitStrategy waitStrategy) {
+		if ( ! allDbConns.isEmpty())
+			throw new IllegalStateException("ProcessMessageForDb.setRingBufferTransport must be called before performSetup");
+
+		taskExecutor = OrderedTaskExecutor.newRingBuffer(ringSize, waitStrategy, taskExecutor.getBackpressure());
+	}
+
+	/**
+	  * Bound the queue of responses awaiting collection by the given backpressure's limits.
+	  *
+	  * @param backpressure tracks the responses awaiting collection
+	  */
+	@Override
+	public void setResponseBackpressure(ResponseBackpressure backpressure) {
+		if ( ! allDbConns.isEmpty())
+			throw new IllegalStateException("ProcessMessageForDb.setResponseBackpressure must be called before performSetup");
+
+		taskExecutor = taskExecutor.withBackpressure(backpressure);
+	}
+
+	/**
+	  * Take a free database connection, opening a new one if none is free and fewer than the in-flight limit
+	  * are open, otherwise waiting for one to be returned.
+	  *
+	  * @return the connection, to be returned to idleDbConns when finished with
+	  * @throws MessagingException if interrupted while waiting, or a new connection could not be opened
+	  */
+	private DbConnection takeDbConnection() throws MessagingException {
+		DbConnection dbConn = idleDbConns.poll();
+
+		if (dbConn == null) {
+			dbConn = openExtraDbConnection();
+		}
+
+		if (dbConn == null) {
+			try {
+				dbConn = idleDbConns.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MessagingException("Interrupted waiting for a free database connection.");
+			}
+		}
+
+		return dbConn;
+	}
+
+	/**
+	  * Open a new database connection, if fewer than the in-flight limit are already open.
+	  *
+	  * @return the new connection, null if the limit has been reached
+	  * @throws MessagingException if the new connection could not be opened
+	  */
+	private synchronized DbConnection openExtraDbConnection() throws MessagingException {
+		if (allDbConns.size() >= taskExecutor.getConcurrency()) {
+			return null;
+		}
+
+		DbConnection dbConn = null;
+		try {
+			dbConn = openDbConnection();
+		}
+		catch(SettingsException e) {
+			throw new MessagingException("Caught LwSettingsException trying to open a new database connection: " + e.getMessage());
+		}
+		allDbConns.add(dbConn);
+		logger.info("Opened database connection " + allDbConns.size() + " of up to " + taskExecutor.getConcurrency() + ".");
+
+		return dbConn;
+	}
+
+	/**
+	  * Open a new database connection, setting the date format and preparing any supplied Prepared Statements.
+	  *
+	  * @return the new connection
+	  * @throws SettingsException if a problem was encountered opening or preparing the connection
+	  */
+	private DbConnection openDbConnection() throws SettingsException {
+		DbConnection dbConn = null;
+
+		try {
+			// Note: if autoCommitting() true, all SQL statements will be executed and committed as individual transactions
+			// with no need to call commit(), otherwise transactions are grouped until commited
+			 dbConn = new DbConnection(settings.getJdbcClass(), settings.getDbURL(), settings.getUserName(), settings.getUserPass(), settings.autoCommitting());
+		}
+		catch(DbException e) {
+			logger.severe("Couldn't create new LwDbConnection: " + e.getMessage());
+			throw new SettingsException("Couldn't create new LwDbConnection: " + e.getMessage());
+		}
+
+		//////////////////////////////////////////////////////////////////
+		// Set the db date format...
+		//////////////////////////////////////////////////////////////////
+		try {
+			String dateFormat = settings.getDateFormat();
+
+			if (dateFormat != null) {
+				dbConn.setDateFormat(dateFormat);
+			}
+		}
+		catch(DbException e) {
+			logger.severe("Couldn't set Date Format: " + e.getMessage());
+			throw new SettingsException("Couldn't set Date Format: " + e.getMessage());
+		}
+
+		try {
+			 // Prepare any supplied Prepared Statements now...
+			 // Note:	Looks like oracle does not support precompilation. In this case, the statement may not be sent to
+			 // 		the database until the PreparedStatement object is executed.
+			 //			This means we cannot tell if the SQL is valid until the first message comes along to execute it!!!!!
+			 for (LwPreparedStatementTemplate pst : settings.getPreparedStatementTemplates()) {
+				 dbConn.prepareStatement(pst);
+			 }
+		}
+		catch(DbException e) {
+			logger.severe("Couldn't prepare a supplied Prepared Statement: " + e.getMessage());
+			throw new SettingsException("Couldn't prepare a supplied Prepared Statement: " + e.getMessage());
+		}
+
+		return dbConn;
+	}
+
+	/**
+	  * Process a message on the same thread as the caller, blocking for result.
+	  * As only processing one message at a time, not bothering to check for isInterrupted() - let it finish
+	  *
+	  * @param messageText the message to be processed
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  *
+	  * @return the next response from process, null if no more results will ever arrive
+	  * 
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	@Override
+	public ProcessResponse processMessageSynch(final String messageText, final XMLDocument inputDoc, String auditKeyValues)
+											throws MessagingException {
+		return processMessage(messageText, null, inputDoc, auditKeyValues, ProcessingMode.SYNCHRONOUS);
+	}
+	
+	/**
+	  * Process a message on another thread, non-blocking. Result to be collected by calling getResponse().
+	  * As only processing one message at a time, not bothering to check for isInterrupted() - let it finish
+	  *
+	  * @param messageText the message to be processed
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  *
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	@Override
+	public void processMessageAsynch(final String messageText, final XMLDocument inputDoc, String auditKeyValues)
+											throws MessagingException {
+		processMessage(messageText, null, inputDoc, auditKeyValues, ProcessingMode.ASYNCHRONOUS);
+	}
+
+	/**
+	  * Process a message, already parsed, on the same thread as the caller, blocking for result.
+	  *
+	  * @param messageText the message to be processed
+	  * @param messageDoc the message to be processed, already parsed, null to have messageText parsed. Handed over - not used by the caller again
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  *
+	  * @return the next response from process, null if no more results will ever arrive
+	  * 
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	@Override
+	public ProcessResponse processMessageSynch(final String messageText, final XMLDocument messageDoc, final XMLDocument inputDoc, String auditKeyValues)
+											throws MessagingException {
+		return processMessage(messageText, messageDoc, inputDoc, auditKeyValues, ProcessingMode.SYNCHRONOUS);
+	}
+
+	/**
+	  * Process a message, already parsed, on another thread, non-blocking. Result to be collected by calling getResponse().
+	  *
+	  * @param messageText the message to be processed
+	  * @param messageDoc the message to be processed, already parsed, null to have messageText parsed. Handed over - not used by the caller again
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  *
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	@Override
+	public void processMessageAsynch(final String messageText, final XMLDocument messageDoc, final XMLDocument inputDoc, String auditKeyValues)
+											throws MessagingException {
+		processMessage(messageText, messageDoc, inputDoc, auditKeyValues, ProcessingMode.ASYNCHRONOUS);
+	}
+
+	/**
+	  * Messages of INSERTs, as fed from CSV files, are read straight into rows (see InsertRows), if the
+	  * INSERT audit keys allow it (see performSetup()).
+	  *
+	  * @return true if messages of INSERTs are read from their text, so no parsed document need be handed over
+	  */
+	@Override
+	public boolean readsInsertRows() {
+		return insertRowsReadable;
+	}
+
+	/**
+	  * Process a batch of messages on another thread, non-blocking. One result per message, to be collected by calling getResponse().
+	  * All messages in the batch are applied on the same connection and committed together, so if any one fails, the whole
+	  * batch is rolled back and every message in it reports the failure.
+	  *
+	  * @param batch the messages to be processed
+	  *
+	  * @throws MessagingException if a problem was encountered processing the messages
+	  */
+	@Override
+	public void processMessagesAsynch(final List<ProcessRequest> batch) throws MessagingException {
+		if (batch.isEmpty()) return;
+
+		Callable<List<ProcessResponse>> processBatchTask = new Callable<List<ProcessResponse>>() {
+			@Override
+			public List<ProcessResponse> call() throws MessagingException {
+				logger.info("Control now in messageProcessor, for a batch of " + batch.size() + " message(s).");
+
+				//////////////////////////////////////////////////////////////////
+				// Take this worker's Db connection, returning it when finished.
+				//////////////////////////////////////////////////////////////////
+				DbConnection dbConn = takeDbConnection();
+
+				try {
+					return processBatchOnConnection(dbConn, batch);
+				}
+				finally {
+					idleDbConns.add(dbConn);
+				}
+			} // end Callable.call()
+		};
+
+		// Note: exceptions thrown within the Callable will not return to the caller, but will re-appear in the Future for each message :-)
+		try {
+			taskExecutor.submitBatch(processBatchTask, batch.size());
+		} catch(InterruptedException e) { // thrown by taskExecutor.submitBatch
+			// Flush responseQueue (reading thread then has option to close down itself, on receiving this Poison Pill)
+			subMitPoisonPill();
+
+			// Quit processing now, but as we don't own the Thread, set back to interrupted - the caller will decide what to do with Thread
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	/**
+	  * Process a message to perform an action against the database
+	  * A LwMessagingException will be thrown when a technical problem arises.
+	  * If the error is related to the database action being requested, a negative error code will be returned and the reason will appear in the response message
+	  *
+	  * @param messageText the message to be processed
+	  * @param messageDoc the message to be processed, already parsed, null to have messageText parsed
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  * @param synchronous 	if true, the message is to be processed on the same thread as the caller, blocking for result
+	  * 					if false, the message is to be processed on another thread, non-blocking. Result to be collected by calling getResponse().
+	  *
+	  * @return the next response from process, null if no more results will ever arrive
+	  * 
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	private ProcessResponse processMessage(final String messageText, final XMLDocument messageDoc, final XMLDocument inputDoc, final String auditKeyValues, ProcessingMode processingMode)
+											throws MessagingException {
+
+		Callable<ProcessResponse> processMessageTask = new Callable<ProcessResponse>() {
+			@Override
+			public ProcessResponse call() throws MessagingException {
+				logger.info("Control now in messageProcessor.");
+				logger.finer("Processing message: " + messageText);
+		
+				XMLDocument response = createResponseDoc(); // create doc shell
+
+				//////////////////////////////////////////////////////////////////
+				// Read a message of INSERTs straight into rows, if can (even if already parsed by the caller),
+				// otherwise set up a new XML doc, unless already parsed by the caller
+				//////////////////////////////////////////////////////////////////
+				InsertRows insertRows = readInsertRows(messageText);
+				XMLDocument newDoc = (messageDoc != null || insertRows != null ? messageDoc : createMessageDoc(messageText));
+		
+
+				//////////////////////////////////////////////////////////////////
+				// Take this worker's Db connection, returning it when finished.
+				//////////////////////////////////////////////////////////////////
+				DbConnection dbConn = takeDbConnection();
+
+				try {
+					return processMessageOnConnection(dbConn, newDoc, insertRows, response);
+				}
+				finally {
+					idleDbConns.add(dbConn);
+				}
+			} // end Callable.call()
+
+			/**
+			  * Apply the actions in the message using the given connection.
+			  */
+			private ProcessResponse processMessageOnConnection(DbConnection dbConn, XMLDocument newDoc, InsertRows insertRows, XMLDocument response)
+													throws MessagingException {
+				//////////////////////////////////////////////////////////////////
+				// Open a Db connection, if one not already open.
+				//////////////////////////////////////////////////////////////////
+				ensureConnectionOpen(dbConn);
+		
+				//////////////////////////////////////////////////////////////////
+				// Do the work, committing if successful, rolling back if not...
+				// Beware that a transaction may commit immediately, if requested in message
+				//////////////////////////////////////////////////////////////////
+		
+				// Store all actions in this Vector
+				Vector<ProcessMessageForDbAction> allActions = new Vector<ProcessMessageForDbAction>();
+		
+				int numActionsApplied;
+				try {
+					numActionsApplied = (insertRows != null ? performActions(dbConn, insertRows, allActions) : performActions(dbConn, newDoc, allActions));
+		
+					try {
+						//////////////////////////////////////////////////////////////////////////
+						// Commit transactions (not already committed immediately on instrs)
+						//////////////////////////////////////////////////////////////////////////
+						dbConn.sessionCommit();
+						logger.info("Committed outstanding Db transaction(s).");
+	
+						//////////////////////////////////////////////////////////////////////////
+						// Add all Action results to response, marking appropriate ones as committed...
+						//////////////////////////////////////////////////////////////////////////
+						for (ProcessMessageForDbAction dbAction : allActions) {
+							dbAction.markExecutedAsCommitted();
+							dbAction.addResultToResponse(response);
+						}
+					}
+					catch(DbException e) {
+						throw new MessagingException("Caught LwDbException trying to commit transaction(s): " + e.getMessage());
+					}
+				}
+				catch(Exception e) {
+					// Just temporarily catch ANY exception, so can roll back trancaction, if we got an error...
+					try { dbConn.sessionRollback();} catch(DbException e2) {/* can't do any more anyway - already Exceptioned */}
+					logger.warning("Rolled back Db transaction(s). Throwing LwMessagingException...");
+					e.printStackTrace();
+					throw new MessagingException(e.toString() + ": see console for Stack Trace."); // gives name and getMessage()
+				}
+
+				ProcessResponse.Builder responseBuilder = new ProcessResponse.Builder(ProcessResponseCode.SUCCESS, numActionsApplied)
+					.setAuditKeyValues(auditKeyValues)
+					.setResponse(response.toString())
+					.setInputDoc(inputDoc);
+		
+				logger.info("[" + Thread.currentThread().getName() + "]: Returning response from Processor Task...");
+				
+				return responseBuilder.build();
+			} // end processMessageOnConnection()
+		};
+
+		if (processingMode == ProcessingMode.ASYNCHRONOUS) { // submit for processing on a pool thread
+			// If null message supplied, no more messages to process, so return PoisonPill to response handler...
+			if (messageText == null) {
+				subMitPoisonPill();
+				return null;
+			}
+			
+			// Submit this message for processing...
+			// (See subMitPoisonPill() re flushing the executor.)
+			// Note: exceptions thrown within the Callable will not return to the caller, but will re-appear in the Future :-)
+			try {
+				taskExecutor.submit(processMessageTask);
+				
+				return null;
+			} catch(InterruptedException e) { // thrown by taskExecutor.submit
+				// Flush responseQueue (reading thread then has option to close down itself, on receiving this Poison Pill)
+				subMitPoisonPill();
+				
+				// Quit processing now, but as we don't own the Thread, set back to interrupted - the caller will decide what to do with Thread
+				// (in case queue will have called interrupted(), which clears the interrupted flag for the thread)
+				Thread.currentThread().interrupt();
+				return null; // Interrupted
+			}
+		} else { // process now, on caller's thread
+			try {
+				return processMessageTask.call();
+			} catch (Exception e) {
+				throw new MessagingException("[" + Thread.currentThread().getName() + "]: Caught Exception calling processMessageTask: " + e);
+			}
+		}
+	}
+
+	/**
+	  * Return the next response message.
+	  * When all responses have been received, null will be returned.
+	  *
+	  * LwProcessResponse is immutable
+	  * 
+	  * @return the next response from process, null if no more results will ever arrive
+	  * @throws MessagingException if a problem was encountered processing the message
+	  * @throws InterruptedException if CALLING thread is noticed as interrupted while getting response
+	  */
+	@Override
+	public ProcessResponse getResponse() throws MessagingException, InterruptedException {
+		ProcessResponse response = taskExecutor.take();
+
+		logger.info("[" + Thread.currentThread().getName() + "]: Returning response retrieved from Response Queue Future to response handler.");
+		return response;
+	}
+
+	/**
+	  * Do whatever you like when things are quiet
+	  *
+	  */
+	public void goQuiet() {
+		logger.info("All quiet, going to close database connection(s).");
+		for (DbConnection dbConn : allDbConns) {
+			dbConn.close(null);
+		}
+	}
+
+	/**
+	  * Perform any clean-up actions before closing down
+	  *
+	  */
+	public void performCleanup(LwLogger shutdownLogger) {
+		for (DbConnection dbConn : allDbConns) {
+			dbConn.close(shutdownLogger);
+		}
+	}
+
+	/**
+	  * Allow caller block until all tasks have completed execution after a shutdown request, or the timeout occurs,
+	  * or the current thread is interrupted, whichever happens first.
+	  *
+	  * @param timeout the number of units to wait before giving up wait.
+	  * @param unit the unit of time of the timeout value
+	 * @throws InterruptedException if current thread interrupted while waiting
+	  * 
+	  */
+	@Override
+	public void  awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			taskExecutor.awaitTermination(timeout, unit) ;
+	}
+		
+
+	//////////////////////////////////////////////////////////////////
+	// End: Implementation methods for LwIProcessMesssage Interface...
+	//////////////////////////////////////////////////////////////////
+
+	/**
+	  * Apply the actions in each message of a batch using the given connection, committing once for the whole batch.
+	  * NOTE: this method will be called on a separate thread, in processMessagesAsynch
+	  *
+	  * @param dbConn the database connection on which to perform the actions
+	  * @param batch the messages to be processed
+	  *
+	  * @return one response per message, in batch order
+	  * @throws MessagingException if a problem was encountered processing any message (the whole batch will have been rolled back)
+	  */
+	private List<ProcessResponse> processBatchOnConnection(DbConnection dbConn, List<ProcessRequest> batch)
+											throws MessagingException {
+		ensureConnectionOpen(dbConn);
+
+		List<XMLDocument> responseDocs = new ArrayList<XMLDocument>(batch.size());
+		List<Vector<ProcessMessageForDbAction>> actionsPerMessage = new ArrayList<Vector<ProcessMessageForDbAction>>(batch.size());
+		int[] numActionsApplied = new int[batch.size()];
+
+		try {
+			for (int i = 0; i < batch.size(); i++) {
+				String messageText = batch.get(i).getMessage();
+				logger.finer("Processing message: " + messageText);
+
+				XMLDocument newDoc = batch.get(i).getMessageDoc();
+				InsertRows insertRows = readInsertRows(messageText); // even if already parsed by the caller
+				Vector<ProcessMessageForDbAction> allActions = new Vector<ProcessMessageForDbAction>();
+				if (insertRows != null) {
+					numActionsApplied[i] = performActions(dbConn, insertRows, allActions);
+				}
+				else {
+					numActionsApplied[i] = performActions(dbConn, (newDoc != null ? newDoc : createMessageDoc(messageText)), allActions);
+				}
+
+				responseDocs.add(createResponseDoc());
+				actionsPerMessage.add(allActions);
+			}
+
+			try {
+				//////////////////////////////////////////////////////////////////////////
+				// Commit transactions for the whole batch (not already committed immediately on instrs)
+				//////////////////////////////////////////////////////////////////////////
+				dbConn.sessionCommit();
+				logger.info("Committed outstanding Db transaction(s) for batch of " + batch.size() + " message(s).");
+
+				//////////////////////////////////////////////////////////////////////////
+				// Add all Action results to responses, marking appropriate ones as committed...
+				//////////////////////////////////////////////////////////////////////////
+				for (int i = 0; i < batch.size(); i++) {
+					for (ProcessMessageForDbAction dbAction : actionsPerMessage.get(i)) {
+						dbAction.markExecutedAsCommitted();
+						dbAction.addResultToResponse(responseDocs.get(i));
+					}
+				}
+			}
+			catch(DbException e) {
+				throw new MessagingException("Caught LwDbException trying to commit transaction(s): " + e.getMessage());
+			}
+		}
+		catch(Exception e) {
+			// Just temporarily catch ANY exception, so can roll back trancaction, if we got an error...
+			try { dbConn.sessionRollback();} catch(DbException e2) {/* can't do any more anyway - already Exceptioned */}
+			logger.warning("Rolled back Db transaction(s) for batch of " + batch.size() + " message(s). Throwing LwMessagingException...");
+			e.printStackTrace();
+			throw new MessagingException(e.toString() + ": see console for Stack Trace."); // gives name and getMessage()
+		}
+
+		List<ProcessResponse> responses = new ArrayList<ProcessResponse>(batch.size());
+		for (int i = 0; i < batch.size(); i++) {
+			ProcessRequest request = batch.get(i);
+			responses.add(new ProcessResponse.Builder(ProcessResponseCode.SUCCESS, numActionsApplied[i])
+								.setAuditKeyValues(request.getAuditKeyValues())
+								.setResponse(responseDocs.get(i).toString())
+								.setInputDoc(request.getInputDoc())
+								.build());
+		}
+
+		logger.info("[" + Thread.currentThread().getName() + "]: Returning " + responses.size() + " response(s) from Processor Batch Task...");
+		return responses;
+	}
+
+	/**
+	  * Re-open the given Db connection, if not already open (assume was closed because things were quiet).
+	  *
+	  * @param dbConn the database connection
+	  * @throws MessagingException if the connection could not be re-opened
+	  */
+	private void ensureConnectionOpen(DbConnection dbConn) throws MessagingException {
+		if ( ! dbConn.connectionOpen()) {
+			try {
+				dbConn.reOpen();
+			}
+			catch(DbException e) {
+				logger.severe("LwDbException: " + e.getMessage());
+				throw new MessagingException("Caught LwDbException trying to re-open database connection: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	  * Create an XML doc from the text of a message
+	  *
+	  * @param messageText the message to be processed
+	  * @return the new XML doc
+	  * @throws MessagingException if the message was not valid XML
+	  */
+	private XMLDocument createMessageDoc(String messageText) throws MessagingException {
+		try {
+			return XMLDocument.createDoc(messageText, XMLDocument.SCHEMA_VALIDATION_OFF);
+		}
+		catch(XMLException e) {
+			logger.severe("LwXMLException: " + e.getMessage());
+			logger.warning("InputMessage was :" + messageText);
+			throw new MessagingException("Could not create new XML document: " + e.getMessage());
+		}
+	}
+
+	/**
+	  * Read a message of INSERTs into rows, without a DOM
+	  *
+	  * @param messageText the message to be processed
+	  * @return the rows, null if the message must be processed from a DOM instead
+	  */
+	private InsertRows readInsertRows(String messageText) {
+		if ( ! insertRowsReadable || messageText == null) {
+			return null;
+		}
+		return InsertRows.parse(messageText);
+	}
+
+	/**
+	  * Perform the INSERTs of a message read into rows against the database, as performActions() would from a DOM.
+	  * NOTE: this method may be called on a separate thread, in processMessage
+	  *
+	  * @param dbConn the database connection on which to perform the actions
+	  * @param insertRows the INSERTs
+	  * @param allActions store actions and their results in this Vector
+	  *
+	  * @return 0 for success with no response necessary, n for success and response(s) ready, less than zero for error that will be explained in the response.
+	  */
+	private int performActions(DbConnection dbConn, InsertRows insertRows, Vector<ProcessMessageForDbAction> allActions)
+											throws MessagingException {
+
+		logger.finer("Going to perform all actions...");
+
+		String actionOnError = (insertRows.getActionOnError() != null ? insertRows.getActionOnError() : "respond");
+
+		int totalActionsApplied = 0;
+		for (InsertRows.Row row : insertRows.getRows()) {
+			logger.fine("Found INSERT action to process.");
+			ProcessMessageForDbAction dbAction = new ProcessMessageForDbAction(row, settings.getAuditKeyNamesSet("INSERT"), settings.getAuditKeysSeparator());
+			allActions.addElement(dbAction);
+
+			dbAction.buildAction(settings.getDefaultTablename());
+			dbAction.performAction(dbConn, actionOnError);
+
+			totalActionsApplied += dbAction.getNumActions();
+		}
+
+		return totalActionsApplied;
+	}
+
+	/**
+	  * Perform an action against the database.
+	  * NOTE: this method may be called on a separate thread, in processMessage
+	  *
+	  * @param dbConn the database connection on which to perform the actions
+	  * @param inputDoc the XML containing the database commands
+	  * @param allActions store actions and their results in this Vector
+	  *
+	  * @return 0 for success with no response necessary, n for success and response(s) ready, less than zero for error that will be explained in the response.
+	  */
+	private int performActions(DbConnection dbConn, XMLDocument inputDoc, Vector<ProcessMessageForDbAction> allActions)
+											throws MessagingException {
+
+		logger.finer("Going to perform all actions...");
+
+		String actionOnError = "respond";
+
+		//////////////////////////////////////////////////////////////////////////
+		// Find out what to do with errors...
+		//////////////////////////////////////////////////////////////////////////
+		String dbLevelactionOnError = inputDoc.getValueForTag("/MESSAGE/DBACTION/ACTION_ON_ERROR"); // respond, exception
+		if (dbLevelactionOnError != null) {
+			actionOnError = dbLevelactionOnError;
+		}
+
+		inputDoc.setCurrentNodeToFirstElement(); // need to go back to top of doc, for next search
+
+		//////////////////////////////////////////////////////////////////////////
+		// Process all actions...
+		// The processing order is, all INSERTs, then all UPDATEs, then all DELETEs, and finally all  SELECTs  
+		//////////////////////////////////////////////////////////////////////////
+		int totalActionsApplied = 0;
+		String[] actions = {"INSERT", "UPDATE", "DELETE", "SELECT"}; // aid to select actions in order
+		for (String action : actions) {
+			int numThisTypeOfActionApplied = 0;
+			while (inputDoc.setCurrentNodeByPath("/MESSAGE/DBACTION/" + action, ++numThisTypeOfActionApplied)) {
+				logger.fine("Found " + action + " action to process.");
+				ProcessMessageForDbAction dbAction = new ProcessMessageForDbAction(action, inputDoc, settings.getAuditKeyNamesSet(action), settings.getAuditKeysSeparator());
+				allActions.addElement(dbAction);
+
+				dbAction.buildAction(settings.getDefaultTablename());
+				dbAction.performAction(dbConn, actionOnError);
+
+				totalActionsApplied += dbAction.getNumActions();
+				inputDoc.setCurrentNodeToFirstElement(); // need to go back to top of doc, for next search
+			}
+		}
+
+		return totalActionsApplied;
+	}
+
+	/**
+	  * Start a response doc
+	  *
+	  */
+	private XMLDocument createResponseDoc()
+								throws MessagingException {
+
+		XMLDocument newResponse = null;
+
+		try {
+			newResponse = XMLDocument.createDoc("<MESSAGE><DBACTION></DBACTION></MESSAGE>", XMLDocument.SCHEMA_VALIDATION_OFF);
+		}
+		catch(XMLException e) {
+			logger.severe("Caught LwXMLException creating a new XML doc for response: " + e.getMessage());
+			throw new MessagingException("LwProcessMessageForDb.buildErrorResponse(): Caught Exception creating a new XML doc for error response: " + e.getMessage());
+		}
+		
+		return newResponse;
+	}
+
+	/**
+	  * This method creates a Poison Pill and places it in the queue for the Executor, which will be returned to the
+	  * response handler.
+	  * It then tells the executor to shut down.
+	  *
+	  * 
+	  */
+	private void subMitPoisonPill() {
+		taskExecutor.submitPoisonPill();
+	}
+}
@@ -1,497 +1,764 @@
-package gemha.servers;
-
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.logging.*;
-import java.util.Enumeration;
-import java.util.Vector;
-import java.io.*;
-
-import org.w3c.dom.Node;
-
-import lw.utils.*;
-import lw.XML.*;
-import gemha.support.ProcessMessageForFileSettings;
-import gemha.support.MessagingException;
-import gemha.support.ProcessResponse;
-import gemha.support.ProcessResponse.ProcessResponseCode;
-import gemha.interfaces.IProcessMesssage;
-
-/**
-  * This class processes an XML message to send a record to a file.
-  *
-  * Thread-safety: This class is NOT thread safe.
-  * This is because responses in Asynchronous mode are saved to a single queue, so any thread blocking
-  * on this queue cannot identify responses proper to it. (I thought of implementing responseQueue as
-  * ThreadLocal but messages can be submitted to the queue by one thread and the response extracted by another.)
-  * 
-  * The Overridden methods performSetup and performCleanup should only be called once per instance, from any thread. 
-  * The Overridden methods processMessageAsynch, processMessageSynch, getResponse, goQuiet and awaitTermination can
-  * be called any time and by any thread - but ordering to the output medium will only be predictable if called by
-  * a single thread.
-  * 
-  * If calling of processMessageAsynch and processMessageSynch is mixed, ordering to the output medium will be unpredictable.
-  *
-  * @author Liam Wade
-  * @version 1.0 16/12/2008
-  * 
-  */
-public class ProcessMessageForFile implements IProcessMesssage {
-
-    private static final Logger logger = Logger.getLogger("gemha");
-    
-	// Determines whether a message is to be processed asynchronously or not.
-	static private enum ProcessingMode {
-		SYNCHRONOUS,
-		ASYNCHRONOUS;
-	}
-	
-    // Executor for processing messages
-    private final ExecutorService execPool = Executors.newSingleThreadExecutor();
-    
-    // Queue for handing off responses, with fixed capacity of 1000.
-    // End-of-data will be signaled by a null record
-    private final BlockingQueue<Future<ProcessResponse>> responseQueue = new LinkedBlockingQueue<Future<ProcessResponse>>(1000);
-
-	volatile private String messagesFileName = null;
-	volatile private PrintWriter outFile;			// Write access to this file is limited to our execPool
-	volatile private boolean outFileIsEmpty = true;	// true if nothing yet written to file
-	volatile private ProcessMessageForFileSettings fileSettings = null;
-
-	public ProcessMessageForFile() {
-	}
-
-	//////////////////////////////////////////////////////////////////
-	// Start: Implementation methods for LwIProcessMesssage Interface...
-	//////////////////////////////////////////////////////////////////
-	/**
-	  * Set up conditions for processing messages
-	  *
-	  * @param settingsFileName the file from which to get set-up information
-	  *
-	  * @return true for success, false for failure
-	  * @throws SettingsException if a problem was encountered performing setup
-	  */
-	@Override
-	public void performSetup(String settingsFileName) throws SettingsException {
-		if (fileSettings != null)
-			throw new IllegalStateException("LwProcessMessageForFile.performSetup can only be called once");
-
-		if (settingsFileName == null) {
-			throw new SettingsException("Parameter settingsFileName was null.");
-		}
-
-		fileSettings = new ProcessMessageForFileSettings(settingsFileName, XMLDocument.SCHEMA_VALIDATION_ON);
-
-		messagesFileName = LwLogger.createFileNameFromTemplate(fileSettings.getMessagesFileNameTemplate(), null);
-
-		try {
-			openMessagesFile(messagesFileName, fileSettings.getFileOpenMode().equals("append"));
-		}
-		catch (MessagingException e) {
-			logger.severe("LwMessagingException: " + e.getMessage());
-			throw new SettingsException("Caught LwMessagingException trying to open new output file " + messagesFileName + ": " + e.getMessage());
-		}
-	}
-
-	/**
-	  * Process a message on the same thread as the caller, blocking for result.
-	  * As only processing one message at a time, not bothering to check for isInterrupted() - let it finish
-	  *
-	  * @param messageText the message to be processed
-	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
-	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
-	  *
-	  * @return the next response from process, null if no more results will ever arrive
-	  * 
-	  * @throws MessagingException if a problem was encountered processing the message
-	  */
-	@Override
-	public ProcessResponse processMessageSynch(final String messageText, final XMLDocument inputDoc, String auditKeyValues)
-											throws MessagingException {
-		return processMessage(messageText, inputDoc, auditKeyValues, ProcessingMode.SYNCHRONOUS);
-	}
-	
-	/**
-	  * Process a message on another thread, non-blocking. Result to be collected by calling getResponse().
-	  * As only processing one message at a time, not bothering to check for isInterrupted() - let it finish
-	  *
-	  * @param messageText the message to be processed
-	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
-	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
-	  *
-	  * @throws MessagingException if a problem was encountered processing the message
-	  */
-	@Override
-	public void processMessageAsynch(final String messageText, final XMLDocument inputDoc, String auditKeyValues)
-											throws MessagingException {
-		processMessage(messageText, inputDoc, auditKeyValues, ProcessingMode.ASYNCHRONOUS);
-	}
-
-	/**
-	  * Process a message.
-	  * As only processing one message at a time, not bothering to check for isInterrupted() - let it finish
-	  *
-	  * @param messageText the message to be processed
-	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
-	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
-	  * @param synchronous 	if true, the message is to be processed on the same thread as the caller, blocking for result
-	  * 					if false, the message is to be processed on another thread, non-blocking. Result to be collected by calling getResponse().
-	  *
-	  * @return the next response from process, null if no more results will ever arrive
-	  * 
-	  * @throws MessagingException if a problem was encountered processing the message
-	  */
-	private ProcessResponse processMessage(final String messageText, final XMLDocument inputDoc, String auditKeyValues, ProcessingMode processingMode)
-											throws MessagingException {
-
-		Callable<ProcessResponse> processMessageTask = new Callable<ProcessResponse>() {
-			@Override
-			public ProcessResponse call() throws MessagingException {
-				logger.info("[" + Thread.currentThread().getName() + "]: Control now in messageProcessor.");
-		
-				if (outFile == null) { // then out file was closed, re-open it, appending
-					openMessagesFile(messagesFileName, true);
-				}
-		
-				logger.finer("[" + Thread.currentThread().getName() + "]: Processing message: " + messageText);
-		
-				//////////////////////////////////////////////////////////////////
-				// Set up a new XML doc
-				//////////////////////////////////////////////////////////////////
-				XMLDocument newDoc = null;
-				try {
-					newDoc = XMLDocument.createDoc(messageText, XMLDocument.SCHEMA_VALIDATION_OFF);
-				}
-				catch(XMLException e) {
-					logger.severe("[" + Thread.currentThread().getName() + "]: LwXMLException: " + e.getMessage());
-					logger.warning("[" + Thread.currentThread().getName() + "]: InputMessage was :" + messageText);
-					throw new MessagingException("Could not create new XML document: " + e.getMessage());
-				}
-		
-				///////////////////////////////////////////////
-				// Get audit information from message (or make it up)...
-				///////////////////////////////////////////////
-				String auditKeyValues = getConcatenatedAuditKeyValues(newDoc, fileSettings.getAuditKeyNamesSet(), fileSettings.getAuditKeysSeparator()); // works at "current node" level
-		
-		
-				///////////////////////////////////////////////
-				// Send column names to the file, if requested...
-				///////////////////////////////////////////////
-				if (outFileIsEmpty && fileSettings.columnNamesToBeIncluded()) {
-					outFileIsEmpty = false;
-					// Just take names from first-found row
-					if (newDoc.setCurrentNodeByPath(fileSettings.getColumnsLocation(), 1)) {
-						Vector<XMLTagValue> row = newDoc.getValuesForTagsChildren();
-		
-						int colNum = 0;
-						for (XMLTagValue col : row) {
-							outFile.print(col.getTagName());
-							if (++colNum < row.size()) { // then not last column, so add separator
-								outFile.print(fileSettings.getFieldSeparator());
-							}
-						}
-						outFile.println();
-						logger.info("[" + Thread.currentThread().getName() + "]: Wrote column names record to file.");
-					}
-				}
-		
-				///////////////////////////////////////////////
-				// Send all rows of data to the file...
-				///////////////////////////////////////////////
-				
-				int numRowsProcessed = 0;
-				while (newDoc.setCurrentNodeByPath(fileSettings.getColumnsLocation(), ++numRowsProcessed)) {
-					Vector<XMLTagValue> row = newDoc.getValuesForTagsChildren();
-		
-					int colNum = 0;
-					for (XMLTagValue col : row) {
-						outFile.print(col.getTagValue());
-						if (++colNum < row.size()) { // then not last column, so add separator
-							outFile.print(fileSettings.getFieldSeparator());
-						}
-					}
-					outFile.println();
-					logger.info("[" + Thread.currentThread().getName() + "]: Wrote record for audit key value " + auditKeyValues);
-					newDoc.setCurrentNodeToFirstElement(); // For looping
-				}
-				numRowsProcessed--; // just need to roll back by one to get actual number processed
-		
-		
-				///////////////////////////////////////////////
-				// If got here, message was successfully transmitted.
-				// So build Response...
-				///////////////////////////////////////////////
-				XMLDocument response = createResponseDoc(); // create doc shell
-				response.addElement(null, "SEND_STATUS", "SUCCESS");
-				response.addElement(null, "NUM_ROWS_WRITTEN", String.valueOf(numRowsProcessed));
-				
-				ProcessResponse.Builder responseBuilder = new ProcessResponse.Builder(ProcessResponseCode.SUCCESS, numRowsProcessed)
-						.setResponse(response.toString())
-						.setInputDoc(inputDoc)
-						.setAuditKeyValues(auditKeyValues);
-				
-				logger.info("[" + Thread.currentThread().getName() + "]: Returning response from Processor Task...");
-				return responseBuilder.build();
-			} // end Callable.call()
-		};
-		
-		if (processingMode == ProcessingMode.ASYNCHRONOUS) { // submit for processing on a pool thread
-			// If null message supplied, no more messages to process, so return PoisonPill to response handler...
-			if (messageText == null) {
-				subMitPoisonPill();
-				return null;
-			}
-			
-			// Submit this message for processing...
-			// (See subMitPoisonPill() re flushing the executor.)
-			// Note: exceptions thrown within the Callable will not return to the caller, but will re-appear in the Future :-)
-			try {
-				responseQueue.put(execPool.submit(processMessageTask));
-				
-				return null;
-			} catch(InterruptedException e) { // thrown by responseQueue.put
-				// Flush responseQueue (reading thread then has option to close down itself, on receiving this Poison Pill)
-				subMitPoisonPill();
-				
-				// Quit processing now, but as we don't own the Thread, set back to interrupted - the caller will decide what to do with Thread
-				// (in case queue will have called interrupted(), which clears the interrupted flag for the thread)
-				Thread.currentThread().interrupt();
-				return null; // Interrupted
-			}
-		} else { // process now, on caller's thread
-			try {
-				return processMessageTask.call();
-			} catch (Exception e) {
-				throw new MessagingException("[" + Thread.currentThread().getName() + "]: Caught Exception calling processMessageTask: " + e);
-			}
-		}
-	}
-
-	/**
-	  * Return the next response message.
-	  * When all responses have been received, null will be returned.
-	  *
-	  * LwProcessResponse is immutable
-	  * 
-	  * @return the next response from process, null if no more results will ever arrive
-	  * @throws MessagingException if a problem was encountered processing the message
-	  * @throws InterruptedException if CALLING thread is noticed as interrupted while getting response
-	  */
-	@Override
-	public ProcessResponse getResponse() throws MessagingException, InterruptedException {
-		ProcessResponse response = null;
-		try {
-			Future<ProcessResponse> fr = responseQueue.take(); // will block here if queue empty (will never return null - BlockingQueue doesn't allow)
-			response = fr.get(); // will block here if next task in queue not yet finished
-		} catch (ExecutionException e) {
-			Throwable cause = e.getCause();
-			if (cause instanceof MessagingException)
-				throw (MessagingException) cause;
-			else
-				throw launderThrowable(cause);
-		}
-		return response;
-	}
-
-	/**
-	  * Do whatever you like when things are quiet
-	  *
-	  */
-	@Override
-	public void goQuiet() {
-		logger.info("All quiet, going to close output file.");
-
-		// Don't want to do this immediately, otherwise a queued task would re-open, a running task would fail
-		// So, put on queue, to follow any previous requests to process a message
-		if (outFile != null) {
-			execPool.execute( new Runnable() {
-				public void run() {
-					if (outFile != null) outFile.close(); // Have to ask again, as am now executing later, in another thread
-					outFile = null;
-				}
-			});
-		}
-	}
-
-	/**
-	  * Perform any clean-up actions before closing down
-	  *
-	  */
-	@Override
-	public void performCleanup(LwLogger shutdownLogger) {
-		// So, put on queue, to follow any previous requests to process a message
-		if (outFile != null) {
-			if ( ! execPool.isShutdown()) { // this check in case we,ve already called this method
-				execPool.execute( new Runnable() {
-					public void run() {
-					}
-				});
-			}
-		}
-		
-		// Flush responseQueue (reading thread then has option to close down itself, on receiving this Poison Pill)
-		// (subMitPoisonPill() could have been called prior to this.)
-		subMitPoisonPill();
-		
-		// Wait for things to stop
-		try {
-			execPool.awaitTermination(1, TimeUnit.MINUTES);
-		} catch (InterruptedException e1) {
-			// Just reset interruption and continue
-			Thread.currentThread().interrupt();
-		}
-
-		// Don't want to do this immediately, otherwise a queued task would re-open, a running task would fail
-		if (outFile != null) outFile.close(); // Have to ask again, as am now executing later, in another thread
-			outFile = null;
-
-		if (shutdownLogger != null) {
-			try { shutdownLogger.appendln("Closed output file.");} catch (IOException e) { /* do nothing */}
-		}
-		else {
-			logger.info("Closed output file.");
-		}
-	}
-
-	/**
-	  * Allow caller block until all tasks have completed execution after a shutdown request, or the timeout occurs,
-	  * or the current thread is interrupted, whichever happens first.
-	  *
-	  * @param timeout the number of units to wait before giving up wait.
-	  * @param unit the unit of time of the timeout value
-	 * @throws InterruptedException if current thread interrupted while waiting
-	  * 
-	  */
-	@Override
-	public void  awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
-			execPool.awaitTermination(timeout, unit) ;
-	}
-		
-	//////////////////////////////////////////////////////////////////
-	// End: Implementation methods for LwIProcessMesssage Interface...
-	//////////////////////////////////////////////////////////////////
-
-	/**
-	  * Open a new messages file of the given name
-	  *
-	  * @param fileName the path & name of the file to create/append to
-	  * @param append true if we want to append to a new file, false to start new / overwrite
-	  *
-	  */
-	private void openMessagesFile(String fileName, boolean append)
-										throws MessagingException {
-		///////////////////////////////////////////////
-		// Open a new messages file.
-		///////////////////////////////////////////////
-		//initialize StreamResult with File object to save to file
-		try {
-			outFile = new PrintWriter(new BufferedWriter(new FileWriter(fileName, append)));
-			logger.info("Opened output file " + fileName + " for " + (append ? "append" : "create"));
-			outFileIsEmpty = ! append; // set this to true every time we create a new file
-		}
-		catch (IOException e) {
-			logger.severe("IOException: " + e.getMessage());
-			throw new MessagingException("Caught IOException trying to open a new messages output file " + fileName + ": " + e.getMessage());
-		}
-	}
-
-	/**
-	  *
-	  * Get the concatenated values for the given audit key names
-	  *
-	  * @param doc the XML document
-	  * @param auditKeyNamesSet the set of column names to identify the audit key values
-	  * @param separator the char(s) used to separate audit key parts
-	  *
-	  * @return the concatenated audit key values for this message, the empty string if no values
-	  */
-	private String getConcatenatedAuditKeyValues(XMLDocument doc, Vector<XMLTagValue> auditKeyNamesSet, String separator) {
-
-		String concatenatedValues = "";
-
-		// Using Enumeration instead of for-each loop, so could use hasMoreElements() when adding separator
-		Enumeration<XMLTagValue> enumAuditKeyNames = auditKeyNamesSet.elements();
-		while (enumAuditKeyNames.hasMoreElements()) {
-			XMLTagValue tv = enumAuditKeyNames.nextElement();
-
-			String nextValue = doc.getValueForTag(tv.getTagValue());
-
-			if (nextValue != null) {
-				concatenatedValues += nextValue + ((separator != null && enumAuditKeyNames.hasMoreElements()) ? separator : "");
-			}
-		}
-
-		return concatenatedValues;
-	}
-
-	/**
-	  * Start a response doc
-	  *
-	  */
-	private XMLDocument createResponseDoc()
-								throws MessagingException {
-
-		XMLDocument newResponse = null;
-
-		try {
-			newResponse = XMLDocument.createDoc("<FILE_REQUEST></FILE_REQUEST>", XMLDocument.SCHEMA_VALIDATION_OFF);
-		}
-		catch(XMLException e) {
-			logger.severe("Caught LwXMLException creating a new XML doc for response: " + e.getMessage());
-			throw new MessagingException("LwProcessMessageForDb.buildErrorResponse(): Caught Exception creating a new XML doc for error response: " + e.getMessage());
-		}
-		
-		return newResponse;
-	}
-
-	/**
-	  * Extract and validate a Throwable that would have been contained within another Exception (eg ExcutionException)
-	  *
-	  * @param t the Throwable to be interpreted
-	  * 
-	  * @return a RuntimeException
-	  * @throws IllegalStateException if the Exception was not expected (known exceptions should have been dealt with prior to calling launderThrowable
-	  */
-	private static RuntimeException launderThrowable(Throwable t) {
-		if (t instanceof RuntimeException) 
-			return (RuntimeException) t;
-		else if (t instanceof Error)
-			throw (Error) t;
-		else
-			throw new IllegalStateException("launderThrowable: Exception not checked! : ", t);
-	}
-
-	/**
-	  * This method creates a Poison Pill and places it in the queue for the Executor, which will be returned to the
-	  * response handler.
-	  * It then tells the executor to shut down.
-	  *
-	  * 
-	  */
-	private void subMitPoisonPill() {
-		logger.info("Submitting Poison Pill to Executor queue, so will cause responseProcessor to close down.");
-		try {
-			if ( ! execPool.isShutdown()) { // this check in case we,ve already called this method
-				responseQueue.put(execPool.submit( new Callable<ProcessResponse>() {
-					public ProcessResponse call() throws MessagingException {
-						return null;
-					} // end Callable.call()
-				}));
-				// Flush execPool buffer and shut it down (no waiting)...
-				execPool.shutdown();
-			}
-			
-		} catch(InterruptedException e) { // thrown by responseQueue.put
-			// Set back to interrupted - the caller will decide what to do with Thread
-			// (in case queue will have called interrupted(), which clears the interrupted flag for the thread)
-			Thread.currentThread().interrupt();
-		}
-	}
-}
\ No newline at end of file
+package gemha.servers;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Vector;
+import java.io.*;
+
+import org.w3c.dom.Node;
+
+import lw.utils.*;
+import lw.XML.*;
+import gemha.support.ProcessMessageForFileSettings;
+import gemha.support.MessagingException;
+import gemha.support.OrderedTaskExecutor;
+import gemha.support.ResponseBackpressure;
+import gemha.support.RingBuffer;
+import gemha.support.ProcessRequest;
+import gemha.support.ProcessResponse;
+import gemha.support.ProcessResponse.ProcessResponseCode;
+import gemha.interfaces.IProcessMesssage;
+import gemha.interfaces.IProcessMesssageBatches;
+import gemha.interfaces.IProcessMesssageConcurrently;
+import gemha.interfaces.IProcessParsedMesssage;
+
+/**
+  * This class processes an XML message to send a record to a file.
+  *
+  * Thread-safety: This class is NOT thread safe.
+  * This is because responses in Asynchronous mode are saved to a single queue, so any thread blocking
+  * on this queue cannot identify responses proper to it. (I thought of implementing responseQueue as
+  * ThreadLocal but messages can be submitted to the queue by one thread and the response extracted by another.)
+  * 
+  * The Overridden methods performSetup and performCleanup should only be called once per instance, from any thread. 
+  * The Overridden methods processMessageAsynch, processMessageSynch, getResponse, goQuiet and awaitTermination can
+  * be called any time and by any thread - but ordering to the output medium will only be predictable if called by
+  * a single thread.
+  * 
+  * If calling of processMessageAsynch and processMessageSynch is mixed, ordering to the output medium will be unpredictable.
+  *
+  * When more than one worker is configured (see setConcurrency), messages are parsed and formatted in parallel,
+  * but each message is given a ticket when submitted and its records are only written to the file when its
+  * turn comes, so the file content is the same as for a single worker.
+  *
+  * A batch of messages (see processMessagesAsynch) is formatted on one worker and written with a single ticket,
+  * so the whole batch needs only one turn at the file.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/12/2008
+  * @version 1.1 16/10/2026 Messages may be formatted by several workers, records still written in submission order.
+  * @version 1.2 16/10/2026 A batch of messages may be written in a single turn at the file.
+  * @version 1.3 16/10/2026 A message already parsed by the caller is not parsed again (see IProcessParsedMesssage).
+  * 
+  */
+public class ProcessMessageForFile implements IProcessParsedMesssage, IProcessMesssageConcurrently, IProcessMesssageBatches {
+
+    private static final Logger logger = Logger.getLogger("gemha");
+    
+	// Determines whether a message is to be processed asynchronously or not.
+	static private enum ProcessingMode {
+		SYNCHRONOUS,
+		ASYNCHRONOUS;
+	}
+	
+    // Executor for processing messages, handing off responses in the order the messages were submitted.
+    // End-of-data will be signaled by a null record
+    private volatile OrderedTaskExecutor taskExecutor = new OrderedTaskExecutor(1);
+
+    // Guards outFile and the write tickets. A message may only be written when its ticket is nextTicketToWrite.
+	private final Object writeLock = new Object();
+	private long nextTicketToIssue = 0;
+	private long nextTicketToWrite = 0;
+
+	volatile private String messagesFileName = null;
+	volatile private PrintWriter outFile;			// Write access to this file is limited to our taskExecutor, holding writeLock
+	volatile private boolean outFileIsEmpty = true;	// true if nothing yet written to file
+	volatile private ProcessMessageForFileSettings fileSettings = null;
+
+	public ProcessMessageForFile() {
+	}
+
+	//////////////////////////////////////////////////////////////////
+	// Start: Implementation methods for LwIProcessMesssage Interface...
+	//////////////////////////////////////////////////////////////////
+	/**
+	  * Set up conditions for processing messages
+	  *
+	  * @param settingsFileName the file from which to get set-up information
+	  *
+	  * @return true for success, false for failure
+	  * @throws SettingsException if a problem was encountered performing setup
+	  */
+	@Override
+	public void performSetup(String settingsFileName) throws SettingsException {
+		if (fileSettings != null)
+			throw new IllegalStateException("LwProcessMessageForFile.performSetup can only be called once");
+
+		if (settingsFileName == null) {
+			throw new SettingsException("Parameter settingsFileName was null.");
+		}
+
+		fileSettings = new ProcessMessageForFileSettings(settingsFileName, XMLDocument.SCHEMA_VALIDATION_ON);
+
+		messagesFileName = LwLogger.createFileNameFromTemplate(fileSettings.getMessagesFileNameTemplate(), null);
+
+		try {
+			openMessagesFile(messagesFileName, fileSettings.getFileOpenMode().equals("append"));
+		}
+		catch (MessagingException e) {
+			logger.severe("LwMessagingException: " + e.getMessage());
+			throw new SettingsException("Caught LwMessagingException trying to open new output file " + messagesFileName + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	  * Set the number of messages that may be processed at the same time.
+	  *
+	  * @param concurrency the number of worker threads to process messages (1..n)
+	  */
+	@Override
+	public void setConcurrency(int concurrency) {
+		taskExecutor = new OrderedTaskExecutor(concurrency, taskExecutor.getBackpressure());
+	}
+
+	/**
+	  * Run each message on its own thread, up to maxInFlight at a time.
+	  *
+	  * @param maxInFlight the maximum number of messages that may be processed at the same time (1..n)
+	  */
+	@Override
+	public void setThreadPerMessage(int maxInFlight) {
+		taskExecutor = OrderedTaskExecutor.newThreadPerMessage(maxInFlight, taskExecutor.getBackpressure());
+	}
+
+	/**
+	  * Hand messages to a single worker, and its responses back, through preallocated lock-free ring buffers.
+	  *
+	  * @param ringSize the number of slots in each ring (a power of 2)
+	  * @param waitStrategy how the worker and the collector of responses wait for each other
+	  */
+	@Override
+	public void setRingBufferTransport(int ringSize, RingBuffer.WaitStrategy waitStrategy) {
+		taskExecutor = OrderedTaskExecutor.newRingBuffer(ringSize, waitStrategy, taskExecutor.getBackpressure());
+	}
+
+	/**
+	  * Bound the queue of responses awaiting collection by the given backpressure's limits.
+	  *
+	  * @param backpressure tracks the responses awaiting collection
+	  */
+	@Override
+	public void setResponseBackpressure(ResponseBackpressure backpressure) {
+		taskExecutor = taskExecutor.withBackpressure(backpressure);
+	}
+
+	/**
+	  * Process a message on the same thread as the caller, blocking for result.
+	  * As only processing one message at a time, not bothering to check for isInterrupted() - let it finish
+	  *
+	  * @param messageText the message to be processed
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  *
+	  * @return the next response from process, null if no more results will ever arrive
+	  * 
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	@Override
+	public ProcessResponse processMessageSynch(final String messageText, final XMLDocument inputDoc, String auditKeyValues)
+											throws MessagingException {
+		return processMessage(messageText, null, inputDoc, auditKeyValues, ProcessingMode.SYNCHRONOUS);
+	}
+	
+	/**
+	  * Process a message on another thread, non-blocking. Result to be collected by calling getResponse().
+	  * As only processing one message at a time, not bothering to check for isInterrupted() - let it finish
+	  *
+	  * @param messageText the message to be processed
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  *
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	@Override
+	public void processMessageAsynch(final String messageText, final XMLDocument inputDoc, String auditKeyValues)
+											throws MessagingException {
+		processMessage(messageText, null, inputDoc, auditKeyValues, ProcessingMode.ASYNCHRONOUS);
+	}
+
+	/**
+	  * Process a message, already parsed, on the same thread as the caller, blocking for result.
+	  *
+	  * @param messageText the message to be processed
+	  * @param messageDoc the message to be processed, already parsed, null to have messageText parsed. Handed over - not used by the caller again
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  *
+	  * @return the next response from process, null if no more results will ever arrive
+	  * 
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	@Override
+	public ProcessResponse processMessageSynch(final String messageText, final XMLDocument messageDoc, final XMLDocument inputDoc, String auditKeyValues)
+											throws MessagingException {
+		return processMessage(messageText, messageDoc, inputDoc, auditKeyValues, ProcessingMode.SYNCHRONOUS);
+	}
+
+	/**
+	  * Process a message, already parsed, on another thread, non-blocking. Result to be collected by calling getResponse().
+	  *
+	  * @param messageText the message to be processed
+	  * @param messageDoc the message to be processed, already parsed, null to have messageText parsed. Handed over - not used by the caller again
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  *
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	@Override
+	public void processMessageAsynch(final String messageText, final XMLDocument messageDoc, final XMLDocument inputDoc, String auditKeyValues)
+											throws MessagingException {
+		processMessage(messageText, messageDoc, inputDoc, auditKeyValues, ProcessingMode.ASYNCHRONOUS);
+	}
+
+	/**
+	  * @return false, as messages of INSERTs are processed like any other
+	  */
+	@Override
+	public boolean readsInsertRows() {
+		return false;
+	}
+
+	/**
+	  * Process a batch of messages on another thread, non-blocking. One result per message, to be collected by calling getResponse().
+	  * The records for the whole batch are written to the file in one turn, in batch order. If any message
+	  * cannot be formatted, nothing from the batch is written and every message in it reports the failure.
+	  *
+	  * @param batch the messages to be processed
+	  *
+	  * @throws MessagingException if a problem was encountered processing the messages
+	  */
+	@Override
+	public void processMessagesAsynch(final List<ProcessRequest> batch) throws MessagingException {
+		if (batch.isEmpty()) return;
+
+		// Take a single place in the queue for writing to the file, for the whole batch
+		final long writeTicket = issueWriteTicket();
+
+		Callable<List<ProcessResponse>> processBatchTask = new Callable<List<ProcessResponse>>() {
+			@Override
+			public List<ProcessResponse> call() throws MessagingException {
+				try {
+					logger.info("[" + Thread.currentThread().getName() + "]: Control now in messageProcessor, for a batch of " + batch.size() + " message(s).");
+
+					List<FormattedMessage> formattedMessages = new ArrayList<FormattedMessage>(batch.size());
+					for (ProcessRequest request : batch) {
+						formattedMessages.add(formatMessage(request.getMessage(), request.getMessageDoc()));
+					}
+
+					writeFormattedMessages(writeTicket, formattedMessages);
+
+					List<ProcessResponse> responses = new ArrayList<ProcessResponse>(batch.size());
+					for (int i = 0; i < batch.size(); i++) {
+						responses.add(buildResponse(formattedMessages.get(i), batch.get(i).getInputDoc()));
+					}
+
+					logger.info("[" + Thread.currentThread().getName() + "]: Returning " + responses.size() + " response(s) from Processor Batch Task...");
+					return responses;
+				}
+				finally {
+					endWriteTurn(writeTicket); // always give up our turn, even if we failed, otherwise later messages would wait forever
+				}
+			} // end Callable.call()
+		};
+
+		// Note: exceptions thrown within the Callable will not return to the caller, but will re-appear in the Future for each message :-)
+		try {
+			taskExecutor.submitBatch(processBatchTask, batch.size());
+		} catch(InterruptedException e) { // thrown by taskExecutor.submitBatch
+			// Flush responseQueue (reading thread then has option to close down itself, on receiving this Poison Pill)
+			subMitPoisonPill();
+
+			// Quit processing now, but as we don't own the Thread, set back to interrupted - the caller will decide what to do with Thread
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	  * Process a message.
+	  * As only processing one message at a time, not bothering to check for isInterrupted() - let it finish
+	  *
+	  * @param messageText the message to be processed
+	  * @param messageDoc the message to be processed, already parsed, null to have messageText parsed
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  * @param synchronous 	if true, the message is to be processed on the same thread as the caller, blocking for result
+	  * 					if false, the message is to be processed on another thread, non-blocking. Result to be collected by calling getResponse().
+	  *
+	  * @return the next response from process, null if no more results will ever arrive
+	  * 
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	private ProcessResponse processMessage(final String messageText, final XMLDocument messageDoc, final XMLDocument inputDoc, String auditKeyValues, ProcessingMode processingMode)
+											throws MessagingException {
+
+		// Take a place in the queue for writing to the file (not needed for the Poison Pill)
+		final long writeTicket = (messageText == null ? -1 : issueWriteTicket());
+
+		Callable<ProcessResponse> processMessageTask = new Callable<ProcessResponse>() {
+			@Override
+			public ProcessResponse call() throws MessagingException {
+				try {
+					return formatAndWriteMessage();
+				}
+				finally {
+					endWriteTurn(writeTicket); // always give up our turn, even if we failed, otherwise later messages would wait forever
+				}
+			} // end Callable.call()
+
+			private ProcessResponse formatAndWriteMessage() throws MessagingException {
+				logger.info("[" + Thread.currentThread().getName() + "]: Control now in messageProcessor.");
+		
+				FormattedMessage formattedMessage = formatMessage(messageText, messageDoc);
+		
+				///////////////////////////////////////////////
+				// Wait for our turn, then send the records to the file...
+				///////////////////////////////////////////////
+				writeFormattedMessages(writeTicket, Collections.singletonList(formattedMessage));
+		
+				///////////////////////////////////////////////
+				// If got here, message was successfully transmitted.
+				// So build Response...
+				///////////////////////////////////////////////
+				logger.info("[" + Thread.currentThread().getName() + "]: Returning response from Processor Task...");
+				return buildResponse(formattedMessage, inputDoc);
+			} // end formatAndWriteMessage()
+		};
+		
+		if (processingMode == ProcessingMode.ASYNCHRONOUS) { // submit for processing on a pool thread
+			// If null message supplied, no more messages to process, so return PoisonPill to response handler...
+			if (messageText == null) {
+				subMitPoisonPill();
+				return null;
+			}
+			
+			// Submit this message for processing...
+			// (See subMitPoisonPill() re flushing the executor.)
+			// Note: exceptions thrown within the Callable will not return to the caller, but will re-appear in the Future :-)
+			try {
+				taskExecutor.submit(processMessageTask);
+				
+				return null;
+			} catch(InterruptedException e) { // thrown by taskExecutor.submit
+				// Flush responseQueue (reading thread then has option to close down itself, on receiving this Poison Pill)
+				subMitPoisonPill();
+				
+				// Quit processing now, but as we don't own the Thread, set back to interrupted - the caller will decide what to do with Thread
+				// (in case queue will have called interrupted(), which clears the interrupted flag for the thread)
+				Thread.currentThread().interrupt();
+				return null; // Interrupted
+			}
+		} else { // process now, on caller's thread
+			try {
+				return processMessageTask.call();
+			} catch (Exception e) {
+				throw new MessagingException("[" + Thread.currentThread().getName() + "]: Caught Exception calling processMessageTask: " + e);
+			}
+		}
+	}
+
+	/**
+	  * Return the next response message.
+	  * When all responses have been received, null will be returned.
+	  *
+	  * LwProcessResponse is immutable
+	  * 
+	  * @return the next response from process, null if no more results will ever arrive
+	  * @throws MessagingException if a problem was encountered processing the message
+	  * @throws InterruptedException if CALLING thread is noticed as interrupted while getting response
+	  */
+	@Override
+	public ProcessResponse getResponse() throws MessagingException, InterruptedException {
+		return taskExecutor.take();
+	}
+
+	/**
+	  * Do whatever you like when things are quiet
+	  *
+	  */
+	@Override
+	public void goQuiet() {
+		logger.info("All quiet, going to close output file.");
+
+		// Don't want to do this immediately, otherwise a queued task would re-open, a running task would fail
+		// So, put on queue, to follow any previous requests to process a message
+		if (outFile != null) {
+			taskExecutor.execute( new Runnable() {
+				public void run() {
+					synchronized (writeLock) { // a message being written on another worker must finish first
+						if (outFile != null) outFile.close(); // Have to ask again, as am now executing later, in another thread
+						outFile = null;
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	  * Perform any clean-up actions before closing down
+	  *
+	  */
+	@Override
+	public void performCleanup(LwLogger shutdownLogger) {
+		// So, put on queue, to follow any previous requests to process a message
+		if (outFile != null) {
+			if ( ! taskExecutor.isShutdown()) { // this check in case we,ve already called this method
+				taskExecutor.execute( new Runnable() {
+					public void run() {
+					}
+				});
+			}
+		}
+		
+		// Flush responseQueue (reading thread then has option to close down itself, on receiving this Poison Pill)
+		// (subMitPoisonPill() could have been called prior to this.)
+		subMitPoisonPill();
+		
+		// Wait for things to stop
+		try {
+			taskExecutor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e1) {
+			// Just reset interruption and continue
+			Thread.currentThread().interrupt();
+		}
+
+		// Don't want to do this immediately, otherwise a queued task would re-open, a running task would fail
+		synchronized (writeLock) {
+			if (outFile != null) outFile.close(); // Have to ask again, as am now executing later, in another thread
+			outFile = null;
+		}
+
+		if (shutdownLogger != null) {
+			try { shutdownLogger.appendln("Closed output file.");} catch (IOException e) { /* do nothing */}
+		}
+		else {
+			logger.info("Closed output file.");
+		}
+	}
+
+	/**
+	  * Allow caller block until all tasks have completed execution after a shutdown request, or the timeout occurs,
+	  * or the current thread is interrupted, whichever happens first.
+	  *
+	  * @param timeout the number of units to wait before giving up wait.
+	  * @param unit the unit of time of the timeout value
+	 * @throws InterruptedException if current thread interrupted while waiting
+	  * 
+	  */
+	@Override
+	public void  awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			taskExecutor.awaitTermination(timeout, unit) ;
+	}
+		
+	//////////////////////////////////////////////////////////////////
+	// End: Implementation methods for LwIProcessMesssage Interface...
+	//////////////////////////////////////////////////////////////////
+
+	/**
+	  * The records built from one message, ready to be written to the file.
+	  */
+	private static class FormattedMessage {
+		private final String auditKeyValues;
+		private final String columnNamesRecord;	// null if not wanted
+		private final List<String> dataRecords;
+
+		public FormattedMessage(String auditKeyValues, String columnNamesRecord, List<String> dataRecords) {
+			this.auditKeyValues = auditKeyValues;
+			this.columnNamesRecord = columnNamesRecord;
+			this.dataRecords = dataRecords;
+		}
+	}
+
+	/**
+	  * Parse a message and build the records to be written to the file for it.
+	  * NOTE: this method will be called on a pool thread, and may be running for several messages at once
+	  *
+	  * @param messageText the message to be processed
+	  * @param messageDoc the message to be processed, already parsed, null to have messageText parsed
+	  *
+	  * @return the records for the message
+	  * @throws MessagingException if the message could not be parsed
+	  */
+	private FormattedMessage formatMessage(String messageText, XMLDocument messageDoc) throws MessagingException {
+		logger.finer("[" + Thread.currentThread().getName() + "]: Processing message: " + messageText);
+
+		//////////////////////////////////////////////////////////////////
+		// Set up a new XML doc, unless already parsed by the caller
+		//////////////////////////////////////////////////////////////////
+		XMLDocument newDoc = messageDoc;
+		try {
+			if (newDoc == null) {
+				newDoc = XMLDocument.createDoc(messageText, XMLDocument.SCHEMA_VALIDATION_OFF);
+			}
+			else {
+				newDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc, as if new
+			}
+		}
+		catch(XMLException e) {
+			logger.severe("[" + Thread.currentThread().getName() + "]: LwXMLException: " + e.getMessage());
+			logger.warning("[" + Thread.currentThread().getName() + "]: InputMessage was :" + messageText);
+			throw new MessagingException("Could not create new XML document: " + e.getMessage());
+		}
+
+		///////////////////////////////////////////////
+		// Get audit information from message (or make it up)...
+		///////////////////////////////////////////////
+		String auditKeyValues = getConcatenatedAuditKeyValues(newDoc, fileSettings.getAuditKeyNamesSet(), fileSettings.getAuditKeysSeparator()); // works at "current node" level
+
+
+		///////////////////////////////////////////////
+		// Build the column names record, in case it is needed (just take names from first-found row)...
+		///////////////////////////////////////////////
+		String columnNamesRecord = null;
+		if (fileSettings.columnNamesToBeIncluded()) {
+			if (newDoc.setCurrentNodeByPath(fileSettings.getColumnsLocation(), 1)) {
+				Vector<XMLTagValue> row = newDoc.getValuesForTagsChildren();
+
+				StringBuilder record = new StringBuilder();
+				int colNum = 0;
+				for (XMLTagValue col : row) {
+					record.append(col.getTagName());
+					if (++colNum < row.size()) { // then not last column, so add separator
+						record.append(fileSettings.getFieldSeparator());
+					}
+				}
+				columnNamesRecord = record.toString();
+			}
+			newDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+		}
+
+		///////////////////////////////////////////////
+		// Build all rows of data for the file...
+		///////////////////////////////////////////////
+		ArrayList<String> dataRecords = new ArrayList<String>();
+		int numRowsProcessed = 0;
+		while (newDoc.setCurrentNodeByPath(fileSettings.getColumnsLocation(), ++numRowsProcessed)) {
+			Vector<XMLTagValue> row = newDoc.getValuesForTagsChildren();
+
+			StringBuilder record = new StringBuilder();
+			int colNum = 0;
+			for (XMLTagValue col : row) {
+				record.append(col.getTagValue());
+				if (++colNum < row.size()) { // then not last column, so add separator
+					record.append(fileSettings.getFieldSeparator());
+				}
+			}
+			dataRecords.add(record.toString());
+			newDoc.setCurrentNodeToFirstElement(); // For looping
+		}
+
+		return new FormattedMessage(auditKeyValues, columnNamesRecord, dataRecords);
+	}
+
+	/**
+	  * Wait for the given ticket's turn, then write the records of the given messages to the file, in order.
+	  *
+	  * @param writeTicket the ticket issued when the message(s) were submitted
+	  * @param formattedMessages the records to be written
+	  * @throws MessagingException if a problem was encountered writing to the file
+	  */
+	private void writeFormattedMessages(long writeTicket, List<FormattedMessage> formattedMessages) throws MessagingException {
+		synchronized (writeLock) {
+			awaitWriteTurn(writeTicket);
+
+			if (outFile == null) { // then out file was closed, re-open it, appending
+				openMessagesFile(messagesFileName, true);
+			}
+
+			for (FormattedMessage formattedMessage : formattedMessages) {
+				///////////////////////////////////////////////
+				// Send column names to the file, if requested...
+				///////////////////////////////////////////////
+				if (outFileIsEmpty && fileSettings.columnNamesToBeIncluded()) {
+					outFileIsEmpty = false;
+					if (formattedMessage.columnNamesRecord != null) {
+						outFile.println(formattedMessage.columnNamesRecord);
+						logger.info("[" + Thread.currentThread().getName() + "]: Wrote column names record to file.");
+					}
+				}
+
+				for (String dataRecord : formattedMessage.dataRecords) {
+					outFile.println(dataRecord);
+					logger.info("[" + Thread.currentThread().getName() + "]: Wrote record for audit key value " + formattedMessage.auditKeyValues);
+				}
+			}
+		}
+	}
+
+	/**
+	  * Build the response for a message whose records have been written to the file.
+	  *
+	  * @param formattedMessage the records that were written
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result
+	  * @return the response
+	  * @throws MessagingException if the response doc could not be created
+	  */
+	private ProcessResponse buildResponse(FormattedMessage formattedMessage, XMLDocument inputDoc) throws MessagingException {
+		int numRowsWritten = formattedMessage.dataRecords.size();
+
+		XMLDocument response = createResponseDoc(); // create doc shell
+		response.addElement(null, "SEND_STATUS", "SUCCESS");
+		response.addElement(null, "NUM_ROWS_WRITTEN", String.valueOf(numRowsWritten));
+
+		return new ProcessResponse.Builder(ProcessResponseCode.SUCCESS, numRowsWritten)
+				.setResponse(response.toString())
+				.setInputDoc(inputDoc)
+				.setAuditKeyValues(formattedMessage.auditKeyValues)
+				.build();
+	}
+
+	/**
+	  * Take the next place in the queue for writing to the file.
+	  * Called on the submitting thread, so tickets are issued in submission order.
+	  *
+	  * @return the ticket for the message being submitted
+	  */
+	private long issueWriteTicket() {
+		synchronized (writeLock) {
+			return nextTicketToIssue++;
+		}
+	}
+
+	/**
+	  * Block until it is the turn of the given ticket to write to the file.
+	  * Must be called holding writeLock.
+	  *
+	  * @param ticket the ticket issued when the message was submitted
+	  * @throws MessagingException if interrupted while waiting
+	  */
+	private void awaitWriteTurn(long ticket) throws MessagingException {
+		while (nextTicketToWrite != ticket) {
+			try {
+				writeLock.wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MessagingException("[" + Thread.currentThread().getName() + "]: Interrupted waiting for turn to write to output file.");
+			}
+		}
+	}
+
+	/**
+	  * Pass the turn to write to the file on to the next ticket, waiting for our own turn first if not yet had it.
+	  *
+	  * @param ticket the ticket issued when the message was submitted
+	  */
+	private void endWriteTurn(long ticket) {
+		if (ticket < 0) return;
+
+		synchronized (writeLock) {
+			boolean interrupted = false;
+			while (nextTicketToWrite < ticket) {
+				try {
+					writeLock.wait();
+				} catch (InterruptedException e) {
+					interrupted = true; // must still pass on the turn, so remember and carry on
+				}
+			}
+
+			if (nextTicketToWrite == ticket) {
+				nextTicketToWrite++;
+				writeLock.notifyAll();
+			}
+
+			if (interrupted) Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	  * Open a new messages file of the given name
+	  *
+	  * @param fileName the path & name of the file to create/append to
+	  * @param append true if we want to append to a new file, false to start new / overwrite
+	  *
+	  */
+	private void openMessagesFile(String fileName, boolean append)
+										throws MessagingException {
+		///////////////////////////////////////////////
+		// Open a new messages file.
+		///////////////////////////////////////////////
+		//initialize StreamResult with File object to save to file
+		try {
+			outFile = new PrintWriter(new BufferedWriter(new FileWriter(fileName, append)));
+			logger.info("Opened output file " + fileName + " for " + (append ? "append" : "create"));
+			outFileIsEmpty = ! append; // set this to true every time we create a new file
+		}
+		catch (IOException e) {
+			logger.severe("IOException: " + e.getMessage());
+			throw new MessagingException("Caught IOException trying to open a new messages output file " + fileName + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	  *
+	  * Get the concatenated values for the given audit key names
+	  *
+	  * @param doc the XML document
+	  * @param auditKeyNamesSet the set of column names to identify the audit key values
+	  * @param separator the char(s) used to separate audit key parts
+	  *
+	  * @return the concatenated audit key values for this message, the empty string if no values
+	  */
+	private String getConcatenatedAuditKeyValues(XMLDocument doc, Vector<XMLTagValue> auditKeyNamesSet, String separator) {
+
+		String concatenatedValues = "";
+
+		// Using Enumeration instead of for-each loop, so could use hasMoreElements() when adding separator
+		Enumeration<XMLTagValue> enumAuditKeyNames = auditKeyNamesSet.elements();
+		while (enumAuditKeyNames.hasMoreElements()) {
+			XMLTagValue tv = enumAuditKeyNames.nextElement();
+
+			String nextValue = doc.getValueForTag(tv.getTagValue());
+
+			if (nextValue != null) {
+				concatenatedValues += nextValue + ((separator != null && enumAuditKeyNames.hasMoreElements()) ? separator : "");
+			}
+		}
+
+		return concatenatedValues;
+	}
+
+	/**
+	  * Start a response doc
+	  *
+	  */
+	private XMLDocument createResponseDoc()
+								throws MessagingException {
+
+		XMLDocument newResponse = null;
+
+		try {
+			newResponse = XMLDocument.createDoc("<FILE_REQUEST></FILE_REQUEST>", XMLDocument.SCHEMA_VALIDATION_OFF);
+		}
+		catch(XMLException e) {
+			logger.severe("Caught LwXMLException creating a new XML doc for response: " + e.getMessage());
+			throw new MessagingException("LwProcessMessageForDb.buildErrorResponse(): Caught Exception creating a new XML doc for error response: " + e.getMessage());
+		}
+		
+		return newResponse;
+	}
+
+	/**
+	  * This method creates a Poison Pill and places it in the queue for the Executor, which will be returned to the
+	  * response handler.
+	  * It then tells the executor to shut down.
+	  *
+	  * 
+	  */
+	private void subMitPoisonPill() {
+		taskExecutor.submitPoisonPill();
+	}
+}
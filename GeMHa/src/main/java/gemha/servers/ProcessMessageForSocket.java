@@ -1,527 +1,700 @@
-package gemha.servers;
-
-import java.io.*;
-import java.net.*;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.logging.*;
-import java.util.*;
-
-import lw.XML.*;
-import lw.sockets.SocketComms;
-import lw.sockets.SocketException;
-import lw.sockets.SocketTransferMessage;
-import lw.sockets.SocketComms.SocketType;
-import lw.utils.*;
-import gemha.support.ProcessMessageForSocketSettings;
-import gemha.support.MessagingException;
-import gemha.support.ProcessResponse;
-import gemha.support.ProcessResponse.ProcessResponseCode;
-import gemha.interfaces.IProcessMesssage;
-
-/**
-  * This class sends messages over a socket and returns responses, if required.
-  *
-  * @author Liam Wade
-  * @version 1.0 10/12/2008
-  */
-public class ProcessMessageForSocket implements IProcessMesssage {
-
-    private static final Logger logger = Logger.getLogger("gemha");
-    
-	// Determines whether a message is to be processed asynchronously or not.
-	static private enum ProcessingMode {
-		SYNCHRONOUS,
-		ASYNCHRONOUS;
-	}
-	
-    // Executor for processing messages
-    private final ExecutorService execPool = Executors.newSingleThreadExecutor();
-    
-    // Queue for handing off responses, with fixed capacity of 1000.
-    // End-of-data will be signaled by a null record
-    private final BlockingQueue<Future<ProcessResponse>> responseQueue = new LinkedBlockingQueue<Future<ProcessResponse>>(1000);
-
-	volatile private Socket s;
-
-	volatile private ProcessMessageForSocketSettings settings = null;
-	volatile private int fallBackTransactionID = 0; // to be used to create unique trans ids, if no audit keys supplied
-    volatile private SocketComms socketComms = null;
-
-	public ProcessMessageForSocket() {
-	}
-
-	//////////////////////////////////////////////////////////////////
-	// Start: Implementation methods for LwIProcessMesssage Interface...
-	//////////////////////////////////////////////////////////////////
-	/**
-	  * Set up conditions for processing messages
-	  *
-	  * @param settingsFileName the file from which to get set-up information
-	  *
-	  * @return true for success, false for failure
-	  */
-	public void performSetup(String settingsFileName) throws SettingsException {
-
-		if (settingsFileName == null) {
-			throw new SettingsException("Parameter settingsFileName was null.");
-		}
-
-		settings = new ProcessMessageForSocketSettings(settingsFileName, XMLDocument.SCHEMA_VALIDATION_ON);
-
-		try {
-			socketComms = openSocket(settings.getHostName(), settings.getPortNumber());
-		}
-		catch (MessagingException e) {
-			logger.severe("LwMessagingException: " + e.getMessage());
-			throw new SettingsException("Caught LwMessagingException trying to open a new socket : " + e.getMessage());
-		}
-	}
-
-	/**
-	  * Process a message on the same thread as the caller, blocking for result.
-	  * As only processing one message at a time, not bothering to check for isInterrupted() - let it finish
-	  *
-	  * @param messageText the message to be processed
-	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
-	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
-	  *
-	  * @return the next response from process, null if no more results will ever arrive
-	  * 
-	  * @throws MessagingException if a problem was encountered processing the message
-	  */
-	@Override
-	public ProcessResponse processMessageSynch(final String messageText, final XMLDocument inputDoc, String auditKeyValues)
-											throws MessagingException {
-		return processMessage(messageText, inputDoc, auditKeyValues, ProcessingMode.SYNCHRONOUS);
-	}
-	
-	/**
-	  * Process a message on another thread, non-blocking. Result to be collected by calling getResponse().
-	  * As only processing one message at a time, not bothering to check for isInterrupted() - let it finish
-	  *
-	  * @param messageText the message to be processed
-	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
-	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
-	  *
-	  * @throws MessagingException if a problem was encountered processing the message
-	  */
-	@Override
-	public void processMessageAsynch(final String messageText, final XMLDocument inputDoc, String auditKeyValues)
-											throws MessagingException {
-		processMessage(messageText, inputDoc, auditKeyValues, ProcessingMode.ASYNCHRONOUS);
-	}
-
-	/**
-	  * Process a message
-	  *
-	  * @param messageText the message to be processed
-	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
-	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
-	  * @param synchronous 	if true, the message is to be processed on the same thread as the caller, blocking for result
-	  * 					if false, the message is to be processed on another thread, non-blocking. Result to be collected by calling getResponse().
-	  *
-	  * @return the next response from process, null if no more results will ever arrive
-	  * 
-	  * @throws MessagingException if a problem was encountered processing the message
-	  */
-	private ProcessResponse processMessage(final String messageText, final XMLDocument inputDoc, final String auditKeyValues, final ProcessingMode processingMode)
-											throws MessagingException {
-
-		Callable<ProcessResponse> processMessageTask = new Callable<ProcessResponse>() {
-			@Override
-			public ProcessResponse call() throws MessagingException {
-	
-				if (s == null) { // then socket was closed, re-open it
-					socketComms = openSocket(settings.getHostName(), settings.getPortNumber());
-				}
-		
-				//////////////////////////////////////////////////////////////////
-				// Set up a new XML doc
-				//////////////////////////////////////////////////////////////////
-				XMLDocument newDoc = null;
-				try {
-					newDoc = XMLDocument.createDoc(messageText, XMLDocument.SCHEMA_VALIDATION_OFF);
-				}
-				catch(XMLException e) {
-					logger.severe("LwXMLException: " + e.getMessage());
-					logger.warning("InputMessage was :" + messageText);
-					throw new MessagingException("Could not create new XML document: " + e.getMessage());
-				}
-		
-				///////////////////////////////////////////////
-				// Get audit information from message (or make it up)...
-				///////////////////////////////////////////////
-//				String auditKeyValues = getConcatenatedAuditKeyValues(newDoc, settings.getAuditKeyNamesSet(), settings.getAuditKeysSeparator()); // works at "current node" level
-		
-				///////////////////////////////////////////////
-				// Send the data (in chunks, if necessary)...
-				///////////////////////////////////////////////
-				SocketComms.SocketService service = (settings.getApplicationLevelResponse().equals("synchronous") ? SocketComms.SocketService.CONSUME_RESPOND : SocketComms.SocketService.CONSUME);
-				try {
-					if (socketComms == null) {
-						logger.severe("socketComms IS NULL!!!!!");
-						throw new MessagingException("Could not send XML document: socketComms IS NULL!!!!!");
-					}
-						
-					socketComms.sendMessage(new SocketTransferMessage(new Integer(0), auditKeyValues, service, SocketComms.SocketFormat.XML, messageText));
-				} catch (SocketException e) {
-					logger.severe("LwSocketException: " + e.getMessage());
-					throw new MessagingException("Could not send XML document: " + e.getMessage());
-				}
-				// Get confirmation/error response from server ( just to say got request)
-				try {
-					socketComms.next();
-				} catch (SocketException e) {
-					logger.severe("LwSocketException: " + e.getMessage());
-					throw new MessagingException("Failed to receive response from server: " + e.getMessage());
-				}
-				
-				// Throw exception if a technical error was encountered
-				int serverRespCode = socketComms.getLastErrorNo();
-				if (serverRespCode != 0) {
-					logger.severe("Socket Server returned error " + serverRespCode + " when trying to send data " + auditKeyValues + ".");
-					throw new MessagingException("Socket Server returned error " + serverRespCode + " when trying to send data for message " + auditKeyValues + ".");
-				}
-		
-				///////////////////////////////////////////////
-				// If got here, message was successfully transmitted.
-				// So build Response...
-				///////////////////////////////////////////////
-				XMLDocument response = createResponseDoc(); // create doc shell
-				response.addElement(null, "SEND_STATUS", "SUCCESS");
-		
-				// Check if we should await an application-level response
-				if (settings.getApplicationLevelResponse().equals("synchronous")) {
-					XMLDocument applicResponse = getApplicationResponse();
-					response.importNode(applicResponse.getCurrentNode(), true);
-				}
-				
-				ProcessResponse.Builder responseBuilder = new ProcessResponse.Builder(ProcessResponseCode.SUCCESS, 1)
-					.setResponse(response.toString())
-					.setInputDoc(inputDoc)
-					.setAuditKeyValues(auditKeyValues);
-		
-				logger.info("[" + Thread.currentThread().getName() + "]: Returning response from Processor Task...");
-				
-				return responseBuilder.build();
-			} // end Callable.call()
-		};
-		
-		if (processingMode == ProcessingMode.ASYNCHRONOUS) { // submit for processing on a pool thread
-			// If null message supplied, no more messages to process, so return PoisonPill to response handler...
-			if (messageText == null) {
-				subMitPoisonPill();
-				return null;
-			}
-			
-			// Submit this message for processing...
-			// (See subMitPoisonPill() re flushing the executor.)
-			// Note: exceptions thrown within the Callable will not return to the caller, but will re-appear in the Future :-)
-			try {
-				responseQueue.put(execPool.submit(processMessageTask));
-				
-				return null;
-			} catch(InterruptedException e) { // thrown by responseQueue.put
-				logger.info("[" + Thread.currentThread().getName() + "]: put to responseQueue interrupted.");
-				// Flush responseQueue (reading thread then has option to close down itself, on receiving this Poison Pill)
-				subMitPoisonPill();
-				
-				// Quit processing now, but as we don't own the Thread, set back to interrupted - the caller will decide what to do with Thread
-				// (in case queue will have called interrupted(), which clears the interrupted flag for the thread)
-				Thread.currentThread().interrupt();
-				return null; // Interrupted
-			}
-		} else { // process now, on caller's thread
-			try {
-				return processMessageTask.call();
-			} catch (Exception e) {
-				throw new MessagingException("[" + Thread.currentThread().getName() + "]: Caught Exception calling processMessageTask: " + e);
-			}
-		}
-	}
-
-	/**
-	  * Return the next response message.
-	  * When all responses have been received, null will be returned.
-	  *
-	  * LwProcessResponse is immutable
-	  * 
-	  * @return the next response from process, null if no more results will ever arrive
-	  * @throws MessagingException if a problem was encountered processing the message
-	  * @throws InterruptedException if CALLING thread is noticed as interrupted while getting response
-	  */
-	@Override
-	public ProcessResponse getResponse() throws MessagingException, InterruptedException {
-		ProcessResponse response = null;
-		try {
-			Future<ProcessResponse> fr = responseQueue.take(); // will block here if queue empty (will never return null - BlockingQueue doesn't allow)
-			response = fr.get(); // will block here if next task in queue not yet finished
-		} catch (ExecutionException e) {
-			Throwable cause = e.getCause();
-			if (cause instanceof MessagingException)
-				throw (MessagingException) cause;
-			else
-				throw launderThrowable(cause);
-		}
-		return response;
-	}
-
-	/**
-	  * Do whatever you like when things are quiet
-	  *
-	  */
-	public void goQuiet() {
-		logger.info("All quiet, going to close socket connection.");
-		try {
-			socketComms.sendMessage(new SocketTransferMessage(new Integer(0), "AutoRequest", SocketComms.SocketService.CLOSE, SocketComms.SocketFormat.XML, "Close me"));
-		} catch (SocketException e) {
-			logger.severe("Caught LwSocketException trying to tell server to CLOSE connection (no action taken): " + e.getMessage());
-		}
-
-		try {
-			s.close();
-			socketComms = null;
-		}
-		catch (IOException e) {
-			logger.severe("Caught IOException trying to close socket connection (no action taken): " + e.getMessage());
-		}
-
-		s = null;
-	}
-
-	/**
-	  * Allow caller block until all tasks have completed execution after a shutdown request, or the timeout occurs,
-	  * or the current thread is interrupted, whichever happens first.
-	  *
-	  * @param timeout the number of units to wait before giving up wait.
-	  * @param unit the unit of time of the timeout value
-	 * @throws InterruptedException if current thread interrupted while waiting
-	  * 
-	  */
-	@Override
-	public void  awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
-		logger.info("[" + Thread.currentThread().getName() + "]: Going to block on awaitTermination...");
-		execPool.awaitTermination(timeout, unit) ;
-	}
-		
-	/**
-	  * Perform any clean-up actions before closing down
-	  *
-	  */
-	public void performCleanup(LwLogger shutdownLogger) {
-		try {
-			awaitTermination(1, TimeUnit.MINUTES);
-		} catch (InterruptedException e1) {
-			// Closing down anyway, so no prob with interrupt
-		}
-		
-		if (s != null && socketComms != null) {
-			try {
-				socketComms.sendMessage(new SocketTransferMessage(new Integer(0), "AutoRequest", SocketComms.SocketService.CLOSE, SocketComms.SocketFormat.XML, "Close me"));
-			} catch (SocketException e) {
-				logger.severe("Caught LwSocketException trying to tell server to CLOSE connection (no action taken): " + e.getMessage());
-			}
-			
-			try {
-				s.close();
-				socketComms = null;
-			}
-			catch (IOException e) {
-				if (shutdownLogger != null) {
-					try { shutdownLogger.appendln("Caught IOException trying to close socket connection (no action taken): " + e.getMessage());} catch (IOException e2) { /* do nothing */}
-				}
-				else {
-					logger.severe("Caught IOException trying to close socket connection (no action taken): " + e.getMessage());
-				}
-			}
-
-			s = null;
-
-			if (shutdownLogger != null) {
-				try { shutdownLogger.appendln("Closed socket connection.");} catch (IOException e) { /* do nothing */}
-			}
-			else {
-				logger.info("Closed socket connection.");
-			}
-		}
-	}
-
-	//////////////////////////////////////////////////////////////////
-	// End: Implementation methods for LwIProcessMesssage Interface...
-	//////////////////////////////////////////////////////////////////
-
-	/**
-	  * Open a socket for communications
-	  *
-	  */
-	private SocketComms openSocket(String hostName, int portNo)
-						throws MessagingException {
-		///////////////////////////////////////////////
-		// Connect to the socket on "this" machine.
-		///////////////////////////////////////////////
-		try {
-			s = new Socket(hostName, portNo);
-		}
-		catch (UnknownHostException e) {
-			logger.severe("UnknownHostException: " + e.getMessage());
-			throw new MessagingException("Caught UnknownHostException trying to open a new socket : " + e.getMessage());
-		}
-		catch (IOException e) {
-			logger.severe("IOException: " + e.getMessage());
-			throw new MessagingException("Caught IOException trying to open a new socket : " + e.getMessage());
-		}
-
-		// May throw LwSocketException
-		try {
-			socketComms = new SocketComms(s, SocketType.CLIENT);
-			logger.info("Socket Comms object created.");
-			// Read Server Ready message.
-			socketComms.next();
-		} catch (SocketException e) {
-			throw new MessagingException("Caught LwSocketException trying to set up communications on socket : " + e.getMessage());
-		}
-
-		logger.info("Socket opened on port " + portNo + " on host " + hostName);
-
-		return socketComms;
-	}
-
-	/**
-	  *
-	  * Get the concatenated values for the given audit key names
-	  *
-	  * @param doc the XML document
-	  * @param auditKeyNamesSet the set of column names to identify the audit key values
-	  * @param separator the char(s) used to separate audit key parts
-	  *
-	  * @return the concatenated audit key values for this message, the empty string if no values
-	  */
-	private String getConcatenatedAuditKeyValues(XMLDocument doc, Vector<XMLTagValue> auditKeyNamesSet, String separator) {
-
-		String concatenatedValues = "";
-
-		// Using Enumeration instead of for-each loop, so could use hasMoreElements() when adding separator
-		if (auditKeyNamesSet == null) { // than make up new key...
-			return String.valueOf(++fallBackTransactionID);
-		}
-		else {
-			Enumeration<XMLTagValue> enumAuditKeyNames = auditKeyNamesSet.elements();
-			while (enumAuditKeyNames.hasMoreElements()) {
-				XMLTagValue tv = enumAuditKeyNames.nextElement();
-
-				String nextValue = doc.getValueForTag(tv.getTagValue());
-
-				if (nextValue != null) {
-					concatenatedValues += nextValue + ((separator != null && enumAuditKeyNames.hasMoreElements()) ? separator : "");
-				}
-			}
-		}
-
-		return concatenatedValues;
-	}
-
-	/**
-	  * Start a response doc
-	  *
-	  */
-	private XMLDocument createResponseDoc()
-								throws MessagingException {
-
-		XMLDocument newResponse = null;
-
-		try {
-			newResponse = XMLDocument.createDoc("<MESSAGE></MESSAGE>", XMLDocument.SCHEMA_VALIDATION_OFF);
-		}
-		catch(XMLException e) {
-			logger.severe("Caught LwXMLException creating a new XML doc for response: " + e.getMessage());
-			throw new MessagingException("LwProcessMessageForDb.buildErrorResponse(): Caught Exception creating a new XML doc for error response: " + e.getMessage());
-		}
-		
-		return newResponse;
-	}
-
-	/**
-	  * Start a response doc
-	  *
-	  * @return an XML document containing the response from the server application
-	  */
-	private XMLDocument getApplicationResponse()
-								throws MessagingException {
-
-		// Now get confirmation/error response from server for action requested
-		try {
-			socketComms.next();
-		} catch (SocketException e) {
-			throw new MessagingException("Caught LwSocketException getting Application-level response from server: " + e);
-		}
-
-		if (socketComms.getLastErrorNo() != 0) {
-			logger.severe("Application-level response not received from server");
-			throw new MessagingException("LwProcessMessageForSocket.getApplicationResponse(): Application-level response not received from server");
-		}
-		else { // got something, so create an XM doc and return it...
-			XMLDocument applicResponse = null;
-	
-			try {
-				logger.finer("Going to create XML doc from returned String:" + socketComms.getLastMessageReceived());
-				applicResponse = XMLDocument.createDoc(socketComms.getLastMessageReceived(), XMLDocument.SCHEMA_VALIDATION_OFF);
-				return applicResponse;
-			}
-			catch(XMLException e) {
-				logger.severe("Caught LwXMLException creating a new XML doc for response: " + e.getMessage());
-				throw new MessagingException("LwProcessMessageForSocket.getApplicationResponse(): Caught Exception creating a new XML doc for error response: " + e.getMessage());
-			}
-		}
-	}
-
-	/**
-	  * Extract and validate a Throwable that would have been contained within another Exception (eg ExcutionException)
-	  *
-	  * @param t the Throwable to be interpreted
-	  * 
-	  * @return a RuntimeException
-	  * @throws IllegalStateException if the Exception was not expected (known exceptions should have been dealt with prior to calling launderThrowable
-	  */
-	private static RuntimeException launderThrowable(Throwable t) {
-		if (t instanceof RuntimeException) 
-			return (RuntimeException) t;
-		else if (t instanceof Error)
-			throw (Error) t;
-		else
-			throw new IllegalStateException("launderThrowable: Exception not checked! : ", t);
-	}
-	
-	/**
-	  * This method creates a Poison Pill and places it in the queue for the Executor, which will be returned to the
-	  * response handler.
-	  * It then tells the executor to shut down.
-	  *
-	  * 
-	  */
-	private void subMitPoisonPill() {
-		logger.info("[" + Thread.currentThread().getName() + "]: Submitting Poison Pill to Executor queue, so will cause responseProcessor to close down.");
-		try {
-			if ( ! execPool.isShutdown()) { // this check in case we,ve already called this method
-				responseQueue.put(execPool.submit( new Callable<ProcessResponse>() {
-					public ProcessResponse call() throws MessagingException {
-						return null;
-					} // end Callable.call()
-				}));
-				// Flush execPool buffer and shut it down (no waiting)...
-				execPool.shutdown();
-			}
-			
-		} catch(InterruptedException e) { // thrown by responseQueue.put
-			// Set back to interrupted - the caller will decide what to do with Thread
-			// (in case queue will have called interrupted(), which clears the interrupted flag for the thread)
-			Thread.currentThread().interrupt();
-		}
-	}
-}
+package gemha.servers;
+
+import java.io.*;
+import java.net.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.*;
+import java.util.*;
+
+import lw.XML.*;
+import lw.sockets.SocketComms;
+import lw.sockets.SocketException;
+import lw.sockets.SocketTransferMessage;
+import lw.sockets.SocketComms.SocketType;
+import lw.utils.*;
+import gemha.support.ProcessMessageForSocketSettings;
+import gemha.support.MessagingException;
+import gemha.support.OrderedTaskExecutor;
+import gemha.support.ResponseBackpressure;
+import gemha.support.RingBuffer;
+import gemha.support.ProcessResponse;
+import gemha.support.ProcessResponse.ProcessResponseCode;
+import gemha.interfaces.IProcessMesssage;
+import gemha.interfaces.IProcessMesssageConcurrently;
+import gemha.interfaces.IProcessParsedMesssage;
+
+/**
+  * This class sends messages over a socket and returns responses, if required.
+  *
+  * When more than one worker is configured (see setConcurrency), each worker holds its own connection
+  * to the socket server, so that many requests may be in flight at the same time.
+  *
+  * In thread-per-message mode (see setThreadPerMessage), each message is sent on its own thread. Only one
+  * connection is opened in performSetup; more are opened as needed, up to one per in-flight message,
+  * and kept for re-use.
+  *
+  * @author Liam Wade
+  * @version 1.0 10/12/2008
+  * @version 1.1 16/10/2026 Messages may be sent by several workers, each on its own connection.
+  * @version 1.2 16/10/2026 Messages may be sent on a thread each, opening connections as needed up to the in-flight limit.
+  * @version 1.3 16/10/2026 Messages may be handed to a single sender through lock-free ring buffers (see setRingBufferTransport).
+  * @version 1.4 16/10/2026 A message already parsed by the caller is not parsed again (see IProcessParsedMesssage).
+  */
+public class ProcessMessageForSocket implements IProcessParsedMesssage, IProcessMesssageConcurrently {
+
+    private static final Logger logger = Logger.getLogger("gemha");
+    
+	// Determines whether a message is to be processed asynchronously or not.
+	static private enum ProcessingMode {
+		SYNCHRONOUS,
+		ASYNCHRONOUS;
+	}
+	
+    // Executor for processing messages, handing off responses in the order the messages were submitted.
+    // End-of-data will be signaled by a null record
+    private volatile OrderedTaskExecutor taskExecutor = new OrderedTaskExecutor(1);
+
+    // One connection per worker (or per in-flight message). A worker takes a connection for the duration of a message and then returns it.
+	private final BlockingQueue<SocketConnection> idleConnections = new LinkedBlockingQueue<SocketConnection>();
+	private final CopyOnWriteArrayList<SocketConnection> allConnections = new CopyOnWriteArrayList<SocketConnection>();
+
+	volatile private ProcessMessageForSocketSettings settings = null;
+	volatile private int fallBackTransactionID = 0; // to be used to create unique trans ids, if no audit keys supplied
+
+	/**
+	  * A connection to the socket server. Only ever used by one worker at a time.
+	  */
+	private static class SocketConnection {
+		volatile private Socket s;
+	    volatile private SocketComms socketComms = null;
+	    volatile private boolean closeWhenReturned = false; // set by goQuiet() while a worker is using the connection
+	}
+
+	public ProcessMessageForSocket() {
+	}
+
+	//////////////////////////////////////////////////////////////////
+	// Start: Implementation methods for LwIProcessMesssage Interface...
+	//////////////////////////////////////////////////////////////////
+	/**
+	  * Set up conditions for processing messages
+	  *
+	  * @param settingsFileName the file from which to get set-up information
+	  *
+	  * @return true for success, false for failure
+	  */
+	public void performSetup(String settingsFileName) throws SettingsException {
+
+		if (settingsFileName == null) {
+			throw new SettingsException("Parameter settingsFileName was null.");
+		}
+
+		settings = new ProcessMessageForSocketSettings(settingsFileName, XMLDocument.SCHEMA_VALIDATION_ON);
+
+		// In thread-per-message mode, the in-flight limit may be large, so just open the first connection now
+		int numConnections = (taskExecutor.isThreadPerMessage() ? 1 : taskExecutor.getConcurrency());
+		for (int i = 0; i < numConnections; i++) {
+			SocketConnection conn = new SocketConnection();
+			try {
+				openSocket(conn, settings.getHostName(), settings.getPortNumber());
+			}
+			catch (MessagingException e) {
+				logger.severe("LwMessagingException: " + e.getMessage());
+				throw new SettingsException("Caught LwMessagingException trying to open a new socket : " + e.getMessage());
+			}
+			allConnections.add(conn);
+			idleConnections.add(conn);
+		}
+	}
+
+	/**
+	  * Set the number of messages that may be processed at the same time.
+	  * A socket connection will be opened for each worker in performSetup().
+	  *
+	  * @param concurrency the number of worker threads to process messages (1..n)
+	  */
+	@Override
+	public void setConcurrency(int concurrency) {
+		if ( ! allConnections.isEmpty())
+			throw new IllegalStateException("ProcessMessageForSocket.setConcurrency must be called before performSetup");
+
+		taskExecutor = new OrderedTaskExecutor(concurrency, taskExecutor.getBackpressure());
+	}
+
+	/**
+	  * Run each message on its own thread, up to maxInFlight at a time.
+	  * Connections are opened as needed, up to one per in-flight message.
+	  *
+	  * @param maxInFlight the maximum number of messages that may be sent at the same time (1..n)
+	  */
+	@Override
+	public void setThreadPerMessage(int maxInFlight) {
+		if ( ! allConnections.isEmpty())
+			throw new IllegalStateException("ProcessMessageForSocket.setThreadPerMessage must be called before performSetup");
+
+		taskExecutor = OrderedTaskExecutor.newThreadPerMessage(maxInFlight, taskExecutor.getBackpressure());
+	}
+
+	/**
+	  * Hand messages to a single worker, and its responses back, through preallocated lock-free ring buffers.
+	  *
+	  * @param ringSize the number of slots in each ring (a power of 2)
+	  * @param waitStrategy how the worker and the collector of responses wait for each other
+	  */
+	@Override
+	public void setRingBufferTransport(int ringSize, RingBuffer.WaitStrategy waitStrategy) {
+		if ( ! allConnections.isEmpty())
+			throw new IllegalStateException("ProcessMessageForSocket.setRingBufferTransport must be called before performSetup");
+
+		taskExecutor = OrderedTaskExecutor.newRingBuffer(ringSize, waitStrategy, taskExecutor.getBackpressure());
+	}
+
+	/**
+	  * Bound the queue of responses awaiting collection by the given backpressure's limits.
+	  *
+	  * @param backpressure tracks the responses awaiting collection
+	  */
+	@Override
+	public void setResponseBackpressure(ResponseBackpressure backpressure) {
+		if ( ! allConnections.isEmpty())
+			throw new IllegalStateException("ProcessMessageForSocket.setResponseBackpressure must be called before performSetup");
+
+		taskExecutor = taskExecutor.withBackpressure(backpressure);
+	}
+
+	/**
+	  * Process a message on the same thread as the caller, blocking for result.
+	  * As only processing one message at a time, not bothering to check for isInterrupted() - let it finish
+	  *
+	  * @param messageText the message to be processed
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  *
+	  * @return the next response from process, null if no more results will ever arrive
+	  * 
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	@Override
+	public ProcessResponse processMessageSynch(final String messageText, final XMLDocument inputDoc, String auditKeyValues)
+											throws MessagingException {
+		return processMessage(messageText, null, inputDoc, auditKeyValues, ProcessingMode.SYNCHRONOUS);
+	}
+	
+	/**
+	  * Process a message on another thread, non-blocking. Result to be collected by calling getResponse().
+	  * As only processing one message at a time, not bothering to check for isInterrupted() - let it finish
+	  *
+	  * @param messageText the message to be processed
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  *
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	@Override
+	public void processMessageAsynch(final String messageText, final XMLDocument inputDoc, String auditKeyValues)
+											throws MessagingException {
+		processMessage(messageText, null, inputDoc, auditKeyValues, ProcessingMode.ASYNCHRONOUS);
+	}
+
+	/**
+	  * Process a message, already parsed, on the same thread as the caller, blocking for result.
+	  *
+	  * @param messageText the message to be processed
+	  * @param messageDoc the message to be processed, already parsed, null to have messageText parsed. Handed over - not used by the caller again
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  *
+	  * @return the next response from process, null if no more results will ever arrive
+	  * 
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	@Override
+	public ProcessResponse processMessageSynch(final String messageText, final XMLDocument messageDoc, final XMLDocument inputDoc, String auditKeyValues)
+											throws MessagingException {
+		return processMessage(messageText, messageDoc, inputDoc, auditKeyValues, ProcessingMode.SYNCHRONOUS);
+	}
+
+	/**
+	  * Process a message, already parsed, on another thread, non-blocking. Result to be collected by calling getResponse().
+	  *
+	  * @param messageText the message to be processed
+	  * @param messageDoc the message to be processed, already parsed, null to have messageText parsed. Handed over - not used by the caller again
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  *
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	@Override
+	public void processMessageAsynch(final String messageText, final XMLDocument messageDoc, final XMLDocument inputDoc, String auditKeyValues)
+											throws MessagingException {
+		processMessage(messageText, messageDoc, inputDoc, auditKeyValues, ProcessingMode.ASYNCHRONOUS);
+	}
+
+	/**
+	  * @return false, as messages of INSERTs are processed like any other
+	  */
+	@Override
+	public boolean readsInsertRows() {
+		return false;
+	}
+
+	/**
+	  * Process a message
+	  *
+	  * @param messageText the message to be processed
+	  * @param messageDoc the message to be processed, already parsed, null to have messageText parsed (to check it)
+	  * @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result - DO NOT MODIFY, is NOT threadsafe!!
+	  * @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+	  * @param synchronous 	if true, the message is to be processed on the same thread as the caller, blocking for result
+	  * 					if false, the message is to be processed on another thread, non-blocking. Result to be collected by calling getResponse().
+	  *
+	  * @return the next response from process, null if no more results will ever arrive
+	  * 
+	  * @throws MessagingException if a problem was encountered processing the message
+	  */
+	private ProcessResponse processMessage(final String messageText, final XMLDocument messageDoc, final XMLDocument inputDoc, final String auditKeyValues, final ProcessingMode processingMode)
+											throws MessagingException {
+
+		Callable<ProcessResponse> processMessageTask = new Callable<ProcessResponse>() {
+			@Override
+			public ProcessResponse call() throws MessagingException {
+				//////////////////////////////////////////////////////////////////
+				// Take this worker's connection, returning it when finished.
+				//////////////////////////////////////////////////////////////////
+				SocketConnection conn = takeConnection();
+
+				try {
+					return sendMessageOnConnection(conn);
+				}
+				finally {
+					returnConnection(conn);
+				}
+			} // end Callable.call()
+
+			/**
+			  * Send the message using the given connection.
+			  */
+			private ProcessResponse sendMessageOnConnection(SocketConnection conn) throws MessagingException {
+	
+				if (conn.s == null) { // then socket was closed, re-open it
+					openSocket(conn, settings.getHostName(), settings.getPortNumber());
+				}
+				SocketComms socketComms = conn.socketComms;
+		
+				//////////////////////////////////////////////////////////////////
+				// Set up a new XML doc (just to check the message is XML), unless already parsed by the caller
+				//////////////////////////////////////////////////////////////////
+				XMLDocument newDoc = messageDoc;
+				if (newDoc == null) {
+					try {
+						newDoc = XMLDocument.createDoc(messageText, XMLDocument.SCHEMA_VALIDATION_OFF);
+					}
+					catch(XMLException e) {
+						logger.severe("LwXMLException: " + e.getMessage());
+						logger.warning("InputMessage was :" + messageText);
+						throw new MessagingException("Could not create new XML document: " + e.getMessage());
+					}
+				}
+		
+				///////////////////////////////////////////////
+				// Get audit information from message (or make it up)...
+				///////////////////////////////////////////////
+//				String auditKeyValues = getConcatenatedAuditKeyValues(newDoc, settings.getAuditKeyNamesSet(), settings.getAuditKeysSeparator()); // works at "current node" level
+		
+				///////////////////////////////////////////////
+				// Send the data (in chunks, if necessary)...
+				///////////////////////////////////////////////
+				SocketComms.SocketService service = (settings.getApplicationLevelResponse().equals("synchronous") ? SocketComms.SocketService.CONSUME_RESPOND : SocketComms.SocketService.CONSUME);
+				try {
+					if (socketComms == null) {
+						logger.severe("socketComms IS NULL!!!!!");
+						throw new MessagingException("Could not send XML document: socketComms IS NULL!!!!!");
+					}
+						
+					socketComms.sendMessage(new SocketTransferMessage(new Integer(0), auditKeyValues, service, SocketComms.SocketFormat.XML, messageText));
+				} catch (SocketException e) {
+					logger.severe("LwSocketException: " + e.getMessage());
+					throw new MessagingException("Could not send XML document: " + e.getMessage());
+				}
+				// Get confirmation/error response from server ( just to say got request)
+				try {
+					socketComms.next();
+				} catch (SocketException e) {
+					logger.severe("LwSocketException: " + e.getMessage());
+					throw new MessagingException("Failed to receive response from server: " + e.getMessage());
+				}
+				
+				// Throw exception if a technical error was encountered
+				int serverRespCode = socketComms.getLastErrorNo();
+				if (serverRespCode != 0) {
+					logger.severe("Socket Server returned error " + serverRespCode + " when trying to send data " + auditKeyValues + ".");
+					throw new MessagingException("Socket Server returned error " + serverRespCode + " when trying to send data for message " + auditKeyValues + ".");
+				}
+		
+				///////////////////////////////////////////////
+				// If got here, message was successfully transmitted.
+				// So build Response...
+				///////////////////////////////////////////////
+				XMLDocument response = createResponseDoc(); // create doc shell
+				response.addElement(null, "SEND_STATUS", "SUCCESS");
+		
+				// Check if we should await an application-level response
+				if (settings.getApplicationLevelResponse().equals("synchronous")) {
+					XMLDocument applicResponse = getApplicationResponse(socketComms);
+					response.importNode(applicResponse.getCurrentNode(), true);
+				}
+				
+				ProcessResponse.Builder responseBuilder = new ProcessResponse.Builder(ProcessResponseCode.SUCCESS, 1)
+					.setResponse(response.toString())
+					.setInputDoc(inputDoc)
+					.setAuditKeyValues(auditKeyValues);
+		
+				logger.info("[" + Thread.currentThread().getName() + "]: Returning response from Processor Task...");
+				
+				return responseBuilder.build();
+			} // end sendMessageOnConnection()
+		};
+		
+		if (processingMode == ProcessingMode.ASYNCHRONOUS) { // submit for processing on a pool thread
+			// If null message supplied, no more messages to process, so return PoisonPill to response handler...
+			if (messageText == null) {
+				subMitPoisonPill();
+				return null;
+			}
+			
+			// Submit this message for processing...
+			// (See subMitPoisonPill() re flushing the executor.)
+			// Note: exceptions thrown within the Callable will not return to the caller, but will re-appear in the Future :-)
+			try {
+				taskExecutor.submit(processMessageTask);
+				
+				return null;
+			} catch(InterruptedException e) { // thrown by taskExecutor.submit
+				logger.info("[" + Thread.currentThread().getName() + "]: put to responseQueue interrupted.");
+				// Flush responseQueue (reading thread then has option to close down itself, on receiving this Poison Pill)
+				subMitPoisonPill();
+				
+				// Quit processing now, but as we don't own the Thread, set back to interrupted - the caller will decide what to do with Thread
+				// (in case queue will have called interrupted(), which clears the interrupted flag for the thread)
+				Thread.currentThread().interrupt();
+				return null; // Interrupted
+			}
+		} else { // process now, on caller's thread
+			try {
+				return processMessageTask.call();
+			} catch (Exception e) {
+				throw new MessagingException("[" + Thread.currentThread().getName() + "]: Caught Exception calling processMessageTask: " + e);
+			}
+		}
+	}
+
+	/**
+	  * Return the next response message.
+	  * When all responses have been received, null will be returned.
+	  *
+	  * LwProcessResponse is immutable
+	  * 
+	  * @return the next response from process, null if no more results will ever arrive
+	  * @throws MessagingException if a problem was encountered processing the message
+	  * @throws InterruptedException if CALLING thread is noticed as interrupted while getting response
+	  */
+	@Override
+	public ProcessResponse getResponse() throws MessagingException, InterruptedException {
+		return taskExecutor.take();
+	}
+
+	/**
+	  * Do whatever you like when things are quiet
+	  *
+	  */
+	public void goQuiet() {
+		logger.info("All quiet, going to close socket connection(s).");
+
+		// A worker may still be using a connection, so only mark those to be closed when handed back
+		for (SocketConnection conn : allConnections) {
+			conn.closeWhenReturned = true;
+		}
+
+		// Idle connections can be closed now. They'll be re-opened by the next worker to take them.
+		List<SocketConnection> idle = new ArrayList<SocketConnection>();
+		idleConnections.drainTo(idle);
+		for (SocketConnection conn : idle) {
+			conn.closeWhenReturned = false;
+			closeConnection(conn, null);
+		}
+		idleConnections.addAll(idle);
+	}
+
+	/**
+	  * Allow caller block until all tasks have completed execution after a shutdown request, or the timeout occurs,
+	  * or the current thread is interrupted, whichever happens first.
+	  *
+	  * @param timeout the number of units to wait before giving up wait.
+	  * @param unit the unit of time of the timeout value
+	 * @throws InterruptedException if current thread interrupted while waiting
+	  * 
+	  */
+	@Override
+	public void  awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		logger.info("[" + Thread.currentThread().getName() + "]: Going to block on awaitTermination...");
+		taskExecutor.awaitTermination(timeout, unit) ;
+	}
+		
+	/**
+	  * Perform any clean-up actions before closing down
+	  *
+	  */
+	public void performCleanup(LwLogger shutdownLogger) {
+		try {
+			awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e1) {
+			// Closing down anyway, so no prob with interrupt
+		}
+		
+		for (SocketConnection conn : allConnections) {
+			closeConnection(conn, shutdownLogger);
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////
+	// End: Implementation methods for LwIProcessMesssage Interface...
+	//////////////////////////////////////////////////////////////////
+
+	/**
+	  * Take an idle connection, opening a new one if none is idle and fewer than the in-flight limit are open,
+	  * otherwise waiting for one to become idle.
+	  *
+	  * @return the connection, to be handed back by returnConnection() when finished
+	  * @throws MessagingException if interrupted while waiting, or a new connection could not be opened
+	  */
+	private SocketConnection takeConnection() throws MessagingException {
+		SocketConnection conn = idleConnections.poll();
+
+		if (conn == null) {
+			conn = openExtraConnection();
+		}
+
+		if (conn == null) {
+			try {
+				conn = idleConnections.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MessagingException("Interrupted waiting for a free socket connection.");
+			}
+		}
+
+		return conn;
+	}
+
+	/**
+	  * Hand a connection back for another worker to take, first closing it if goQuiet() was called while it was in use.
+	  *
+	  * @param conn the connection taken by takeConnection()
+	  */
+	private void returnConnection(SocketConnection conn) {
+		if (conn.closeWhenReturned) {
+			conn.closeWhenReturned = false;
+			closeConnection(conn, null);
+		}
+
+		idleConnections.add(conn);
+	}
+
+	/**
+	  * Open a new connection, if fewer than the in-flight limit are already open.
+	  *
+	  * @return the new connection, null if the limit has been reached
+	  * @throws MessagingException if the new connection could not be opened
+	  */
+	private synchronized SocketConnection openExtraConnection() throws MessagingException {
+		if (allConnections.size() >= taskExecutor.getConcurrency()) {
+			return null;
+		}
+
+		SocketConnection conn = new SocketConnection();
+		openSocket(conn, settings.getHostName(), settings.getPortNumber());
+		allConnections.add(conn);
+		logger.info("Opened socket connection " + allConnections.size() + " of up to " + taskExecutor.getConcurrency() + ".");
+
+		return conn;
+	}
+
+	/**
+	  * Tell the server we're finished and close the given connection, if open.
+	  *
+	  * @param conn the connection to close
+	  * @param shutdownLogger the logger to use, if shutting down (can be null)
+	  */
+	private void closeConnection(SocketConnection conn, LwLogger shutdownLogger) {
+		if (conn.s != null && conn.socketComms != null) {
+			try {
+				conn.socketComms.sendMessage(new SocketTransferMessage(new Integer(0), "AutoRequest", SocketComms.SocketService.CLOSE, SocketComms.SocketFormat.XML, "Close me"));
+			} catch (SocketException e) {
+				logger.severe("Caught LwSocketException trying to tell server to CLOSE connection (no action taken): " + e.getMessage());
+			}
+			
+			try {
+				conn.s.close();
+				conn.socketComms = null;
+			}
+			catch (IOException e) {
+				if (shutdownLogger != null) {
+					try { shutdownLogger.appendln("Caught IOException trying to close socket connection (no action taken): " + e.getMessage());} catch (IOException e2) { /* do nothing */}
+				}
+				else {
+					logger.severe("Caught IOException trying to close socket connection (no action taken): " + e.getMessage());
+				}
+			}
+
+			conn.s = null;
+
+			if (shutdownLogger != null) {
+				try { shutdownLogger.appendln("Closed socket connection.");} catch (IOException e) { /* do nothing */}
+			}
+			else {
+				logger.info("Closed socket connection.");
+			}
+		}
+	}
+
+	/**
+	  * Open a socket for communications
+	  *
+	  * @param conn the connection on which to store the new socket and its SocketComms
+	  */
+	private SocketComms openSocket(SocketConnection conn, String hostName, int portNo)
+						throws MessagingException {
+		///////////////////////////////////////////////
+		// Connect to the socket on "this" machine.
+		///////////////////////////////////////////////
+		try {
+			conn.s = new Socket(hostName, portNo);
+		}
+		catch (UnknownHostException e) {
+			logger.severe("UnknownHostException: " + e.getMessage());
+			throw new MessagingException("Caught UnknownHostException trying to open a new socket : " + e.getMessage());
+		}
+		catch (IOException e) {
+			logger.severe("IOException: " + e.getMessage());
+			throw new MessagingException("Caught IOException trying to open a new socket : " + e.getMessage());
+		}
+
+		// May throw LwSocketException
+		try {
+			conn.socketComms = new SocketComms(conn.s, SocketType.CLIENT);
+			logger.info("Socket Comms object created.");
+			// Read Server Ready message.
+			conn.socketComms.next();
+		} catch (SocketException e) {
+			throw new MessagingException("Caught LwSocketException trying to set up communications on socket : " + e.getMessage());
+		}
+
+		logger.info("Socket opened on port " + portNo + " on host " + hostName);
+
+		return conn.socketComms;
+	}
+
+	/**
+	  *
+	  * Get the concatenated values for the given audit key names
+	  *
+	  * @param doc the XML document
+	  * @param auditKeyNamesSet the set of column names to identify the audit key values
+	  * @param separator the char(s) used to separate audit key parts
+	  *
+	  * @return the concatenated audit key values for this message, the empty string if no values
+	  */
+	private String getConcatenatedAuditKeyValues(XMLDocument doc, Vector<XMLTagValue> auditKeyNamesSet, String separator) {
+
+		String concatenatedValues = "";
+
+		// Using Enumeration instead of for-each loop, so could use hasMoreElements() when adding separator
+		if (auditKeyNamesSet == null) { // than make up new key...
+			return String.valueOf(++fallBackTransactionID);
+		}
+		else {
+			Enumeration<XMLTagValue> enumAuditKeyNames = auditKeyNamesSet.elements();
+			while (enumAuditKeyNames.hasMoreElements()) {
+				XMLTagValue tv = enumAuditKeyNames.nextElement();
+
+				String nextValue = doc.getValueForTag(tv.getTagValue());
+
+				if (nextValue != null) {
+					concatenatedValues += nextValue + ((separator != null && enumAuditKeyNames.hasMoreElements()) ? separator : "");
+				}
+			}
+		}
+
+		return concatenatedValues;
+	}
+
+	/**
+	  * Start a response doc
+	  *
+	  */
+	private XMLDocument createResponseDoc()
+								throws MessagingException {
+
+		XMLDocument newResponse = null;
+
+		try {
+			newResponse = XMLDocument.createDoc("<MESSAGE></MESSAGE>", XMLDocument.SCHEMA_VALIDATION_OFF);
+		}
+		catch(XMLException e) {
+			logger.severe("Caught LwXMLException creating a new XML doc for response: " + e.getMessage());
+			throw new MessagingException("LwProcessMessageForDb.buildErrorResponse(): Caught Exception creating a new XML doc for error response: " + e.getMessage());
+		}
+		
+		return newResponse;
+	}
+
+	/**
+	  * Start a response doc
+	  *
+	  * @param socketComms the communications object for the connection on which the request was sent
+	  * @return an XML document containing the response from the server application
+	  */
+	private XMLDocument getApplicationResponse(SocketComms socketComms)
+								throws MessagingException {
+
+		// Now get confirmation/error response from server for action requested
+		try {
+			socketComms.next();
+		} catch (SocketException e) {
+			throw new MessagingException("Caught LwSocketException getting Application-level response from server: " + e);
+		}
+
+		if (socketComms.getLastErrorNo() != 0) {
+			logger.severe("Application-level response not received from server");
+			throw new MessagingException("LwProcessMessageForSocket.getApplicationResponse(): Application-level response not received from server");
+		}
+		else { // got something, so create an XM doc and return it...
+			XMLDocument applicResponse = null;
+	
+			try {
+				logger.finer("Going to create XML doc from returned String:" + socketComms.getLastMessageReceived());
+				applicResponse = XMLDocument.createDoc(socketComms.getLastMessageReceived(), XMLDocument.SCHEMA_VALIDATION_OFF);
+				return applicResponse;
+			}
+			catch(XMLException e) {
+				logger.severe("Caught LwXMLException creating a new XML doc for response: " + e.getMessage());
+				throw new MessagingException("LwProcessMessageForSocket.getApplicationResponse(): Caught Exception creating a new XML doc for error response: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	  * This method creates a Poison Pill and places it in the queue for the Executor, which will be returned to the
+	  * response handler.
+	  * It then tells the executor to shut down.
+	  *
+	  * 
+	  */
+	private void subMitPoisonPill() {
+		taskExecutor.submitPoisonPill();
+	}
+}
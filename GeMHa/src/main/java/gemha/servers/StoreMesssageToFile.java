@@ -1,202 +1,385 @@
-package gemha.servers;
-
-import java.util.logging.*;
-import java.io.*;
-
-import lw.XML.*;
-import lw.utils.LwLogger;
-import gemha.interfaces.IStoreMesssage;
-import gemha.support.*;
-
-/**
-  * This class saves messages to a file.
-  *
-  * @author Liam Wade
-  * @version 1.0 30/10/2008
-  */
-public class StoreMesssageToFile implements IStoreMesssage {
-
-    private static final Logger logger = Logger.getLogger("gemha");
-
-	private String outputFileNameTemplate = null;	// the template from which to build output filenames
-	private String dataFormat = null;				// the format of outgoing messages e.g "XML"
-
-	private int safetySequenceNo = 0;
-
-	public StoreMesssageToFile(String outputFileNameTemplate, String dataFormat) {
-		this.outputFileNameTemplate = outputFileNameTemplate;
-		this.dataFormat = dataFormat;
-	}
-
-	//////////////////////////////////////////////////////////////////
-	// Start: Implementation methods for LwIStoreMesssage Interface...
-	//////////////////////////////////////////////////////////////////
-	/**
-	  * Open any connections
-	  *
-	  * @throws MessagingException when any error is encountered
-	  */
-	public void openStorage()
-	 			throws MessagingException {
-	}
-
-	/**
-	  * Close any connections
-	  *
-	  * @throws MessagingException when any error is encountered
-	  */
-	public void closeStorage()
-	 			throws MessagingException {
-	}
-
-	/**
-	  * Process a message
-	  *
-	  * @param message the message to be processed
-	  * @param instructions instructions on how the message is to be processed (will be implementation-specific). Can be null
-	  *
-	  * @throws MessagingException when any error is encountered
-	  */
-	public void putMessage(String message, String auditKey, String instructions)
-								throws MessagingException {
-
-		if (outputFileNameTemplate == null) { // am dealing with files for output
-			throw new MessagingException("Response message with AuditKey Value " + auditKey + " not output - no outputFileNameTemplate to work with.");
-		}
-
-		String outputFileName = createFileNameFromTemplate(outputFileNameTemplate, auditKey);
-
-		if (dataFormat != null && dataFormat.equals("XML")) {
-			XMLDocument outputDoc = createXMLDocFromInput(message, false);
-			if (outputDoc == null) {
-				logger.severe("XML Response message with AuditKey Value " + auditKey + " could not be parsed.");
-				throw new MessagingException("XML Response message with AuditKey Value " + auditKey + " could not be parsed.");
-			}
-			else if (outputDoc.toFile(outputFileName, false)) {
-				logger.info("XML Response message with AuditKey Value " + auditKey + " output to file " + outputFileName);
-			}
-			else {
-				logger.severe("XML Response message with AuditKey Value " + auditKey + " could not be output to file " + outputFileName);
-				throw new MessagingException("XML Response message with AuditKey Value " + auditKey + " could not be output to file " + outputFileName);
-			}
-		}
-		else { // No format, just send straight to file
-			if ( setFileContents(outputFileName, message)) {
-				logger.info("Response message with AuditKey Value " + auditKey + " output to file " + outputFileName);
-			}
-			else {
-				// problem putting to file!
-				logger.severe("Response message with AuditKey Value " + auditKey + " could not be output to file " + outputFileName);
-				throw new MessagingException("Response message with AuditKey Value " + auditKey + " could not be output to file " + outputFileName);
-			}
-		} // end if (dataFormat != null && dataFormat.equals("XML"))
-	}
-
-	/**
-	  * Perform any clean-up actions before closing down
-	  *
-	  */
-	public void performStoreMessageCleanup(LwLogger shutdownLogger) {
-
-	}
-
-	//////////////////////////////////////////////////////////////////
-	// End: Implementation methods for LwIStoreMesssage Interface...
-	//////////////////////////////////////////////////////////////////
-
-	/**
-	  * Change the contents of text file in its entirety, overwriting any
-	  * existing text.
-	  *
-	  * This style of implementation throws all exceptions to the caller.
-	  *
-	  * @param fileName the name of the file to which the content should be written.
-	  *
-	  * @return true if contents successfully  written, otherwise false
-	*/
-	private boolean setFileContents(String fileName, String contents) {
-		if (fileName == null) {
-			return false;
-		}
-
-		boolean result = false;
-
-		try {
-			//use buffering
-			Writer output = new BufferedWriter(new FileWriter(fileName));
-
-			try {
-				//FileWriter always assumes default encoding is OK!
-				output.write(contents);
-				result = true;
-			}
-			finally {
-				output.close();
-			}
-		}
-		catch(FileNotFoundException e) {
-			logger.warning("Could not find file " + fileName + " when saving contents");
-		}
-		catch(IOException e) {
-			logger.warning("Exception encountered while saving contents to file " + fileName + ": " + e);
-		}
-
-		return result;
-	}
-	/**
-	  * Using the template, construct a real file name.
-	  * An asterisk in the template will be replaced by the audit key, a ? by "current date & time & sequence number"
-	  *
-	  * @param fileNameTemplate the template to use.
-	  * @param fileNameTemplate the template to use.
-	  *
-	  * @return the constructed file name, null if fileNameTemplate was null
-	  */
-	private String createFileNameFromTemplate(String fileNameTemplate, String key) {
-
-		if (fileNameTemplate == null) {
-			return null;
-		}
-
-		StringBuilder constructedFileName = new StringBuilder(fileNameTemplate);
-
-		if (key != null) {
-			int startAsterisk = constructedFileName.indexOf("*");
-
-			if (startAsterisk >= 0) { // then "*" found, replace with key
-				constructedFileName.replace(startAsterisk, (startAsterisk+1), key);
-			}
-		}
-
-		int startQuestionMark = constructedFileName.indexOf("?");
-
-		if (startQuestionMark >= 0) { // then "?" found, replace with key
-			constructedFileName.replace(startQuestionMark, (startQuestionMark+1), (LwLogger.getDateTime("") + (new Integer(safetySequenceNo++)).toString()) );
-		}
-
-		return constructedFileName.toString();
-	}
-
-	/**
-	  *
-	  * Shut down the application gracefully - will be called by the Java VM when closing down
-	  *
-	  * @param message the XML text from which to make a document
-	  * @param validateAgainstSchema true if the XML should be validated against it's Schema
-	  *
-	  * @return a new LwXMLDocument
-	  */
-	private XMLDocument createXMLDocFromInput(String message, boolean validateAgainstSchema) {
-
-		XMLDocument newDoc = null;
-
-		try {
-			newDoc = XMLDocument.createDoc(message, validateAgainstSchema);
-			return newDoc;
-		}
-		catch(XMLException e) {
-			logger.warning("LwXMLException: " + e.getMessage());
-			return null;
-		}
-	}
-}
+package gemha.servers;
+
+import java.util.logging.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import lw.XML.*;
+import lw.utils.LwLogger;
+import gemha.interfaces.IStoreMesssage;
+import gemha.support.*;
+
+/**
+  * This class saves messages to a file.
+  *
+  * XML messages are written as is, encoded straight into a reused buffer and out through a file channel,
+  * in the encoding named by any XML declaration (UTF-8 if none). Optionally, they may first be checked to be
+  * well-formed, by a streaming read (no DOM). Alternatively, they may be re-parsed into a DOM and pretty-printed
+  * to file, as before.
+  *
+  * @author Liam Wade
+  * @version 1.0 30/10/2008
+  * @version 1.1 16/10/2026 XML written as is through a file channel, unless pretty-printing requested.
+  */
+public class StoreMesssageToFile implements IStoreMesssage {
+
+    private static final Logger logger = Logger.getLogger("gemha");
+
+	private String outputFileNameTemplate = null;	// the template from which to build output filenames
+	private String dataFormat = null;				// the format of outgoing messages e.g "XML"
+
+	private boolean prettyPrint = false;			// true if XML is to be re-parsed and pretty-printed to file
+	private boolean checkWellFormed = false;		// true if XML written as is is first checked to be well-formed
+
+	private int safetySequenceNo = 0;
+
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+	private static final Charset DEFAULT_XML_CHARSET = Charset.forName("UTF-8");
+	private static final Pattern XML_DECLARATION_ENCODING = Pattern.compile("^\\s*<\\?xml[^>]*?encoding\\s*=\\s*[\"']([A-Za-z][A-Za-z0-9._\\-]*)[\"']");
+
+	// Buffer for encoding messages, reused for each message on a thread
+	private static final ThreadLocal<ByteBuffer> writeBuffer = new ThreadLocal<ByteBuffer>() {
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+		}
+	};
+	// Factory is not guaranteed thread-safe, and is costly to look up, so one per thread
+	private static final ThreadLocal<XMLInputFactory> inputFactory = new ThreadLocal<XMLInputFactory>() {
+		protected XMLInputFactory initialValue() {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+			return factory;
+		}
+	};
+
+	public StoreMesssageToFile(String outputFileNameTemplate, String dataFormat) {
+		this(outputFileNameTemplate, dataFormat, false, false);
+	}
+
+	/**
+	  * Constructor
+	  *
+	  * @param outputFileNameTemplate the template from which to build output filenames
+	  * @param dataFormat the format of outgoing messages e.g "XML"
+	  * @param prettyPrint true if XML is to be re-parsed and pretty-printed to file, false to write it as is
+	  * @param checkWellFormed true if XML written as is is first to be checked to be well-formed
+	  */
+	public StoreMesssageToFile(String outputFileNameTemplate, String dataFormat, boolean prettyPrint, boolean checkWellFormed) {
+		this.outputFileNameTemplate = outputFileNameTemplate;
+		this.dataFormat = dataFormat;
+		this.prettyPrint = prettyPrint;
+		this.checkWellFormed = checkWellFormed;
+	}
+
+	//////////////////////////////////////////////////////////////////
+	// Start: Implementation methods for LwIStoreMesssage Interface...
+	//////////////////////////////////////////////////////////////////
+	/**
+	  * Open any connections
+	  *
+	  * @throws MessagingException when any error is encountered
+	  */
+	public void openStorage()
+	 			throws MessagingException {
+	}
+
+	/**
+	  * Close any connections
+	  *
+	  * @throws MessagingException when any error is encountered
+	  */
+	public void closeStorage()
+	 			throws MessagingException {
+	}
+
+	/**
+	  * Process a message
+	  *
+	  * @param message the message to be processed
+	  * @param instructions instructions on how the message is to be processed (will be implementation-specific). Can be null
+	  *
+	  * @throws MessagingException when any error is encountered
+	  */
+	public void putMessage(String message, String auditKey, String instructions)
+								throws MessagingException {
+
+		if (outputFileNameTemplate == null) { // am dealing with files for output
+			throw new MessagingException("Response message with AuditKey Value " + auditKey + " not output - no outputFileNameTemplate to work with.");
+		}
+
+		String outputFileName = createFileNameFromTemplate(outputFileNameTemplate, auditKey);
+
+		if (dataFormat != null && dataFormat.equals("XML") && ! prettyPrint) {
+			if (checkWellFormed && ! isWellFormed(message)) {
+				logger.severe("XML Response message with AuditKey Value " + auditKey + " is not well-formed.");
+				throw new MessagingException("XML Response message with AuditKey Value " + auditKey + " is not well-formed.");
+			}
+			else if (writeToChannel(outputFileName, message, charsetOfXML(message))) {
+				logger.info("XML Response message with AuditKey Value " + auditKey + " output to file " + outputFileName);
+			}
+			else {
+				logger.severe("XML Response message with AuditKey Value " + auditKey + " could not be output to file " + outputFileName);
+				throw new MessagingException("XML Response message with AuditKey Value " + auditKey + " could not be output to file " + outputFileName);
+			}
+		}
+		else if (dataFormat != null && dataFormat.equals("XML")) {
+			XMLDocument outputDoc = createXMLDocFromInput(message, false);
+			if (outputDoc == null) {
+				logger.severe("XML Response message with AuditKey Value " + auditKey + " could not be parsed.");
+				throw new MessagingException("XML Response message with AuditKey Value " + auditKey + " could not be parsed.");
+			}
+			else if (outputDoc.toFile(outputFileName, false)) {
+				logger.info("XML Response message with AuditKey Value " + auditKey + " output to file " + outputFileName);
+			}
+			else {
+				logger.severe("XML Response message with AuditKey Value " + auditKey + " could not be output to file " + outputFileName);
+				throw new MessagingException("XML Response message with AuditKey Value " + auditKey + " could not be output to file " + outputFileName);
+			}
+		}
+		else { // No format, just send straight to file
+			if ( setFileContents(outputFileName, message)) {
+				logger.info("Response message with AuditKey Value " + auditKey + " output to file " + outputFileName);
+			}
+			else {
+				// problem putting to file!
+				logger.severe("Response message with AuditKey Value " + auditKey + " could not be output to file " + outputFileName);
+				throw new MessagingException("Response message with AuditKey Value " + auditKey + " could not be output to file " + outputFileName);
+			}
+		} // end if (dataFormat != null && dataFormat.equals("XML"))
+	}
+
+	/**
+	  * Perform any clean-up actions before closing down
+	  *
+	  */
+	public void performStoreMessageCleanup(LwLogger shutdownLogger) {
+
+	}
+
+	//////////////////////////////////////////////////////////////////
+	// End: Implementation methods for LwIStoreMesssage Interface...
+	//////////////////////////////////////////////////////////////////
+
+	/**
+	  * Change the contents of text file in its entirety, overwriting any
+	  * existing text.
+	  *
+	  * This style of implementation throws all exceptions to the caller.
+	  *
+	  * @param fileName the name of the file to which the content should be written.
+	  *
+	  * @return true if contents successfully  written, otherwise false
+	*/
+	private boolean setFileContents(String fileName, String contents) {
+		if (fileName == null) {
+			return false;
+		}
+
+		boolean result = false;
+
+		try {
+			//use buffering
+			Writer output = new BufferedWriter(new FileWriter(fileName));
+
+			try {
+				//FileWriter always assumes default encoding is OK!
+				output.write(contents);
+				result = true;
+			}
+			finally {
+				output.close();
+			}
+		}
+		catch(FileNotFoundException e) {
+			logger.warning("Could not find file " + fileName + " when saving contents");
+		}
+		catch(IOException e) {
+			logger.warning("Exception encountered while saving contents to file " + fileName + ": " + e);
+		}
+
+		return result;
+	}
+
+	/**
+	  * Write the contents to file through a file channel, encoding them into a reused buffer,
+	  * overwriting any existing content.
+	  *
+	  * @param fileName the name of the file to which the content should be written.
+	  * @param contents the content to be written
+	  * @param charset the encoding in which to write the content
+	  *
+	  * @return true if contents successfully written, otherwise false
+	*/
+	private boolean writeToChannel(String fileName, String contents, Charset charset) {
+		if (fileName == null) {
+			return false;
+		}
+
+		CharsetEncoder encoder = charset.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		ByteBuffer buffer = writeBuffer.get();
+		CharBuffer chars = CharBuffer.wrap(contents);
+
+		try {
+			FileOutputStream output = new FileOutputStream(fileName);
+			FileChannel channel = output.getChannel();
+
+			try {
+				buffer.clear();
+				CoderResult result;
+				do { // encode a buffer-full at a time, until all encoded
+					result = encoder.encode(chars, buffer, true);
+					if (result.isError()) { // can't happen with REPLACE, but to be sure
+						result.throwException();
+					}
+					drainToChannel(buffer, channel);
+				} while (result.isOverflow());
+
+				do {
+					result = encoder.flush(buffer);
+					drainToChannel(buffer, channel);
+				} while (result.isOverflow());
+
+				return true;
+			}
+			finally {
+				output.close();
+			}
+		}
+		catch(FileNotFoundException e) {
+			logger.warning("Could not find file " + fileName + " when saving contents");
+		}
+		catch(IOException e) {
+			logger.warning("Exception encountered while saving contents to file " + fileName + ": " + e);
+		}
+
+		return false;
+	}
+
+	/**
+	  * Write all in the buffer to the channel, leaving the buffer cleared for more.
+	  */
+	private void drainToChannel(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	  * Find the encoding named in the XML declaration, if any.
+	  *
+	  * @param message the XML text
+	  *
+	  * @return the encoding named, UTF-8 (the XML default) if none, or not supported
+	  */
+	private Charset charsetOfXML(String message) {
+		Matcher matcher = XML_DECLARATION_ENCODING.matcher(message);
+		if (matcher.find()) {
+			try {
+				return Charset.forName(matcher.group(1));
+			}
+			catch(IllegalArgumentException e) {
+				logger.warning("Encoding " + matcher.group(1) + " in XML declaration not supported, will write as UTF-8.");
+			}
+		}
+		return DEFAULT_XML_CHARSET;
+	}
+
+	/**
+	  * Check the XML text is well-formed, by reading it through, without building a document.
+	  *
+	  * @param message the XML text
+	  *
+	  * @return true if well-formed
+	  */
+	private boolean isWellFormed(String message) {
+		try {
+			XMLStreamReader reader = inputFactory.get().createXMLStreamReader(new StringReader(message));
+			try {
+				while (reader.hasNext()) {
+					reader.next();
+				}
+			}
+			finally {
+				reader.close();
+			}
+			return true;
+		}
+		catch(XMLStreamException e) {
+			logger.warning("XML Response message not well-formed: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	  * Using the template, construct a real file name.
+	  * An asterisk in the template will be replaced by the audit key, a ? by "current date & time & sequence number"
+	  *
+	  * @param fileNameTemplate the template to use.
+	  * @param fileNameTemplate the template to use.
+	  *
+	  * @return the constructed file name, null if fileNameTemplate was null
+	  */
+	private String createFileNameFromTemplate(String fileNameTemplate, String key) {
+
+		if (fileNameTemplate == null) {
+			return null;
+		}
+
+		StringBuilder constructedFileName = new StringBuilder(fileNameTemplate);
+
+		if (key != null) {
+			int startAsterisk = constructedFileName.indexOf("*");
+
+			if (startAsterisk >= 0) { // then "*" found, replace with key
+				constructedFileName.replace(startAsterisk, (startAsterisk+1), key);
+			}
+		}
+
+		int startQuestionMark = constructedFileName.indexOf("?");
+
+		if (startQuestionMark >= 0) { // then "?" found, replace with key
+			constructedFileName.replace(startQuestionMark, (startQuestionMark+1), (LwLogger.getDateTime("") + (new Integer(safetySequenceNo++)).toString()) );
+		}
+
+		return constructedFileName.toString();
+	}
+
+	/**
+	  *
+	  * Shut down the application gracefully - will be called by the Java VM when closing down
+	  *
+	  * @param message the XML text from which to make a document
+	  * @param validateAgainstSchema true if the XML should be validated against it's Schema
+	  *
+	  * @return a new LwXMLDocument
+	  */
+	private XMLDocument createXMLDocFromInput(String message, boolean validateAgainstSchema) {
+
+		XMLDocument newDoc = null;
+
+		try {
+			newDoc = XMLDocument.createDoc(message, validateAgainstSchema);
+			return newDoc;
+		}
+		catch(XMLException e) {
+			logger.warning("LwXMLException: " + e.getMessage());
+			return null;
+		}
+	}
+}
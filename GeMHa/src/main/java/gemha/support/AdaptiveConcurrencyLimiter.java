@@ -0,0 +1,240 @@
+package gemha.support;
+
+import java.util.LinkedList;
+import java.util.logging.*;
+
+/**
+  * Limits the number of messages in flight at a Processor (handed over, but response not yet collected),
+  * adjusting the limit to the latency seen, between a minimum and a maximum.
+  *
+  * The latency of each message is measured from acquire(), called just before handing it to the Processor,
+  * to release(), called when its response is collected. Responses are collected in the order messages were
+  * handed over, so the start times are simply kept in that order.
+  *
+  * A batch of messages handed over as one takes a permit for each of its messages in one acquire(), and is
+  * measured as one: from acquire() to the release() for its last message. It may always go when nothing else
+  * is in flight, so a batch larger than the limit isn't held back for good.
+  *
+  * The limit is adjusted by AIMD (additive increase, multiplicative decrease), using latency as the signal:
+  * while latency stays within latencyTolerancePercent of the lowest recently seen (the latency with no queueing),
+  * and the limit is actually being used, the limit grows by about 1 for every limit's worth of responses. When
+  * latency rises beyond that, or a message fails, the limit is cut by BACKOFF_RATIO, at most once per
+  * (smoothed) latency period so a single burst of slow responses only counts once.
+  *
+  * The lowest latency is re-measured over every MIN_LATENCY_WINDOW responses, so a lasting change at the
+  * target (e.g. a slower database) doesn't hold the limit at its minimum.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  *
+  * @ThreadSafe
+  */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger logger = Logger.getLogger("gemha");
+
+	private static final double BACKOFF_RATIO = 0.9;
+	private static final int MIN_LATENCY_WINDOW = 500;
+	private static final int SMOOTHING_SHIFT = 3;		// smoothed latency moves 1/8 of the way to each new sample
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final int latencyTolerancePercent;
+
+	// Guarded by this
+	private double limit;
+	private int inFlight = 0;
+	private final LinkedList<Flight> flights = new LinkedList<Flight>();	// each message (or batch) in flight, oldest first
+	private long smoothedLatencyNanos = 0;
+	private long minLatencyNanos = 0;			// lowest latency of the previous window (or this one, if lower)
+	private long windowMinLatencyNanos = 0;	// lowest latency of this window so far
+	private int windowSamples = 0;
+	private long lastBackoffNanos = 0;
+	private boolean closed = false;
+
+	/**
+	  * Constructor
+	  *
+	  * @param minLimit the lowest the limit may fall to (1..n)
+	  * @param maxLimit the highest the limit may rise to (minLimit..n)
+	  * @param latencyTolerancePercent latency above this percentage of the lowest seen is taken as a sign of overload (more than 100)
+	  */
+	public AdaptiveConcurrencyLimiter(int minLimit, int maxLimit, int latencyTolerancePercent) {
+		if (minLimit < 1) throw new IllegalArgumentException("AdaptiveConcurrencyLimiter: minLimit must be at least 1.");
+		if (maxLimit < minLimit) throw new IllegalArgumentException("AdaptiveConcurrencyLimiter: maxLimit must be at least minLimit.");
+		if (latencyTolerancePercent <= 100) throw new IllegalArgumentException("AdaptiveConcurrencyLimiter: latencyTolerancePercent must be more than 100.");
+
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.latencyTolerancePercent = latencyTolerancePercent;
+		this.limit = minLimit;
+	}
+
+	/**
+	  * Get helper method for minLimit
+	  *
+	  * @return the lowest the limit may fall to
+	  */
+	public int getMinLimit() {
+		return minLimit;
+	}
+
+	/**
+	  * Get helper method for maxLimit
+	  *
+	  * @return the highest the limit may rise to
+	  */
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+
+	/**
+	  * @return the number of messages that may currently be in flight
+	  */
+	public synchronized int getLimit() {
+		return (int) limit;
+	}
+
+	/**
+	  * @return the number of messages currently in flight
+	  */
+	public synchronized int getInFlight() {
+		return inFlight;
+	}
+
+	/**
+	  * @return the smoothed latency of recent messages, in microseconds (0 if none seen yet)
+	  */
+	public synchronized long getSmoothedLatencyMicros() {
+		return smoothedLatencyNanos / 1000;
+	}
+
+	/**
+	  * @return the lowest recent latency, taken as the latency with no queueing, in microseconds (0 if none seen yet)
+	  */
+	public synchronized long getMinLatencyMicros() {
+		return minLatencyNanos / 1000;
+	}
+
+	/**
+	  * Wait until another message may be put in flight, then record that it has been.
+	  * Call just before handing the message to the Processor.
+	  *
+	  * @throws InterruptedException if CALLING thread is interrupted while waiting. The message is still recorded
+	  * 								as in flight, so should still be handed over (or release() called for it)
+	  */
+	public void acquire() throws InterruptedException {
+		acquire(1);
+	}
+
+	/**
+	  * Wait until a batch of messages may be put in flight, then record that it has been.
+	  * Call just before handing the batch to the Processor.
+	  *
+	  * @param messages the number of messages in the batch (1..n), each to be released in turn
+	  * @throws InterruptedException if CALLING thread is interrupted while waiting. The batch is still recorded
+	  * 								as in flight, so should still be handed over (or release() called for each message)
+	  */
+	public synchronized void acquire(int messages) throws InterruptedException {
+		if (messages < 1) throw new IllegalArgumentException("AdaptiveConcurrencyLimiter: messages must be at least 1.");
+
+		try {
+			while ( ! closed && inFlight > 0 && inFlight + messages > (int) limit) {
+				wait();
+			}
+		}
+		finally { // recorded even if interrupted, so each response still matches its message
+			inFlight += messages;
+			flights.addLast(new Flight(System.nanoTime(), messages));
+		}
+	}
+
+	/**
+	  * Record that the response for the oldest message in flight has been collected. Once the responses for all
+	  * the messages of a batch have been collected, adjust the limit.
+	  *
+	  * @param succeeded false if the message failed, which is taken as a sign of overload
+	  */
+	public synchronized void release(boolean succeeded) {
+		if (flights.isEmpty()) { // nothing recorded in flight, so nothing to measure
+			return;
+		}
+
+		Flight flight = flights.getFirst();
+		int inFlightAtCompletion = inFlight-- + (flight.messages - 1);	// the whole of this flight, and those after it
+		flight.failed |= ! succeeded;
+		if (--flight.outstanding > 0) { // rest of the batch still to come
+			notifyAll();
+			return;
+		}
+		flights.removeFirst();
+
+		long now = System.nanoTime();
+		long latency = now - flight.startNanos;
+
+		recordLatency(latency);
+
+		if (flight.failed || latency * 100 > minLatencyNanos * latencyTolerancePercent) { // overloaded
+			if (now - lastBackoffNanos > smoothedLatencyNanos) { // only once per latency period
+				lastBackoffNanos = now;
+				double newLimit = Math.max(minLimit, limit * BACKOFF_RATIO);
+				if ((int) newLimit < (int) limit) {
+					logger.fine("Concurrency limit down to " + (int) newLimit + " (latency " + latency / 1000 + " micros, lowest " + minLatencyNanos / 1000 + ").");
+				}
+				limit = newLimit;
+			}
+		}
+		else if (inFlightAtCompletion >= (int) limit) { // only grow if the limit is actually holding messages back
+			double newLimit = Math.min(maxLimit, limit + ((double) flight.messages / limit));
+			if ((int) newLimit > (int) limit) {
+				logger.fine("Concurrency limit up to " + (int) newLimit + " (latency " + latency / 1000 + " micros, lowest " + minLatencyNanos / 1000 + ").");
+			}
+			limit = newLimit;
+		}
+
+		notifyAll();
+	}
+
+	/**
+	  * Stop limiting, releasing any thread waiting in acquire(). Call when responses will no longer be collected.
+	  */
+	public synchronized void close() {
+		closed = true;
+		notifyAll();
+	}
+
+	/**
+	  * A message, or batch of messages, in flight
+	  */
+	private static class Flight {
+		private final long startNanos;
+		private final int messages;
+		private int outstanding;		// messages whose responses are yet to be collected
+		private boolean failed = false;
+
+		private Flight(long startNanos, int messages) {
+			this.startNanos = startNanos;
+			this.messages = messages;
+			this.outstanding = messages;
+		}
+	}
+
+	/**
+	  * Update the smoothed and lowest latencies with a new sample. Call holding the lock.
+	  */
+	private void recordLatency(long latency) {
+		smoothedLatencyNanos = (smoothedLatencyNanos == 0 ? latency : smoothedLatencyNanos + ((latency - smoothedLatencyNanos) >> SMOOTHING_SHIFT));
+
+		if (windowSamples == 0 || latency < windowMinLatencyNanos) {
+			windowMinLatencyNanos = latency;
+		}
+		if (minLatencyNanos == 0 || latency < minLatencyNanos) {
+			minLatencyNanos = latency;
+		}
+
+		if (++windowSamples >= MIN_LATENCY_WINDOW) { // start a new window, forgetting lows from before the last one
+			minLatencyNanos = windowMinLatencyNanos;
+			windowSamples = 0;
+		}
+	}
+}
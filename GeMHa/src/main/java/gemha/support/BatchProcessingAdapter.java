@@ -0,0 +1,40 @@
+package gemha.support;
+
+import java.util.List;
+
+import gemha.interfaces.IProcessMesssage;
+import gemha.interfaces.IProcessParsedMesssage;
+
+/**
+  * Hands a batch to a Processor that doesn't implement IProcessMesssageBatches, as it gains nothing
+  * from handling a batch as a unit: each message in the batch is simply submitted in turn.
+  * 
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  * @version 1.1 16/10/2026 Messages already parsed are handed over as such, if the Processor can take them.
+  */
+public class BatchProcessingAdapter {
+
+	private BatchProcessingAdapter() {
+	}
+
+	/**
+	  * Submit each message of the batch to the Processor, in order, via processMessageAsynch().
+	  * A message already parsed is submitted as such, if the Processor can take it (see IProcessParsedMesssage).
+	  * One response per message will be available from the Processor's getResponse().
+	  *
+	  * @param processor the Processor to which messages are to be submitted
+	  * @param batch the messages to be processed
+	  * @throws MessagingException if a problem was encountered submitting a message
+	  */
+	public static void processMessagesAsynch(IProcessMesssage processor, List<ProcessRequest> batch) throws MessagingException {
+		for (ProcessRequest request : batch) {
+			if (request.getMessageDoc() != null && processor instanceof IProcessParsedMesssage) {
+				((IProcessParsedMesssage) processor).processMessageAsynch(request.getMessage(), request.getMessageDoc(), request.getInputDoc(), request.getAuditKeyValues());
+			}
+			else {
+				processor.processMessageAsynch(request.getMessage(), request.getInputDoc(), request.getAuditKeyValues());
+			}
+		}
+	}
+}
@@ -0,0 +1,563 @@
+package gemha.support;
+
+/**
+  * A compact, read-only model of an XML message: one flat table of its elements, in document order, holding
+  * only offsets into the original message text, so reading a message costs a handful of int arrays rather
+  * than a DOM of objects. Elements are looked up by index (see find()), and their text or markup taken from
+  * the original message only when asked for.
+  *
+  * Only plain XML is modelled: if a message uses namespaces, has a DTD, uses entities other than the five
+  * predefined and character references, or is not well-formed, parse() returns null, and the caller should
+  * use a DOM instead.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  *
+  * @Immutable
+  */
+public final class CompactMessage {
+
+	private static final int INITIAL_CAPACITY = 32;
+
+	private final String text;		// the original message
+
+	// One entry per element, in document order
+	private final int count;
+	private final int[] nameStart;		// offset of the element's name (just after '<')
+	private final int[] nameEnd;
+	private final int[] contentStart;	// offset just after the start tag
+	private final int[] contentEnd;		// offset of the end tag ('<' of "</"), = contentStart if empty-element tag
+	private final int[] markupStart;	// offset of '<' of the start tag
+	private final int[] markupEnd;		// offset just after the end tag
+	private final int[] parent;			// index of the parent element, -1 for the top-level element
+	private final int[] depth;			// 0 for the top-level element
+
+	private CompactMessage(String text, Parser parser) {
+		this.text = text;
+		this.count = parser.count;
+		this.nameStart = parser.nameStart;
+		this.nameEnd = parser.nameEnd;
+		this.contentStart = parser.contentStart;
+		this.contentEnd = parser.contentEnd;
+		this.markupStart = parser.markupStart;
+		this.markupEnd = parser.markupEnd;
+		this.parent = parser.parent;
+		this.depth = parser.depth;
+	}
+
+	/**
+	  * Read a message into a CompactMessage
+	  *
+	  * @param message the XML text
+	  * @return the message modelled, null if it cannot be (see class notes), so a DOM should be used instead
+	  */
+	public static CompactMessage parse(String message) {
+		Parser parser = new Parser(message);
+		if ( ! parser.parse()) {
+			return null;
+		}
+		return new CompactMessage(message, parser);
+	}
+
+	/**
+	  * @return the number of elements in the message
+	  */
+	public int getElementCount() {
+		return count;
+	}
+
+	/**
+	  * Find the first element, in document order, at a simple absolute path.
+	  *
+	  * @param segments the element names along the path, starting with the top-level element
+	  * @return the index of the element, -1 if none at that path
+	  */
+	public int find(String[] segments) {
+		int lastDepth = segments.length - 1;
+		int[] matchedAt = new int[segments.length];	// index of the element matched at each depth along the path so far
+		int matchedDepth = -1;						// deepest depth matched so far along the path
+
+		for (int i = 0; i < count; i++) {
+			int d = depth[i];
+			if (d > matchedDepth + 1 || d > lastDepth) { // not on the path as matched so far
+				continue;
+			}
+			if (d > 0 && parent[i] != matchedAt[d - 1]) {
+				continue;
+			}
+
+			if (nameEquals(i, segments[d])) {
+				if (d == lastDepth) {
+					return i;
+				}
+				matchedAt[d] = i;
+				matchedDepth = d;
+			}
+			else if (d <= matchedDepth) { // a sibling of one matched, so later descendants of that one are no longer on the path
+				matchedDepth = d - 1;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	  * @param index the index of an element
+	  * @return the name of the element
+	  */
+	public String getName(int index) {
+		return text.substring(nameStart[index], nameEnd[index]);
+	}
+
+	/**
+	  * @param index the index of an element
+	  * @return the depth of the element (0 for the top-level element)
+	  */
+	public int getDepth(int index) {
+		return depth[index];
+	}
+
+	/**
+	  * @param index the index of an element
+	  * @return the index of the element's parent, -1 for the top-level element
+	  */
+	public int getParent(int index) {
+		return parent[index];
+	}
+
+	/**
+	  * @param index the index of an element
+	  * @return the element, its start and end tags included, as in the original message
+	  */
+	public String getMarkup(int index) {
+		return text.substring(markupStart[index], markupEnd[index]);
+	}
+
+	/**
+	  * @param index the index of an element
+	  * @return all within the element, its start and end tags excluded, as in the original message
+	  */
+	public String getContentMarkup(int index) {
+		return text.substring(contentStart[index], contentEnd[index]);
+	}
+
+	/**
+	  * Get the text content of an element, as a DOM would: the text of the element and all its descendants,
+	  * with references resolved and CDATA sections unwrapped, but comments and processing instructions left out.
+	  *
+	  * @param index the index of an element
+	  * @return the text content, the empty string if none
+	  */
+	public String getTextContent(int index) {
+		int from = contentStart[index];
+		int to = contentEnd[index];
+
+		// Most often, a simple element holding plain text, so no need to copy
+		int plainEnd = from;
+		while (plainEnd < to && text.charAt(plainEnd) != '<' && text.charAt(plainEnd) != '&') {
+			plainEnd++;
+		}
+		if (plainEnd == to) {
+			return text.substring(from, to);
+		}
+
+		StringBuilder content = new StringBuilder(to - from);
+		int i = from;
+		while (i < to) {
+			char c = text.charAt(i);
+			if (c == '&') {
+				int semi = text.indexOf(';', i);
+				content.append(resolveReference(text, i + 1, semi));
+				i = semi + 1;
+			}
+			else if (c != '<') {
+				content.append(c);
+				i++;
+			}
+			else if (text.startsWith("<![CDATA[", i)) {
+				int close = text.indexOf("]]>", i);
+				content.append(text, i + 9, close);
+				i = close + 3;
+			}
+			else if (text.startsWith("<!--", i)) {
+				i = text.indexOf("-->", i) + 3;
+			}
+			else if (text.startsWith("<?", i)) {
+				i = text.indexOf("?>", i) + 2;
+			}
+			else { // a tag
+				i = endOfTag(text, i);
+			}
+		}
+		return content.toString();
+	}
+
+	private boolean nameEquals(int index, String name) {
+		int length = nameEnd[index] - nameStart[index];
+		return (length == name.length() && text.regionMatches(nameStart[index], name, 0, length));
+	}
+
+	/**
+	  * @return the offset just after the tag starting at from, allowing for '>' within attribute values
+	  */
+	private static int endOfTag(String text, int from) {
+		char quote = 0;
+		for (int i = from + 1; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			}
+			else if (c == '"' || c == '\'') {
+				quote = c;
+			}
+			else if (c == '>') {
+				return i + 1;
+			}
+		}
+		return text.length();
+	}
+
+	/**
+	  * @return the character(s) for the reference between & and ;, null if not a predefined or character reference
+	  */
+	private static String resolveReference(String text, int from, int to) {
+		if (to <= from) {
+			return null;
+		}
+		if (text.charAt(from) == '#') {
+			try {
+				int codePoint = (to > from + 1 && (text.charAt(from + 1) == 'x')
+								 ? Integer.parseInt(text.substring(from + 2, to), 16)
+								 : Integer.parseInt(text.substring(from + 1, to)));
+				return new String(Character.toChars(codePoint));
+			}
+			catch (IllegalArgumentException e) { // includes NumberFormatException
+				return null;
+			}
+		}
+
+		String name = text.substring(from, to);
+		if (name.equals("lt")) return "<";
+		if (name.equals("gt")) return ">";
+		if (name.equals("amp")) return "&";
+		if (name.equals("quot")) return "\"";
+		if (name.equals("apos")) return "'";
+		return null;
+	}
+
+	/**
+	  * Reads the message once, building the table of elements, and checking it is well-formed as it goes.
+	  */
+	private static final class Parser {
+		private final String text;
+		private final int length;
+		private int pos = 0;
+
+		private int count = 0;
+		private int[] nameStart = new int[INITIAL_CAPACITY];
+		private int[] nameEnd = new int[INITIAL_CAPACITY];
+		private int[] contentStart = new int[INITIAL_CAPACITY];
+		private int[] contentEnd = new int[INITIAL_CAPACITY];
+		private int[] markupStart = new int[INITIAL_CAPACITY];
+		private int[] markupEnd = new int[INITIAL_CAPACITY];
+		private int[] parent = new int[INITIAL_CAPACITY];
+		private int[] depth = new int[INITIAL_CAPACITY];
+
+		private int[] openElements = new int[INITIAL_CAPACITY];	// indexes of elements open, outermost first
+		private int openCount = 0;
+
+		private int[] attributeStart = new int[INITIAL_CAPACITY];	// offsets of the names of the attributes of the current tag
+		private int[] attributeEnd = new int[INITIAL_CAPACITY];
+
+		private Parser(String text) {
+			this.text = text;
+			this.length = text.length();
+		}
+
+		/**
+		  * @return true if the message was read, and is plain, well-formed XML
+		  */
+		private boolean parse() {
+			if (length > 0 && text.charAt(0) == '\uFEFF') { // byte order mark
+				pos = 1;
+			}
+
+			boolean rootSeen = false;
+			while (pos < length) {
+				char c = text.charAt(pos);
+
+				if (c != '<') {
+					if (openCount == 0) { // outside the top-level element, only whitespace allowed
+						if ( ! isWhitespace(c)) {
+							return false;
+						}
+						pos++;
+					}
+					else if ( ! skipText()) {
+						return false;
+					}
+				}
+				else if (text.startsWith("<!--", pos)) {
+					int close = text.indexOf("-->", pos + 4);
+					if (close < 0) {
+						return false;
+					}
+					pos = close + 3;
+				}
+				else if (text.startsWith("<?", pos)) {
+					int close = text.indexOf("?>", pos + 2);
+					if (close < 0) {
+						return false;
+					}
+					pos = close + 2;
+				}
+				else if (text.startsWith("<![CDATA[", pos)) {
+					int close = text.indexOf("]]>", pos + 9);
+					if (openCount == 0 || close < 0) {
+						return false;
+					}
+					pos = close + 3;
+				}
+				else if (text.startsWith("<!", pos)) { // e.g. DOCTYPE - leave to the DOM
+					return false;
+				}
+				else if (text.startsWith("</", pos)) {
+					if ( ! readEndTag()) {
+						return false;
+					}
+				}
+				else {
+					if (openCount == 0 && rootSeen) { // a second top-level element
+						return false;
+					}
+					if ( ! readStartTag()) {
+						return false;
+					}
+					rootSeen = true;
+				}
+			}
+
+			return (rootSeen && openCount == 0);
+		}
+
+		/**
+		  * Skip character data, checking references as we go.
+		  */
+		private boolean skipText() {
+			while (pos < length) {
+				char c = text.charAt(pos);
+				if (c == '<') {
+					return true;
+				}
+				if (c == '&') {
+					int semi = text.indexOf(';', pos);
+					if (semi < 0 || semi - pos > 12 || resolveReference(text, pos + 1, semi) == null) {
+						return false;
+					}
+					pos = semi + 1;
+				}
+				else if (c == '>' && text.startsWith("]]>", pos - 2)) { // not allowed in character data
+					return false;
+				}
+				else {
+					pos++;
+				}
+			}
+			return true;
+		}
+
+		private boolean readStartTag() {
+			int tagStart = pos;
+			pos++; // past '<'
+			int nStart = pos;
+			if ( ! readName()) {
+				return false;
+			}
+			int nEnd = pos;
+
+			// Attributes
+			int attributeCount = 0;
+			while (true) {
+				boolean spaced = skipWhitespace();
+				if (pos >= length) {
+					return false;
+				}
+				char c = text.charAt(pos);
+				if (c == '>' || c == '/') {
+					break;
+				}
+				if ( ! spaced) {
+					return false;
+				}
+
+				int aStart = pos;
+				if ( ! readName()) {
+					return false;
+				}
+				int aEnd = pos;
+				if (text.startsWith("xmlns", aStart) && (aEnd - aStart == 5)) { // default namespace declaration
+					return false;
+				}
+				for (int a = 0; a < attributeCount; a++) { // usually few, so just compare with each
+					if (attributeEnd[a] - attributeStart[a] == aEnd - aStart && text.regionMatches(attributeStart[a], text, aStart, aEnd - aStart)) {
+						return false; // duplicate attribute
+					}
+				}
+				if (attributeCount == attributeStart.length) {
+					attributeStart = grow(attributeStart, attributeCount * 2);
+					attributeEnd = grow(attributeEnd, attributeCount * 2);
+				}
+				attributeStart[attributeCount] = aStart;
+				attributeEnd[attributeCount] = aEnd;
+				attributeCount++;
+
+				skipWhitespace();
+				if (pos >= length || text.charAt(pos) != '=') {
+					return false;
+				}
+				pos++;
+				skipWhitespace();
+				if (pos >= length) {
+					return false;
+				}
+				char quote = text.charAt(pos);
+				if (quote != '"' && quote != '\'') {
+					return false;
+				}
+				pos++;
+				while (pos < length && text.charAt(pos) != quote) {
+					char v = text.charAt(pos);
+					if (v == '<') {
+						return false;
+					}
+					if (v == '&') {
+						int semi = text.indexOf(';', pos);
+						if (semi < 0 || semi - pos > 12 || resolveReference(text, pos + 1, semi) == null) {
+							return false;
+						}
+						pos = semi;
+					}
+					pos++;
+				}
+				if (pos >= length) {
+					return false;
+				}
+				pos++; // past closing quote
+			}
+
+			int index = addElement(tagStart, nStart, nEnd);
+
+			if (text.charAt(pos) == '/') { // empty-element tag
+				if (pos + 1 >= length || text.charAt(pos + 1) != '>') {
+					return false;
+				}
+				pos += 2;
+				contentStart[index] = pos;
+				contentEnd[index] = pos;
+				markupEnd[index] = pos;
+			}
+			else {
+				pos++; // past '>'
+				contentStart[index] = pos;
+				pushOpen(index);
+			}
+			return true;
+		}
+
+		private boolean readEndTag() {
+			int tagStart = pos;
+			pos += 2; // past "</"
+			int nStart = pos;
+			if (openCount == 0 || ! readName()) {
+				return false;
+			}
+			int nEnd = pos;
+			skipWhitespace();
+			if (pos >= length || text.charAt(pos) != '>') {
+				return false;
+			}
+			pos++;
+
+			int index = openElements[--openCount];
+			int nameLength = nameEnd[index] - nameStart[index];
+			if (nEnd - nStart != nameLength || ! text.regionMatches(nStart, text, nameStart[index], nameLength)) { // mismatched end tag
+				return false;
+			}
+
+			contentEnd[index] = tagStart;
+			markupEnd[index] = pos;
+			return true;
+		}
+
+		/**
+		  * Read an XML name (no namespace prefix allowed)
+		  */
+		private boolean readName() {
+			if (pos >= length || ! isNameStartChar(text.charAt(pos))) {
+				return false;
+			}
+			pos++;
+			while (pos < length && isNameChar(text.charAt(pos))) {
+				pos++;
+			}
+			return true;
+		}
+
+		private int addElement(int tagStart, int nStart, int nEnd) {
+			if (count == nameStart.length) {
+				int newCapacity = count * 2;
+				nameStart = grow(nameStart, newCapacity);
+				nameEnd = grow(nameEnd, newCapacity);
+				contentStart = grow(contentStart, newCapacity);
+				contentEnd = grow(contentEnd, newCapacity);
+				markupStart = grow(markupStart, newCapacity);
+				markupEnd = grow(markupEnd, newCapacity);
+				parent = grow(parent, newCapacity);
+				depth = grow(depth, newCapacity);
+			}
+
+			int index = count++;
+			markupStart[index] = tagStart;
+			nameStart[index] = nStart;
+			nameEnd[index] = nEnd;
+			parent[index] = (openCount == 0 ? -1 : openElements[openCount - 1]);
+			depth[index] = openCount;
+			return index;
+		}
+
+		private void pushOpen(int index) {
+			if (openCount == openElements.length) {
+				openElements = grow(openElements, openCount * 2);
+			}
+			openElements[openCount++] = index;
+		}
+
+		private boolean skipWhitespace() {
+			int from = pos;
+			while (pos < length && isWhitespace(text.charAt(pos))) {
+				pos++;
+			}
+			return (pos > from);
+		}
+
+		private static int[] grow(int[] array, int newCapacity) {
+			int[] grown = new int[newCapacity];
+			System.arraycopy(array, 0, grown, 0, array.length);
+			return grown;
+		}
+
+		private static boolean isWhitespace(char c) {
+			return (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+		}
+
+		private static boolean isNameStartChar(char c) {
+			return (Character.isLetter(c) || c == '_');
+		}
+
+		private static boolean isNameChar(char c) {
+			return (Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.');
+		}
+	}
+}
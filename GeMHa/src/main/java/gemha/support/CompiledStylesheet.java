@@ -0,0 +1,106 @@
+package gemha.support;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+
+/**
+  * An XSLT stylesheet compiled once, for transforming any number of messages with it.
+  *
+  * Compiled Templates are threadsafe, but a Transformer is not, so each thread is given its own Transformer,
+  * made once and reused for each message. A message may be transformed from a document already parsed (DOM),
+  * so it needn't be serialized first, or from its text.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  *
+  * @ThreadSafe
+  */
+public class CompiledStylesheet {
+
+	private final String stylesheetFileName;
+	private final Templates templates;
+
+	// Each thread's Transformer
+	private final ThreadLocal<Transformer> threadTransformer = new ThreadLocal<Transformer>();
+
+	/**
+	  * Constructor - compiles the stylesheet
+	  *
+	  * @param stylesheetFileName the name of the XSLT stylesheet file, path included
+	  *
+	  * @throws TransformerConfigurationException if the stylesheet could not be compiled
+	  */
+	public CompiledStylesheet(String stylesheetFileName) throws TransformerConfigurationException {
+		if (stylesheetFileName == null) throw new IllegalArgumentException("CompiledStylesheet: stylesheetFileName must be supplied.");
+
+		this.stylesheetFileName = stylesheetFileName;
+		this.templates = TransformerFactory.newInstance().newTemplates(new StreamSource(new File(stylesheetFileName)));
+	}
+
+	/**
+	  * Transform a document already parsed
+	  *
+	  * @param node any node of the document to be transformed (the whole document is transformed). Not changed
+	  *
+	  * @return the result of the transformation
+	  *
+	  * @throws TransformerException if the transformation failed
+	  */
+	public String transform(Node node) throws TransformerException {
+		Document doc = (node.getNodeType() == Node.DOCUMENT_NODE ? (Document) node : node.getOwnerDocument());
+		return transform(new DOMSource(doc));
+	}
+
+	/**
+	  * Transform a message from its text
+	  *
+	  * @param message the XML text to be transformed
+	  *
+	  * @return the result of the transformation
+	  *
+	  * @throws TransformerException if the transformation failed (e.g. message not well-formed)
+	  */
+	public String transform(String message) throws TransformerException {
+		return transform(new StreamSource(new StringReader(message)));
+	}
+
+	/**
+	  * Get helper method for stylesheetFileName
+	  *
+	  * @return the name of the XSLT stylesheet file, path included
+	  */
+	public String getStylesheetFileName() {
+		return stylesheetFileName;
+	}
+
+	private String transform(Source source) throws TransformerException {
+		Transformer transformer = threadTransformer.get();
+		if (transformer == null) { // first message on this thread
+			transformer = templates.newTransformer();
+			threadTransformer.set(transformer);
+		}
+
+		StringWriter result = new StringWriter();
+		try {
+			transformer.transform(source, new StreamResult(result));
+		}
+		finally {
+			transformer.reset(); // ready for the next message, even after a failure
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,197 @@
+package gemha.support;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+  * Reads a gzip or zip file, decompressing it as it's read, so it never needs to be decompressed to disk first.
+  *
+  * A zip file must hold just one file (directories are ignored), that file being read. Both are read through
+  * large buffers, so the inflater is fed, and the file read, in large blocks.
+  *
+  * The bytes decompressed, and the time spent reading and decompressing them, are counted, for throughput
+  * statistics (see getDecompressedBytes() and getReadNanos()).
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  *
+  * @NotThreadSafe
+  */
+public class DecompressingInputStream extends InputStream {
+
+	public static final String GZIP = "gzip";
+	public static final String ZIP = "zip";
+
+	public static final int BUFFER_SIZE = 256 * 1024;
+
+	private final String fileName;
+	private final String compression;
+	private final long compressedSize;
+	private final InputStream in;
+	private final ZipInputStream zipIn;		// the same stream as in, when reading a zip file
+
+	private long decompressedBytes = 0;
+	private long readNanos = 0;
+
+	/**
+	  * Find out whether a file is compressed, first from its extension, then from its first bytes.
+	  *
+	  * @param fileName the name of the file, path included
+	  * @return GZIP or ZIP, null if not compressed
+	  */
+	public static String compressionOf(String fileName)
+									throws IOException {
+		String lowerName = fileName.toLowerCase();
+		if (lowerName.endsWith(".gz") || lowerName.endsWith(".gzip")) {
+			return GZIP;
+		}
+		if (lowerName.endsWith(".zip")) {
+			return ZIP;
+		}
+
+		byte[] magic = new byte[4];
+		int magicLength = 0;
+		FileInputStream fileIn = new FileInputStream(fileName);
+		try {
+			int n = 0;
+			while (magicLength < magic.length && (n = fileIn.read(magic, magicLength, magic.length - magicLength)) > 0) {
+				magicLength += n;
+			}
+		}
+		finally {
+			fileIn.close();
+		}
+
+		if (magicLength >= 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+			return GZIP;
+		}
+		if (magicLength == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4) {
+			return ZIP;
+		}
+		return null;
+	}
+
+	/**
+	  * Open the file for decompressing.
+	  *
+	  * @param fileName the name of the file, path included
+	  * @param compression GZIP or ZIP (see compressionOf())
+	  */
+	public DecompressingInputStream(String fileName, String compression)
+									throws IOException {
+		if (fileName == null) throw new IllegalArgumentException("DecompressingInputStream: fileName must be supplied.");
+		if ( ! GZIP.equals(compression) && ! ZIP.equals(compression)) throw new IllegalArgumentException("DecompressingInputStream: compression must be gzip or zip, not " + compression);
+
+		this.fileName = fileName;
+		this.compression = compression;
+		this.compressedSize = new File(fileName).length();
+
+		InputStream fileIn = new BufferedInputStream(new FileInputStream(fileName), BUFFER_SIZE);
+		try {
+			if (GZIP.equals(compression)) {
+				this.in = new GZIPInputStream(fileIn, BUFFER_SIZE);
+				this.zipIn = null;
+			}
+			else {
+				this.zipIn = new ZipInputStream(fileIn);
+				this.in = zipIn;
+				if (nextZipFile() == null) {
+					throw new IOException("DecompressingInputStream: zip file " + fileName + " holds no file.");
+				}
+			}
+		}
+		catch(IOException e) {
+			fileIn.close();
+			throw e;
+		}
+	}
+
+	/**
+	  * Move on to the next file held in the zip file, skipping directories
+	  *
+	  * @return the entry for the file, null if no more
+	  */
+	private ZipEntry nextZipFile()
+							throws IOException {
+		ZipEntry entry = null;
+		while ((entry = zipIn.getNextEntry()) != null && entry.isDirectory()) {
+			// skip it
+		}
+		return entry;
+	}
+
+	@Override
+	public int read()
+				throws IOException {
+		byte[] one = new byte[1];
+		return (read(one, 0, 1) < 0 ? -1 : (one[0] & 0xFF));
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len)
+				throws IOException {
+		long start = System.nanoTime();
+		try {
+			int n = in.read(b, off, len);
+			if (n < 0 && zipIn != null) { // end of the zip's file, so there must be no other
+				ZipEntry other = nextZipFile();
+				if (other != null) {
+					throw new IOException("DecompressingInputStream: zip file " + fileName + " holds more than one file, including " + other.getName());
+				}
+			}
+			if (n > 0) {
+				decompressedBytes += n;
+			}
+			return n;
+		}
+		finally {
+			readNanos += System.nanoTime() - start;
+		}
+	}
+
+	@Override
+	public int available()
+				throws IOException {
+		return in.available();
+	}
+
+	@Override
+	public void close()
+				throws IOException {
+		in.close();
+	}
+
+	/**
+	  * @return GZIP or ZIP
+	  */
+	public String getCompression() {
+		return compression;
+	}
+
+	/**
+	  * @return the size of the compressed file, in bytes
+	  */
+	public long getCompressedSize() {
+		return compressedSize;
+	}
+
+	/**
+	  * @return the number of bytes decompressed so far
+	  */
+	public long getDecompressedBytes() {
+		return decompressedBytes;
+	}
+
+	/**
+	  * @return the time spent reading and decompressing so far, in nanoseconds
+	  */
+	public long getReadNanos() {
+		return readNanos;
+	}
+}
@@ -0,0 +1,242 @@
+package gemha.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import java.util.regex.Pattern;
+
+import org.w3c.dom.Node;
+
+import lw.XML.XMLTagValue;
+
+/**
+  * A list of elements to be copied from one XML document to another (e.g. SendElements, MindElements),
+  * compiled once from the settings so that nothing about the paths need be worked out again per message.
+  *
+  * Each Step holds its path already split into the path to its parent, and the path to its parent less
+  * the first element (used when the top-level element of the recipient document has a different name),
+  * along with the recipient's parent path under the configured top-level element name, if there is one.
+  * The special name "*" (copy all) is compiled to a Step of its own, and flagged on the plan.
+  *
+  * The elements to be copied from a source document are found together, in one walk over it (see findSourceNodes()),
+  * rather than searching the document from the top once per Step. Only Steps with simple absolute paths
+  * (e.g. /MESSAGE/DELV/ORD) can be found this way (see Step.isWalkable()); others are left to the caller.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  *
+  * @Immutable
+  */
+public final class ElementCopyPlan {
+
+	/** The special element name meaning "copy all" */
+	public static final String COPY_ALL = "*";
+
+	private static final Pattern SIMPLE_ABSOLUTE_PATH = Pattern.compile("(/[A-Za-z_][A-Za-z0-9_.\\-]*)+");
+
+	private final List<Step> steps;
+	private final boolean copyAll;
+	private final boolean anyWalkable;
+
+	/**
+	  * Constructor
+	  *
+	  * @param elementNames the paths of the elements to be copied, in order (can be null, for none)
+	  * @param recipientMainDocElementName the configured name of the recipient document's top-level element, null if not known until a message arrives
+	  */
+	public ElementCopyPlan(Enumeration<XMLTagValue> elementNames, String recipientMainDocElementName) {
+		List<Step> tempSteps = new ArrayList<Step>();
+		boolean tempCopyAll = false;
+		boolean tempAnyWalkable = false;
+
+		while (elementNames != null && elementNames.hasMoreElements()) {
+			Step step = new Step(elementNames.nextElement().getTagValue(), recipientMainDocElementName);
+			tempCopyAll |= step.isCopyAll();
+			tempAnyWalkable |= step.isWalkable();
+			tempSteps.add(step);
+		}
+
+		this.steps = Collections.unmodifiableList(tempSteps);
+		this.copyAll = tempCopyAll;
+		this.anyWalkable = tempAnyWalkable;
+	}
+
+	/**
+	  * Find the first occurrence of the element for each walkable Step, in one walk over the source document.
+	  * As with XMLDocument.setCurrentNodeByPath(path, 1), the first occurrence is the first in document order.
+	  *
+	  * @param topLevelElement the top-level element of the source document
+	  * @return the element found for each Step, in the order of getSteps(), null where not found or the Step is not walkable
+	  */
+	public Node[] findSourceNodes(Node topLevelElement) {
+		Node[] found = new Node[steps.size()];
+
+		if (anyWalkable && topLevelElement != null) {
+			List<String> currentPath = new ArrayList<String>();
+			int[] stillToFind = {0};
+			for (Step step : steps) {
+				if (step.isWalkable()) stillToFind[0]++;
+			}
+			walk(topLevelElement, currentPath, found, stillToFind);
+		}
+
+		return found;
+	}
+
+	/**
+	  * Match the given element, and then its child elements, against the Steps not yet found.
+	  * Children are only visited if some Step not yet found lies below the element.
+	  */
+	private void walk(Node element, List<String> currentPath, Node[] found, int[] stillToFind) {
+		currentPath.add(element.getNodeName());
+
+		boolean anyBelow = false;
+		for (int i = 0; i < found.length; i++) {
+			Step step = steps.get(i);
+			if (found[i] == null && step.isWalkable() && step.liesOnPath(currentPath)) {
+				if (step.segments.length == currentPath.size()) {
+					found[i] = element;
+					stillToFind[0]--;
+				}
+				else {
+					anyBelow = true;
+				}
+			}
+		}
+
+		for (Node child = element.getFirstChild(); anyBelow && stillToFind[0] > 0 && child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.ELEMENT_NODE) {
+				walk(child, currentPath, found, stillToFind);
+			}
+		}
+
+		currentPath.remove(currentPath.size() - 1);
+	}
+
+	/**
+	  * @return the Steps, in the order configured
+	  */
+	public List<Step> getSteps() {
+		return steps;
+	}
+
+	/**
+	  * @return true if "*" (copy all) is one of the Steps
+	  */
+	public boolean isCopyAll() {
+		return copyAll;
+	}
+
+	/**
+	  * @return true if there is nothing to copy
+	  */
+	public boolean isEmpty() {
+		return steps.isEmpty();
+	}
+
+	/**
+	  * One element to be copied, with its paths worked out.
+	  *
+	  * @Immutable
+	  */
+	public static final class Step {
+		private final String path;
+		private final boolean copyAll;
+		private final String pathToParent;					// null if element is top-level
+		private final String pathToParentLessFirstElement;	// null if element is top-level, or child of top-level
+		private final String recipientMainDocElementName;	// as configured, null if not known until a message arrives
+		private final String recipientPathToParent;			// parent path under recipientMainDocElementName, null if not known or no parent below top-level
+		private final String[] segments;					// the element names in the path, null if not a simple absolute path (see isWalkable())
+
+		private Step(String path, String recipientMainDocElementName) {
+			this.path = path;
+			this.copyAll = COPY_ALL.equals(path);
+
+			if (copyAll) {
+				this.pathToParent = null;
+				this.pathToParentLessFirstElement = null;
+			}
+			else {
+				XMLTagValue tempTagNoValue = new XMLTagValue(path, null); // just to help split out path, e.g. MESSAGE/DELV/ORD
+				this.pathToParent = tempTagNoValue.getPathToParent();
+				this.pathToParentLessFirstElement = tempTagNoValue.getPathToParentLessFirstElement();
+			}
+
+			this.recipientMainDocElementName = recipientMainDocElementName;
+			this.recipientPathToParent = buildRecipientPathToParent(recipientMainDocElementName);
+			this.segments = (path != null && SIMPLE_ABSOLUTE_PATH.matcher(path).matches() ? path.substring(1).split("/") : null);
+		}
+
+		/**
+		  * @return the path of the element in the source document ("*" for all)
+		  */
+		public String getPath() {
+			return path;
+		}
+
+		/**
+		  * @return true if this Step is "*" - copy all
+		  */
+		public boolean isCopyAll() {
+			return copyAll;
+		}
+
+		/**
+		  * @return true if the element can be found by ElementCopyPlan.findSourceNodes() (its path is simple and absolute)
+		  */
+		public boolean isWalkable() {
+			return (segments != null);
+		}
+
+		/**
+		  * @return true if currentPath is the element's path, or leads to it
+		  */
+		private boolean liesOnPath(List<String> currentPath) {
+			if (currentPath.size() > segments.length) {
+				return false;
+			}
+			for (int i = currentPath.size() - 1; i >= 0; i--) { // last segment most likely to differ
+				if ( ! segments[i].equals(currentPath.get(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		  * @return the path to the element's parent, null if the element is top-level
+		  */
+		public String getPathToParent() {
+			return pathToParent;
+		}
+
+		/**
+		  * @return the path to the element's parent less the first (top-level) element, null if the parent is top-level
+		  */
+		public String getPathToParentLessFirstElement() {
+			return pathToParentLessFirstElement;
+		}
+
+		/**
+		  * Get the path to the element's parent in the recipient document, whose top-level element may be named differently.
+		  *
+		  * @param recipientMainDocElementName the name of the recipient document's top-level element
+		  * @return the path, null if the parent would be the top-level element itself
+		  */
+		public String getRecipientPathToParent(String recipientMainDocElementName) {
+			if (recipientMainDocElementName != null && recipientMainDocElementName.equals(this.recipientMainDocElementName)) { // then worked out already
+				return recipientPathToParent;
+			}
+			return buildRecipientPathToParent(recipientMainDocElementName);
+		}
+
+		private String buildRecipientPathToParent(String recipientMainDocElementName) {
+			if (recipientMainDocElementName == null || pathToParentLessFirstElement == null) {
+				return null;
+			}
+			return "/" + recipientMainDocElementName + "/" + pathToParentLessFirstElement;
+		}
+	}
+}
@@ -1,1313 +1,2454 @@
-package gemha.support;
-
-import java.io.*;
-import java.lang.management.ManagementFactory;
-import java.util.logging.*;
-import java.util.*;
-
-import lw.utils.*;
-import lw.XML.*;
-
-/**
- * This class loads all the settings for the LwGenericMessageHandler
- * application.
- * 
- * @author Liam Wade
- * @version 1.0 07/11/2008
- * 
- * @ThreadSafe
- * 
- */
-public class GenericMessageHandlerSettings {
-
-	private static final Logger logger = Logger.getLogger("gemha");
-
-	
-	private final String externalShell;
-	private final String pid;						// The Proces ID of the Java VM running this
-													// instance
-	private final String ppid;						// The Proces ID of the Parent process of the
-													// Java VM running this instance
-
-	private final FileHandler fh ;
-	private final String shutDownLogFileName ;
-
-	private final String logFileName ;
-	private final String loggingLevel ;
-
-	private final int inputLimit;
-
-	// Queue names
-	private final String inputUrlJMSserver ;
-	private final String inputQueueName ;
-	private final int milliSecondsBeforeQuiet; // number of milliseconds
-													// we'll wait for a message
-													// before going quiet
-													// (closing down resources)
-	private final String inputDataFormat ;
-	private final XMLTagValue dataContractName ;
-	private final int portNumber; 					// port on which a socket server would listen
-	private final String outputUrlJMSserver ;
-	private final String outputQueueName ;
-	private final String replyToQueueName ;
-
-	// Server info for when outputting to HTTP
-	private final String HTTPServerUrl;
-	private final String HTTPEndPointName;
-	private final boolean HTTPWithBackoff;
-
-	// File names, if queues not being used
-	private final String inputFileNameFilter ;
-	private final String inputFileDir ;
-	private boolean sortFilteredFileNames = true;			// should input from a fileset be sorted on file name
-	private final String fieldSeparator ;
-	private final int maxRecsPerMessage; // number of records to add to a
-										// particular message, before starting a
-										// new message (when handling CSV
-										// file(s))
-	private final int numRecordsToSkip; // number of records to skip, before
-										// adding records to responses (when
-										// handling CSV file(s))
-	private final ArrayList<String> colNameList ; // the list of column names
-													// for naming XML tags (when
-													// handling CSV file(s))
-	private final String XMLFormat ; // signify the shape of XML to be created,
-										// for example possibly matching a
-										// database action (SELECT, INSERT)
-	private final String actionOnError ; // the action to be taken when the
-											// created INSERT fails - RESPOND or
-											// EXCEPTION
-	private final String preparedStatementName ; // the name of a Prepared
-													// Statement to use with the
-													// created INSERT
-	private final String immediateCommit ; // the setting for whether the
-											// created action should be
-											// immediately committed
-	private final String outputFileNameTemplate ; // an asterisk in the file
-													// name will be replaced by
-													// the audit key, a ? by
-													// "current date & time & sequence number"
-
-	// Input message Validation requirements
-	private final XMLTagValue inputValidationSettings ; // optional
-
-	// Message-Procesing class variables
-	private final String messageProcessingClassName ;
-	private final String messageProcessingSettingsFileName ;
-
-	private final int minResponsesExpected; // Minimum number of responses
-											// expected from the Processing
-											// Class 0..n, default = 1
-
-	// Names of TAGs in which audit keys will be found in messages
-	private final XMLTagValue auditKeysAggregate ; // if exists, will have an
-														// attribute to say what
-														// happens if a value is
-														// not found for an
-														// Audit key
-	private final Vector<XMLTagValue> auditKeyNamesSet ;
-	private final String auditKeysSeparator ; // if exists, will be used to
-												// separate values for
-												// concatenated audit keys
-	private final String errorFilesDir ; // if exists, will be the directory to
-											// which errored messages will be
-											// saved, when must be taken off
-											// queue
-	private final String errorFileNameTemplate ; // if exists, will be the
-													// template for building the
-													// filename for errored
-													// messages, when they must
-													// be taken off queue
-
-	// Name(s) of element(s) to be 'minded' and returned in response
-	private final Vector<XMLTagValue> mindElementSet ;
-	// Name(s) of element(s) to be sent to the processor Class
-	private final Vector<XMLTagValue> sendElementSet ;
-	// Name(s) of response literals - tags for which values will be set in the
-	// response
-	private final Vector<XMLTagValue> responseLiteralsSet ;
-
-	// wrapper aggregates, for target and response messages
-	private final String targetMainDocElementName ;
-	private final String responseMainDocElementName ;
-
-	/**
-	 * Will create a new exception with the given reason.
-	 * 
-	 * @param settingsFileName
-	 *            the name of the settings file, path included
-	 * @param settingsFileSchemaValidation
-	 *            the set to true to have the settings file validate against its
-	 *            Schema definition
-	 */
-	public GenericMessageHandlerSettings(String settingsFileName, boolean settingsFileSchemaValidation)
-			throws SettingsException {
-
-		
-		if (settingsFileName == null) {
-			throw new SettingsException(
-					"LwGenericMessageHandlerSettings.constructor(): Required parameter is null.");
-		}
-
-		// Note: Have to assign values to all final fields within the constructor
-		try {
-			String fileSeparator = System.getProperty("file.separator");
-			
-			XMLDocument settingsDoc = null;
-
-			settingsDoc = XMLDocument.createDocFromFile(settingsFileName,
-										settingsFileSchemaValidation);
-
-			// Get the name of the shell to call to execute external cammands
-			String tempExternalShell = settingsDoc.getValueForTag("Params/ExternalShell");
-			if (tempExternalShell == null) {
-				tempExternalShell = "sh";
-			}
-			
-			externalShell = tempExternalShell;
-
-			// Get the name of the class which will process messages, and a settings
-			// filename, if required...
-			messageProcessingClassName = settingsDoc
-					.getValueForTag("Processing/MessageProcessingClassName");
-			messageProcessingSettingsFileName = settingsDoc
-					.getValueForTag("Processing/MessageProcessingSettingsFileName");
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the Proces ID of the Parent process of the Java VM running this
-			// instance.
-			// For UNIX:
-			// This will only be available if supplied as a parameter in the java
-			// run command as "-Dppid=$$" and run from a shell
-			// e.g. /opt/java1.5/bin/java -Dppid=$$ -classpath .:../
-			// LwGenericMessageHandler
-			// ////////////////////////////////////////////////////////////////////////
-			ppid = System.getProperty("ppid"); // returns null if doesn't exist
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the Proces ID of the Java VM running this instance
-			// ////////////////////////////////////////////////////////////////////////
-			String tempPid = null;
-			try {
-				tempPid = getProcessID(externalShell);
-			} catch (IOException e) {
-				System.out.println("Couldn't get Process ID (log file not yet opened): caught IOException: " + e);
-			}
-			pid = tempPid;
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the number of messages to process before closing down...
-			// ////////////////////////////////////////////////////////////////////////
-			int tempInputLimit = 0;
-			String strInputLimit = settingsDoc
-					.getValueForTag("Input/InputSource/InputLimit");
-			if (strInputLimit != null) {
-				try {
-					tempInputLimit = Integer.parseInt(strInputLimit);
-				} catch (NumberFormatException e) {
-					throw new SettingsException(
-							"LwGenericMessageHandlerSettings.getSettings(): Invalid InputLimit.");
-				}
-
-				if (tempInputLimit < 1) {
-					throw new SettingsException(
-							"LwGenericMessageHandlerSettings.getSettings(): Invalid InputLimit. 0 not allowed");
-				}
-			}
-			inputLimit = tempInputLimit;
-
-			String tempInputDataFormat = settingsDoc.getValueForTag("Input/InputSource/DataFormat");
-			inputDataFormat = (tempInputDataFormat == null ? "XML" : tempInputDataFormat.toUpperCase());
-
-			dataContractName = settingsDoc
-					.getValueForTagPlusAttributes("Input/InputSource/DataContractName");
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the Queue names (these are mandatory in the XML schema, unless
-			// filenames are supplied in the stead)...
-			// ////////////////////////////////////////////////////////////////////////
-			inputUrlJMSserver = settingsDoc
-					.getValueForTag("Input/InputSource/InputQueue/UrlJMSserver");
-			inputQueueName = settingsDoc
-					.getValueForTag("Input/InputSource/InputQueue/QueueName");
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the number of milliseconds we'll wait for a message before going
-			// quiet (closing down resources)...
-			// ////////////////////////////////////////////////////////////////////////
-			int tempMilliSecondsBeforeQuiet = 3;
-			String strMilliSecondsBeforeQuiet = settingsDoc
-					.getValueForTag("Input/InputSource/InputQueue/MilliSecondsBeforeQuiet");
-			if (strMilliSecondsBeforeQuiet != null) {
-				try {
-					tempMilliSecondsBeforeQuiet = Integer
-							.parseInt(strMilliSecondsBeforeQuiet);
-				} catch (NumberFormatException e) {
-					throw new SettingsException(
-							"LwGenericMessageHandlerSettings.getSettings(): Invalid MilliSecondsBeforeQuiet.");
-				}
-
-				if (tempMilliSecondsBeforeQuiet < 1) {
-					throw new SettingsException(
-							"LwGenericMessageHandlerSettings.getSettings(): Invalid MilliSecondsBeforeQuiet. 0 not allowed");
-				}
-			}
-			milliSecondsBeforeQuiet = tempMilliSecondsBeforeQuiet;
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the port number for a socket server input scenario...
-			// ////////////////////////////////////////////////////////////////////////
-			int tempPortNumber = 0;
-			String strPortNumber = settingsDoc
-					.getValueForTag("Input/InputSource/InputSocket/PortNumber");
-			if (strPortNumber != null) {
-				try {
-					tempPortNumber = Integer.parseInt(strPortNumber);
-				} catch (NumberFormatException e) {
-					throw new SettingsException(
-							"LwGenericMessageHandlerSettings.getSettings(): Invalid PortNumber.");
-				}
-
-				if (tempPortNumber < 1) {
-					throw new SettingsException(
-							"LwGenericMessageHandlerSettings.getSettings(): Invalid PortNumber. 0 not allowed");
-				}
-			}
-			portNumber = tempPortNumber;
-
-
-			// Now get the output medium - file or queue
-			outputUrlJMSserver = settingsDoc
-					.getValueForTag("Output/OutputQueue/UrlJMSserver");
-			outputQueueName = settingsDoc
-					.getValueForTag("Output/OutputQueue/QueueName");
-			replyToQueueName = settingsDoc
-					.getValueForTag("Output/OutputQueue/ReplyToQueueName");
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the Input File info, if not inputting from MQ or Server Socket
-			// ////////////////////////////////////////////////////////////////////////
-			String tempInputFileNameFilter = null;
-			String tempInputFileDir = null;
-			if (inputQueueName == null && portNumber <= 0) {
-				tempInputFileNameFilter = settingsDoc
-						.getValueForTag("Input/InputSource/InputFile/FileNameFilter");
-				
-				tempInputFileDir = settingsDoc
-						.getValueForTag("Input/InputSource/InputFile/FileDir");
-
-				// Standardise format of inputFileDir
-				if (tempInputFileNameFilter != null) {
-					if (tempInputFileDir == null) { // then just set to current
-						tempInputFileDir = ".";
-					}
-		
-					if (tempInputFileDir.length() > 0 && !tempInputFileDir.endsWith(fileSeparator)) {
-						tempInputFileDir = tempInputFileDir + fileSeparator;
-					}
-
-					// Find out if we should include column names in the output file
-					String strSortFilteredFileNames = settingsDoc.getValueForTag("Input/InputSource/InputFile/SortFilteredFileNames");
-					if (strSortFilteredFileNames != null) {
-						sortFilteredFileNames = strSortFilteredFileNames.equals("true");
-					}
-
-				}
-				
-			}
-			inputFileNameFilter = tempInputFileNameFilter;
-			inputFileDir = tempInputFileDir;
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the Separator to be used between fields in the input record -
-			// default to tab char
-			// ////////////////////////////////////////////////////////////////////////
-			String tempFieldSeparator = null;
-			tempFieldSeparator = settingsDoc
-					.getValueForTag("Input/InputSource/InputFile/CSVParams/FieldSeparator");
-			if (tempFieldSeparator == null) {
-				tempFieldSeparator = "	"; // tab (\t doesn't work here!!!)
-			}
-			// replace escaped chars with literals, which will have been processed
-			// for escaping - variables are not so processed
-			if (tempFieldSeparator.length() > 1 && tempFieldSeparator.equals("\\t")) { // then
-																				// is
-																				// escaped
-																				// tab,
-																				// replace
-																				// with
-																				// actual
-																				// (had
-																				// to
-																				// escape
-																				// the
-																				// escape)...
-				tempFieldSeparator = "	"; // real tab (\t doesn't work here!!!
-										// Stringtokenizer (or my nextWord) don't
-										// parse "\t" as tab, though outputting to a
-										// file does!?!)
-			}
-			fieldSeparator = tempFieldSeparator;
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the maximum number of records to be included in one message when
-			// dealing with a CSV input file...
-			// ////////////////////////////////////////////////////////////////////////
-			int tempMaxRecsPerMessage = 1;
-			String strMaxRecsPerMessage = settingsDoc
-					.getValueForTag("Input/InputSource/InputFile/CSVParams/MaxRecsPerMessage");
-			if (strMaxRecsPerMessage != null) {
-				try {
-					tempMaxRecsPerMessage = Integer.parseInt(strMaxRecsPerMessage);
-				} catch (NumberFormatException e) {
-					throw new SettingsException(
-							"LwGenericMessageHandlerSettings.getSettings(): Invalid MaxRecsPerMessage.");
-				}
-
-				if (tempMaxRecsPerMessage < 1) {
-					throw new SettingsException(
-							"LwGenericMessageHandlerSettings.getSettings(): Invalid MaxRecsPerMessage. 0 not allowed");
-				}
-			}
-			maxRecsPerMessage = tempMaxRecsPerMessage;
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the number of records to skip (i.e. not process) when dealing
-			// with a CSV input file...
-			// ////////////////////////////////////////////////////////////////////////
-			int tempNumRecordsToSkip = 0;
-			String strNumRecordsToSkip = settingsDoc
-					.getValueForTag("Input/InputSource/InputFile/CSVParams/NumRecordsToSkip");
-			if (strNumRecordsToSkip != null) {
-				try {
-					tempNumRecordsToSkip = Integer.parseInt(strNumRecordsToSkip);
-				} catch (NumberFormatException e) {
-					throw new SettingsException(
-							"LwGenericMessageHandlerSettings.getSettings(): Invalid NumRecordsToSkip.");
-				}
-			}
-			numRecordsToSkip = tempNumRecordsToSkip;
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the input file column names (will actually be stored in the value
-			// part of the LwXMLTagValue - all Names will be "Column")
-			// This encapsulates the order in which the fields should appear in each
-			// record of the input file
-			// ////////////////////////////////////////////////////////////////////////
-			ArrayList<String> tempColNameList = null;
-			if (settingsDoc.setCurrentNodeByPath("/Input/InputSource/InputFile/CSVParams/ColumnOrder", 1)) {
-				Vector<XMLTagValue> paramColumns = settingsDoc
-						.getValuesForTagsChildren();
-
-				// Transfer column names to simple list
-				tempColNameList = new ArrayList<String>(paramColumns.size());
-				for (XMLTagValue p : paramColumns) {
-					tempColNameList.add(p.getTagValue());
-				}
-
-				settingsDoc.restoreCurrentNode();
-			}
-			colNameList = tempColNameList;
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get any INSERT settings, if we want to produce input conforming to an
-			// INSERT statement
-			// ////////////////////////////////////////////////////////////////////////
-			XMLFormat = settingsDoc
-					.getValueForTag("/Input/InputSource/InputFile/CSVParams/XMLFormat");
-			actionOnError = settingsDoc
-					.getValueForTag("/Input/InputSource/InputFile/CSVParams/InsertParams/Action_On_Error");
-			preparedStatementName = settingsDoc
-					.getValueForTag("/Input/InputSource/InputFile/CSVParams/InsertParams/Prepared_Statement_Name");
-			immediateCommit = settingsDoc
-					.getValueForTag("/Input/InputSource/InputFile/CSVParams/InsertParams/Immediate_Commit");
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the Input message Validation settings
-			//
-			// If SchemaDefinitionFileName doesn't exist, and SchemaValidation is
-			// "on", it is assumed the input message has the Schema details
-			// If SchemaDefinitionFileName does exist, it expected that the input
-			// message does NOT have the Schema details - an error will occur
-			// otherwise
-			// ////////////////////////////////////////////////////////////////////////
-			inputValidationSettings = settingsDoc
-					.getValueForTagPlusAttributes("Input/InputValidation");
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the Output File info, if not outputting to MQ
-			// ////////////////////////////////////////////////////////////////////////
-			String tempOutputFileNameTemplate = null;
-			if (outputQueueName == null) {
-				tempOutputFileNameTemplate = settingsDoc
-						.getValueForTag("Output/OutputFile/FileNameTemplate");
-			}
-			outputFileNameTemplate = tempOutputFileNameTemplate;
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the Output HTTP target info, if not outputting to File or MQ
-			// ////////////////////////////////////////////////////////////////////////
-			String tempHTTPServerUrl = null;
-			String tempHTTPEndPointName = null;
-			String tempHTTPWithBackoff = null;
-			if (outputQueueName == null || outputFileNameTemplate == null) {
-				tempHTTPServerUrl = settingsDoc
-						.getValueForTag("Output/OutputHTTP/ServerUrl");
-				tempHTTPEndPointName = settingsDoc
-						.getValueForTag("Output/OutputHTTP/EndPointName");
-				tempHTTPWithBackoff = settingsDoc
-						.getValueForTag("Output/OutputHTTP/HTTPWithBackoff");
-				
-			}
-			HTTPServerUrl = tempHTTPServerUrl;
-			HTTPEndPointName = tempHTTPEndPointName;
-			HTTPWithBackoff = (tempHTTPWithBackoff == null ? true : tempHTTPWithBackoff.toLowerCase().equals("true"));	// set default to true
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the Log files settings...
-			// ////////////////////////////////////////////////////////////////////////
-			String tempLogFileName = null;
-			String tempShutDownLogFileName = null;
-			String logFileDir = settingsDoc
-					.getValueForTag("Logging/LogFileDir");
-			tempLogFileName = settingsDoc
-					.getValueForTag("Logging/LogFileNameTemplate");
-			tempShutDownLogFileName = settingsDoc
-					.getValueForTag("Logging/ShutDownLogFileNameTemplate");
-
-			if (logFileDir == null) {
-				logFileDir = ".";
-			}
-
-			if (tempLogFileName == null) {
-				tempLogFileName = "LwGenericMessageHandler.log";
-			}
-
-			if (tempShutDownLogFileName == null) {
-				tempShutDownLogFileName = "LwGenericMessageHandler_shutdown.log";
-			}
-
-			if (logFileDir.length() > 0 && !logFileDir.endsWith(fileSeparator)) {
-				logFileDir = logFileDir + fileSeparator;
-			}
-
-			// Create the actual log filename, replacing placeholders from the
-			// template
-			Properties replacementSet = new Properties();
-			if (messageProcessingClassName != null) {
-				replacementSet.put("*", messageProcessingClassName);
-			}
-			if (pid != null) {
-				replacementSet.put("$", pid);
-			}
-			replacementSet.put("?", "[%datetime%]");
-			replacementSet.put("#", "[%seqno%]");
-			logFileName = LwLogger.createStringFromTemplate(logFileDir
-					+ tempLogFileName, replacementSet);
-
-
-			shutDownLogFileName = LwLogger.createStringFromTemplate(logFileDir
-					+ tempShutDownLogFileName, replacementSet);
-
-			
-			String tempLoggingLevel = settingsDoc
-					.getValueForTag("Logging/Level/GeneralLoggingLevel");
-			// GeneralLoggingLevel may not exist, and EnvironmentLoggingLevel can be
-			// used instead
-			if (tempLoggingLevel == null) {
-				String environmentLoggingLevel = settingsDoc
-						.getValueForTag("Logging/Level/EnvironmentLoggingLevel");
-				if (environmentLoggingLevel != null) {
-					if (environmentLoggingLevel.equals("Development")) {
-						tempLoggingLevel = "FINER";
-					} else if (environmentLoggingLevel.equals("Test")) {
-						tempLoggingLevel = "FINE";
-					} else if (environmentLoggingLevel.equals("Production")) {
-						tempLoggingLevel = "CONFIG";
-					}
-				}
-			}
-			loggingLevel = tempLoggingLevel;
-			
-			logger.config("Log file is " + logFileName);
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get Processing parameters...
-			// ////////////////////////////////////////////////////////////////////////
-			// Got the name of the class which will process messages earlier,
-			// because
-			// wanted to use it in log-file name.
-			int tempMinResponsesExpected = 1;
-			String strMinResponsesExpected = settingsDoc
-					.getValueForTag("Processing/MinResponsesExpected");
-			if (strMinResponsesExpected != null) {
-				try {
-					tempMinResponsesExpected = Integer
-							.parseInt(strMinResponsesExpected);
-				} catch (NumberFormatException e) {
-					throw new SettingsException(
-							"LwGenericMessageHandlerSettings.getSettings(): Invalid MinResponsesExpected.");
-				}
-
-				if (tempMinResponsesExpected < 0) {
-					throw new SettingsException(
-							"LwGenericMessageHandlerSettings.getSettings(): Invalid MinResponsesExpected. Less than 0 not allowed");
-				}
-			}
-			minResponsesExpected = tempMinResponsesExpected;
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the values for ALL Audit KeyName TAGs, if exist...
-			// ////////////////////////////////////////////////////////////////////////
-			auditKeysAggregate = settingsDoc.getValueForTagPlusAttributes("Auditing/AuditKeys");
-			auditKeyNamesSet = settingsDoc.getValuesForTag("Auditing/AuditKeys/KeyName");
-			auditKeysSeparator = settingsDoc.getValueForTag("Auditing/AuditKeysSeparator");
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the settings for error files, if exist, setting defaults, if
-			// necessary...
-			// ////////////////////////////////////////////////////////////////////////
-			String tempErrorFilesDir = settingsDoc
-					.getValueForTag("Auditing/ErrorFiles/ErrorFilesDir");
-			String tempErrorFileNameTemplate = settingsDoc
-					.getValueForTag("Auditing/ErrorFiles/ErrorFileNameTemplate");
-
-			if (tempErrorFileNameTemplate == null) {
-				tempErrorFileNameTemplate = "ErrorMessage_*_?.txt";
-			}
-			// make sure errorFilesDir ends with slash...
-			if (tempErrorFilesDir != null && tempErrorFilesDir.length() > 0
-					&& !tempErrorFilesDir.endsWith(fileSeparator)) {
-				tempErrorFilesDir = tempErrorFilesDir + fileSeparator;
-			}
-			
-			if (tempErrorFilesDir != null) {
-				tempErrorFileNameTemplate = tempErrorFilesDir + tempErrorFileNameTemplate;
-			}
-			errorFilesDir = tempErrorFilesDir;
-			errorFileNameTemplate = tempErrorFileNameTemplate;
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the values for ALL MindElements TAGs, if they exist...
-			// (These are to be returned as part of the response.)
-			// ////////////////////////////////////////////////////////////////////////
-			mindElementSet = settingsDoc.getValuesForTag("Processing/MindElements/ElementName");
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the values for ALL SendElements TAGs, if they exist...
-			// ////////////////////////////////////////////////////////////////////////
-			sendElementSet = settingsDoc.getValuesForTag("Processing/SendElements/ElementName");
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the value for wrapper aggregates, for target and response
-			// messages.
-			// Schema ensures defaults supplied, so will never be null...
-			// ////////////////////////////////////////////////////////////////////////
-			targetMainDocElementName = settingsDoc.getValueForTag("Processing/TargetMainDocElementName");
-
-			responseMainDocElementName = settingsDoc.getValueForTag("Processing/ResponseMainDocElementName");
-
-			// ////////////////////////////////////////////////////////////////////////
-			// Get the values for ALL ResponseLiterals TAGs, if they exist...
-			// ////////////////////////////////////////////////////////////////////////
-			responseLiteralsSet = settingsDoc.getValuesForTag("Processing/ResponseLiterals/ResponseLiteral");
-
-		} catch (XMLException e) {
-			throw new SettingsException("LwGenericMessageHandlerSettings.constructor(): caught LwXMLException: " + e);
-		}
-
-		fh = setUpLoggingToFile();
-		recordSettings();
-	}
-
-	/**
-	 * Get helper method for pid
-	 * 
-	 * @return the pid for this instance
-	 */
-	public String getPid() {
-		return pid;
-	}
-
-	/**
-	 * Get helper method for ppid
-	 * 
-	 * @return the parent pid for this instance
-	 */
-	public String getPpid() {
-		return ppid;
-	}
-
-	/**
-	 * Get helper method for shutDownLogFileName
-	 * 
-	 * @return the shutDownLogFileName
-	 */
-	public String getShutDownLogFileName() {
-		return shutDownLogFileName;
-	}
-
-	/**
-	 * Get helper method for inputLimit
-	 * 
-	 * @return the inputLimit
-	 */
-	public int getInputLimit() {
-		return inputLimit;
-	}
-
-	/**
-	 * Get helper method for inputUrlJMSserver
-	 * 
-	 * @return the inputUrlJMSserver
-	 */
-	public String getInputUrlJMSserver() {
-		return inputUrlJMSserver;
-	}
-
-	/**
-	 * Get helper method for inputQueueName
-	 * 
-	 * @return the inputQueueName
-	 */
-	public String getInputQueueName() {
-		return inputQueueName;
-	}
-
-	/**
-	 * Get helper method for milliSecondsBeforeQuiet
-	 * 
-	 * @return the number of milliseconds we'll wait for a message before going
-	 *         quiet (closing down resources)
-	 */
-	public int getMilliSecondsBeforeQuiet() {
-		return milliSecondsBeforeQuiet;
-	}
-
-	/**
-	 * Get helper method for socket server portNumber
-	 * 
-	 * @return the socket server portNumber, if we're inputting over a socket
-	 */
-	public int getPortNumber() {
-		return portNumber;
-	}
-
-	/**
-	 * Get helper method for inputDataFormat
-	 * 
-	 * @return the inputDataFormat
-	 */
-	public String getInputDataFormat() {
-		return inputDataFormat;
-	}
-
-	/**
-	 * This returns the format in which the data will be presented to the
-	 * Message Handler (not necessarily the same as the inputDataFormat)
-	 * 
-	 * @return the format in which the data will be presented to the Message
-	 *         Handler (not necessarily the same as the inputDataFormat)
-	 */
-	public String getConvertedInputDataFormat() {
-		if (inputDataFormat != null && inputDataFormat.equals("CSV")) {
-			return "XML";
-		} else {
-			return inputDataFormat;
-		}
-	}
-
-	/**
-	 * Get helper method for dataContractName
-	 * 
-	 * @return the dataContractName
-	 */
-	public XMLTagValue getDataContractName() {
-		return dataContractName;
-	}
-
-	/**
-	 * Get helper method for outputUrlJMSserver
-	 * 
-	 * @return the outputUrlJMSserver
-	 */
-	public String getOutputUrlJMSserver() {
-		return outputUrlJMSserver;
-	}
-
-	/**
-	 * Get helper method for outputQueueName
-	 * 
-	 * @return the outputQueueName
-	 */
-	public String getOutputQueueName() {
-		return outputQueueName;
-	}
-
-	/**
-	 * Get helper method for replyToQueueName
-	 * 
-	 * @return the replyToQueueName
-	 */
-	public String getReplyToQueueName() {
-		return replyToQueueName;
-	}
-
-	/**
-	 * Get helper method for inputFileNameFilter
-	 * 
-	 * @return the inputFileNameFilter
-	 */
-	public String getInputFileNameFilter() {
-		return inputFileNameFilter;
-	}
-
-	/**
-	 * Get helper method for HTTPServerUrl
-	 * 
-	 * @return the HTTPServerUrl
-	 */
-	public String getHTTPServerUrl() {
-		return HTTPServerUrl;
-	}
-
-	/**
-	 * Get helper method for HTTPEndPointName
-	 * 
-	 * @return the HTTPEndPointName
-	 */
-	public String getHTTPEndPointName() {
-		return HTTPEndPointName;
-	}
-	/**
-	 * Get helper method for HTTPWithBackoff
-	 * 
-	 * @return the HTTPWithBackoff
-	 */
-	public boolean getHTTPWithBackoff() {
-		return HTTPWithBackoff;
-	}
-	
-	/**
-	 * Get helper method for inputFileDir
-	 * 
-	 * @return the inputFileDir
-	 */
-	public String getInputFileDir() {
-		return inputFileDir;
-	}
-
-	/**
-	  * Get helper method for File Names sorting when input is from a fileset
-	  *
-	  * @return true if the list of File Names are to be sorted before processing
-	  */
-	public boolean sortFilteredFileNames() {
-			return sortFilteredFileNames;
-	}
-
-	/**
-	 * Get helper method for FieldSeparator
-	 * 
-	 * @return the FieldSeparator
-	 */
-	public String getFieldSeparator() {
-		return fieldSeparator;
-	}
-
-	/**
-	 * Get helper method for maxRecsPerMessage
-	 * 
-	 * @return the maxRecsPerMessage
-	 */
-	public int getMaxRecsPerMessage() {
-		return maxRecsPerMessage;
-	}
-
-	/**
-	 * Get helper method for numRecordsToSkip
-	 * 
-	 * @return the numRecordsToSkip
-	 */
-	public int getNumRecordsToSkip() {
-		return numRecordsToSkip;
-	}
-
-	/**
-	 * Get helper method for getting the list of column names for an input CSV
-	 * file
-	 * 
-	 * @return a copy of the colNameList
-	 */
-	public ArrayList<String> getColNameList() {
-		// Shallow copy OK here, as Strings immutable
-		// Collections.copy(dest, src) would also work here - it gives a shallow copy
-		// (dest must be at least as big as src, else IndexOutOfBoundsException)
-		return (colNameList == null ? null : new ArrayList<String>(colNameList));
-	}
-
-	/**
-	 * Get helper method for XMLFormat
-	 * 
-	 * @return the format the XML should take e.g SELECT, INSERT
-	 */
-	public String getXMLFormat() {
-		return XMLFormat;
-	}
-
-	/**
-	 * Get helper method for actionOnError
-	 * 
-	 * @return the action to be taken when the created INSERT fails - RESPOND or
-	 *         EXCEPTION
-	 */
-	public String getActionOnError() {
-		return actionOnError;
-	}
-
-	/**
-	 * Get helper method for preparedStatementName
-	 * 
-	 * @return the name of a Prepared Statement to use with the created INSERT
-	 */
-	public String getPreparedStatementName() {
-		return preparedStatementName;
-	}
-
-	/**
-	 * Get helper method for immediateCommit
-	 * 
-	 * @return the setting for whether the created action should be immediately
-	 *         committed
-	 */
-	public String getImmediateCommit() {
-		return immediateCommit;
-	}
-
-	/**
-	 * Get helper method for outputFileNameTemplate
-	 * 
-	 * @return the outputFileNameTemplate
-	 */
-	public String getOutputFileNameTemplate() {
-		return outputFileNameTemplate;
-	}
-
-	/**
-	 * Get helper method for inputValidationSettings
-	 * 
-	 * (LwXMLTagValue is immutable)
-	 * 
-	 * @return the inputValidationSettings
-	 */
-	public XMLTagValue getInputValidationSettings() {
-		return inputValidationSettings;
-	}
-
-	/**
-	 * Get helper method for messageProcessingClassName
-	 * 
-	 * @return the messageProcessingClassName
-	 */
-	public String getMessageProcessingClassName() {
-		return messageProcessingClassName;
-	}
-
-	/**
-	 * Get helper method for messageProcessingSettingsFileName
-	 * 
-	 * @return the messageProcessingSettingsFileName
-	 */
-	public String getMessageProcessingSettingsFileName() {
-		return messageProcessingSettingsFileName;
-	}
-
-	/**
-	 * Get helper method for minResponsesExpected
-	 * 
-	 * @return the minResponsesExpected
-	 */
-	public int getMinResponsesExpected() {
-		return minResponsesExpected;
-	}
-
-	/**
-	 * Get helper method for auditKeysAggregate
-	 * 
-	 * (LwXMLTagValue is immutable)
-	 * 
-	 * @return the auditKeysAggregate
-	 */
-	public XMLTagValue getAuditKeysAggregate() {
-		return auditKeysAggregate;
-	}
-
-	/**
-	 * Get helper method for auditKeyNamesSet
-	 * 
-	 * (LwXMLTagValue is immutable)
-	 * 
-	 * @return an enumeration of the auditKeyNamesSet
-	 */
-	public Enumeration<XMLTagValue> getAuditKeyNamesSet() {
-		if (auditKeyNamesSet == null) { // return an empty enumeration
-			return (new Vector<XMLTagValue>()).elements();
-		} else {
-			return auditKeyNamesSet.elements();
-		}
-	}
-
-	/**
-	 * Get helper method for auditKeysSeparator
-	 * 
-	 * @return the auditKeysSeparator
-	 */
-	public String getAuditKeysSeparator() {
-		return auditKeysSeparator;
-	}
-
-	/**
-	 * Get helper method for errorFilesDir
-	 * 
-	 * @return the errorFilesDir
-	 */
-	public String getErrorFilesDir() {
-		return errorFilesDir;
-	}
-
-	/**
-	 * Get helper method for errorFileNameTemplate
-	 * 
-	 * @return the errorFileNameTemplate
-	 */
-	public String getErrorFileNameTemplate() {
-		return errorFileNameTemplate;
-	}
-
-	/**
-	 * Get helper method for mindElementSet
-	 * 
-	 * (LwXMLTagValue is immutable)
-	 * 
-	 * @return an enumeration of the mindElementSet
-	 */
-	public Enumeration<XMLTagValue> getMindElementSet() {
-		if (mindElementSet == null) { // return an empty enumeration
-			return (new Vector<XMLTagValue>()).elements();
-		} else {
-			return mindElementSet.elements();
-		}
-	}
-
-	/**
-	 * Get helper method for sendElementSet
-	 * 
-	 * (LwXMLTagValue is immutable)
-	 * 
-	 * @return an enumeration of the sendElementSet
-	 */
-	public Enumeration<XMLTagValue> getSendElementSet() {
-		if (sendElementSet == null) { // return an empty enumeration
-			return (new Vector<XMLTagValue>()).elements();
-		} else {
-			return sendElementSet.elements();
-		}
-	}
-
-	/**
-	 * Get helper method for responseLiteralsSet
-	 * 
-	 * (LwXMLTagValue is immutable)
-	 * 
-	 * @return an enumeration of the responseLiteralsSet
-	 */
-	public Enumeration<XMLTagValue> getResponseLiteralsSet() {
-		if (responseLiteralsSet == null) { // return an empty enumeration
-			return (new Vector<XMLTagValue>()).elements();
-		} else {
-			return responseLiteralsSet.elements();
-		}
-	}
-
-	/**
-	 * Get helper method for targetMainDocElementName
-	 * 
-	 * @return the targetMainDocElementName
-	 */
-	public String getTargetMainDocElementName() {
-		return targetMainDocElementName;
-	}
-
-	/**
-	 * Get helper method for responseMainDocElementName
-	 * 
-	 * @return the responseMainDocElementName
-	 */
-	public String getResponseMainDocElementName() {
-		return responseMainDocElementName;
-	}
-
-	/**
-	 * Get the Proces ID of the Java VM running this instance. Note, this
-	 * returned nothing when was a public static method in the LwLogger class!
-	 * 
-	 * @param externalShell
-	 *            the shell to use to get the ID.
-	 * 
-	 * @return the pid
-	 */
-	private String getProcessID(String externalShell) throws IOException {
-
-		// First try this trick (returns something like "12345@localhost")...
-		String runtimeMXBean = ManagementFactory.getRuntimeMXBean().getName();
-		if (runtimeMXBean != null) {
-			String[] runtimeMXBeanSplit = runtimeMXBean.split("@");
-			String JVMpid = runtimeMXBeanSplit[0];
-			return JVMpid;
-		}
-
-		// If no luck with ManagementFactory method above, try this...
-		if (externalShell == null) {
-			return null;
-		}
-
-		// ////////////////////////////////////////////////////////////////////////
-		// Get the Proces ID of the Java VM running this instance
-		// ////////////////////////////////////////////////////////////////////////
-		byte[] bo = new byte[100];
-		String[] cmd = { externalShell, "-c", "echo $PPID" };
-		Process p = Runtime.getRuntime().exec(cmd);
-		p.getInputStream().read(bo);
-
-		return (new String(bo)).trim();
-	}
-
-	/**
-	 * Record the settings in the log. Call this AFTER assigning any
-	 * filehandler(s) to the Logger.
-	 * 
-	 */
-	private FileHandler setUpLoggingToFile() throws SettingsException {
-		FileHandler fh = null;
-		try {
-			fh = new FileHandler(logFileName, true);
-			// Change default format from XML records (XMLFormatter) to
-			// "easy-read"
-			fh.setFormatter(new SimpleFormatter());
-
-		} catch (IOException e) {
-			throw new SettingsException(
-					"LwGenericMessageHandlerSettings.setUpLoggingToFile(): Couldn't open log file "
-							+ logFileName + ": " + e);
-		}
-
-		// Send logger output to our FileHandler.
-		logger.addHandler(fh);
-
-		// Set startup level from settings file
-		if (loggingLevel == null) { // set default loggingLevel (production
-									// level)
-			logger.setLevel(Level.CONFIG);
-		} else {
-			try {
-				logger.setLevel(Level.parse(loggingLevel));
-			} catch (Exception e) {
-				throw new SettingsException(
-						"LwGenericMessageHandlerSettings.setUpLoggingToFile(): Invalid LogLevel in settings file! "
-								+ e);
-			}
-		}
-		
-		return fh;
-	}
-
-	/**
-	 * Record the settings in the log. Call this AFTER assigning any
-	 * filehandler(s) to the Logger.
-	 * 
-	 */
-	private void recordSettings() {
-		Level logLevel = logger.getLevel();
-		logger.config("Log Level initialised to " + logLevel.getName());
-
-		logger.config("Shut-Down Log file is " + shutDownLogFileName);
-
-		// Display the Proces ID of the Parent process of the Java VM running
-		// this instance
-		logger.config("Parent Process ID is "
-				+ (ppid == null ? "unknown" : ppid));
-
-		// Get and display the Proces ID of the Java VM running this instance
-		logger.config("Process ID (of Java VM) is "
-				+ (pid == null ? "unknown" : pid));
-
-		// Record the queue info, if exists
-		if (inputQueueName != null) {
-			logger.config("Input Queue is " + inputQueueName);
-			logger.config("MilliSecondsBeforeQuiet "
-					+ milliSecondsBeforeQuiet);
-		} else if (portNumber > 0) {
-			logger.config("Socket Server Port Number is " + portNumber);
-		} else if (inputFileNameFilter != null) {
-			logger.config("Input FileName Filter is " + inputFileNameFilter);
-			logger.config("Input Files Directory is "
-					+ (inputFileDir.equals(".") ? "the current one"
-							: inputFileDir));
-			logger.config("Input from a fileset will " + (sortFilteredFileNames ? "" : "NOT ") + "be sorted on filename.");
-			logger.config("Field Separator (for CSV files) is "
-					+ fieldSeparator);
-			logger.config("Max records per input message (for CSV files) is "
-					+ maxRecsPerMessage);
-			logger.config("Number of records to skip (for CSV files) is "
-					+ numRecordsToSkip);
-			logger.config("XMLFormat is " + XMLFormat);
-			if (XMLFormat != null && XMLFormat.equals("INSERT")) {
-				logger.config("ActionOnError is " + actionOnError);
-				logger.config("PreparedStatementName is "
-						+ preparedStatementName);
-				logger.config("ImmediateCommit is " + immediateCommit);
-			}
-		} else { // Will expect input-supplying object to be specified in the Constructor of LwGenericMessageHandler
-			logger.config("Will expect input-supplying object to be specified in the Constructor of LwGenericMessageHandler");
-		}
-
-		if (inputLimit > 0) {
-			logger.config("Input Limit set to " + inputLimit);
-		}
-
-		if (inputUrlJMSserver != null) {
-			logger.config("Input JMS URL is " + inputUrlJMSserver);
-		}
-
-		if (outputQueueName != null) {
-			logger.config("Output Queue is " + outputQueueName);
-		} else if (outputFileNameTemplate != null) {
-			logger.config("Output FileName Template is "
-					+ outputFileNameTemplate);
-		}
-
-		if (outputUrlJMSserver != null) {
-			logger.config("Output JMS URL is " + outputUrlJMSserver);
-		}
-
-		if (replyToQueueName != null) {
-			logger.config("ReplyTo Queue is " + replyToQueueName);
-		}
-
-		if (HTTPServerUrl != null) {
-			logger.config("HTTP ServerUrl is " + HTTPServerUrl);
-		}
-
-		if (HTTPEndPointName != null) {
-			logger.config("HTTP EndPointName is " + HTTPEndPointName);
-		}
-
-		logger.config("HTTP Post will " + (HTTPWithBackoff ? "" : "NOT") + " back off incrementally when trying to connect");
-		
-		// Record expected Data Contract Name, if exists
-		if (dataContractName != null) {
-			logger.config("Will only accept messages with Data Contract Name="
-					+ dataContractName.getTagValue());
-			logger.config("For Data Contract Name, ActionOnError is "
-					+ dataContractName.getAttributeValue("ActionOnError"));
-		}
-
-		// Record Validation settings, if any set
-		if (inputValidationSettings != null) {
-			String schemaValidation = inputValidationSettings
-					.getAttributeValue("SchemaValidation");
-
-			logger.config("Input message Schema Validation is "
-					+ schemaValidation);
-
-			String schemaDefinitionFileName = inputValidationSettings
-					.getAttributeValue("SchemaDefinitionFileName");
-
-			if (schemaDefinitionFileName != null) {
-				logger.config("Input message Validation will "
-						+ (schemaValidation == null
-								|| schemaValidation.equals("off") ? "not " : "")
-						+ "be performed against file "
-						+ schemaDefinitionFileName
-						+ "(language="
-						+ inputValidationSettings
-								.getAttributeValue("SchemaLanguage")
-						+ ") and no Schema specification expected in message");
-			}
-		}
-
-		// Record how we are to process a message
-		logger.config("MessageProcessingClassName is "
-				+ messageProcessingClassName);
-
-		if (minResponsesExpected >= 0) {
-			logger.config(minResponsesExpected
-					+ " or more Response(s) expected/allowed from Processing class "
-					+ messageProcessingClassName);
-		}
-
-		// Record what to do if Audit Keys missing from a message
-		if (auditKeysAggregate != null) {
-			logger.config("When an Audit key is missing from a message, perform the action: "
-					+ auditKeysAggregate.getAttributeValue("ActionOnError"));
-		}
-
-		// Record Audit key Names, if exist
-		Enumeration<XMLTagValue> enumAuditKeyNames = auditKeyNamesSet
-				.elements();
-		while (enumAuditKeyNames.hasMoreElements()) {
-			XMLTagValue tv = enumAuditKeyNames.nextElement();
-			logger.info("Found Audit KeyName Tag at " + tv.getPathToName()
-					+ " Value=" + tv.getTagValue());
-		}
-
-		// Record Error file settings, if exist
-		if (errorFilesDir != null) {
-			logger.config("Error files will be placed in directory "
-					+ errorFilesDir);
-		}
-
-		logger.config("Error files will be named according to the following template: "
-				+ errorFileNameTemplate);
-
-		// Record 'mind' aggregate Names, if exist
-		Enumeration<XMLTagValue> enumMindAggNames = mindElementSet.elements();
-		while (enumMindAggNames.hasMoreElements()) {
-			XMLTagValue tv = enumMindAggNames.nextElement();
-			logger.info("Found 'Mind' Element Tag at " + tv.getPathToName()
-					+ " Value=" + tv.getTagValue());
-		}
-
-		// Record 'send' aggregate Names
-		Enumeration<XMLTagValue> enumSendAggNames = sendElementSet.elements();
-		while (enumSendAggNames.hasMoreElements()) {
-			XMLTagValue tv = enumSendAggNames.nextElement();
-			logger.info("Found Send Element Tag at " + tv.getPathToName()
-					+ " Value=" + tv.getTagValue());
-		}
-
-		logger.config("TargetMainDocElementName is " + targetMainDocElementName);
-		logger.config("ResponseMainDocElementName is "
-				+ responseMainDocElementName);
-
-		// Record response literal Names, if exist
-		Enumeration<XMLTagValue> enumRespLiteralNames = responseLiteralsSet
-				.elements();
-		while (enumRespLiteralNames.hasMoreElements()) {
-			XMLTagValue tv = enumRespLiteralNames.nextElement();
-			logger.info("Found Response Literal Tag at " + tv.getPathToName()
-					+ " Value=" + tv.getTagValue());
-		}
-	}
-
-	/**
-	 * Release any resources being retained by this object.
-	 * This won't affect thread safety as is only to be called at closedown. 
-	 * 
-	 */
-	public void releaseResourses() {
-		logger.removeHandler(fh);
-		fh.close();
-	}
-
+package gemha.support;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.logging.*;
+import java.util.*;
+
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.xml.sax.SAXException;
+
+import lw.utils.*;
+import lw.XML.*;
+
+/**
+ * This class loads all the settings for the LwGenericMessageHandler
+ * application.
+ * 
+ * @author Liam Wade
+ * @version 1.0 07/11/2008
+ * 
+ * @ThreadSafe
+ * 
+ */
+public class GenericMessageHandlerSettings {
+
+	private static final Logger logger = Logger.getLogger("gemha");
+
+	
+	private final String externalShell;
+	private final String pid;						// The Proces ID of the Java VM running this
+													// instance
+	private final String ppid;						// The Proces ID of the Parent process of the
+													// Java VM running this instance
+
+	private final FileHandler fh ;
+	private boolean resourcesReleased = false;				// set once fh closed, as releaseResourses() may be called more than once at closedown
+	private final String shutDownLogFileName ;
+
+	private final String logFileName ;
+	private final String loggingLevel ;
+
+	private final int inputLimit;
+
+	// Queue names
+	private final String inputUrlJMSserver ;
+	private final String inputQueueName ;
+	private final int milliSecondsBeforeQuiet; // number of milliseconds
+													// we'll wait for a message
+													// before going quiet
+													// (closing down resources)
+	private final String inputDataFormat ;
+	private final XMLTagValue dataContractName ;
+	private final int portNumber; 					// port on which a socket server would listen
+	private final String outputUrlJMSserver ;
+	private final String outputQueueName ;
+	private final String replyToQueueName ;
+
+	// Server info for when outputting to HTTP
+	private final String HTTPServerUrl;
+	private final String HTTPEndPointName;
+	private final boolean HTTPWithBackoff;
+
+	// File names, if queues not being used
+	private final String inputFileNameFilter ;
+	private final String inputFileDir ;
+	private boolean sortFilteredFileNames = true;			// should input from a fileset be sorted on file name
+	private int parallelFileReaders = 1;					// number of files from a fileset to be read and converted at the same time
+	private String inputFileWatchDoneDir = null;			// if the input directory is to be watched for files, the directory to move them to once processed
+	private int inputFileWatchPollIntervalMillis = 1000;	// how often to look in a watched input directory
+	private String csvCheckpointFileName = null;			// if CSV input is to be checkpointed, the file in which to keep the checkpoint
+	private int csvCheckpointSyncIntervalMillis = 1000;	// how often, at most, to write the checkpoint file (0 = on every consume)
+	private final String fieldSeparator ;
+	private final int maxRecsPerMessage; // number of records to add to a
+										// particular message, before starting a
+										// new message (when handling CSV
+										// file(s))
+	private final int numRecordsToSkip; // number of records to skip, before
+										// adding records to responses (when
+										// handling CSV file(s))
+	private final boolean memoryMappedCSVReader; // true if CSV file(s) are to be
+										// read through memory-mapped regions
+										// (see MappedCSVReader)
+	private final ArrayList<String> colNameList ; // the list of column names
+													// for naming XML tags (when
+													// handling CSV file(s))
+	private final String XMLFormat ; // signify the shape of XML to be created,
+										// for example possibly matching a
+										// database action (SELECT, INSERT)
+	private final String actionOnError ; // the action to be taken when the
+											// created INSERT fails - RESPOND or
+											// EXCEPTION
+	private final String preparedStatementName ; // the name of a Prepared
+													// Statement to use with the
+													// created INSERT
+	private final String immediateCommit ; // the setting for whether the
+											// created action should be
+											// immediately committed
+	private final String outputFileNameTemplate ; // an asterisk in the file
+													// name will be replaced by
+													// the audit key, a ? by
+													// "current date & time & sequence number"
+	private final boolean outputFilePrettyPrint ; // true if XML is to be re-parsed and pretty-printed to file, default = false (written as is)
+	private final boolean outputFileCheckWellFormed ; // true if XML written as is is first checked to be well-formed, default = false
+
+	// Input message Validation requirements
+	private final XMLTagValue inputValidationSettings ; // optional
+	private final SchemaCache inputSchemaCache ; // the SchemaDefinitionFileName compiled, null if no validation against a file
+	private final int inputValidationSampleOneIn ; // validate only 1 in every n messages, default = 1 (all)
+
+	// Message-Procesing class variables
+	private final String messageProcessingClassName ;
+	private final String messageProcessingSettingsFileName ;
+
+	private final int minResponsesExpected; // Minimum number of responses
+											// expected from the Processing
+											// Class 0..n, default = 1
+
+	private final int concurrency; // Number of messages the Processing Class
+									// may work on at the same time 1..n,
+									// default = 1. Responses are still
+									// acknowledged in the order received.
+
+	private final boolean threadPerMessage; // true if the Processing Class and
+											// HTTP responder are to run each
+											// message on its own thread
+	private final int maxInFlight; // max messages on their own threads at the
+									// same time, default = 100
+
+	private final boolean ringBuffer; // true if messages and responses are to be
+										// handed to/from a single worker through
+										// lock-free ring buffers
+	private final int ringBufferSize; // slots in each ring, a power of 2,
+										// default = 1024
+	private final RingBuffer.WaitStrategy ringBufferWaitStrategy; // default = PARK
+
+	private final boolean adaptiveConcurrency; // true if messages in flight at the
+												// Processing Class are to be limited
+												// adaptively, by latency
+	private final int adaptiveMinLimit; // lowest in-flight limit, default = 1
+	private final int adaptiveMaxLimit; // highest in-flight limit, default = 20
+	private final int adaptiveLatencyTolerancePercent; // latency above this % of
+														// the lowest means overload,
+														// default = 200
+
+	private final int partitionLanes; // if > 0, the number of single-threaded
+										// lanes onto which messages will be
+										// partitioned by key, 0 = not partitioned
+	private final String partitionKeySource ; // "AuditKeys" or "XPath"
+	private final String partitionKeyXPath ; // the XPath expression yielding the
+											// partition key, if KeySource is XPath
+
+	private final boolean pipelined; // true if incoming messages are to be handled
+										// in a staged read-ahead pipeline
+	private final int pipelineStageThreads; // threads per pipeline stage 1..n,
+											// default = 1
+	private final int pipelineQueueCapacity; // capacity of the hand-off queue
+												// after each stage, default = 100
+
+	private final boolean responseQueueBounded; // true if ResponseQueue limits supplied
+	private final int responseQueueMaxResponses; // max responses awaiting
+												// collection, default = 1000
+	private final long responseQueueMaxBytes; // max approximate bytes of responses
+												// awaiting collection, 0 = unbounded
+	private final int responseQueueHighWatermarkPercent; // pause accepting at this
+														// % of either max, default = 90
+	private final int responseQueueLowWatermarkPercent; // resume accepting at this
+														// % of both max, default = 70
+
+	private final boolean batched; // true if messages are to be handed to the
+									// Processing Class in batches
+	private final int batchMaxMessages; // max messages per batch, default = 100
+	private final long batchMaxWaitMilliSeconds; // max time a message may wait
+												// for its batch to fill, default = 100
+
+	// Names of TAGs in which audit keys will be found in messages
+	private final XMLTagValue auditKeysAggregate ; // if exists, will have an
+														// attribute to say what
+														// happens if a value is
+														// not found for an
+														// Audit key
+	private final Vector<XMLTagValue> auditKeyNamesSet ;
+	private final String auditKeysSeparator ; // if exists, will be used to
+												// separate values for
+												// concatenated audit keys
+	private final String errorFilesDir ; // if exists, will be the directory to
+											// which errored messages will be
+											// saved, when must be taken off
+											// queue
+	private final String errorFileNameTemplate ; // if exists, will be the
+													// template for building the
+													// filename for errored
+													// messages, when they must
+													// be taken off queue
+
+	// Name(s) of element(s) to be 'minded' and returned in response
+	private final Vector<XMLTagValue> mindElementSet ;
+	// Name(s) of element(s) to be sent to the processor Class
+	private final Vector<XMLTagValue> sendElementSet ;
+	// Name(s) of response literals - tags for which values will be set in the
+	// response
+	private final Vector<XMLTagValue> responseLiteralsSet ;
+	// responseMainDocElementName and responseLiteralsSet, compiled once into a
+	// response skeleton, null if responses must always be built by DOM
+	private final ResponseTemplate responseTemplate ;
+
+	// XSLT stylesheets, compiled once, to transform the target and response
+	// messages, null if not to be transformed
+	private final CompiledStylesheet targetStylesheet ;
+	private final CompiledStylesheet responseStylesheet ;
+
+	// wrapper aggregates, for target and response messages
+	private final String targetMainDocElementName ;
+	private final String responseMainDocElementName ;
+
+	// mindElementSet and sendElementSet, compiled once into plans for copying them
+	private final ElementCopyPlan mindElementPlan ;
+	private final ElementCopyPlan sendElementPlan ;
+
+	// auditKeyNamesSet and dataContractName, compiled once for finding their values
+	private final MessageHeaderExtractor messageHeaderExtractor ;
+
+	private final boolean streamingTargetBuilder ; // true if the target message is to be
+													// built by streaming the input, where
+													// possible, default = false (DOM)
+	private final boolean compactTargetBuilder ; // true if, instead of streaming, a compact
+													// model of the input is to be read, default = false
+
+	/**
+	 * Will create a new exception with the given reason.
+	 * 
+	 * @param settingsFileName
+	 *            the name of the settings file, path included
+	 * @param settingsFileSchemaValidation
+	 *            the set to true to have the settings file validate against its
+	 *            Schema definition
+	 */
+	public GenericMessageHandlerSettings(String settingsFileName, boolean settingsFileSchemaValidation)
+			throws SettingsException {
+
+		
+		if (settingsFileName == null) {
+			throw new SettingsException(
+					"LwGenericMessageHandlerSettings.constructor(): Required parameter is null.");
+		}
+
+		// Note: Have to assign values to all final fields within the constructor
+		try {
+			String fileSeparator = System.getProperty("file.separator");
+			
+			XMLDocument settingsDoc = null;
+
+			settingsDoc = XMLDocument.createDocFromFile(settingsFileName,
+										settingsFileSchemaValidation);
+
+			// Get the name of the shell to call to execute external cammands
+			String tempExternalShell = settingsDoc.getValueForTag("Params/ExternalShell");
+			if (tempExternalShell == null) {
+				tempExternalShell = "sh";
+			}
+			
+			externalShell = tempExternalShell;
+
+			// Get the name of the class which will process messages, and a settings
+			// filename, if required...
+			messageProcessingClassName = settingsDoc
+					.getValueForTag("Processing/MessageProcessingClassName");
+			messageProcessingSettingsFileName = settingsDoc
+					.getValueForTag("Processing/MessageProcessingSettingsFileName");
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the Proces ID of the Parent process of the Java VM running this
+			// instance.
+			// For UNIX:
+			// This will only be available if supplied as a parameter in the java
+			// run command as "-Dppid=$$" and run from a shell
+			// e.g. /opt/java1.5/bin/java -Dppid=$$ -classpath .:../
+			// LwGenericMessageHandler
+			// ////////////////////////////////////////////////////////////////////////
+			ppid = System.getProperty("ppid"); // returns null if doesn't exist
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the Proces ID of the Java VM running this instance
+			// ////////////////////////////////////////////////////////////////////////
+			String tempPid = null;
+			try {
+				tempPid = getProcessID(externalShell);
+			} catch (IOException e) {
+				System.out.println("Couldn't get Process ID (log file not yet opened): caught IOException: " + e);
+			}
+			pid = tempPid;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the number of messages to process before closing down...
+			// ////////////////////////////////////////////////////////////////////////
+			int tempInputLimit = 0;
+			String strInputLimit = settingsDoc
+					.getValueForTag("Input/InputSource/InputLimit");
+			if (strInputLimit != null) {
+				try {
+					tempInputLimit = Integer.parseInt(strInputLimit);
+				} catch (NumberFormatException e) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid InputLimit.");
+				}
+
+				if (tempInputLimit < 1) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid InputLimit. 0 not allowed");
+				}
+			}
+			inputLimit = tempInputLimit;
+
+			String tempInputDataFormat = settingsDoc.getValueForTag("Input/InputSource/DataFormat");
+			inputDataFormat = (tempInputDataFormat == null ? "XML" : tempInputDataFormat.toUpperCase());
+
+			dataContractName = settingsDoc
+					.getValueForTagPlusAttributes("Input/InputSource/DataContractName");
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the Queue names (these are mandatory in the XML schema, unless
+			// filenames are supplied in the stead)...
+			// ////////////////////////////////////////////////////////////////////////
+			inputUrlJMSserver = settingsDoc
+					.getValueForTag("Input/InputSource/InputQueue/UrlJMSserver");
+			inputQueueName = settingsDoc
+					.getValueForTag("Input/InputSource/InputQueue/QueueName");
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the number of milliseconds we'll wait for a message before going
+			// quiet (closing down resources)...
+			// ////////////////////////////////////////////////////////////////////////
+			int tempMilliSecondsBeforeQuiet = 3;
+			String strMilliSecondsBeforeQuiet = settingsDoc
+					.getValueForTag("Input/InputSource/InputQueue/MilliSecondsBeforeQuiet");
+			if (strMilliSecondsBeforeQuiet != null) {
+				try {
+					tempMilliSecondsBeforeQuiet = Integer
+							.parseInt(strMilliSecondsBeforeQuiet);
+				} catch (NumberFormatException e) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid MilliSecondsBeforeQuiet.");
+				}
+
+				if (tempMilliSecondsBeforeQuiet < 1) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid MilliSecondsBeforeQuiet. 0 not allowed");
+				}
+			}
+			milliSecondsBeforeQuiet = tempMilliSecondsBeforeQuiet;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the port number for a socket server input scenario...
+			// ////////////////////////////////////////////////////////////////////////
+			int tempPortNumber = 0;
+			String strPortNumber = settingsDoc
+					.getValueForTag("Input/InputSource/InputSocket/PortNumber");
+			if (strPortNumber != null) {
+				try {
+					tempPortNumber = Integer.parseInt(strPortNumber);
+				} catch (NumberFormatException e) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid PortNumber.");
+				}
+
+				if (tempPortNumber < 1) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid PortNumber. 0 not allowed");
+				}
+			}
+			portNumber = tempPortNumber;
+
+
+			// Now get the output medium - file or queue
+			outputUrlJMSserver = settingsDoc
+					.getValueForTag("Output/OutputQueue/UrlJMSserver");
+			outputQueueName = settingsDoc
+					.getValueForTag("Output/OutputQueue/QueueName");
+			replyToQueueName = settingsDoc
+					.getValueForTag("Output/OutputQueue/ReplyToQueueName");
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the Input File info, if not inputting from MQ or Server Socket
+			// ////////////////////////////////////////////////////////////////////////
+			String tempInputFileNameFilter = null;
+			String tempInputFileDir = null;
+			if (inputQueueName == null && portNumber <= 0) {
+				tempInputFileNameFilter = settingsDoc
+						.getValueForTag("Input/InputSource/InputFile/FileNameFilter");
+				
+				tempInputFileDir = settingsDoc
+						.getValueForTag("Input/InputSource/InputFile/FileDir");
+
+				// Standardise format of inputFileDir
+				if (tempInputFileNameFilter != null) {
+					if (tempInputFileDir == null) { // then just set to current
+						tempInputFileDir = ".";
+					}
+		
+					if (tempInputFileDir.length() > 0 && !tempInputFileDir.endsWith(fileSeparator)) {
+						tempInputFileDir = tempInputFileDir + fileSeparator;
+					}
+
+					// Find out if we should include column names in the output file
+					String strSortFilteredFileNames = settingsDoc.getValueForTag("Input/InputSource/InputFile/SortFilteredFileNames");
+					if (strSortFilteredFileNames != null) {
+						sortFilteredFileNames = strSortFilteredFileNames.equals("true");
+					}
+
+					// Find out how many files should be read at the same time
+					String strParallelReaders = settingsDoc.getValueForTag("Input/InputSource/InputFile/ParallelReaders");
+					if (strParallelReaders != null) {
+						try {
+							parallelFileReaders = Integer.parseInt(strParallelReaders);
+						} catch (NumberFormatException e) {
+							throw new SettingsException(
+									"LwGenericMessageHandlerSettings.getSettings(): Invalid ParallelReaders.");
+						}
+
+						if (parallelFileReaders < 1) {
+							throw new SettingsException(
+									"LwGenericMessageHandlerSettings.getSettings(): Invalid ParallelReaders. 0 not allowed");
+						}
+					}
+
+					// Find out if the directory should be watched for files arriving
+					XMLTagValue watchSettings = settingsDoc.getValueForTagPlusAttributes("Input/InputSource/InputFile/Watch");
+					if (watchSettings != null) {
+						String tempDoneDir = watchSettings.getAttributeValue("DoneDir");
+						if (tempDoneDir == null) {
+							throw new SettingsException(
+									"LwGenericMessageHandlerSettings.getSettings(): Invalid Watch. DoneDir must be supplied");
+						}
+						if (tempDoneDir.length() > 0 && !tempDoneDir.endsWith(fileSeparator)) {
+							tempDoneDir = tempDoneDir + fileSeparator;
+						}
+						inputFileWatchDoneDir = tempDoneDir;
+
+						String strPollIntervalMillis = watchSettings.getAttributeValue("PollIntervalMillis");
+						if (strPollIntervalMillis != null) {
+							try {
+								inputFileWatchPollIntervalMillis = Integer.parseInt(strPollIntervalMillis);
+							} catch (NumberFormatException e) {
+								throw new SettingsException(
+										"LwGenericMessageHandlerSettings.getSettings(): Invalid Watch PollIntervalMillis.");
+							}
+
+							if (inputFileWatchPollIntervalMillis < 1) {
+								throw new SettingsException(
+										"LwGenericMessageHandlerSettings.getSettings(): Invalid Watch PollIntervalMillis. 0 not allowed");
+							}
+						}
+
+						if (parallelFileReaders > 1) {
+							throw new SettingsException(
+									"LwGenericMessageHandlerSettings.getSettings(): Invalid Watch. Not allowed with ParallelReaders greater than 1");
+						}
+					}
+
+				}
+				
+			}
+			inputFileNameFilter = tempInputFileNameFilter;
+			inputFileDir = tempInputFileDir;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the Separator to be used between fields in the input record -
+			// default to tab char
+			// ////////////////////////////////////////////////////////////////////////
+			String tempFieldSeparator = null;
+			tempFieldSeparator = settingsDoc
+					.getValueForTag("Input/InputSource/InputFile/CSVParams/FieldSeparator");
+			if (tempFieldSeparator == null) {
+				tempFieldSeparator = "	"; // tab (\t doesn't work here!!!)
+			}
+			// replace escaped chars with literals, which will have been processed
+			// for escaping - variables are not so processed
+			if (tempFieldSeparator.length() > 1 && tempFieldSeparator.equals("\\t")) { // then
+																				// is
+																				// escaped
+																				// tab,
+																				// replace
+																				// with
+																				// actual
+																				// (had
+																				// to
+																				// escape
+																				// the
+																				// escape)...
+				tempFieldSeparator = "	"; // real tab (\t doesn't work here!!!
+										// Stringtokenizer (or my nextWord) don't
+										// parse "\t" as tab, though outputting to a
+										// file does!?!)
+			}
+			fieldSeparator = tempFieldSeparator;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the maximum number of records to be included in one message when
+			// dealing with a CSV input file...
+			// ////////////////////////////////////////////////////////////////////////
+			int tempMaxRecsPerMessage = 1;
+			String strMaxRecsPerMessage = settingsDoc
+					.getValueForTag("Input/InputSource/InputFile/CSVParams/MaxRecsPerMessage");
+			if (strMaxRecsPerMessage != null) {
+				try {
+					tempMaxRecsPerMessage = Integer.parseInt(strMaxRecsPerMessage);
+				} catch (NumberFormatException e) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid MaxRecsPerMessage.");
+				}
+
+				if (tempMaxRecsPerMessage < 1) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid MaxRecsPerMessage. 0 not allowed");
+				}
+			}
+			maxRecsPerMessage = tempMaxRecsPerMessage;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the number of records to skip (i.e. not process) when dealing
+			// with a CSV input file...
+			// ////////////////////////////////////////////////////////////////////////
+			int tempNumRecordsToSkip = 0;
+			String strNumRecordsToSkip = settingsDoc
+					.getValueForTag("Input/InputSource/InputFile/CSVParams/NumRecordsToSkip");
+			if (strNumRecordsToSkip != null) {
+				try {
+					tempNumRecordsToSkip = Integer.parseInt(strNumRecordsToSkip);
+				} catch (NumberFormatException e) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid NumRecordsToSkip.");
+				}
+			}
+			numRecordsToSkip = tempNumRecordsToSkip;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the reader to be used for CSV input files - Buffered (default)
+			// or MemoryMapped...
+			// ////////////////////////////////////////////////////////////////////////
+			String strCSVReader = settingsDoc
+					.getValueForTag("Input/InputSource/InputFile/CSVParams/Reader");
+			if (strCSVReader == null || strCSVReader.equals("Buffered")) {
+				memoryMappedCSVReader = false;
+			} else if (strCSVReader.equals("MemoryMapped")) {
+				if ( ! MappedCSVReader.supports(Charset.defaultCharset(), fieldSeparator)) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid Reader. MemoryMapped needs an ASCII FieldSeparator, and a default charset of UTF-8, US-ASCII, ISO-8859-n or windows-125n, not "
+									+ Charset.defaultCharset().name());
+				}
+				memoryMappedCSVReader = true;
+			} else {
+				throw new SettingsException(
+						"LwGenericMessageHandlerSettings.getSettings(): Invalid Reader. Must be Buffered or MemoryMapped");
+			}
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Find out if CSV input is to be checkpointed, so a restart can resume
+			// where the last run left off...
+			// ////////////////////////////////////////////////////////////////////////
+			XMLTagValue checkpointSettings = settingsDoc.getValueForTagPlusAttributes("Input/InputSource/InputFile/CSVParams/Checkpoint");
+			if (checkpointSettings != null) {
+				String tempCheckpointFileName = checkpointSettings.getAttributeValue("FileName");
+				if (tempCheckpointFileName == null || tempCheckpointFileName.length() == 0) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid Checkpoint. FileName must be supplied");
+				}
+
+				String strSyncIntervalMillis = checkpointSettings.getAttributeValue("SyncIntervalMillis");
+				if (strSyncIntervalMillis != null) {
+					try {
+						csvCheckpointSyncIntervalMillis = Integer.parseInt(strSyncIntervalMillis);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid Checkpoint SyncIntervalMillis.");
+					}
+
+					if (csvCheckpointSyncIntervalMillis < 0) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid Checkpoint SyncIntervalMillis. Must not be negative");
+					}
+				}
+
+				if ( ! memoryMappedCSVReader) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid Checkpoint. Only allowed with Reader MemoryMapped");
+				}
+				if (parallelFileReaders > 1) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid Checkpoint. Not allowed with ParallelReaders greater than 1");
+				}
+				if (inputFileWatchDoneDir != null) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid Checkpoint. Not allowed with Watch");
+				}
+				csvCheckpointFileName = tempCheckpointFileName;
+			}
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the input file column names (will actually be stored in the value
+			// part of the LwXMLTagValue - all Names will be "Column")
+			// This encapsulates the order in which the fields should appear in each
+			// record of the input file
+			// ////////////////////////////////////////////////////////////////////////
+			ArrayList<String> tempColNameList = null;
+			if (settingsDoc.setCurrentNodeByPath("/Input/InputSource/InputFile/CSVParams/ColumnOrder", 1)) {
+				Vector<XMLTagValue> paramColumns = settingsDoc
+						.getValuesForTagsChildren();
+
+				// Transfer column names to simple list
+				tempColNameList = new ArrayList<String>(paramColumns.size());
+				for (XMLTagValue p : paramColumns) {
+					tempColNameList.add(p.getTagValue());
+				}
+
+				settingsDoc.restoreCurrentNode();
+			}
+			colNameList = tempColNameList;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get any INSERT settings, if we want to produce input conforming to an
+			// INSERT statement
+			// ////////////////////////////////////////////////////////////////////////
+			XMLFormat = settingsDoc
+					.getValueForTag("/Input/InputSource/InputFile/CSVParams/XMLFormat");
+			actionOnError = settingsDoc
+					.getValueForTag("/Input/InputSource/InputFile/CSVParams/InsertParams/Action_On_Error");
+			preparedStatementName = settingsDoc
+					.getValueForTag("/Input/InputSource/InputFile/CSVParams/InsertParams/Prepared_Statement_Name");
+			immediateCommit = settingsDoc
+					.getValueForTag("/Input/InputSource/InputFile/CSVParams/InsertParams/Immediate_Commit");
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the Input message Validation settings
+			//
+			// If SchemaDefinitionFileName doesn't exist, and SchemaValidation is
+			// "on", it is assumed the input message has the Schema details
+			// If SchemaDefinitionFileName does exist, it expected that the input
+			// message does NOT have the Schema details - an error will occur
+			// otherwise
+			// ////////////////////////////////////////////////////////////////////////
+			inputValidationSettings = settingsDoc
+					.getValueForTagPlusAttributes("Input/InputValidation");
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Compile the Schema definition once, if validating against a file, and
+			// get how many messages to validate...
+			// ////////////////////////////////////////////////////////////////////////
+			SchemaCache tempInputSchemaCache = null;
+			int tempInputValidationSampleOneIn = 1;
+			if (inputValidationSettings != null && "on".equals(inputValidationSettings.getAttributeValue("SchemaValidation"))) {
+				String schemaDefinitionFileName = inputValidationSettings.getAttributeValue("SchemaDefinitionFileName");
+				if (schemaDefinitionFileName != null) {
+					try {
+						tempInputSchemaCache = new SchemaCache(schemaDefinitionFileName, inputValidationSettings.getAttributeValue("SchemaLanguage"));
+					} catch (SAXException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid InputValidation SchemaDefinitionFileName " + schemaDefinitionFileName + " : " + e.getMessage());
+					} catch (IllegalArgumentException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid InputValidation SchemaLanguage " + inputValidationSettings.getAttributeValue("SchemaLanguage"));
+					}
+				}
+
+				String strSampleOneIn = inputValidationSettings.getAttributeValue("SampleOneIn");
+				if (strSampleOneIn != null) {
+					try {
+						tempInputValidationSampleOneIn = Integer.parseInt(strSampleOneIn);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid InputValidation SampleOneIn.");
+					}
+
+					if (tempInputValidationSampleOneIn < 1) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid InputValidation SampleOneIn. Less than 1 not allowed");
+					}
+				}
+			}
+			inputSchemaCache = tempInputSchemaCache;
+			inputValidationSampleOneIn = tempInputValidationSampleOneIn;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the Output File info, if not outputting to MQ
+			// ////////////////////////////////////////////////////////////////////////
+			String tempOutputFileNameTemplate = null;
+			if (outputQueueName == null) {
+				tempOutputFileNameTemplate = settingsDoc
+						.getValueForTag("Output/OutputFile/FileNameTemplate");
+			}
+			outputFileNameTemplate = tempOutputFileNameTemplate;
+
+			String tempOutputFilePrettyPrint = null;
+			String tempOutputFileCheckWellFormed = null;
+			if (outputFileNameTemplate != null) {
+				tempOutputFilePrettyPrint = settingsDoc
+						.getValueForTag("Output/OutputFile/PrettyPrint");
+				tempOutputFileCheckWellFormed = settingsDoc
+						.getValueForTag("Output/OutputFile/CheckWellFormed");
+			}
+			outputFilePrettyPrint = (tempOutputFilePrettyPrint == null ? false : tempOutputFilePrettyPrint.toLowerCase().equals("true"));	// set default to false
+			outputFileCheckWellFormed = (tempOutputFileCheckWellFormed == null ? false : tempOutputFileCheckWellFormed.toLowerCase().equals("true"));	// set default to false
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the Output HTTP target info, if not outputting to File or MQ
+			// ////////////////////////////////////////////////////////////////////////
+			String tempHTTPServerUrl = null;
+			String tempHTTPEndPointName = null;
+			String tempHTTPWithBackoff = null;
+			if (outputQueueName == null || outputFileNameTemplate == null) {
+				tempHTTPServerUrl = settingsDoc
+						.getValueForTag("Output/OutputHTTP/ServerUrl");
+				tempHTTPEndPointName = settingsDoc
+						.getValueForTag("Output/OutputHTTP/EndPointName");
+				tempHTTPWithBackoff = settingsDoc
+						.getValueForTag("Output/OutputHTTP/HTTPWithBackoff");
+				
+			}
+			HTTPServerUrl = tempHTTPServerUrl;
+			HTTPEndPointName = tempHTTPEndPointName;
+			HTTPWithBackoff = (tempHTTPWithBackoff == null ? true : tempHTTPWithBackoff.toLowerCase().equals("true"));	// set default to true
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the Log files settings...
+			// ////////////////////////////////////////////////////////////////////////
+			String tempLogFileName = null;
+			String tempShutDownLogFileName = null;
+			String logFileDir = settingsDoc
+					.getValueForTag("Logging/LogFileDir");
+			tempLogFileName = settingsDoc
+					.getValueForTag("Logging/LogFileNameTemplate");
+			tempShutDownLogFileName = settingsDoc
+					.getValueForTag("Logging/ShutDownLogFileNameTemplate");
+
+			if (logFileDir == null) {
+				logFileDir = ".";
+			}
+
+			if (tempLogFileName == null) {
+				tempLogFileName = "LwGenericMessageHandler.log";
+			}
+
+			if (tempShutDownLogFileName == null) {
+				tempShutDownLogFileName = "LwGenericMessageHandler_shutdown.log";
+			}
+
+			if (logFileDir.length() > 0 && !logFileDir.endsWith(fileSeparator)) {
+				logFileDir = logFileDir + fileSeparator;
+			}
+
+			// Create the actual log filename, replacing placeholders from the
+			// template
+			Properties replacementSet = new Properties();
+			if (messageProcessingClassName != null) {
+				replacementSet.put("*", messageProcessingClassName);
+			}
+			if (pid != null) {
+				replacementSet.put("$", pid);
+			}
+			replacementSet.put("?", "[%datetime%]");
+			replacementSet.put("#", "[%seqno%]");
+			logFileName = LwLogger.createStringFromTemplate(logFileDir
+					+ tempLogFileName, replacementSet);
+
+
+			shutDownLogFileName = LwLogger.createStringFromTemplate(logFileDir
+					+ tempShutDownLogFileName, replacementSet);
+
+			
+			String tempLoggingLevel = settingsDoc
+					.getValueForTag("Logging/Level/GeneralLoggingLevel");
+			// GeneralLoggingLevel may not exist, and EnvironmentLoggingLevel can be
+			// used instead
+			if (tempLoggingLevel == null) {
+				String environmentLoggingLevel = settingsDoc
+						.getValueForTag("Logging/Level/EnvironmentLoggingLevel");
+				if (environmentLoggingLevel != null) {
+					if (environmentLoggingLevel.equals("Development")) {
+						tempLoggingLevel = "FINER";
+					} else if (environmentLoggingLevel.equals("Test")) {
+						tempLoggingLevel = "FINE";
+					} else if (environmentLoggingLevel.equals("Production")) {
+						tempLoggingLevel = "CONFIG";
+					}
+				}
+			}
+			loggingLevel = tempLoggingLevel;
+			
+			logger.config("Log file is " + logFileName);
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get Processing parameters...
+			// ////////////////////////////////////////////////////////////////////////
+			// Got the name of the class which will process messages earlier,
+			// because
+			// wanted to use it in log-file name.
+			int tempMinResponsesExpected = 1;
+			String strMinResponsesExpected = settingsDoc
+					.getValueForTag("Processing/MinResponsesExpected");
+			if (strMinResponsesExpected != null) {
+				try {
+					tempMinResponsesExpected = Integer
+							.parseInt(strMinResponsesExpected);
+				} catch (NumberFormatException e) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid MinResponsesExpected.");
+				}
+
+				if (tempMinResponsesExpected < 0) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid MinResponsesExpected. Less than 0 not allowed");
+				}
+			}
+			minResponsesExpected = tempMinResponsesExpected;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the number of messages that may be processed at the same time
+			int tempConcurrency = 1;
+			String strConcurrency = settingsDoc
+					.getValueForTag("Processing/Concurrency");
+			if (strConcurrency != null) {
+				try {
+					tempConcurrency = Integer.parseInt(strConcurrency);
+				} catch (NumberFormatException e) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid Concurrency.");
+				}
+
+				if (tempConcurrency < 1) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid Concurrency. Less than 1 not allowed");
+				}
+			}
+			concurrency = tempConcurrency;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the ThreadPerMessage settings, if exist...
+			int tempMaxInFlight = 100;
+			threadPerMessage = (settingsDoc.getValueForTagPlusAttributes("Processing/ThreadPerMessage") != null);
+			if (threadPerMessage) {
+				String strMaxInFlight = settingsDoc
+						.getValueForTag("Processing/ThreadPerMessage/MaxInFlight");
+				if (strMaxInFlight != null) {
+					try {
+						tempMaxInFlight = Integer.parseInt(strMaxInFlight);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid ThreadPerMessage MaxInFlight.");
+					}
+
+					if (tempMaxInFlight < 1) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid ThreadPerMessage MaxInFlight. Less than 1 not allowed");
+					}
+				}
+			}
+			maxInFlight = tempMaxInFlight;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the RingBuffer settings, if exist...
+			int tempRingBufferSize = 1024;
+			RingBuffer.WaitStrategy tempWaitStrategy = RingBuffer.WaitStrategy.PARK;
+			ringBuffer = (settingsDoc.getValueForTagPlusAttributes("Processing/RingBuffer") != null);
+			if (ringBuffer) {
+				String strRingBufferSize = settingsDoc
+						.getValueForTag("Processing/RingBuffer/Size");
+				if (strRingBufferSize != null) {
+					try {
+						tempRingBufferSize = Integer.parseInt(strRingBufferSize);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid RingBuffer Size.");
+					}
+
+					if (tempRingBufferSize < 1 || (tempRingBufferSize & (tempRingBufferSize - 1)) != 0) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid RingBuffer Size. Must be a power of 2");
+					}
+				}
+
+				String strWaitStrategy = settingsDoc
+						.getValueForTag("Processing/RingBuffer/WaitStrategy");
+				if (strWaitStrategy != null) {
+					if (strWaitStrategy.equals("BusySpin")) {
+						tempWaitStrategy = RingBuffer.WaitStrategy.BUSY_SPIN;
+					} else if (strWaitStrategy.equals("Yield")) {
+						tempWaitStrategy = RingBuffer.WaitStrategy.YIELD;
+					} else if (strWaitStrategy.equals("Park")) {
+						tempWaitStrategy = RingBuffer.WaitStrategy.PARK;
+					} else {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid RingBuffer WaitStrategy. Must be BusySpin, Yield or Park");
+					}
+				}
+			}
+			ringBufferSize = tempRingBufferSize;
+			ringBufferWaitStrategy = tempWaitStrategy;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the AdaptiveConcurrency settings, if exist...
+			int tempAdaptiveMinLimit = 1;
+			int tempAdaptiveMaxLimit = 20;
+			int tempLatencyTolerancePercent = 200;
+			adaptiveConcurrency = (settingsDoc.getValueForTagPlusAttributes("Processing/AdaptiveConcurrency") != null);
+			if (adaptiveConcurrency) {
+				String strMinLimit = settingsDoc
+						.getValueForTag("Processing/AdaptiveConcurrency/MinLimit");
+				if (strMinLimit != null) {
+					try {
+						tempAdaptiveMinLimit = Integer.parseInt(strMinLimit);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid AdaptiveConcurrency MinLimit.");
+					}
+
+					if (tempAdaptiveMinLimit < 1) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid AdaptiveConcurrency MinLimit. Less than 1 not allowed");
+					}
+				}
+
+				String strMaxLimit = settingsDoc
+						.getValueForTag("Processing/AdaptiveConcurrency/MaxLimit");
+				if (strMaxLimit != null) {
+					try {
+						tempAdaptiveMaxLimit = Integer.parseInt(strMaxLimit);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid AdaptiveConcurrency MaxLimit.");
+					}
+				}
+
+				if (tempAdaptiveMaxLimit < tempAdaptiveMinLimit) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid AdaptiveConcurrency MaxLimit. Less than MinLimit not allowed");
+				}
+
+				String strLatencyTolerancePercent = settingsDoc
+						.getValueForTag("Processing/AdaptiveConcurrency/LatencyTolerancePercent");
+				if (strLatencyTolerancePercent != null) {
+					try {
+						tempLatencyTolerancePercent = Integer.parseInt(strLatencyTolerancePercent);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid AdaptiveConcurrency LatencyTolerancePercent.");
+					}
+
+					if (tempLatencyTolerancePercent <= 100) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid AdaptiveConcurrency LatencyTolerancePercent. 100 or less not allowed");
+					}
+				}
+			}
+			adaptiveMinLimit = tempAdaptiveMinLimit;
+			adaptiveMaxLimit = tempAdaptiveMaxLimit;
+			adaptiveLatencyTolerancePercent = tempLatencyTolerancePercent;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the Partitioning settings, if exist...
+			int tempPartitionLanes = 0;
+			String tempPartitionKeySource = null;
+			String tempPartitionKeyXPath = null;
+			String strPartitionLanes = settingsDoc
+					.getValueForTag("Processing/Partitioning/Lanes");
+			if (strPartitionLanes != null) {
+				try {
+					tempPartitionLanes = Integer.parseInt(strPartitionLanes);
+				} catch (NumberFormatException e) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid Partitioning Lanes.");
+				}
+
+				if (tempPartitionLanes < 1) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid Partitioning Lanes. Less than 1 not allowed");
+				}
+
+				tempPartitionKeySource = settingsDoc
+						.getValueForTag("Processing/Partitioning/KeySource");
+				if (tempPartitionKeySource == null) {
+					tempPartitionKeySource = "AuditKeys";
+				}
+
+				tempPartitionKeyXPath = settingsDoc
+						.getValueForTag("Processing/Partitioning/KeyXPath");
+				if (tempPartitionKeySource.equals("XPath")) {
+					if (tempPartitionKeyXPath == null) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Partitioning KeySource is XPath, but no KeyXPath supplied.");
+					}
+
+					try {
+						XPathFactory.newInstance().newXPath().compile(tempPartitionKeyXPath);
+					} catch (XPathExpressionException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid Partitioning KeyXPath " + tempPartitionKeyXPath + " : " + e.getMessage());
+					}
+				}
+			}
+			partitionLanes = tempPartitionLanes;
+			partitionKeySource = tempPartitionKeySource;
+			partitionKeyXPath = tempPartitionKeyXPath;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the Pipeline settings, if exist...
+			int tempPipelineStageThreads = 1;
+			int tempPipelineQueueCapacity = 100;
+			pipelined = (settingsDoc.getValueForTagPlusAttributes("Processing/Pipeline") != null);
+			if (pipelined) {
+				String strPipelineStageThreads = settingsDoc
+						.getValueForTag("Processing/Pipeline/StageThreads");
+				if (strPipelineStageThreads != null) {
+					try {
+						tempPipelineStageThreads = Integer.parseInt(strPipelineStageThreads);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid Pipeline StageThreads.");
+					}
+
+					if (tempPipelineStageThreads < 1) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid Pipeline StageThreads. Less than 1 not allowed");
+					}
+				}
+
+				String strPipelineQueueCapacity = settingsDoc
+						.getValueForTag("Processing/Pipeline/QueueCapacity");
+				if (strPipelineQueueCapacity != null) {
+					try {
+						tempPipelineQueueCapacity = Integer.parseInt(strPipelineQueueCapacity);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid Pipeline QueueCapacity.");
+					}
+
+					if (tempPipelineQueueCapacity < 1) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid Pipeline QueueCapacity. Less than 1 not allowed");
+					}
+				}
+			}
+			// A Queue's session, or a Socket's hand-shake, may only be used by the thread that accepted the message,
+			// and consuming or staying a message would cover any messages read ahead of it too
+			if (pipelined && (inputQueueName != null || portNumber > 0)) {
+				throw new SettingsException(
+						"LwGenericMessageHandlerSettings.getSettings(): Invalid Pipeline. Not allowed with input from a Queue or Socket");
+			}
+			// A checkpoint is taken as each message read is processed, so messages mustn't be read ahead of dispatching them
+			if (pipelined && csvCheckpointFileName != null) {
+				throw new SettingsException(
+						"LwGenericMessageHandlerSettings.getSettings(): Invalid Pipeline. Not allowed with a CSV Checkpoint");
+			}
+			pipelineStageThreads = tempPipelineStageThreads;
+			pipelineQueueCapacity = tempPipelineQueueCapacity;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the ResponseQueue limits, if exist...
+			int tempResponseQueueMaxResponses = 1000;
+			long tempResponseQueueMaxBytes = 0;
+			int tempResponseQueueHighWatermarkPercent = 90;
+			int tempResponseQueueLowWatermarkPercent = 70;
+			responseQueueBounded = (settingsDoc.getValueForTagPlusAttributes("Processing/ResponseQueue") != null);
+			if (responseQueueBounded) {
+				String strMaxResponses = settingsDoc
+						.getValueForTag("Processing/ResponseQueue/MaxResponses");
+				if (strMaxResponses != null) {
+					try {
+						tempResponseQueueMaxResponses = Integer.parseInt(strMaxResponses);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid ResponseQueue MaxResponses.");
+					}
+
+					if (tempResponseQueueMaxResponses < 1) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid ResponseQueue MaxResponses. Less than 1 not allowed");
+					}
+				}
+
+				String strMaxBytes = settingsDoc
+						.getValueForTag("Processing/ResponseQueue/MaxBytes");
+				if (strMaxBytes != null) {
+					try {
+						tempResponseQueueMaxBytes = Long.parseLong(strMaxBytes);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid ResponseQueue MaxBytes.");
+					}
+
+					if (tempResponseQueueMaxBytes < 1) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid ResponseQueue MaxBytes. Less than 1 not allowed");
+					}
+				}
+
+				String strHighWatermark = settingsDoc
+						.getValueForTag("Processing/ResponseQueue/HighWatermarkPercent");
+				if (strHighWatermark != null) {
+					try {
+						tempResponseQueueHighWatermarkPercent = Integer.parseInt(strHighWatermark);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid ResponseQueue HighWatermarkPercent.");
+					}
+				}
+
+				String strLowWatermark = settingsDoc
+						.getValueForTag("Processing/ResponseQueue/LowWatermarkPercent");
+				if (strLowWatermark != null) {
+					try {
+						tempResponseQueueLowWatermarkPercent = Integer.parseInt(strLowWatermark);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid ResponseQueue LowWatermarkPercent.");
+					}
+				}
+
+				if (tempResponseQueueHighWatermarkPercent < 1 || tempResponseQueueHighWatermarkPercent > 100) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid ResponseQueue HighWatermarkPercent. Must be 1 to 100");
+				}
+
+				if (tempResponseQueueLowWatermarkPercent < 0 || tempResponseQueueLowWatermarkPercent > tempResponseQueueHighWatermarkPercent) {
+					throw new SettingsException(
+							"LwGenericMessageHandlerSettings.getSettings(): Invalid ResponseQueue LowWatermarkPercent. Must be 0 to HighWatermarkPercent");
+				}
+			}
+			responseQueueMaxResponses = tempResponseQueueMaxResponses;
+			responseQueueMaxBytes = tempResponseQueueMaxBytes;
+			responseQueueHighWatermarkPercent = tempResponseQueueHighWatermarkPercent;
+			responseQueueLowWatermarkPercent = tempResponseQueueLowWatermarkPercent;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the Batching settings, if exist...
+			int tempBatchMaxMessages = 100;
+			long tempBatchMaxWaitMilliSeconds = 100;
+			batched = (settingsDoc.getValueForTagPlusAttributes("Processing/Batching") != null);
+			if (batched) {
+				String strBatchMaxMessages = settingsDoc
+						.getValueForTag("Processing/Batching/MaxMessages");
+				if (strBatchMaxMessages != null) {
+					try {
+						tempBatchMaxMessages = Integer.parseInt(strBatchMaxMessages);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid Batching MaxMessages.");
+					}
+
+					if (tempBatchMaxMessages < 1) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid Batching MaxMessages. Less than 1 not allowed");
+					}
+				}
+
+				String strBatchMaxWait = settingsDoc
+						.getValueForTag("Processing/Batching/MaxWaitMilliSeconds");
+				if (strBatchMaxWait != null) {
+					try {
+						tempBatchMaxWaitMilliSeconds = Long.parseLong(strBatchMaxWait);
+					} catch (NumberFormatException e) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid Batching MaxWaitMilliSeconds.");
+					}
+
+					if (tempBatchMaxWaitMilliSeconds < 1) {
+						throw new SettingsException(
+								"LwGenericMessageHandlerSettings.getSettings(): Invalid Batching MaxWaitMilliSeconds. Less than 1 not allowed");
+					}
+				}
+			}
+			batchMaxMessages = tempBatchMaxMessages;
+			batchMaxWaitMilliSeconds = tempBatchMaxWaitMilliSeconds;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the values for ALL Audit KeyName TAGs, if exist...
+			// ////////////////////////////////////////////////////////////////////////
+			auditKeysAggregate = settingsDoc.getValueForTagPlusAttributes("Auditing/AuditKeys");
+			auditKeyNamesSet = settingsDoc.getValuesForTag("Auditing/AuditKeys/KeyName");
+			auditKeysSeparator = settingsDoc.getValueForTag("Auditing/AuditKeysSeparator");
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the settings for error files, if exist, setting defaults, if
+			// necessary...
+			// ////////////////////////////////////////////////////////////////////////
+			String tempErrorFilesDir = settingsDoc
+					.getValueForTag("Auditing/ErrorFiles/ErrorFilesDir");
+			String tempErrorFileNameTemplate = settingsDoc
+					.getValueForTag("Auditing/ErrorFiles/ErrorFileNameTemplate");
+
+			if (tempErrorFileNameTemplate == null) {
+				tempErrorFileNameTemplate = "ErrorMessage_*_?.txt";
+			}
+			// make sure errorFilesDir ends with slash...
+			if (tempErrorFilesDir != null && tempErrorFilesDir.length() > 0
+					&& !tempErrorFilesDir.endsWith(fileSeparator)) {
+				tempErrorFilesDir = tempErrorFilesDir + fileSeparator;
+			}
+			
+			if (tempErrorFilesDir != null) {
+				tempErrorFileNameTemplate = tempErrorFilesDir + tempErrorFileNameTemplate;
+			}
+			errorFilesDir = tempErrorFilesDir;
+			errorFileNameTemplate = tempErrorFileNameTemplate;
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the values for ALL MindElements TAGs, if they exist...
+			// (These are to be returned as part of the response.)
+			// ////////////////////////////////////////////////////////////////////////
+			mindElementSet = settingsDoc.getValuesForTag("Processing/MindElements/ElementName");
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the values for ALL SendElements TAGs, if they exist...
+			// ////////////////////////////////////////////////////////////////////////
+			sendElementSet = settingsDoc.getValuesForTag("Processing/SendElements/ElementName");
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the value for wrapper aggregates, for target and response
+			// messages.
+			// Schema ensures defaults supplied, so will never be null...
+			// ////////////////////////////////////////////////////////////////////////
+			targetMainDocElementName = settingsDoc.getValueForTag("Processing/TargetMainDocElementName");
+
+			responseMainDocElementName = settingsDoc.getValueForTag("Processing/ResponseMainDocElementName");
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Compile MindElements and SendElements once, so paths needn't be
+			// worked out again for every message...
+			// ////////////////////////////////////////////////////////////////////////
+			mindElementPlan = new ElementCopyPlan((mindElementSet == null ? null : mindElementSet.elements()), responseMainDocElementName);
+			sendElementPlan = new ElementCopyPlan((sendElementSet == null ? null : sendElementSet.elements()), targetMainDocElementName);
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Compile the audit keys and data contract name once, so their values
+			// can be found in one pass over each message...
+			// ////////////////////////////////////////////////////////////////////////
+			messageHeaderExtractor = new MessageHeaderExtractor((auditKeyNamesSet == null ? new Vector<XMLTagValue>().elements() : auditKeyNamesSet.elements()),
+																auditKeysSeparator, dataContractName);
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the means of building the target message, if exists...
+			// ////////////////////////////////////////////////////////////////////////
+			String strTargetBuilder = settingsDoc.getValueForTag("Processing/TargetBuilder");
+			if (strTargetBuilder == null || strTargetBuilder.equals("DOM")) {
+				streamingTargetBuilder = false;
+				compactTargetBuilder = false;
+			} else if (strTargetBuilder.equals("Streaming")) {
+				streamingTargetBuilder = true;
+				compactTargetBuilder = false;
+			} else if (strTargetBuilder.equals("Compact")) {
+				streamingTargetBuilder = true;
+				compactTargetBuilder = true;
+			} else {
+				throw new SettingsException(
+						"LwGenericMessageHandlerSettings.getSettings(): Invalid TargetBuilder. Must be DOM, Streaming or Compact");
+			}
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Get the values for ALL ResponseLiterals TAGs, if they exist...
+			// ////////////////////////////////////////////////////////////////////////
+			responseLiteralsSet = settingsDoc.getValuesForTag("Processing/ResponseLiterals/ResponseLiteral");
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Compile the response wrapper and literals once, if the literals allow,
+			// so they needn't be built again for every response...
+			// ////////////////////////////////////////////////////////////////////////
+			if (ResponseTemplate.canCompile(responseMainDocElementName, getResponseLiteralsSet())) {
+				responseTemplate = new ResponseTemplate(responseMainDocElementName, getResponseLiteralsSet(), mindElementPlan);
+			} else {
+				responseTemplate = null;
+			}
+
+			// ////////////////////////////////////////////////////////////////////////
+			// Compile the XSLT stylesheets for the target and response messages, if
+			// exist...
+			// ////////////////////////////////////////////////////////////////////////
+			targetStylesheet = compileStylesheet(settingsDoc.getValueForTag("Processing/TargetStylesheetFileName"), "TargetStylesheetFileName");
+			responseStylesheet = compileStylesheet(settingsDoc.getValueForTag("Processing/ResponseStylesheetFileName"), "ResponseStylesheetFileName");
+
+		} catch (XMLException e) {
+			throw new SettingsException("LwGenericMessageHandlerSettings.constructor(): caught LwXMLException: " + e);
+		}
+
+		fh = setUpLoggingToFile();
+		recordSettings();
+	}
+
+	/**
+	 * Get helper method for pid
+	 * 
+	 * @return the pid for this instance
+	 */
+	public String getPid() {
+		return pid;
+	}
+
+	/**
+	 * Get helper method for ppid
+	 * 
+	 * @return the parent pid for this instance
+	 */
+	public String getPpid() {
+		return ppid;
+	}
+
+	/**
+	 * Get helper method for shutDownLogFileName
+	 * 
+	 * @return the shutDownLogFileName
+	 */
+	public String getShutDownLogFileName() {
+		return shutDownLogFileName;
+	}
+
+	/**
+	 * Get helper method for inputLimit
+	 * 
+	 * @return the inputLimit
+	 */
+	public int getInputLimit() {
+		return inputLimit;
+	}
+
+	/**
+	 * Get helper method for inputUrlJMSserver
+	 * 
+	 * @return the inputUrlJMSserver
+	 */
+	public String getInputUrlJMSserver() {
+		return inputUrlJMSserver;
+	}
+
+	/**
+	 * Get helper method for inputQueueName
+	 * 
+	 * @return the inputQueueName
+	 */
+	public String getInputQueueName() {
+		return inputQueueName;
+	}
+
+	/**
+	 * Get helper method for milliSecondsBeforeQuiet
+	 * 
+	 * @return the number of milliseconds we'll wait for a message before going
+	 *         quiet (closing down resources)
+	 */
+	public int getMilliSecondsBeforeQuiet() {
+		return milliSecondsBeforeQuiet;
+	}
+
+	/**
+	 * Get helper method for socket server portNumber
+	 * 
+	 * @return the socket server portNumber, if we're inputting over a socket
+	 */
+	public int getPortNumber() {
+		return portNumber;
+	}
+
+	/**
+	 * Get helper method for inputDataFormat
+	 * 
+	 * @return the inputDataFormat
+	 */
+	public String getInputDataFormat() {
+		return inputDataFormat;
+	}
+
+	/**
+	 * This returns the format in which the data will be presented to the
+	 * Message Handler (not necessarily the same as the inputDataFormat)
+	 * 
+	 * @return the format in which the data will be presented to the Message
+	 *         Handler (not necessarily the same as the inputDataFormat)
+	 */
+	public String getConvertedInputDataFormat() {
+		if (inputDataFormat != null && inputDataFormat.equals("CSV")) {
+			return "XML";
+		} else {
+			return inputDataFormat;
+		}
+	}
+
+	/**
+	 * Get helper method for dataContractName
+	 * 
+	 * @return the dataContractName
+	 */
+	public XMLTagValue getDataContractName() {
+		return dataContractName;
+	}
+
+	/**
+	 * Get helper method for outputUrlJMSserver
+	 * 
+	 * @return the outputUrlJMSserver
+	 */
+	public String getOutputUrlJMSserver() {
+		return outputUrlJMSserver;
+	}
+
+	/**
+	 * Get helper method for outputQueueName
+	 * 
+	 * @return the outputQueueName
+	 */
+	public String getOutputQueueName() {
+		return outputQueueName;
+	}
+
+	/**
+	 * Get helper method for replyToQueueName
+	 * 
+	 * @return the replyToQueueName
+	 */
+	public String getReplyToQueueName() {
+		return replyToQueueName;
+	}
+
+	/**
+	 * Get helper method for inputFileNameFilter
+	 * 
+	 * @return the inputFileNameFilter
+	 */
+	public String getInputFileNameFilter() {
+		return inputFileNameFilter;
+	}
+
+	/**
+	 * Get helper method for HTTPServerUrl
+	 * 
+	 * @return the HTTPServerUrl
+	 */
+	public String getHTTPServerUrl() {
+		return HTTPServerUrl;
+	}
+
+	/**
+	 * Get helper method for HTTPEndPointName
+	 * 
+	 * @return the HTTPEndPointName
+	 */
+	public String getHTTPEndPointName() {
+		return HTTPEndPointName;
+	}
+	/**
+	 * Get helper method for HTTPWithBackoff
+	 * 
+	 * @return the HTTPWithBackoff
+	 */
+	public boolean getHTTPWithBackoff() {
+		return HTTPWithBackoff;
+	}
+	
+	/**
+	 * Get helper method for inputFileDir
+	 * 
+	 * @return the inputFileDir
+	 */
+	public String getInputFileDir() {
+		return inputFileDir;
+	}
+
+	/**
+	  * Get helper method for File Names sorting when input is from a fileset
+	  *
+	  * @return true if the list of File Names are to be sorted before processing
+	  */
+	public boolean sortFilteredFileNames() {
+			return sortFilteredFileNames;
+	}
+
+	/**
+	  * Get helper method for parallelFileReaders
+	  *
+	  * @return the number of files from a fileset to be read and converted at the same time
+	  */
+	public int getParallelFileReaders() {
+			return parallelFileReaders;
+	}
+
+	/**
+	  * Get helper method for inputFileWatchDoneDir
+	  *
+	  * @return the directory to move files to once processed, if the input directory is to be watched for files, otherwise null
+	  */
+	public String getInputFileWatchDoneDir() {
+			return inputFileWatchDoneDir;
+	}
+
+	/**
+	  * Get helper method for inputFileWatchPollIntervalMillis
+	  *
+	  * @return how often to look in a watched input directory, in milliseconds
+	  */
+	public int getInputFileWatchPollIntervalMillis() {
+			return inputFileWatchPollIntervalMillis;
+	}
+
+	/**
+	 * Get helper method for FieldSeparator
+	 * 
+	 * @return the FieldSeparator
+	 */
+	public String getFieldSeparator() {
+		return fieldSeparator;
+	}
+
+	/**
+	 * Get helper method for maxRecsPerMessage
+	 * 
+	 * @return the maxRecsPerMessage
+	 */
+	public int getMaxRecsPerMessage() {
+		return maxRecsPerMessage;
+	}
+
+	/**
+	 * Get helper method for numRecordsToSkip
+	 * 
+	 * @return the numRecordsToSkip
+	 */
+	public int getNumRecordsToSkip() {
+		return numRecordsToSkip;
+	}
+
+	/**
+	 * Get helper method for memoryMappedCSVReader
+	 * 
+	 * @return true if CSV file(s) are to be read through memory-mapped regions (see MappedCSVReader)
+	 */
+	public boolean isMemoryMappedCSVReader() {
+		return memoryMappedCSVReader;
+	}
+
+	/**
+	 * Get helper method for csvCheckpointFileName
+	 * 
+	 * @return the file in which to keep the checkpoint of CSV input, null if not checkpointing
+	 */
+	public String getCSVCheckpointFileName() {
+		return csvCheckpointFileName;
+	}
+
+	/**
+	 * Get helper method for csvCheckpointSyncIntervalMillis
+	 * 
+	 * @return how often, at most, to write the checkpoint of CSV input to its file (0 = on every consume)
+	 */
+	public int getCSVCheckpointSyncIntervalMillis() {
+		return csvCheckpointSyncIntervalMillis;
+	}
+
+	/**
+	 * Get helper method for getting the list of column names for an input CSV
+	 * file
+	 * 
+	 * @return a copy of the colNameList
+	 */
+	public ArrayList<String> getColNameList() {
+		// Shallow copy OK here, as Strings immutable
+		// Collections.copy(dest, src) would also work here - it gives a shallow copy
+		// (dest must be at least as big as src, else IndexOutOfBoundsException)
+		return (colNameList == null ? null : new ArrayList<String>(colNameList));
+	}
+
+	/**
+	 * Get helper method for XMLFormat
+	 * 
+	 * @return the format the XML should take e.g SELECT, INSERT
+	 */
+	public String getXMLFormat() {
+		return XMLFormat;
+	}
+
+	/**
+	 * Get helper method for actionOnError
+	 * 
+	 * @return the action to be taken when the created INSERT fails - RESPOND or
+	 *         EXCEPTION
+	 */
+	public String getActionOnError() {
+		return actionOnError;
+	}
+
+	/**
+	 * Get helper method for preparedStatementName
+	 * 
+	 * @return the name of a Prepared Statement to use with the created INSERT
+	 */
+	public String getPreparedStatementName() {
+		return preparedStatementName;
+	}
+
+	/**
+	 * Get helper method for immediateCommit
+	 * 
+	 * @return the setting for whether the created action should be immediately
+	 *         committed
+	 */
+	public String getImmediateCommit() {
+		return immediateCommit;
+	}
+
+	/**
+	 * Get helper method for outputFileNameTemplate
+	 * 
+	 * @return the outputFileNameTemplate
+	 */
+	public String getOutputFileNameTemplate() {
+		return outputFileNameTemplate;
+	}
+
+	/**
+	 * Get helper method for outputFilePrettyPrint
+	 * 
+	 * @return true if XML is to be re-parsed and pretty-printed to file, false if written as is
+	 */
+	public boolean getOutputFilePrettyPrint() {
+		return outputFilePrettyPrint;
+	}
+
+	/**
+	 * Get helper method for outputFileCheckWellFormed
+	 * 
+	 * @return true if XML written as is is first to be checked to be well-formed
+	 */
+	public boolean getOutputFileCheckWellFormed() {
+		return outputFileCheckWellFormed;
+	}
+
+	/**
+	 * Get helper method for inputValidationSettings
+	 * 
+	 * (LwXMLTagValue is immutable)
+	 * 
+	 * @return the inputValidationSettings
+	 */
+	public XMLTagValue getInputValidationSettings() {
+		return inputValidationSettings;
+	}
+
+	/**
+	 * Get helper method for inputSchemaCache
+	 * 
+	 * @return the SchemaDefinitionFileName compiled, null if input messages are not validated against a file
+	 */
+	public SchemaCache getInputSchemaCache() {
+		return inputSchemaCache;
+	}
+
+	/**
+	 * Get helper method for inputValidationSampleOneIn
+	 * 
+	 * @return validate only 1 in every n input messages (1 for all)
+	 */
+	public int getInputValidationSampleOneIn() {
+		return inputValidationSampleOneIn;
+	}
+
+	/**
+	 * Get helper method for messageProcessingClassName
+	 * 
+	 * @return the messageProcessingClassName
+	 */
+	public String getMessageProcessingClassName() {
+		return messageProcessingClassName;
+	}
+
+	/**
+	 * Get helper method for messageProcessingSettingsFileName
+	 * 
+	 * @return the messageProcessingSettingsFileName
+	 */
+	public String getMessageProcessingSettingsFileName() {
+		return messageProcessingSettingsFileName;
+	}
+
+	/**
+	 * Get helper method for minResponsesExpected
+	 * 
+	 * @return the minResponsesExpected
+	 */
+	public int getMinResponsesExpected() {
+		return minResponsesExpected;
+	}
+
+	/**
+	 * Get helper method for concurrency
+	 * 
+	 * @return the number of messages that may be processed at the same time
+	 */
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	/**
+	 * Get helper method for threadPerMessage
+	 * 
+	 * @return true if the Processing Class and HTTP responder are to run each message on its own thread
+	 */
+	public boolean isThreadPerMessage() {
+		return threadPerMessage;
+	}
+
+	/**
+	 * Get helper method for maxInFlight
+	 * 
+	 * @return the maximum number of messages that may be on their own threads at the same time
+	 */
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	/**
+	 * Get helper method for ringBuffer
+	 * 
+	 * @return true if messages and responses are to be handed to/from a single worker through lock-free ring buffers
+	 */
+	public boolean isRingBuffer() {
+		return ringBuffer;
+	}
+
+	/**
+	 * Get helper method for ringBufferSize
+	 * 
+	 * @return the number of slots in each ring
+	 */
+	public int getRingBufferSize() {
+		return ringBufferSize;
+	}
+
+	/**
+	 * Get helper method for ringBufferWaitStrategy
+	 * 
+	 * @return how the worker and the collector of responses wait for each other
+	 */
+	public RingBuffer.WaitStrategy getRingBufferWaitStrategy() {
+		return ringBufferWaitStrategy;
+	}
+
+	/**
+	 * Get helper method for adaptiveConcurrency
+	 * 
+	 * @return true if messages in flight at the Processing Class are to be limited adaptively, by latency
+	 */
+	public boolean isAdaptiveConcurrency() {
+		return adaptiveConcurrency;
+	}
+
+	/**
+	 * Get helper method for adaptiveMinLimit
+	 * 
+	 * @return the lowest the adaptive in-flight limit may fall to
+	 */
+	public int getAdaptiveMinLimit() {
+		return adaptiveMinLimit;
+	}
+
+	/**
+	 * Get helper method for adaptiveMaxLimit
+	 * 
+	 * @return the highest the adaptive in-flight limit may rise to
+	 */
+	public int getAdaptiveMaxLimit() {
+		return adaptiveMaxLimit;
+	}
+
+	/**
+	 * Get helper method for adaptiveLatencyTolerancePercent
+	 * 
+	 * @return the percentage of the lowest latency above which latency is taken as a sign of overload
+	 */
+	public int getAdaptiveLatencyTolerancePercent() {
+		return adaptiveLatencyTolerancePercent;
+	}
+
+	/**
+	 * Get helper method for partitionLanes
+	 * 
+	 * @return the number of partitioned lanes, 0 if messages are not partitioned
+	 */
+	public int getPartitionLanes() {
+		return partitionLanes;
+	}
+
+	/**
+	 * Get helper method for partitionKeySource
+	 * 
+	 * @return "AuditKeys" or "XPath", null if messages are not partitioned
+	 */
+	public String getPartitionKeySource() {
+		return partitionKeySource;
+	}
+
+	/**
+	 * Get helper method for partitionKeyXPath
+	 * 
+	 * @return the XPath expression yielding the partition key, null if not supplied
+	 */
+	public String getPartitionKeyXPath() {
+		return partitionKeyXPath;
+	}
+
+	/**
+	 * Get helper method for pipelined
+	 * 
+	 * @return true if incoming messages are to be handled in a staged read-ahead pipeline
+	 */
+	public boolean isPipelined() {
+		return pipelined;
+	}
+
+	/**
+	 * Get helper method for pipelineStageThreads
+	 * 
+	 * @return the number of threads for each pipeline stage
+	 */
+	public int getPipelineStageThreads() {
+		return pipelineStageThreads;
+	}
+
+	/**
+	 * Get helper method for pipelineQueueCapacity
+	 * 
+	 * @return the capacity of the hand-off queue after each pipeline stage
+	 */
+	public int getPipelineQueueCapacity() {
+		return pipelineQueueCapacity;
+	}
+
+	/**
+	 * Get helper method for responseQueueBounded
+	 * 
+	 * @return true if limits were supplied for the queue of responses awaiting collection
+	 */
+	public boolean isResponseQueueBounded() {
+		return responseQueueBounded;
+	}
+
+	/**
+	 * Get helper method for responseQueueMaxResponses
+	 * 
+	 * @return the maximum number of responses that may be awaiting collection
+	 */
+	public int getResponseQueueMaxResponses() {
+		return responseQueueMaxResponses;
+	}
+
+	/**
+	 * Get helper method for responseQueueMaxBytes
+	 * 
+	 * @return the maximum approximate bytes of responses that may be awaiting collection, 0 if not bounded by bytes
+	 */
+	public long getResponseQueueMaxBytes() {
+		return responseQueueMaxBytes;
+	}
+
+	/**
+	 * Get helper method for responseQueueHighWatermarkPercent
+	 * 
+	 * @return the percentage of either maximum at which accepting messages is paused
+	 */
+	public int getResponseQueueHighWatermarkPercent() {
+		return responseQueueHighWatermarkPercent;
+	}
+
+	/**
+	 * Get helper method for responseQueueLowWatermarkPercent
+	 * 
+	 * @return the percentage of both maximums at or below which accepting messages is resumed
+	 */
+	public int getResponseQueueLowWatermarkPercent() {
+		return responseQueueLowWatermarkPercent;
+	}
+
+	/**
+	 * Get helper method for batched
+	 * 
+	 * @return true if messages are to be handed to the Processing Class in batches
+	 */
+	public boolean isBatched() {
+		return batched;
+	}
+
+	/**
+	 * Get helper method for batchMaxMessages
+	 * 
+	 * @return the maximum number of messages in a batch
+	 */
+	public int getBatchMaxMessages() {
+		return batchMaxMessages;
+	}
+
+	/**
+	 * Get helper method for batchMaxWaitMilliSeconds
+	 * 
+	 * @return the maximum time, in milliseconds, a message may wait for its batch to fill
+	 */
+	public long getBatchMaxWaitMilliSeconds() {
+		return batchMaxWaitMilliSeconds;
+	}
+
+	/**
+	 * Get helper method for auditKeysAggregate
+	 * 
+	 * (LwXMLTagValue is immutable)
+	 * 
+	 * @return the auditKeysAggregate
+	 */
+	public XMLTagValue getAuditKeysAggregate() {
+		return auditKeysAggregate;
+	}
+
+	/**
+	 * Get helper method for auditKeyNamesSet
+	 * 
+	 * (LwXMLTagValue is immutable)
+	 * 
+	 * @return an enumeration of the auditKeyNamesSet
+	 */
+	public Enumeration<XMLTagValue> getAuditKeyNamesSet() {
+		if (auditKeyNamesSet == null) { // return an empty enumeration
+			return (new Vector<XMLTagValue>()).elements();
+		} else {
+			return auditKeyNamesSet.elements();
+		}
+	}
+
+	/**
+	 * Get helper method for auditKeysSeparator
+	 * 
+	 * @return the auditKeysSeparator
+	 */
+	public String getAuditKeysSeparator() {
+		return auditKeysSeparator;
+	}
+
+	/**
+	 * Get helper method for errorFilesDir
+	 * 
+	 * @return the errorFilesDir
+	 */
+	public String getErrorFilesDir() {
+		return errorFilesDir;
+	}
+
+	/**
+	 * Get helper method for errorFileNameTemplate
+	 * 
+	 * @return the errorFileNameTemplate
+	 */
+	public String getErrorFileNameTemplate() {
+		return errorFileNameTemplate;
+	}
+
+	/**
+	 * Get helper method for mindElementSet
+	 * 
+	 * (LwXMLTagValue is immutable)
+	 * 
+	 * @return an enumeration of the mindElementSet
+	 */
+	public Enumeration<XMLTagValue> getMindElementSet() {
+		if (mindElementSet == null) { // return an empty enumeration
+			return (new Vector<XMLTagValue>()).elements();
+		} else {
+			return mindElementSet.elements();
+		}
+	}
+
+	/**
+	 * @return true if any elements of the input message are to be minded (copied into the response)
+	 */
+	public boolean hasMindElements() {
+		return (mindElementSet != null && ! mindElementSet.isEmpty());
+	}
+
+	/**
+	 * Get helper method for mindElementPlan
+	 * 
+	 * @return the mindElementSet, compiled for copying into the response
+	 */
+	public ElementCopyPlan getMindElementPlan() {
+		return mindElementPlan;
+	}
+
+	/**
+	 * Get helper method for sendElementSet
+	 * 
+	 * (LwXMLTagValue is immutable)
+	 * 
+	 * @return an enumeration of the sendElementSet
+	 */
+	public Enumeration<XMLTagValue> getSendElementSet() {
+		if (sendElementSet == null) { // return an empty enumeration
+			return (new Vector<XMLTagValue>()).elements();
+		} else {
+			return sendElementSet.elements();
+		}
+	}
+
+	/**
+	 * Get helper method for sendElementPlan
+	 * 
+	 * @return the sendElementSet, compiled for copying into the target message
+	 */
+	public ElementCopyPlan getSendElementPlan() {
+		return sendElementPlan;
+	}
+
+	/**
+	 * Get helper method for messageHeaderExtractor
+	 * 
+	 * @return the audit keys and data contract name, compiled for finding their values in a message
+	 */
+	public MessageHeaderExtractor getMessageHeaderExtractor() {
+		return messageHeaderExtractor;
+	}
+
+	/**
+	 * Get helper method for streamingTargetBuilder
+	 * 
+	 * @return true if the target message is to be built by streaming the input, where possible
+	 */
+	public boolean isStreamingTargetBuilder() {
+		return streamingTargetBuilder;
+	}
+
+	/**
+	 * Get helper method for compactTargetBuilder
+	 * 
+	 * @return true if the target message is to be built from a CompactMessage of the input, rather than by streaming it (see isStreamingTargetBuilder())
+	 */
+	public boolean isCompactTargetBuilder() {
+		return compactTargetBuilder;
+	}
+
+	/**
+	 * Get helper method for responseLiteralsSet
+	 * 
+	 * (LwXMLTagValue is immutable)
+	 * 
+	 * @return an enumeration of the responseLiteralsSet
+	 */
+	public Enumeration<XMLTagValue> getResponseLiteralsSet() {
+		if (responseLiteralsSet == null) { // return an empty enumeration
+			return (new Vector<XMLTagValue>()).elements();
+		} else {
+			return responseLiteralsSet.elements();
+		}
+	}
+
+	/**
+	 * Get helper method for targetStylesheet
+	 * 
+	 * @return the stylesheet compiled for transforming the target message, null if not to be transformed
+	 */
+	public CompiledStylesheet getTargetStylesheet() {
+		return targetStylesheet;
+	}
+
+	/**
+	 * Get helper method for responseStylesheet
+	 * 
+	 * @return the stylesheet compiled for transforming the response message, null if not to be transformed
+	 */
+	public CompiledStylesheet getResponseStylesheet() {
+		return responseStylesheet;
+	}
+
+	/**
+	 * Get helper method for responseTemplate
+	 * 
+	 * @return the response wrapper and literals, compiled into a skeleton, null if responses must be built by DOM
+	 */
+	public ResponseTemplate getResponseTemplate() {
+		return responseTemplate;
+	}
+
+	/**
+	 * Get helper method for targetMainDocElementName
+	 * 
+	 * @return the targetMainDocElementName
+	 */
+	public String getTargetMainDocElementName() {
+		return targetMainDocElementName;
+	}
+
+	/**
+	 * Get helper method for responseMainDocElementName
+	 * 
+	 * @return the responseMainDocElementName
+	 */
+	public String getResponseMainDocElementName() {
+		return responseMainDocElementName;
+	}
+
+	/**
+	 * Get the Proces ID of the Java VM running this instance. Note, this
+	 * returned nothing when was a public static method in the LwLogger class!
+	 * 
+	 * @param externalShell
+	 *            the shell to use to get the ID.
+	 * 
+	 * @return the pid
+	 */
+	private String getProcessID(String externalShell) throws IOException {
+
+		// First try this trick (returns something like "12345@localhost")...
+		String runtimeMXBean = ManagementFactory.getRuntimeMXBean().getName();
+		if (runtimeMXBean != null) {
+			String[] runtimeMXBeanSplit = runtimeMXBean.split("@");
+			String JVMpid = runtimeMXBeanSplit[0];
+			return JVMpid;
+		}
+
+		// If no luck with ManagementFactory method above, try this...
+		if (externalShell == null) {
+			return null;
+		}
+
+		// ////////////////////////////////////////////////////////////////////////
+		// Get the Proces ID of the Java VM running this instance
+		// ////////////////////////////////////////////////////////////////////////
+		byte[] bo = new byte[100];
+		String[] cmd = { externalShell, "-c", "echo $PPID" };
+		Process p = Runtime.getRuntime().exec(cmd);
+		p.getInputStream().read(bo);
+
+		return (new String(bo)).trim();
+	}
+
+	/**
+	 * Compile an XSLT stylesheet, if one is named.
+	 * 
+	 * @param stylesheetFileName the name of the stylesheet file, null if none
+	 * @param settingName the name of the setting, for reporting
+	 * @return the compiled stylesheet, null if none named
+	 * @throws SettingsException if the stylesheet could not be compiled
+	 */
+	private CompiledStylesheet compileStylesheet(String stylesheetFileName, String settingName) throws SettingsException {
+		if (stylesheetFileName == null) {
+			return null;
+		}
+
+		try {
+			return new CompiledStylesheet(stylesheetFileName);
+		} catch (TransformerConfigurationException e) {
+			throw new SettingsException(
+					"LwGenericMessageHandlerSettings.getSettings(): Invalid " + settingName + " " + stylesheetFileName + " : " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Record the settings in the log. Call this AFTER assigning any
+	 * filehandler(s) to the Logger.
+	 * 
+	 */
+	private FileHandler setUpLoggingToFile() throws SettingsException {
+		FileHandler fh = null;
+		try {
+			fh = new FileHandler(logFileName, true);
+			// Change default format from XML records (XMLFormatter) to
+			// "easy-read"
+			fh.setFormatter(new SimpleFormatter());
+
+		} catch (IOException e) {
+			throw new SettingsException(
+					"LwGenericMessageHandlerSettings.setUpLoggingToFile(): Couldn't open log file "
+							+ logFileName + ": " + e);
+		}
+
+		// Set startup level from settings file
+		Level level = Level.CONFIG; // default loggingLevel (production level)
+		if (loggingLevel != null) {
+			try {
+				level = Level.parse(loggingLevel);
+			} catch (Exception e) {
+				throw new SettingsException(
+						"LwGenericMessageHandlerSettings.setUpLoggingToFile(): Invalid LogLevel in settings file! "
+								+ e);
+			}
+		}
+
+		String pipelineName = PipelineContext.getPipelineName();
+		if (pipelineName == null) {
+			logger.setLevel(level);
+		} else {
+			// Hosted (see GemhaHost): the Logger is shared by all pipelines, so give this file only this
+			// pipeline's records, at this pipeline's level, and let the Logger pass the most detailed level asked for
+			fh.setFilter(PipelineContext.newLogFilter(pipelineName));
+			fh.setLevel(level);
+			synchronized (logger) {
+				if (logger.getLevel() == null || level.intValue() < logger.getLevel().intValue()) {
+					logger.setLevel(level);
+				}
+			}
+		}
+
+		// Send logger output to our FileHandler.
+		logger.addHandler(fh);
+		
+		return fh;
+	}
+
+	/**
+	 * Record the settings in the log. Call this AFTER assigning any
+	 * filehandler(s) to the Logger.
+	 * 
+	 */
+	private void recordSettings() {
+		Level logLevel = logger.getLevel();
+		logger.config("Log Level initialised to " + logLevel.getName());
+
+		logger.config("Shut-Down Log file is " + shutDownLogFileName);
+
+		// Display the Proces ID of the Parent process of the Java VM running
+		// this instance
+		logger.config("Parent Process ID is "
+				+ (ppid == null ? "unknown" : ppid));
+
+		// Get and display the Proces ID of the Java VM running this instance
+		logger.config("Process ID (of Java VM) is "
+				+ (pid == null ? "unknown" : pid));
+
+		// Record the queue info, if exists
+		if (inputQueueName != null) {
+			logger.config("Input Queue is " + inputQueueName);
+			logger.config("MilliSecondsBeforeQuiet "
+					+ milliSecondsBeforeQuiet);
+		} else if (portNumber > 0) {
+			logger.config("Socket Server Port Number is " + portNumber);
+		} else if (inputFileNameFilter != null) {
+			logger.config("Input FileName Filter is " + inputFileNameFilter);
+			logger.config("Input Files Directory is "
+					+ (inputFileDir.equals(".") ? "the current one"
+							: inputFileDir));
+			logger.config("Input from a fileset will " + (sortFilteredFileNames ? "" : "NOT ") + "be sorted on filename.");
+			logger.config("Input from a fileset will be read " + parallelFileReaders + " file(s) at a time.");
+			if (inputFileWatchDoneDir != null) {
+				logger.config("Input directory will be watched for files every " + inputFileWatchPollIntervalMillis + "ms, files being moved to " + inputFileWatchDoneDir + " once processed.");
+			}
+			logger.config("Field Separator (for CSV files) is "
+					+ fieldSeparator);
+			logger.config("Max records per input message (for CSV files) is "
+					+ maxRecsPerMessage);
+			logger.config("Number of records to skip (for CSV files) is "
+					+ numRecordsToSkip);
+			logger.config("CSV files will be read " + (memoryMappedCSVReader ? "through memory-mapped regions" : "by BufferedReader"));
+			if (csvCheckpointFileName != null) {
+				logger.config("CSV input will be checkpointed in " + csvCheckpointFileName + ", synced at most every " + csvCheckpointSyncIntervalMillis + "ms.");
+			}
+			logger.config("XMLFormat is " + XMLFormat);
+			if (XMLFormat != null && XMLFormat.equals("INSERT")) {
+				logger.config("ActionOnError is " + actionOnError);
+				logger.config("PreparedStatementName is "
+						+ preparedStatementName);
+				logger.config("ImmediateCommit is " + immediateCommit);
+			}
+		} else { // Will expect input-supplying object to be specified in the Constructor of LwGenericMessageHandler
+			logger.config("Will expect input-supplying object to be specified in the Constructor of LwGenericMessageHandler");
+		}
+
+		if (inputLimit > 0) {
+			logger.config("Input Limit set to " + inputLimit);
+		}
+
+		if (threadPerMessage) {
+			logger.config("Messages run on a thread each, with up to " + maxInFlight + " in flight");
+		} else {
+			logger.config("Message-processing Concurrency is " + concurrency);
+		}
+		if (adaptiveConcurrency) {
+			logger.config("Messages in flight limited adaptively between " + adaptiveMinLimit + " and " + adaptiveMaxLimit
+					+ ", backing off above " + adaptiveLatencyTolerancePercent + "% of lowest latency");
+		}
+		if (ringBuffer) {
+			logger.config("Messages handed off through ring buffers of " + ringBufferSize + " slots, waiting by " + ringBufferWaitStrategy);
+		}
+		if (partitionLanes > 0) {
+			logger.config("Messages partitioned onto " + partitionLanes + " lane(s) by "
+					+ (partitionKeySource.equals("XPath") ? "XPath " + partitionKeyXPath : partitionKeySource));
+		}
+		if (pipelined) {
+			logger.config("Incoming messages pipelined, with " + pipelineStageThreads + " thread(s) per stage and queue capacity " + pipelineQueueCapacity);
+		}
+		if (responseQueueBounded) {
+			logger.config("Response queue limited to " + responseQueueMaxResponses + " response(s)"
+					+ (responseQueueMaxBytes > 0 ? " and " + responseQueueMaxBytes + " bytes" : "")
+					+ ", pausing input at " + responseQueueHighWatermarkPercent + "% and resuming at " + responseQueueLowWatermarkPercent + "%");
+		}
+		if (batched) {
+			logger.config("Messages batched, up to " + batchMaxMessages + " message(s) or " + batchMaxWaitMilliSeconds + " milliseconds per batch");
+		}
+
+		if (inputUrlJMSserver != null) {
+			logger.config("Input JMS URL is " + inputUrlJMSserver);
+		}
+
+		if (outputQueueName != null) {
+			logger.config("Output Queue is " + outputQueueName);
+		} else if (outputFileNameTemplate != null) {
+			logger.config("Output FileName Template is "
+					+ outputFileNameTemplate);
+			logger.config("Output XML will be " + (outputFilePrettyPrint ? "re-parsed and pretty-printed" : "written as is" + (outputFileCheckWellFormed ? ", once checked to be well-formed" : "")));
+		}
+
+		if (outputUrlJMSserver != null) {
+			logger.config("Output JMS URL is " + outputUrlJMSserver);
+		}
+
+		if (replyToQueueName != null) {
+			logger.config("ReplyTo Queue is " + replyToQueueName);
+		}
+
+		if (HTTPServerUrl != null) {
+			logger.config("HTTP ServerUrl is " + HTTPServerUrl);
+		}
+
+		if (HTTPEndPointName != null) {
+			logger.config("HTTP EndPointName is " + HTTPEndPointName);
+		}
+
+		logger.config("HTTP Post will " + (HTTPWithBackoff ? "" : "NOT") + " back off incrementally when trying to connect");
+		
+		// Record expected Data Contract Name, if exists
+		if (dataContractName != null) {
+			logger.config("Will only accept messages with Data Contract Name="
+					+ dataContractName.getTagValue());
+			logger.config("For Data Contract Name, ActionOnError is "
+					+ dataContractName.getAttributeValue("ActionOnError"));
+		}
+
+		// Record Validation settings, if any set
+		if (inputValidationSettings != null) {
+			String schemaValidation = inputValidationSettings
+					.getAttributeValue("SchemaValidation");
+
+			logger.config("Input message Schema Validation is "
+					+ schemaValidation);
+
+			String schemaDefinitionFileName = inputValidationSettings
+					.getAttributeValue("SchemaDefinitionFileName");
+
+			if (schemaDefinitionFileName != null) {
+				logger.config("Input message Validation will "
+						+ (schemaValidation == null
+								|| schemaValidation.equals("off") ? "not " : "")
+						+ "be performed against file "
+						+ schemaDefinitionFileName
+						+ "(language="
+						+ inputValidationSettings
+								.getAttributeValue("SchemaLanguage")
+						+ ") and no Schema specification expected in message");
+			}
+
+			if (inputValidationSampleOneIn > 1) {
+				logger.config("Input message Validation will be performed on only 1 in every " + inputValidationSampleOneIn + " messages");
+			}
+		}
+
+		// Record how we are to process a message
+		logger.config("MessageProcessingClassName is "
+				+ messageProcessingClassName);
+
+		if (minResponsesExpected >= 0) {
+			logger.config(minResponsesExpected
+					+ " or more Response(s) expected/allowed from Processing class "
+					+ messageProcessingClassName);
+		}
+
+		// Record what to do if Audit Keys missing from a message
+		if (auditKeysAggregate != null) {
+			logger.config("When an Audit key is missing from a message, perform the action: "
+					+ auditKeysAggregate.getAttributeValue("ActionOnError"));
+		}
+
+		// Record Audit key Names, if exist
+		Enumeration<XMLTagValue> enumAuditKeyNames = auditKeyNamesSet
+				.elements();
+		while (enumAuditKeyNames.hasMoreElements()) {
+			XMLTagValue tv = enumAuditKeyNames.nextElement();
+			logger.info("Found Audit KeyName Tag at " + tv.getPathToName()
+					+ " Value=" + tv.getTagValue());
+		}
+
+		// Record Error file settings, if exist
+		if (errorFilesDir != null) {
+			logger.config("Error files will be placed in directory "
+					+ errorFilesDir);
+		}
+
+		logger.config("Error files will be named according to the following template: "
+				+ errorFileNameTemplate);
+
+		// Record 'mind' aggregate Names, if exist
+		Enumeration<XMLTagValue> enumMindAggNames = mindElementSet.elements();
+		while (enumMindAggNames.hasMoreElements()) {
+			XMLTagValue tv = enumMindAggNames.nextElement();
+			logger.info("Found 'Mind' Element Tag at " + tv.getPathToName()
+					+ " Value=" + tv.getTagValue());
+		}
+
+		// Record 'send' aggregate Names
+		Enumeration<XMLTagValue> enumSendAggNames = sendElementSet.elements();
+		while (enumSendAggNames.hasMoreElements()) {
+			XMLTagValue tv = enumSendAggNames.nextElement();
+			logger.info("Found Send Element Tag at " + tv.getPathToName()
+					+ " Value=" + tv.getTagValue());
+		}
+
+		logger.config("TargetMainDocElementName is " + targetMainDocElementName);
+		logger.config("Target message built by " + (compactTargetBuilder ? "compact message model, where possible" : (streamingTargetBuilder ? "streaming, where possible" : "DOM")));
+		logger.config("Response message built by " + (responseTemplate != null ? "template compiled at startup, where possible" : "DOM"));
+
+		if (targetStylesheet != null) {
+			logger.config("Target message will be transformed by stylesheet " + targetStylesheet.getStylesheetFileName());
+		}
+
+		if (responseStylesheet != null) {
+			logger.config("Response message will be transformed by stylesheet " + responseStylesheet.getStylesheetFileName());
+		}
+		logger.config("ResponseMainDocElementName is "
+				+ responseMainDocElementName);
+
+		// Record response literal Names, if exist
+		Enumeration<XMLTagValue> enumRespLiteralNames = responseLiteralsSet
+				.elements();
+		while (enumRespLiteralNames.hasMoreElements()) {
+			XMLTagValue tv = enumRespLiteralNames.nextElement();
+			logger.info("Found Response Literal Tag at " + tv.getPathToName()
+					+ " Value=" + tv.getTagValue());
+		}
+	}
+
+	/**
+	 * Release any resources being retained by this object.
+	 * Is only to be called at closedown, but may be called more than once (only the first call has any effect).
+	 * 
+	 */
+	public synchronized void releaseResourses() {
+		if (resourcesReleased) {
+			return;
+		}
+		resourcesReleased = true;
+
+		logger.removeHandler(fh);
+		fh.close();
+	}
+
 }
\ No newline at end of file
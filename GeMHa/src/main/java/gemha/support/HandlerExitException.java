@@ -0,0 +1,35 @@
+package gemha.support;
+
+/**
+  * Thrown by a hosted GenericMessageHandler (see GemhaHost) in place of System.exit(), so that a pipeline
+  * that cannot continue stops without taking the other pipelines in the JVM with it.
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  */
+public class HandlerExitException extends RuntimeException
+{
+  /**
+	 *
+	 */
+	private static final long serialVersionUID = 1L;
+
+	private final int exitStatus;
+
+  /**
+    * Will create a new exception with the given reason and the exit status a standalone handler would have used.
+	* @param reason the text explaining the error
+	* @param exitStatus the status with which a standalone handler would have exited the JVM
+    */
+	public HandlerExitException(String reason, int exitStatus) {
+		super(reason);
+		this.exitStatus = exitStatus;
+	}
+
+  /**
+    * Get the status with which a standalone handler would have exited the JVM.
+	* @return the exit status
+    */
+	public int getExitStatus() {
+		return exitStatus;
+	}
+}
@@ -0,0 +1,349 @@
+package gemha.support;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Vector;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import lw.XML.XMLTagValue;
+
+/**
+  * A message of INSERT actions, as fed from CSV files (see AcceptMessagesFromFiles), read straight into rows of
+  * column values, in column order, without building a DOM.
+  *
+  * Only messages of exactly that shape are read: /MESSAGE/DBACTION holding an optional ACTION_ON_ERROR, then
+  * INSERTs each holding an optional PREPARED_STATEMENT_NAME (without one, the row is inserted into the default
+  * table), an optional IMMEDIATE_COMMIT and COLUMNS of simple, non-empty elements. For anything else, parse()
+  * returns null, and the message should be processed from a DOM as usual.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  *
+  * @ThreadSafe
+  */
+public class InsertRows {
+
+	// Factories are not guaranteed thread-safe, and are costly to look up, so one per thread
+	private static final ThreadLocal<XMLInputFactory> inputFactory = new ThreadLocal<XMLInputFactory>() {
+		protected XMLInputFactory initialValue() {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+			factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+			return factory;
+		}
+	};
+
+	private final String actionOnError;
+	private final List<Row> rows;
+
+	private InsertRows(String actionOnError, List<Row> rows) {
+		this.actionOnError = actionOnError;
+		this.rows = Collections.unmodifiableList(rows);
+	}
+
+	/**
+	  * Check that audit key names for inserts can be found in rows, so can be given the values the DOM would give them.
+	  *
+	  * @param auditKeyNamesSet the audit key names for inserts, null if none
+	  * @return true if each key name is COLUMNS/name or INSERT/COLUMNS/name
+	  */
+	public static boolean canResolveAuditKeys(Vector<XMLTagValue> auditKeyNamesSet) {
+		if (auditKeyNamesSet != null) {
+			for (XMLTagValue tv : auditKeyNamesSet) {
+				if (columnOfAuditKey(tv.getTagValue()) == null) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	  * @param auditKeyName an audit key name for inserts (see canResolveAuditKeys())
+	  * @return the name of the column holding the key's value, null if not a column
+	  */
+	public static String columnOfAuditKey(String auditKeyName) {
+		String path = (auditKeyName != null && auditKeyName.startsWith("INSERT/") ? auditKeyName.substring("INSERT/".length()) : auditKeyName);
+		if (path == null || ! path.startsWith("COLUMNS/")) {
+			return null;
+		}
+		String column = path.substring("COLUMNS/".length());
+		return (column.length() == 0 || column.indexOf('/') >= 0 ? null : column);
+	}
+
+	/**
+	  * Read a message of INSERTs into rows.
+	  *
+	  * @param messageText the message
+	  * @return the rows, null if the message is not of the shape described above (or not well-formed)
+	  */
+	public static InsertRows parse(String messageText) {
+		try {
+			XMLStreamReader reader = inputFactory.get().createXMLStreamReader(new StringReader(messageText));
+			try {
+				return new Parser(reader).parse();
+			}
+			finally {
+				reader.close();
+			}
+		}
+		catch(XMLStreamException e) { // leave it to the DOM to report
+			return null;
+		}
+	}
+
+	/**
+	  * @return the value of ACTION_ON_ERROR, null if not given
+	  */
+	public String getActionOnError() {
+		return actionOnError;
+	}
+
+	/**
+	  * @return the rows, in message order
+	  */
+	public List<Row> getRows() {
+		return rows;
+	}
+
+	/**
+	  * One INSERT, its columns in message order.
+	  */
+	public static class Row {
+		private final String preparedStatementName;
+		private final String immediateCommit;
+		private final String[] columnNames;
+		private final String[] columnValues;
+
+		private Row(String preparedStatementName, String immediateCommit, List<String> columnNames, List<String> columnValues) {
+			this.preparedStatementName = preparedStatementName;
+			this.immediateCommit = immediateCommit;
+			this.columnNames = columnNames.toArray(new String[columnNames.size()]);
+			this.columnValues = columnValues.toArray(new String[columnValues.size()]);
+		}
+
+		/**
+		  * @return the name of the Prepared Statement to execute, null to insert into the default table
+		  */
+		public String getPreparedStatementName() {
+			return preparedStatementName;
+		}
+
+		/**
+		  * @return true if the insert is to be committed immediately
+		  */
+		public boolean isImmediateCommit() {
+			return (immediateCommit == null ? false : immediateCommit.toUpperCase().equals("TRUE"));
+		}
+
+		/**
+		  * @param columnName the name of a column
+		  * @return the value of the column (the last, if named more than once), null if no such column
+		  */
+		public String getValue(String columnName) {
+			for (int i = columnNames.length - 1; i >= 0; i--) {
+				if (columnNames[i].equals(columnName)) {
+					return columnValues[i];
+				}
+			}
+			return null;
+		}
+
+		/**
+		  * @return the columns as Properties, for executing the Prepared Statement
+		  */
+		public Properties getColumns() {
+			Properties p = new Properties();
+			for (int i = 0; i < columnNames.length; i++) {
+				p.put(columnNames[i], columnValues[i]);
+			}
+			return p;
+		}
+
+		/**
+		  * @return the column names as Properties, each with the value ?, for preparing the Prepared Statement
+		  */
+		public Properties getColumnsMarkedAsParams() {
+			Properties p = new Properties();
+			for (int i = 0; i < columnNames.length; i++) {
+				p.put(columnNames[i], "?");
+			}
+			return p;
+		}
+	}
+
+	/**
+	  * Reads the message, element by element, refusing anything not of the expected shape.
+	  */
+	private static class Parser {
+		private final XMLStreamReader reader;
+
+		private Parser(XMLStreamReader reader) {
+			this.reader = reader;
+		}
+
+		private InsertRows parse() throws XMLStreamException {
+			if ( ! nextElement() || ! isElement("MESSAGE") || ! nextElement() || ! isElement("DBACTION")) {
+				return null;
+			}
+
+			String actionOnError = null;
+			List<Row> rows = new ArrayList<Row>();
+
+			boolean more = nextElement();
+			if (more && isElement("ACTION_ON_ERROR")) {
+				actionOnError = readText();
+				if (actionOnError == null) {
+					return null;
+				}
+				more = nextElement();
+			}
+
+			while (more) {
+				if ( ! isElement("INSERT")) {
+					return null;
+				}
+				Row row = readRow();
+				if (row == null) {
+					return null;
+				}
+				rows.add(row);
+				more = nextElement();
+			}
+
+			// Now at the end of DBACTION, which must close MESSAGE too
+			if ( ! reader.getLocalName().equals("DBACTION") || nextElement() || ! reader.getLocalName().equals("MESSAGE")) {
+				return null;
+			}
+			while (reader.hasNext()) { // read to the end, so a malformed message is still refused
+				reader.next();
+			}
+
+			return (rows.isEmpty() ? null : new InsertRows(actionOnError, rows));
+		}
+
+		/**
+		  * Read an INSERT, the reader being at its start
+		  *
+		  * @return the row, null if not of the expected shape. The reader is left at the end of the INSERT
+		  */
+		private Row readRow() throws XMLStreamException {
+			String preparedStatementName = null;
+			String immediateCommit = null;
+			List<String> columnNames = null;
+			List<String> columnValues = null;
+
+			while (nextElement()) {
+				if (isElement("PREPARED_STATEMENT_NAME") && preparedStatementName == null && columnNames == null) {
+					preparedStatementName = readText();
+					if (preparedStatementName == null) {
+						return null;
+					}
+				}
+				else if (isElement("IMMEDIATE_COMMIT") && immediateCommit == null && columnNames == null) {
+					immediateCommit = readText();
+					if (immediateCommit == null) {
+						return null;
+					}
+				}
+				else if (isElement("COLUMNS") && columnNames == null) {
+					columnNames = new ArrayList<String>();
+					columnValues = new ArrayList<String>();
+					while (nextElement()) {
+						if ( ! isSimpleElement()) {
+							return null;
+						}
+						columnNames.add(reader.getLocalName());
+						String value = readText();
+						if (value == null) {
+							return null;
+						}
+						columnValues.add(value);
+					}
+				}
+				else {
+					return null;
+				}
+			}
+
+			if (columnNames == null) {
+				return null;
+			}
+			return new Row(preparedStatementName, immediateCommit, columnNames, columnValues);
+		}
+
+		/**
+		  * Move to the next start or end element, allowing only whitespace in between
+		  *
+		  * @return true if at a start element, false if at an end element
+		  */
+		private boolean nextElement() throws XMLStreamException {
+			while (reader.hasNext()) {
+				int event = reader.next();
+				switch (event) {
+				case XMLStreamConstants.START_ELEMENT:
+					return true;
+				case XMLStreamConstants.END_ELEMENT:
+					return false;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.SPACE:
+					if ( ! reader.isWhiteSpace()) {
+						throw new XMLStreamException("unexpected text");
+					}
+					break;
+				case XMLStreamConstants.COMMENT:
+				case XMLStreamConstants.PROCESSING_INSTRUCTION:
+					break;
+				default: // e.g. CDATA, DTD, entity reference, end of document
+					throw new XMLStreamException("unexpected content");
+				}
+			}
+			throw new XMLStreamException("unexpected end of message");
+		}
+
+		/**
+		  * Read the text of a simple element, the reader being at its start
+		  *
+		  * @return the text, null if empty or the element holds more than text. The reader is left at the end of the element
+		  */
+		private String readText() throws XMLStreamException {
+			if ( ! isSimpleElement()) {
+				return null;
+			}
+			StringBuilder text = new StringBuilder();
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.SPACE) {
+					text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+				}
+				else if (event == XMLStreamConstants.END_ELEMENT) {
+					return (text.length() == 0 ? null : text.toString());
+				}
+				else {
+					throw new XMLStreamException("unexpected content");
+				}
+			}
+			throw new XMLStreamException("unexpected end of message");
+		}
+
+		private boolean isElement(String name) {
+			return isSimpleElement() && reader.getLocalName().equals(name);
+		}
+
+		/**
+		  * @return true if the element at which the reader is positioned has no attributes, and uses no namespace
+		  */
+		private boolean isSimpleElement() {
+			return reader.getAttributeCount() == 0 && reader.getNamespaceCount() == 0
+						&& (reader.getPrefix() == null || reader.getPrefix().length() == 0);
+		}
+	}
+}
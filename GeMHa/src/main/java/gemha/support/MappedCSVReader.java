@@ -0,0 +1,293 @@
+package gemha.support;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+  * Reads records from a CSV file through memory-mapped regions of the file, finding line ends and field
+  * separators by scanning the bytes themselves. Nothing is decoded into a String until asked for (see getField()),
+  * so fields (or records) never emitted cost nothing.
+  *
+  * Records and fields are split as BufferedReader.readLine() and StringTokenizer would split them: a record ends
+  * at \n, \r or \r\n (the last need not end at all), every character of the separator string separates fields,
+  * and empty fields are skipped.
+  *
+  * Scanning bytes for these characters is only safe where each is a single byte that never appears within
+  * the encoding of another character, so only charsets compatible with ASCII in that way are supported
+  * (see supports()).
+  *
+  * The file is mapped a region at a time, a record never being split across regions: a region ending part-way
+  * through a record is re-mapped from the start of that record (and enlarged, if the record alone doesn't fit).
+  *
+  * The byte offset of the next record may be taken (see getNextRecordOffset()), and reading later resumed
+  * from it straight away (see seek()), without reading the records before it.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  * @version 1.1 16/10/2026 Record offsets may be taken, and reading resumed from one.
+  *
+  * @NotThreadSafe
+  */
+public class MappedCSVReader {
+
+	private static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+	private static final int INITIAL_FIELDS = 32;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final long fileSize;
+	private final Charset charset;
+	private final boolean[] isSeparator = new boolean[128];	// indexed by byte value, only ASCII separators allowed
+
+	private int regionSize;
+	private MappedByteBuffer region = null;
+	private long regionStart = 0;		// offset in the file of the start of the region
+	private long nextRecordStart = 0;	// offset in the file of the next record to be read
+
+	// The current record, as offsets within the region
+	private int recordStart = 0;
+	private int recordEnd = 0;
+	private int fieldCount = 0;
+	private int[] fieldStart = new int[INITIAL_FIELDS];
+	private int[] fieldEnd = new int[INITIAL_FIELDS];
+
+	private byte[] decodeBuffer = new byte[256];	// fields are copied out of the region here, for decoding
+
+	/**
+	  * Check whether the given charset and separators can be read by scanning bytes.
+	  *
+	  * @param charset the charset in which the file is encoded
+	  * @param fieldSeparators the characters that separate fields
+	  * @return true if the separators are ASCII, and the charset encodes ASCII as single bytes never found within other characters
+	  */
+	public static boolean supports(Charset charset, String fieldSeparators) {
+		for (int i = 0; i < fieldSeparators.length(); i++) {
+			if (fieldSeparators.charAt(i) >= 128) {
+				return false;
+			}
+		}
+
+		String name = charset.name();
+		if (name.equals("UTF-8") || name.equals("US-ASCII") || name.startsWith("ISO-8859-") || name.startsWith("windows-125")) {
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	  * Constructor - opens the file
+	  *
+	  * @param fileName the name of the file, path included
+	  * @param fieldSeparators the characters that separate fields (see supports())
+	  * @param charset the charset in which the file is encoded (see supports())
+	  *
+	  * @throws IOException if the file could not be opened
+	  */
+	public MappedCSVReader(String fileName, String fieldSeparators, Charset charset) throws IOException {
+		this(fileName, fieldSeparators, charset, DEFAULT_REGION_SIZE);
+	}
+
+	/**
+	  * Constructor - opens the file
+	  *
+	  * @param fileName the name of the file, path included
+	  * @param fieldSeparators the characters that separate fields (see supports())
+	  * @param charset the charset in which the file is encoded (see supports())
+	  * @param regionSize the number of bytes of the file to map at a time
+	  *
+	  * @throws IOException if the file could not be opened
+	  */
+	public MappedCSVReader(String fileName, String fieldSeparators, Charset charset, int regionSize) throws IOException {
+		if ( ! supports(charset, fieldSeparators)) throw new IllegalArgumentException("MappedCSVReader: charset " + charset.name() + " or field separators not supported.");
+		if (regionSize < 1) throw new IllegalArgumentException("MappedCSVReader: regionSize must be at least 1.");
+
+		for (int i = 0; i < fieldSeparators.length(); i++) {
+			isSeparator[fieldSeparators.charAt(i)] = true;
+		}
+		this.charset = charset;
+		this.regionSize = regionSize;
+
+		this.file = new RandomAccessFile(fileName, "r");
+		this.channel = file.getChannel();
+		this.fileSize = channel.size();
+	}
+
+	/**
+	  * Move on to the next record.
+	  *
+	  * @return true if there was another record, false at the end of the file
+	  *
+	  * @throws IOException if the file could not be read
+	  */
+	public boolean nextRecord() throws IOException {
+		if (nextRecordStart >= fileSize) {
+			return false;
+		}
+
+		while (true) {
+			if (region == null || nextRecordStart < regionStart || nextRecordStart >= regionStart + region.limit()) {
+				mapRegionFrom(nextRecordStart);
+			}
+
+			if (scanRecord()) {
+				return true;
+			}
+
+			// Record runs past the end of the region, so map again from its start, enlarged if it filled the region
+			if (nextRecordStart == regionStart) {
+				if (regionSize == Integer.MAX_VALUE) throw new IOException("MappedCSVReader: record at offset " + nextRecordStart + " is too long to map.");
+				regionSize = (regionSize > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : regionSize * 2);
+			}
+			mapRegionFrom(nextRecordStart);
+		}
+	}
+
+	/**
+	  * @return the byte offset in the file of the record after the current one (the file size, if no more records)
+	  */
+	public long getNextRecordOffset() {
+		return nextRecordStart;
+	}
+
+	/**
+	  * Resume reading from the given byte offset, so nextRecord() moves to the record starting there.
+	  *
+	  * @param offset a byte offset got from getNextRecordOffset(), when reading this file before
+	  *
+	  * @throws IOException if the offset lies beyond the end of the file
+	  */
+	public void seek(long offset) throws IOException {
+		if (offset < 0 || offset > fileSize) throw new IOException("MappedCSVReader: offset " + offset + " lies outside the file (size " + fileSize + ").");
+
+		nextRecordStart = offset;
+		fieldCount = 0;
+	}
+
+	/**
+	  * @return the number of (non-empty) fields in the current record
+	  */
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+	/**
+	  * @param index the position of the field in the current record (0..getFieldCount()-1)
+	  * @return the field, decoded
+	  */
+	public String getField(int index) {
+		return decode(fieldStart[index], fieldEnd[index]);
+	}
+
+	/**
+	  * @return the whole of the current record, decoded, its line end excluded
+	  */
+	public String getRecord() {
+		return decode(recordStart, recordEnd);
+	}
+
+	/**
+	  * Close the file. The regions mapped are released once no longer referenced.
+	  */
+	public void close() throws IOException {
+		region = null;
+		file.close();
+	}
+
+	/**
+	  * Scan the record starting at nextRecordStart, finding its fields.
+	  *
+	  * @return true if the whole record (and its line end) lies within the region, or runs to the end of the file
+	  */
+	private boolean scanRecord() {
+		int limit = region.limit();
+		boolean regionReachesEndOfFile = (regionStart + limit >= fileSize);
+
+		int start = (int) (nextRecordStart - regionStart);
+		int pos = start;
+		int fields = 0;
+		int currentFieldStart = -1;
+
+		while (pos < limit) {
+			byte b = region.get(pos);
+
+			if (b == '\n' || b == '\r') {
+				int next = pos + 1;
+				if (b == '\r') {
+					if (next >= limit && ! regionReachesEndOfFile) { // can't yet tell if \n follows
+						return false;
+					}
+					if (next < limit && region.get(next) == '\n') {
+						next++;
+					}
+				}
+				if (currentFieldStart >= 0) {
+					fields = addField(fields, currentFieldStart, pos);
+				}
+				setRecord(start, pos, fields, next);
+				return true;
+			}
+
+			if (b >= 0 && isSeparator[b]) {
+				if (currentFieldStart >= 0) {
+					fields = addField(fields, currentFieldStart, pos);
+					currentFieldStart = -1;
+				}
+			}
+			else if (currentFieldStart < 0) {
+				currentFieldStart = pos;
+			}
+			pos++;
+		}
+
+		if ( ! regionReachesEndOfFile) {
+			return false;
+		}
+
+		// Last record in the file, with no line end
+		if (currentFieldStart >= 0) {
+			fields = addField(fields, currentFieldStart, pos);
+		}
+		setRecord(start, pos, fields, pos);
+		return true;
+	}
+
+	private int addField(int fields, int start, int end) {
+		if (fields == fieldStart.length) {
+			int[] grownStart = new int[fields * 2];
+			int[] grownEnd = new int[fields * 2];
+			System.arraycopy(fieldStart, 0, grownStart, 0, fields);
+			System.arraycopy(fieldEnd, 0, grownEnd, 0, fields);
+			fieldStart = grownStart;
+			fieldEnd = grownEnd;
+		}
+		fieldStart[fields] = start;
+		fieldEnd[fields] = end;
+		return fields + 1;
+	}
+
+	private void setRecord(int start, int end, int fields, int next) {
+		recordStart = start;
+		recordEnd = end;
+		fieldCount = fields;
+		nextRecordStart = regionStart + next;
+	}
+
+	private void mapRegionFrom(long start) throws IOException {
+		long size = Math.min((long) regionSize, fileSize - start);
+		region = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		regionStart = start;
+	}
+
+	private String decode(int start, int end) {
+		int length = end - start;
+		if (length > decodeBuffer.length) {
+			decodeBuffer = new byte[Math.max(length, decodeBuffer.length * 2)];
+		}
+		region.position(start); // only absolute gets are used elsewhere, so the position is free for bulk copies
+		region.get(decodeBuffer, 0, length);
+		return new String(decodeBuffer, 0, length, charset);
+	}
+}
@@ -0,0 +1,65 @@
+package gemha.support;
+
+/**
+  * The "header" values of a message - its audit key values and data contract name - found once, when the
+  * message arrives (see MessageHeaderExtractor), and reused from then on.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  *
+  * @Immutable
+  */
+public final class MessageHeader {
+
+	private final String auditKeyValues;
+	private final boolean allAuditKeysFound;
+	private final String dataContractName;
+	private final boolean dataContractNameValid;
+
+	/**
+	  * Constructor
+	  *
+	  * @param auditKeyValues the concatenated audit key values, the empty string if none
+	  * @param allAuditKeysFound true if a value was found for every audit key
+	  * @param dataContractName the data contract name found in the message, null if none found (or none to find)
+	  * @param dataContractNameValid true if there is no data contract name to check, or it matched
+	  */
+	MessageHeader(String auditKeyValues, boolean allAuditKeysFound, String dataContractName, boolean dataContractNameValid) {
+		this.auditKeyValues = auditKeyValues;
+		this.allAuditKeysFound = allAuditKeysFound;
+		this.dataContractName = dataContractName;
+		this.dataContractNameValid = dataContractNameValid;
+	}
+
+	/**
+	  * Get helper method for auditKeyValues
+	  *
+	  * @return the concatenated audit key values, the empty string if none
+	  */
+	public String getAuditKeyValues() {
+		return auditKeyValues;
+	}
+
+	/**
+	  * @return true if a value was found for every audit key
+	  */
+	public boolean areAllAuditKeysFound() {
+		return allAuditKeysFound;
+	}
+
+	/**
+	  * Get helper method for dataContractName
+	  *
+	  * @return the data contract name found in the message, null if none found (or none to find)
+	  */
+	public String getDataContractName() {
+		return dataContractName;
+	}
+
+	/**
+	  * @return true if there is no data contract name to check, or it matched that expected
+	  */
+	public boolean isDataContractNameValid() {
+		return dataContractNameValid;
+	}
+}
@@ -0,0 +1,195 @@
+package gemha.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.w3c.dom.Node;
+
+import lw.XML.XMLDocument;
+import lw.XML.XMLTagValue;
+
+/**
+  * Finds the "header" values of a message - its audit key values and data contract name - in one pass over
+  * the message, giving a MessageHeader to be reused from then on.
+  *
+  * The audit key and data contract paths are compiled once, from the settings. Simple absolute paths (e.g.
+  * /MESSAGE/HDR/KEY) are all followed together, in one walk down the document, visiting only the branches
+  * leading to them and stopping once all are found. Any other path (e.g. relative) is looked up by the
+  * document itself, once. A path whose element is found empty is also left to the document, to judge as always.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  *
+  * @ThreadSafe
+  */
+public class MessageHeaderExtractor {
+
+	private static final Pattern SIMPLE_ABSOLUTE_PATH = Pattern.compile("(/[A-Za-z_][A-Za-z0-9_.\\-]*)+");
+
+	private final List<String> headerPaths;		// the audit key paths, in order, followed by the data contract name location, if any
+	private final String[][] simplePaths;		// the segments of each of headerPaths, null if not a simple absolute path
+	private final int numAuditKeys;
+	private final String auditKeysSeparator;	// null if none
+	private final String expectedDataContractName;	// null if no data contract name to check (or none expected)
+	private final boolean checkDataContractName;
+
+	// Builds the concatenated audit key values, reused for each message on a thread
+	private static final ThreadLocal<StringBuilder> auditKeyValuesBuilder = new ThreadLocal<StringBuilder>() {
+		protected StringBuilder initialValue() {
+			return new StringBuilder(64);
+		}
+	};
+
+	/**
+	  * Constructor
+	  *
+	  * @param auditKeyNames the paths of the audit keys, in order
+	  * @param auditKeysSeparator the separator between audit key values, null if none
+	  * @param dataContractName the expected data contract name, with its Location attribute, null if none to check
+	  */
+	public MessageHeaderExtractor(Enumeration<XMLTagValue> auditKeyNames, String auditKeysSeparator, XMLTagValue dataContractName) {
+		List<String> tempHeaderPaths = new ArrayList<String>();
+		while (auditKeyNames.hasMoreElements()) {
+			tempHeaderPaths.add(auditKeyNames.nextElement().getTagValue());
+		}
+		this.numAuditKeys = tempHeaderPaths.size();
+
+		this.checkDataContractName = (dataContractName != null);
+		if (checkDataContractName) {
+			tempHeaderPaths.add(dataContractName.getAttributeValue("Location"));
+		}
+		this.expectedDataContractName = (dataContractName == null ? null : dataContractName.getTagValue());
+		this.auditKeysSeparator = auditKeysSeparator;
+		this.headerPaths = Collections.unmodifiableList(tempHeaderPaths);
+
+		this.simplePaths = new String[tempHeaderPaths.size()][];
+		for (int i = 0; i < tempHeaderPaths.size(); i++) {
+			String path = tempHeaderPaths.get(i);
+			if (path != null && SIMPLE_ABSOLUTE_PATH.matcher(path).matches()) {
+				simplePaths[i] = path.substring(1).split("/");
+			}
+		}
+	}
+
+	/**
+	  * @return the audit key paths, in order, followed by the data contract name location, if any
+	  */
+	public List<String> getHeaderPaths() {
+		return headerPaths;
+	}
+
+	/**
+	  * Find the header values of the given message.
+	  *
+	  * @param doc the message
+	  * @return the header values
+	  */
+	public MessageHeader extract(XMLDocument doc) {
+		String[] values = new String[headerPaths.size()];
+		boolean[] found = new boolean[headerPaths.size()];
+
+		doc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+		Node root = doc.getCurrentNode();
+		if (root != null) {
+			List<Integer> candidates = new ArrayList<Integer>(headerPaths.size());
+			for (int i = 0; i < simplePaths.length; i++) {
+				if (simplePaths[i] != null) {
+					candidates.add(i);
+				}
+			}
+			if ( ! candidates.isEmpty()) {
+				visit(root, 0, candidates, values, found);
+			}
+		}
+
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == null || values[i].length() == 0) { // not simple, not found or empty, so ask the doc
+				doc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+				values[i] = doc.getValueForTag(headerPaths.get(i));
+			}
+		}
+
+		return newHeader(values);
+	}
+
+	/**
+	  * Make the header from values already found (e.g. when streaming the message).
+	  *
+	  * @param values the value found for each of getHeaderPaths(), in the same order, null for any not found
+	  * @return the header values
+	  */
+	public MessageHeader newHeader(String[] values) {
+		StringBuilder concatenatedValues = auditKeyValuesBuilder.get();
+		concatenatedValues.setLength(0);
+
+		boolean allAuditKeysFound = true;
+		for (int i = 0; i < numAuditKeys; i++) {
+			String nextValue = values[i];
+
+			if (nextValue != null) {
+				concatenatedValues.append(nextValue);
+				if (auditKeysSeparator != null && i < numAuditKeys - 1) {
+					concatenatedValues.append(auditKeysSeparator);
+				}
+			}
+			else {
+				allAuditKeysFound = false;
+			}
+		}
+
+		String dataContractName = (checkDataContractName ? values[numAuditKeys] : null);
+		boolean dataContractNameValid = ( ! checkDataContractName || (expectedDataContractName != null && dataContractName != null && dataContractName.equals(expectedDataContractName)));
+
+		return new MessageHeader(concatenatedValues.toString(), allAuditKeysFound, dataContractName, dataContractNameValid);
+	}
+
+	/**
+	  * Visit an element and those of its descendants leading to the simple paths still being looked for,
+	  * taking the text of the first element found at each.
+	  *
+	  * @param element the element being visited
+	  * @param depth the depth of the element (0 for the top-level element)
+	  * @param candidates the indexes of the paths leading through the element's parent
+	  * @return true if every path among candidates has been found
+	  */
+	private boolean visit(Node element, int depth, List<Integer> candidates, String[] values, boolean[] found) {
+		List<Integer> deeper = null;
+		String name = element.getNodeName();
+
+		for (Integer i : candidates) {
+			String[] segments = simplePaths[i];
+			if (found[i] || ! segments[depth].equals(name)) {
+				continue;
+			}
+
+			if (segments.length == depth + 1) { // found the first at this path
+				found[i] = true;
+				values[i] = element.getTextContent();
+			}
+			else {
+				if (deeper == null) {
+					deeper = new ArrayList<Integer>(candidates.size());
+				}
+				deeper.add(i);
+			}
+		}
+
+		if (deeper != null) {
+			for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+				if (child.getNodeType() == Node.ELEMENT_NODE && visit(child, depth + 1, deeper, values, found)) {
+					break;
+				}
+			}
+		}
+
+		for (Integer i : candidates) {
+			if ( ! found[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,566 @@
+package gemha.support;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.*;
+
+/**
+  * Runs message-processing tasks on a pool of worker threads, handing back their responses
+  * in the order in which the tasks were submitted.
+  *
+  * The Future for each task is placed on a FIFO queue at submission time, so although up to
+  * concurrency messages may be processed at the same time, take() always returns the response
+  * for the earliest-submitted message first. With a concurrency of 1 this behaves exactly like
+  * the single-thread executor each Processor used to hold itself.
+  *
+  * End-of-data is signaled by a null response (the Poison Pill).
+  *
+  * If a ResponseBackpressure is supplied, it's told of each response submitted, completed and taken, and its
+  * maximum number of responses is the capacity of the response queue.
+  *
+  * In thread-per-message mode (see newThreadPerMessage()) each message runs on its own thread, created as needed
+  * and reclaimed when idle, up to the in-flight limit, for Processors that mostly wait on I/O.
+  *
+  * In ring-buffer mode (see newRingBuffer()) there is a single worker. Tasks are handed to it, and its responses
+  * handed back, through two preallocated single-producer/single-consumer RingBuffers instead of an ExecutorService
+  * queue and a queue of Futures, avoiding the locks and allocations of that path. Calls that submit work are
+  * serialized on a monitor (uncontended in normal running), so the request ring only ever sees one producer at a time;
+  * take() must only be called from one thread.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  * @version 1.1 16/10/2026 Added thread-per-message mode.
+  * @version 1.2 16/10/2026 Added ring-buffer mode.
+  *
+  * @ThreadSafe
+  */
+public class OrderedTaskExecutor {
+
+    private static final Logger logger = Logger.getLogger("gemha");
+
+    // Default capacity of the response queue, as was hard-coded in each Processor
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+	private final int concurrency;
+	private final boolean threadPerMessage;
+
+    // Executor for processing messages
+    private final ExecutorService execPool;
+
+    // Queue for handing off responses, in submission order.
+    // End-of-data will be signaled by a null record
+    private final BlockingQueue<Future<ProcessResponse>> responseQueue;
+
+    // Tracks responses awaiting collection, null if not tracked
+    private final ResponseBackpressure backpressure;
+
+    // In ring-buffer mode only (otherwise null): tasks to the worker, and responses back from it, in submission order.
+    // End-of-data will be signaled by a null response
+    private final RingBuffer<RequestEvent> requestRing;
+    private final RingBuffer<ResponseEvent> responseRing;
+    private final Object producerLock = new Object();	// serializes producers of requestRing
+    private volatile boolean ringShutdown = false;		// guarded by producerLock for writes
+
+	/**
+	  * Constructor
+	  *
+	  * @param concurrency the number of messages that may be processed at the same time (1..n)
+	  * @param queueCapacity the maximum number of responses that may be awaiting collection
+	  */
+	public OrderedTaskExecutor(int concurrency, int queueCapacity) {
+		this(concurrency, queueCapacity, null);
+	}
+
+	/**
+	  * Constructor, bounding the response queue by the given backpressure's limits
+	  *
+	  * @param concurrency the number of messages that may be processed at the same time (1..n)
+	  * @param backpressure tracks the responses awaiting collection (can be null, for the default queue capacity)
+	  */
+	public OrderedTaskExecutor(int concurrency, ResponseBackpressure backpressure) {
+		this(concurrency, (backpressure == null ? DEFAULT_QUEUE_CAPACITY : backpressure.getMaxResponses()), backpressure);
+	}
+
+	/**
+	  * Constructor
+	  *
+	  * @param concurrency the number of messages that may be processed at the same time (1..n)
+	  * @param queueCapacity the maximum number of responses that may be awaiting collection
+	  * @param backpressure tracks the responses awaiting collection (can be null)
+	  */
+	private OrderedTaskExecutor(int concurrency, int queueCapacity, ResponseBackpressure backpressure) {
+		this(concurrency, queueCapacity, backpressure, false);
+	}
+
+	/**
+	  * Constructor
+	  *
+	  * @param concurrency the number of messages that may be processed at the same time (1..n)
+	  * @param queueCapacity the maximum number of responses that may be awaiting collection
+	  * @param backpressure tracks the responses awaiting collection (can be null)
+	  * @param threadPerMessage if true, each message runs on its own thread, created as needed and reclaimed when idle
+	  */
+	private OrderedTaskExecutor(int concurrency, int queueCapacity, ResponseBackpressure backpressure, boolean threadPerMessage) {
+		if (concurrency < 1) throw new IllegalArgumentException("OrderedTaskExecutor: concurrency must be at least 1.");
+		if (queueCapacity < 1) throw new IllegalArgumentException("OrderedTaskExecutor: queueCapacity must be at least 1.");
+
+		this.concurrency = concurrency;
+		this.threadPerMessage = threadPerMessage;
+		if (threadPerMessage)
+			this.execPool = ThreadPerMessagePool.newExecutor("gemha-processor", concurrency);
+		else
+			this.execPool = (concurrency == 1 ? Executors.newSingleThreadExecutor() : Executors.newFixedThreadPool(concurrency));
+		this.responseQueue = new LinkedBlockingQueue<Future<ProcessResponse>>(queueCapacity);
+		this.backpressure = backpressure;
+		this.requestRing = null;
+		this.responseRing = null;
+	}
+
+	/**
+	  * Constructor for ring-buffer mode
+	  *
+	  * @param ringSize the number of slots in each ring (a power of 2)
+	  * @param waitStrategy how the worker and the caller of take() wait for each other
+	  * @param backpressure tracks the responses awaiting collection (can be null)
+	  */
+	private OrderedTaskExecutor(int ringSize, RingBuffer.WaitStrategy waitStrategy, ResponseBackpressure backpressure) {
+		this.concurrency = 1;
+		this.threadPerMessage = false;
+		this.execPool = Executors.newSingleThreadExecutor();
+		this.responseQueue = null;
+		this.backpressure = backpressure;
+		this.requestRing = new RingBuffer<RequestEvent>(ringSize, new RingBuffer.EventFactory<RequestEvent>() {
+			public RequestEvent newEvent() {
+				return new RequestEvent();
+			}
+		}, waitStrategy);
+		this.responseRing = new RingBuffer<ResponseEvent>(ringSize, new RingBuffer.EventFactory<ResponseEvent>() {
+			public ResponseEvent newEvent() {
+				return new ResponseEvent();
+			}
+		}, waitStrategy);
+
+		execPool.execute(new Runnable() {
+			public void run() {
+				runRingWorker();
+			}
+		});
+	}
+
+	/**
+	  * Constructor, using the default queue capacity
+	  *
+	  * @param concurrency the number of messages that may be processed at the same time (1..n)
+	  */
+	public OrderedTaskExecutor(int concurrency) {
+		this(concurrency, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	  * Create an executor running each message on its own thread, up to maxInFlight at a time.
+	  *
+	  * @param maxInFlight the maximum number of messages that may be processed at the same time (1..n)
+	  * @param backpressure tracks the responses awaiting collection (can be null, for the default queue capacity)
+	  * @return the new executor
+	  */
+	public static OrderedTaskExecutor newThreadPerMessage(int maxInFlight, ResponseBackpressure backpressure) {
+		return new OrderedTaskExecutor(maxInFlight, (backpressure == null ? DEFAULT_QUEUE_CAPACITY : backpressure.getMaxResponses()), backpressure, true);
+	}
+
+	/**
+	  * Create an executor with a single worker, handing tasks to it and responses back through preallocated ring buffers.
+	  *
+	  * @param ringSize the number of slots in each ring (a power of 2)
+	  * @param waitStrategy how the worker and the caller of take() wait for each other
+	  * @param backpressure tracks the responses awaiting collection (can be null)
+	  * @return the new executor
+	  */
+	public static OrderedTaskExecutor newRingBuffer(int ringSize, RingBuffer.WaitStrategy waitStrategy, ResponseBackpressure backpressure) {
+		return new OrderedTaskExecutor(ringSize, waitStrategy, backpressure);
+	}
+
+	/**
+	  * Create a new executor like this one (same concurrency and mode), but bounded by the given backpressure.
+	  * Only to be used before any tasks are submitted to this executor, which is simply abandoned.
+	  *
+	  * @param backpressure tracks the responses awaiting collection (can be null, for the default queue capacity)
+	  * @return the new executor
+	  */
+	public OrderedTaskExecutor withBackpressure(ResponseBackpressure backpressure) {
+		if (requestRing != null) {
+			execPool.shutdownNow(); // stop the idle ring worker
+			return newRingBuffer(requestRing.getSize(), requestRing.getWaitStrategy(), backpressure);
+		}
+
+		execPool.shutdown(); // no threads started yet, but don't leave it lying around
+
+		if (threadPerMessage)
+			return newThreadPerMessage(concurrency, backpressure);
+		else
+			return new OrderedTaskExecutor(concurrency, backpressure);
+	}
+
+	/**
+	  * Get helper method for concurrency
+	  *
+	  * @return the number of messages that may be processed at the same time
+	  */
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	/**
+	  * @return true if each message runs on its own thread (see newThreadPerMessage())
+	  */
+	public boolean isThreadPerMessage() {
+		return threadPerMessage;
+	}
+
+	/**
+	  * @return true if tasks and responses are handed over through ring buffers (see newRingBuffer())
+	  */
+	public boolean isRingBuffer() {
+		return (requestRing != null);
+	}
+
+	/**
+	  * Get helper method for backpressure
+	  *
+	  * @return the tracker of responses awaiting collection, null if not tracked
+	  */
+	public ResponseBackpressure getBackpressure() {
+		return backpressure;
+	}
+
+	/**
+	  * Submit a task for processing on a pool thread.
+	  * Exceptions thrown within the Callable will not return to the caller, but will re-appear from take().
+	  *
+	  * @param task the task to be run
+	  *
+	  * @throws InterruptedException if interrupted while waiting for space on the response queue
+	  */
+	public void submit(Callable<ProcessResponse> task) throws InterruptedException {
+		if (requestRing != null) {
+			synchronized (producerLock) {
+				if (ringShutdown) throw new RejectedExecutionException("OrderedTaskExecutor: already shut down.");
+				long sequence = requestRing.claim();
+				requestRing.get(sequence).task = (backpressure == null ? task : backpressure.trackResponse(task));
+				requestRing.publish(sequence);
+			}
+			return;
+		}
+
+		responseQueue.put(execPool.submit(backpressure == null ? task : backpressure.trackResponse(task)));
+	}
+
+	/**
+	  * Submit a task that processes a whole batch of messages on one pool thread, returning one response per message.
+	  * A Future for each message's response is placed on the response queue, so take() still returns one response
+	  * per message, in submission order.
+	  *
+	  * @param batchTask the task to be run, which must return exactly batchSize responses, in message order
+	  * @param batchSize the number of messages in the batch
+	  *
+	  * @throws InterruptedException if interrupted while waiting for space on the response queue
+	  */
+	public void submitBatch(Callable<List<ProcessResponse>> batchTask, int batchSize) throws InterruptedException {
+		if (requestRing != null) {
+			synchronized (producerLock) {
+				if (ringShutdown) throw new RejectedExecutionException("OrderedTaskExecutor: already shut down.");
+				long sequence = requestRing.claim();
+				RequestEvent request = requestRing.get(sequence);
+				request.batchTask = (backpressure == null ? batchTask : backpressure.trackResponses(batchTask, batchSize));
+				request.batchSize = batchSize;
+				requestRing.publish(sequence);
+			}
+			return;
+		}
+
+		Future<List<ProcessResponse>> batchFuture = execPool.submit(backpressure == null ? batchTask : backpressure.trackResponses(batchTask, batchSize));
+		for (int i = 0; i < batchSize; i++) {
+			responseQueue.put(new BatchResponseFuture(batchFuture, i, batchSize));
+		}
+	}
+
+	/**
+	  * Run a housekeeping task on a pool thread. No response will be generated for it.
+	  *
+	  * @param task the task to be run
+	  * @throws RejectedExecutionException if shut down, or interrupted while waiting for a free ring slot
+	  */
+	public void execute(Runnable task) {
+		if (requestRing != null) {
+			synchronized (producerLock) {
+				if (ringShutdown) throw new RejectedExecutionException("OrderedTaskExecutor: already shut down.");
+				try {
+					long sequence = requestRing.claim();
+					requestRing.get(sequence).housekeeping = task;
+					requestRing.publish(sequence);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					logger.warning("[" + Thread.currentThread().getName() + "]: Interrupted waiting for a free ring slot, housekeeping task not handed over.");
+					throw new RejectedExecutionException("OrderedTaskExecutor: interrupted waiting for a free ring slot.", e);
+				}
+			}
+			return;
+		}
+
+		execPool.execute(task);
+	}
+
+	/**
+	  * Return the response for the earliest-submitted task still outstanding, blocking until it's available.
+	  * When all responses have been received, null will be returned.
+	  *
+	  * @return the next response, null if no more results will ever arrive
+	  * @throws MessagingException if a problem was encountered processing the message
+	  * @throws InterruptedException if CALLING thread is noticed as interrupted while getting response
+	  */
+	public ProcessResponse take() throws MessagingException, InterruptedException {
+		if (responseRing != null) {
+			long sequence = responseRing.waitForNext();
+			ResponseEvent event = responseRing.get(sequence);
+			ProcessResponse response = event.response;
+			Throwable failure = event.failure;
+			event.clear();
+			responseRing.release(sequence);
+
+			if (failure != null) {
+				if (backpressure != null) { // task failed, so never recorded any bytes
+					backpressure.responseTaken(0);
+				}
+				throw TaskExecutorSupport.rethrow(failure);
+			}
+			if (backpressure != null && response != null) { // null is the Poison Pill, which isn't tracked
+				backpressure.responseTaken(response.getApproximateSize());
+			}
+			return response;
+		}
+
+		try {
+			Future<ProcessResponse> fr = responseQueue.take(); // will block here if queue empty (will never return null - BlockingQueue doesn't allow)
+			ProcessResponse response = fr.get(); // will block here if next task in queue not yet finished
+			if (backpressure != null && response != null) { // null is the Poison Pill, which isn't tracked
+				backpressure.responseTaken(response.getApproximateSize());
+			}
+			return response;
+		} catch (ExecutionException e) {
+			if (backpressure != null) { // task failed, so never recorded any bytes
+				backpressure.responseTaken(0);
+			}
+			throw TaskExecutorSupport.rethrow(e.getCause());
+		}
+	}
+
+	/**
+	  * This method creates a Poison Pill and places it in the response queue, behind all previously-submitted tasks.
+	  * It then tells the executor to shut down.
+	  *
+	  * Safe to call more than once.
+	  */
+	public synchronized void submitPoisonPill() {
+		logger.info("[" + Thread.currentThread().getName() + "]: Submitting Poison Pill to Executor queue, so will cause responseProcessor to close down.");
+		if (requestRing != null) {
+			synchronized (producerLock) {
+				if ( ! ringShutdown) { // this check in case we,ve already called this method
+					try {
+						long sequence = requestRing.claim();
+						requestRing.get(sequence).poisonPill = true;
+						requestRing.publish(sequence);
+						ringShutdown = true;
+						// Worker will stop after the Poison Pill, so shut execPool down (no waiting)...
+						execPool.shutdown();
+					} catch(InterruptedException e) { // thrown by requestRing.claim
+						Thread.currentThread().interrupt();
+					}
+				}
+			}
+			return;
+		}
+
+		try {
+			if ( ! execPool.isShutdown()) { // this check in case we,ve already called this method
+				TaskExecutorSupport.submitPoisonPill(responseQueue, execPool);
+			}
+
+		} catch(InterruptedException e) { // thrown by responseQueue.put
+			// Set back to interrupted - the caller will decide what to do with Thread
+			// (in case queue will have called interrupted(), which clears the interrupted flag for the thread)
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	  * @return true if the Poison Pill has been submitted (and so no more tasks will be accepted)
+	  */
+	public boolean isShutdown() {
+		return (requestRing != null ? ringShutdown : execPool.isShutdown());
+	}
+
+	/**
+	  * Allow caller block until all tasks have completed execution after a shutdown request, or the timeout occurs,
+	  * or the current thread is interrupted, whichever happens first.
+	  *
+	  * @param timeout the number of units to wait before giving up wait.
+	  * @param unit the unit of time of the timeout value
+	  * @throws InterruptedException if current thread interrupted while waiting
+	  */
+	public void awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		execPool.awaitTermination(timeout, unit);
+	}
+
+	/**
+	  * The ring worker: take each task from requestRing, run it and put its response(s), or failure, on responseRing,
+	  * until the Poison Pill arrives. Runs on execPool's single thread.
+	  */
+	private void runRingWorker() {
+		try {
+			while (true) {
+				long sequence = requestRing.waitForNext();
+				RequestEvent request = requestRing.get(sequence);
+				Callable<ProcessResponse> task = request.task;
+				Callable<List<ProcessResponse>> batchTask = request.batchTask;
+				int batchSize = request.batchSize;
+				Runnable housekeeping = request.housekeeping;
+				boolean poisonPill = request.poisonPill;
+				request.clear();
+				requestRing.release(sequence); // slot may now be re-used by the producer
+
+				if (poisonPill) {
+					publishResponse(null, null);
+					logger.info("[" + Thread.currentThread().getName() + "]: Ring worker received Poison Pill, stopping.");
+					return;
+				}
+				else if (housekeeping != null) {
+					try {
+						housekeeping.run();
+					} catch (RuntimeException e) {
+						logger.severe("[" + Thread.currentThread().getName() + "]: Housekeeping task failed: " + e);
+					}
+				}
+				else if (batchTask != null) {
+					List<ProcessResponse> responses = null;
+					Throwable failure = null;
+					try {
+						responses = batchTask.call();
+						if (responses == null || responses.size() != batchSize) {
+							failure = new MessagingException("Batch of " + batchSize + " message(s) returned " + (responses == null ? 0 : responses.size()) + " response(s).");
+						}
+					} catch (Throwable t) {
+						failure = t;
+					}
+					for (int i = 0; i < batchSize; i++) {
+						publishResponse((failure == null ? responses.get(i) : null), failure);
+					}
+				}
+				else {
+					try {
+						publishResponse(task.call(), null);
+					} catch (Throwable t) {
+						publishResponse(null, t);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			// Shut down (shutdownNow), nothing more to hand back
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	  * Put a response, or the failure that stopped one being produced, on responseRing. Ring worker only.
+	  *
+	  * @throws InterruptedException if interrupted waiting for space on responseRing
+	  */
+	private void publishResponse(ProcessResponse response, Throwable failure) throws InterruptedException {
+		long sequence = responseRing.claim();
+		ResponseEvent event = responseRing.get(sequence);
+		event.response = response;
+		event.failure = failure;
+		responseRing.publish(sequence);
+	}
+
+	/**
+	  * A reusable slot on requestRing. Exactly one of task, batchTask, housekeeping or poisonPill is set.
+	  */
+	private static final class RequestEvent {
+		private Callable<ProcessResponse> task;
+		private Callable<List<ProcessResponse>> batchTask;
+		private int batchSize;
+		private Runnable housekeeping;
+		private boolean poisonPill;
+
+		private void clear() {
+			task = null;
+			batchTask = null;
+			batchSize = 0;
+			housekeeping = null;
+			poisonPill = false;
+		}
+	}
+
+	/**
+	  * A reusable slot on responseRing. A null response with no failure is the Poison Pill.
+	  */
+	private static final class ResponseEvent {
+		private ProcessResponse response;
+		private Throwable failure;
+
+		private void clear() {
+			response = null;
+			failure = null;
+		}
+	}
+
+	/**
+	  * The Future of one message's response, within the Future of a whole batch's responses.
+	  */
+	private static class BatchResponseFuture implements Future<ProcessResponse> {
+		private final Future<List<ProcessResponse>> batchFuture;
+		private final int index;
+		private final int batchSize;
+
+		public BatchResponseFuture(Future<List<ProcessResponse>> batchFuture, int index, int batchSize) {
+			this.batchFuture = batchFuture;
+			this.index = index;
+			this.batchSize = batchSize;
+		}
+
+		public ProcessResponse get() throws InterruptedException, ExecutionException {
+			return responseFromBatch(batchFuture.get());
+		}
+
+		public ProcessResponse get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+			return responseFromBatch(batchFuture.get(timeout, unit));
+		}
+
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			return batchFuture.cancel(mayInterruptIfRunning);
+		}
+
+		public boolean isCancelled() {
+			return batchFuture.isCancelled();
+		}
+
+		public boolean isDone() {
+			return batchFuture.isDone();
+		}
+
+		private ProcessResponse responseFromBatch(List<ProcessResponse> responses) throws ExecutionException {
+			if (responses == null || responses.size() != batchSize) {
+				throw new ExecutionException(new MessagingException("Batch of " + batchSize + " message(s) returned " + (responses == null ? 0 : responses.size()) + " response(s)."));
+			}
+			return responses.get(index);
+		}
+	}
+}
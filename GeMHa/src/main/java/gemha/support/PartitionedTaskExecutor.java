@@ -0,0 +1,191 @@
+package gemha.support;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.*;
+
+/**
+  * Runs message-processing tasks on a fixed number of single-threaded lanes, choosing the lane
+  * by hashing a partition key (for example, the audit key values of the message).
+  *
+  * All messages with the same key run on the same lane, so are processed strictly in the order
+  * they were submitted. Messages with different keys may be processed at the same time.
+  *
+  * As with OrderedTaskExecutor, the Future for each task is placed on a single FIFO queue at submission
+  * time, so take() always returns responses in the order in which the tasks were submitted, whichever
+  * lane they ran on.
+  *
+  * End-of-data is signaled by a null response (the Poison Pill).
+  *
+  * If a ResponseBackpressure is supplied, it's told of each response submitted, completed and taken.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  *
+  * @ThreadSafe
+  */
+public class PartitionedTaskExecutor {
+
+    private static final Logger logger = Logger.getLogger("gemha");
+
+	private final ExecutorService[] lanes;
+
+    // Queue for handing off responses, in submission order.
+    // End-of-data will be signaled by a null record
+    private final BlockingQueue<Future<ProcessResponse>> responseQueue;
+
+    // Tracks responses awaiting collection, null if not tracked
+    private final ResponseBackpressure backpressure;
+
+    private volatile boolean shutdown = false;
+
+	/**
+	  * Constructor
+	  *
+	  * @param laneCount the number of lanes (and so threads) on which to process messages (1..n)
+	  * @param queueCapacity the maximum number of responses that may be awaiting collection
+	  */
+	public PartitionedTaskExecutor(int laneCount, int queueCapacity) {
+		this(laneCount, queueCapacity, null);
+	}
+
+	/**
+	  * Constructor, bounding the response queue by the given backpressure's limits
+	  *
+	  * @param laneCount the number of lanes (and so threads) on which to process messages (1..n)
+	  * @param backpressure tracks the responses awaiting collection (can be null, for the default queue capacity)
+	  */
+	public PartitionedTaskExecutor(int laneCount, ResponseBackpressure backpressure) {
+		this(laneCount, (backpressure == null ? OrderedTaskExecutor.DEFAULT_QUEUE_CAPACITY : backpressure.getMaxResponses()), backpressure);
+	}
+
+	/**
+	  * Constructor
+	  *
+	  * @param laneCount the number of lanes (and so threads) on which to process messages (1..n)
+	  * @param queueCapacity the maximum number of responses that may be awaiting collection
+	  * @param backpressure tracks the responses awaiting collection (can be null)
+	  */
+	private PartitionedTaskExecutor(int laneCount, int queueCapacity, ResponseBackpressure backpressure) {
+		if (laneCount < 1) throw new IllegalArgumentException("PartitionedTaskExecutor: laneCount must be at least 1.");
+		if (queueCapacity < 1) throw new IllegalArgumentException("PartitionedTaskExecutor: queueCapacity must be at least 1.");
+
+		this.lanes = new ExecutorService[laneCount];
+		for (int i = 0; i < laneCount; i++) {
+			lanes[i] = Executors.newSingleThreadExecutor();
+		}
+		this.responseQueue = new LinkedBlockingQueue<Future<ProcessResponse>>(queueCapacity);
+		this.backpressure = backpressure;
+	}
+
+	/**
+	  * Constructor, using the default queue capacity
+	  *
+	  * @param laneCount the number of lanes (and so threads) on which to process messages (1..n)
+	  */
+	public PartitionedTaskExecutor(int laneCount) {
+		this(laneCount, OrderedTaskExecutor.DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	  * Get helper method for the number of lanes
+	  *
+	  * @return the number of lanes
+	  */
+	public int getLaneCount() {
+		return lanes.length;
+	}
+
+	/**
+	  * Determine the lane on which messages with the given key will run.
+	  *
+	  * @param partitionKey the key on which to partition (null is allowed, and always maps to lane 0)
+	  * @return the lane number (0..laneCount-1)
+	  */
+	public int laneFor(String partitionKey) {
+		if (partitionKey == null) return 0;
+
+		return (partitionKey.hashCode() & 0x7fffffff) % lanes.length;
+	}
+
+	/**
+	  * Submit a task for processing on the lane chosen by partitionKey.
+	  * Exceptions thrown within the Callable will not return to the caller, but will re-appear from take().
+	  *
+	  * Synchronized so that the order of Futures on the response queue is the same as the order of
+	  * submission to each lane.
+	  *
+	  * @param task the task to be run
+	  * @param partitionKey the key on which to partition
+	  *
+	  * @throws InterruptedException if interrupted while waiting for space on the response queue
+	  */
+	public synchronized void submit(Callable<ProcessResponse> task, String partitionKey) throws InterruptedException {
+		responseQueue.put(lanes[laneFor(partitionKey)].submit(backpressure == null ? task : backpressure.trackResponse(task)));
+	}
+
+	/**
+	  * Return the response for the earliest-submitted task still outstanding, blocking until it's available.
+	  * When all responses have been received, null will be returned.
+	  *
+	  * @return the next response, null if no more results will ever arrive
+	  * @throws MessagingException if a problem was encountered processing the message
+	  * @throws InterruptedException if CALLING thread is noticed as interrupted while getting response
+	  */
+	public ProcessResponse take() throws MessagingException, InterruptedException {
+		try {
+			Future<ProcessResponse> fr = responseQueue.take(); // will block here if queue empty (will never return null - BlockingQueue doesn't allow)
+			ProcessResponse response = fr.get(); // will block here if next task in queue not yet finished
+			if (backpressure != null && response != null) { // null is the Poison Pill, which isn't tracked
+				backpressure.responseTaken(response.getApproximateSize());
+			}
+			return response;
+		} catch (ExecutionException e) {
+			if (backpressure != null) { // task failed, so never recorded any bytes
+				backpressure.responseTaken(0);
+			}
+			throw TaskExecutorSupport.rethrow(e.getCause());
+		}
+	}
+
+	/**
+	  * This method creates a Poison Pill and places it in the response queue, behind all previously-submitted tasks.
+	  * It then tells the lanes to shut down.
+	  *
+	  * Safe to call more than once.
+	  */
+	public synchronized void submitPoisonPill() {
+		logger.info("[" + Thread.currentThread().getName() + "]: Submitting Poison Pill to lane queue, so will cause responseProcessor to close down.");
+		try {
+			if ( ! shutdown) { // this check in case we,ve already called this method
+				TaskExecutorSupport.submitPoisonPill(responseQueue, lanes);
+				shutdown = true;
+			}
+
+		} catch(InterruptedException e) { // thrown by responseQueue.put
+			// Set back to interrupted - the caller will decide what to do with Thread
+			// (in case queue will have called interrupted(), which clears the interrupted flag for the thread)
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	  * Allow caller block until all lanes have completed execution after a shutdown request, or the timeout occurs,
+	  * or the current thread is interrupted, whichever happens first.
+	  *
+	  * @param timeout the number of units to wait before giving up wait (applied to each lane in turn).
+	  * @param unit the unit of time of the timeout value
+	  * @throws InterruptedException if current thread interrupted while waiting
+	  */
+	public void awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		for (ExecutorService lane : lanes) {
+			lane.awaitTermination(timeout, unit);
+		}
+	}
+}
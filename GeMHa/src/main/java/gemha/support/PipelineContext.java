@@ -0,0 +1,86 @@
+package gemha.support;
+
+import java.util.logging.Filter;
+import java.util.logging.LogRecord;
+
+/**
+  * Identifies the hosted pipeline (see GemhaHost) on whose behalf the current thread is running, so that
+  * pipelines sharing one JVM (and so the one "gemha" Logger) can each keep their own log file.
+  *
+  * The pipeline name is inherited by any thread created by a pipeline's thread, so the executors a pipeline
+  * starts carry its name without being told. Work run on a thread shared between pipelines must be wrapped
+  * (see wrap()) to carry the name of the pipeline that submitted it.
+  *
+  * When not hosted, no pipeline name is set and nothing is filtered.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  *
+  * @ThreadSafe
+  */
+public class PipelineContext {
+
+	private static final InheritableThreadLocal<String> pipelineName = new InheritableThreadLocal<String>();
+
+	private PipelineContext() {
+		// Static methods only
+	}
+
+	/**
+	  * Set the pipeline on whose behalf the current thread (and any thread it creates) is running.
+	  *
+	  * @param name the name of the pipeline, null if not hosted
+	  */
+	public static void setPipelineName(String name) {
+		pipelineName.set(name);
+	}
+
+	/**
+	  * Get the pipeline on whose behalf the current thread is running.
+	  *
+	  * @return the name of the pipeline, null if not hosted
+	  */
+	public static String getPipelineName() {
+		return pipelineName.get();
+	}
+
+	/**
+	  * Wrap work so that it runs on behalf of the current thread's pipeline, whichever thread runs it.
+	  *
+	  * @param task the work to be run
+	  * @return the wrapped work (task itself, if not hosted)
+	  */
+	public static Runnable wrap(final Runnable task) {
+		final String name = pipelineName.get();
+		if (name == null) {
+			return task;
+		}
+
+		return new Runnable() {
+			public void run() {
+				String previousName = pipelineName.get();
+				pipelineName.set(name);
+				try {
+					task.run();
+				}
+				finally {
+					pipelineName.set(previousName);
+				}
+			}
+		};
+	}
+
+	/**
+	  * Create a log Filter passing only records logged on behalf of the given pipeline.
+	  *
+	  * @param name the name of the pipeline
+	  * @return the Filter
+	  */
+	public static Filter newLogFilter(final String name) {
+		return new Filter() {
+			public boolean isLoggable(LogRecord record) {
+				return name.equals(pipelineName.get()); // log records are published on the logging thread
+			}
+		};
+	}
+}
@@ -0,0 +1,173 @@
+package gemha.support;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.*;
+
+/**
+  * One stage of a message-handling pipeline: work is run on the stage's own thread(s) and the results
+  * are handed off to the next stage through a bounded queue, in the order the work was submitted.
+  *
+  * The Future for each piece of work is placed on the hand-off queue at submission time, so take()
+  * always returns results in submission order, however many threads the stage has. When the queue is full,
+  * submit() blocks, so a slow downstream stage holds back the stages feeding it.
+  *
+  * End-of-data is signaled by a null result (see submitEndOfData()).
+  *
+  * A stage whose work mostly waits on I/O can run each piece of work on its own thread (see newThreadPerMessage()).
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  * @version 1.1 16/10/2026 Added thread-per-message stages.
+  *
+  * @ThreadSafe
+  */
+public class PipelineStage<T> {
+
+    private static final Logger logger = Logger.getLogger("gemha");
+
+	private final String name;
+	private final int threads;
+
+    // Executor for the work of this stage
+    private final ExecutorService execPool;
+
+    // Queue for handing off results to the next stage, in submission order.
+    // End-of-data will be signaled by a null record
+    private final BlockingQueue<Future<T>> handOffQueue;
+
+	/**
+	  * Constructor
+	  *
+	  * @param name the name of the stage, for logging and monitoring
+	  * @param threads the number of threads on which to run the work of this stage (1..n)
+	  * @param queueCapacity the maximum number of results that may be awaiting collection by the next stage
+	  */
+	public PipelineStage(String name, int threads, int queueCapacity) {
+		this(name, threads, queueCapacity, (threads == 1 ? Executors.newSingleThreadExecutor() : Executors.newFixedThreadPool(threads)));
+	}
+
+	/**
+	  * Constructor
+	  *
+	  * @param name the name of the stage, for logging and monitoring
+	  * @param threads the maximum number of threads on which to run the work of this stage (1..n)
+	  * @param queueCapacity the maximum number of results that may be awaiting collection by the next stage
+	  * @param execPool the executor on which to run the work of this stage
+	  */
+	private PipelineStage(String name, int threads, int queueCapacity, ExecutorService execPool) {
+		if (threads < 1) throw new IllegalArgumentException("PipelineStage: threads must be at least 1.");
+		if (queueCapacity < 1) throw new IllegalArgumentException("PipelineStage: queueCapacity must be at least 1.");
+
+		this.name = name;
+		this.threads = threads;
+		this.execPool = execPool;
+		this.handOffQueue = new LinkedBlockingQueue<Future<T>>(queueCapacity);
+	}
+
+	/**
+	  * Create a stage running each piece of work on its own thread, up to maxInFlight at a time.
+	  * Threads are created as needed and reclaimed when idle (see ThreadPerMessagePool).
+	  *
+	  * @param name the name of the stage, for logging and monitoring
+	  * @param maxInFlight the maximum number of pieces of work that may run at the same time (1..n)
+	  * @param queueCapacity the maximum number of results that may be awaiting collection by the next stage
+	  * @return the new stage
+	  */
+	public static <T> PipelineStage<T> newThreadPerMessage(String name, int maxInFlight, int queueCapacity) {
+		return new PipelineStage<T>(name, maxInFlight, queueCapacity, ThreadPerMessagePool.newExecutor("gemha-" + name, maxInFlight));
+	}
+
+	/**
+	  * Get helper method for name
+	  *
+	  * @return the name of the stage
+	  */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	  * Get helper method for threads
+	  *
+	  * @return the number of threads running the work of this stage
+	  */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	  * @return the number of results waiting (or being worked on) for collection by the next stage
+	  */
+	public int getQueueDepth() {
+		return handOffQueue.size();
+	}
+
+	/**
+	  * Submit work to this stage, blocking if the hand-off queue is full.
+	  * Exceptions thrown within the Callable will not return to the caller, but will re-appear from take().
+	  *
+	  * @param work the work to be run
+	  *
+	  * @throws InterruptedException if interrupted while waiting for space on the hand-off queue
+	  */
+	public void submit(Callable<T> work) throws InterruptedException {
+		handOffQueue.put(execPool.submit(work));
+	}
+
+	/**
+	  * Return the result of the earliest-submitted work still outstanding, blocking until it's available.
+	  *
+	  * @return the next result, null if no more results will ever arrive
+	  * @throws MessagingException if a problem was encountered doing the work
+	  * @throws InterruptedException if CALLING thread is noticed as interrupted while getting the result
+	  */
+	public T take() throws MessagingException, InterruptedException {
+		try {
+			Future<T> fr = handOffQueue.take(); // will block here if queue empty (will never return null - BlockingQueue doesn't allow)
+			return fr.get(); // will block here if next work in queue not yet finished
+		} catch (ExecutionException e) {
+			throw TaskExecutorSupport.rethrow(e.getCause());
+		}
+	}
+
+	/**
+	  * Place an end-of-data marker (a null result) on the hand-off queue, behind all previously-submitted work,
+	  * then tell the executor to shut down.
+	  *
+	  * Safe to call more than once.
+	  *
+	  * @throws InterruptedException if interrupted while waiting for space on the hand-off queue
+	  */
+	public synchronized void submitEndOfData() throws InterruptedException {
+		if ( ! execPool.isShutdown()) { // this check in case we,ve already called this method
+			logger.fine("[" + Thread.currentThread().getName() + "]: Submitting end-of-data to pipeline stage " + name);
+			TaskExecutorSupport.submitPoisonPill(handOffQueue, execPool);
+		}
+	}
+
+	/**
+	  * Allow caller block until all work has completed execution after a shutdown request, or the timeout occurs,
+	  * or the current thread is interrupted, whichever happens first.
+	  *
+	  * @param timeout the number of units to wait before giving up wait.
+	  * @param unit the unit of time of the timeout value
+	  * @throws InterruptedException if current thread interrupted while waiting
+	  */
+	public void awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		execPool.awaitTermination(timeout, unit);
+	}
+
+	/**
+	  * Stop the stage immediately, abandoning any work not yet started.
+	  */
+	public void shutdownNow() {
+		execPool.shutdownNow();
+	}
+}
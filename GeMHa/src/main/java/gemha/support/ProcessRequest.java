@@ -0,0 +1,83 @@
+package gemha.support;
+
+import lw.XML.XMLDocument;
+
+/**
+  * Encapsulates a message to be processed by a Processor, as one entry of a batch.
+  * 
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  * @version 1.1 16/10/2026 May carry the message already parsed (see IProcessParsedMesssage).
+  * 
+  * @ThreadSafe (but see inputDoc)
+  */
+public class ProcessRequest {
+	private final String message;
+	private final XMLDocument messageDoc;	// the message, already parsed, null if not. Handed over to the Processor
+	private final XMLDocument inputDoc;		// the original input message, null if not XML. DO NOT MODIFY, is NOT threadsafe!!
+	private final String auditKeyValues;
+
+  /**
+    * Constructor
+    * 
+	* @param message the message to be processed
+	* @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result
+	* @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+    */
+	public ProcessRequest(String message, XMLDocument inputDoc, String auditKeyValues) {
+		this(message, null, inputDoc, auditKeyValues);
+	}
+
+  /**
+    * Constructor, for a message already parsed
+    * 
+	* @param message the message to be processed
+	* @param messageDoc the message to be processed, already parsed, null if not. Handed over - not used by the caller again
+	* @param inputDoc the original input message as an XML document, null if message was not XML. To be returned with result
+	* @param auditKeyValues audit Key Values for the message (can be null). To be returned with result
+    */
+	public ProcessRequest(String message, XMLDocument messageDoc, XMLDocument inputDoc, String auditKeyValues) {
+		if (message == null) throw new IllegalArgumentException("ProcessRequest: message cannot be null.");
+
+		this.message = message;
+		this.messageDoc = messageDoc;
+		this.inputDoc = inputDoc;
+		this.auditKeyValues = auditKeyValues;
+	}
+
+	/**
+	  * Get the message to be processed
+	  *
+	  * @return the message to be processed
+	  */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	  * Get the message to be processed, already parsed (see IProcessParsedMesssage)
+	  *
+	  * @return the message to be processed, already parsed, null if it must be parsed from getMessage()
+	  */
+	public XMLDocument getMessageDoc() {
+		return messageDoc;
+	}
+
+	/**
+	  * Get the original input message. DO NOT MODIFY, is NOT threadsafe!!
+	  *
+	  * @return the original input message as an XML document, null if message was not XML
+	  */
+	public XMLDocument getInputDoc() {
+		return inputDoc;
+	}
+
+	/**
+	  * Get the audit Key Values for the message
+	  *
+	  * @return the audit Key Values for the message (can be null)
+	  */
+	public String getAuditKeyValues() {
+		return auditKeyValues;
+	}
+}
@@ -1,134 +1,166 @@
-package gemha.support;
-
-import lw.XML.XMLDocument;
-import lw.XML.XMLException;
-
-/**
-  * Encapsulates a response after Processing messages for a target meduim.
-  * 
-  * @author Liam Wade
-  * @version 1.0 21/05/2013
-  * 
-  * @ThreadSafe
-  */
-public class ProcessResponse {
-	public static enum ProcessResponseCode {
-		SUCCESS,
-		INTERRUPTED,
-		FAILURE_INVALID_MESSAGE,
-		FAILURE_INVALID_XML
-	};
-	
-	private final ProcessResponseCode responseCode;
-	private final int rowsProcessed;
-	private final String response;
-	private final Throwable exception;
-	private final String inputDoc;			// a string representation (therefore immutable) of the received input message, if exists
-	private final String auditKeyValues;
-	
-  /**
-    * Constructor
-    * 
-	* @param response the detailed response (can be null)
-	* @param exception the exception thrown during processing, if any (can be null)
-    */
-	private ProcessResponse(Builder builder) {
-		this.responseCode = builder.responseCode;
-		this.rowsProcessed = builder.rowsProcessed;
-		this.response = builder.response;
-		this.exception = builder.exception;
-		this.inputDoc = builder.inputDoc;
-		this.auditKeyValues = builder.auditKeyValues;
-	}
-
-	public static class Builder {
-		// Required Parameters
-		private final ProcessResponseCode responseCode;
-		private final int rowsProcessed;
-		
-		// Optional Parameters - initialised to default values
-		private String response = null;
-		private Throwable exception = null;
-		private String inputDoc;			// a string representation (therefore immutable) of the received input message, if exists
-		private String auditKeyValues = null;
-		
-		/**
-	    * Constructor
-	    * 
-		* @param responseCode the code describing the success or failure of processing this message
-		* @param rowsProcessed the number of rows processed for this message
-	    */
-		public Builder(ProcessResponseCode responseCode, int rowsProcessed) {
-			this.responseCode = responseCode;
-			this.rowsProcessed = rowsProcessed;
-		}
-		
-		public Builder setResponse(String val)
-			{	this.response = val;	return this;		}
-		public Builder setException(Throwable val)
-			{	this.exception = val;	return this;		}
-		public Builder setInputDoc(XMLDocument val)
-			{	this.inputDoc = val.toString();	return this;		}
-		public Builder setAuditKeyValues(String val)
-			{	this.auditKeyValues = val;	return this;	}
-		
-		public ProcessResponse build() {
-			return new ProcessResponse(this);
-		}
-	}
-
-	public ProcessResponseCode getResponseCode() {
-		return responseCode;
-	}
-	
-	public int getRowsProcessed() {
-		return rowsProcessed;
-	}
-	
-	/**
-	  * Get the detailed response (can be null)
-	  *
-	  * @return the detailed response after processing the message (can be null)
-	  */
-	public String getResponse() {
-		return response;
-	}
-
-	/**
-	  * Get the exception thrown during processing, if any (can be null)
-	  *
-	  * @return the exception thrown during processing, if any (can be null)
-	  */
-	public Throwable getException() {
-		return exception;
-	}
-
-	/**
-	  * Get the exception thrown during processing, if any (can be null)
-	  *
-	  * @return the original input message as an XML document, null if no XML message stored
-	  */
-	public XMLDocument getInputDoc() {
-		if (inputDoc == null) return null;
-		
-		XMLDocument newDoc = null;
-		try {
-			newDoc = XMLDocument.createDoc(inputDoc, XMLDocument.SCHEMA_VALIDATION_OFF);
-		}
-		catch(XMLException e) {
-			// Going to return null here as this should never really be thrown - we've created inputDoc
-			// from an LwXMLDocument.
-			return null;
-		}
-		return newDoc;
-	}
-
-	/**
-	  * Get the audit Key Values for the message
-	  *
-	  * @return the audit Key Values for the message (can be null)
-	  */
-	public String getAuditKeyValues() {
-		return auditKeyValues;
-	}
+package gemha.support;
+
+import org.w3c.dom.Node;
+
+import lw.XML.XMLDocument;
+
+/**
+  * Encapsulates a response after Processing messages for a target meduim.
+  * 
+  * @author Liam Wade
+  * @version 1.0 21/05/2013
+  * @version 1.1 16/10/2026 Added getApproximateSize(), so queues of responses can be bounded by memory use.
+  * @version 1.2 16/10/2026 The input document is carried as handed over, rather than serialized here and re-parsed in getInputDoc().
+  * 
+  * @ThreadSafe (but see inputDoc)
+  */
+public class ProcessResponse {
+	public static enum ProcessResponseCode {
+		SUCCESS,
+		INTERRUPTED,
+		FAILURE_INVALID_MESSAGE,
+		FAILURE_INVALID_XML
+	};
+	
+	private final ProcessResponseCode responseCode;
+	private final int rowsProcessed;
+	private final String response;
+	private final Throwable exception;
+	private final XMLDocument inputDoc;		// the received input message, if exists. Owned by the response, and only read once handed over
+	private final String auditKeyValues;
+
+	private volatile long inputDocChars = -1;	// text size of inputDoc, counted on first use by getApproximateSize()
+
+	private static final long APPROXIMATE_OVERHEAD_BYTES = 128; // object headers and references, for getApproximateSize()
+	
+  /**
+    * Constructor
+    * 
+	* @param response the detailed response (can be null)
+	* @param exception the exception thrown during processing, if any (can be null)
+    */
+	private ProcessResponse(Builder builder) {
+		this.responseCode = builder.responseCode;
+		this.rowsProcessed = builder.rowsProcessed;
+		this.response = builder.response;
+		this.exception = builder.exception;
+		this.inputDoc = builder.inputDoc;
+		this.auditKeyValues = builder.auditKeyValues;
+	}
+
+	public static class Builder {
+		// Required Parameters
+		private final ProcessResponseCode responseCode;
+		private final int rowsProcessed;
+		
+		// Optional Parameters - initialised to default values
+		private String response = null;
+		private Throwable exception = null;
+		private XMLDocument inputDoc = null;	// the received input message, if exists
+		private String auditKeyValues = null;
+		
+		/**
+	    * Constructor
+	    * 
+		* @param responseCode the code describing the success or failure of processing this message
+		* @param rowsProcessed the number of rows processed for this message
+	    */
+		public Builder(ProcessResponseCode responseCode, int rowsProcessed) {
+			this.responseCode = responseCode;
+			this.rowsProcessed = rowsProcessed;
+		}
+		
+		public Builder setResponse(String val)
+			{	this.response = val;	return this;		}
+		public Builder setException(Throwable val)
+			{	this.exception = val;	return this;		}
+		/**
+		  * Carry the original input message with the response. The document is handed over, not copied,
+		  * so must not be modified by the caller (or anyone else) once set.
+		  */
+		public Builder setInputDoc(XMLDocument val)
+			{	this.inputDoc = val;	return this;		}
+		public Builder setAuditKeyValues(String val)
+			{	this.auditKeyValues = val;	return this;	}
+		
+		public ProcessResponse build() {
+			return new ProcessResponse(this);
+		}
+	}
+
+	public ProcessResponseCode getResponseCode() {
+		return responseCode;
+	}
+	
+	public int getRowsProcessed() {
+		return rowsProcessed;
+	}
+	
+	/**
+	  * Get the detailed response (can be null)
+	  *
+	  * @return the detailed response after processing the message (can be null)
+	  */
+	public String getResponse() {
+		return response;
+	}
+
+	/**
+	  * Get the exception thrown during processing, if any (can be null)
+	  *
+	  * @return the exception thrown during processing, if any (can be null)
+	  */
+	public Throwable getException() {
+		return exception;
+	}
+
+	/**
+	  * Get the original input message, as handed over by the Processor (no copy is made).
+	  * Only for the single consumer of this response - navigating the document moves its current node.
+	  *
+	  * @return the original input message as an XML document, null if no XML message stored
+	  */
+	public XMLDocument getInputDoc() {
+		return inputDoc;
+	}
+
+	/**
+	  * Get the audit Key Values for the message
+	  *
+	  * @return the audit Key Values for the message (can be null)
+	  */
+	public String getAuditKeyValues() {
+		return auditKeyValues;
+	}
+
+	/**
+	  * Get a rough estimate of the memory held by this response, dominated by the response and input message text.
+	  *
+	  * The text of the input document is counted the first time this is called, and remembered, so callers
+	  * always see the same size. Not called at all unless responses are being bounded by memory use.
+	  *
+	  * @return the approximate size of this response, in bytes
+	  */
+	public long getApproximateSize() {
+		long chars = (response == null ? 0 : response.length())
+				   + getInputDocChars()
+				   + (auditKeyValues == null ? 0 : auditKeyValues.length());
+
+		return APPROXIMATE_OVERHEAD_BYTES + (2 * chars); // Java chars are 2 bytes
+	}
+
+	/**
+	  * @return the number of chars of text in inputDoc, 0 if none
+	  */
+	private long getInputDocChars() {
+		if (inputDoc == null) return 0;
+
+		if (inputDocChars < 0) { // then first time (called on completion, then on collection - never at the same time)
+			inputDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+			Node root = inputDoc.getCurrentNode();
+			String text = (root == null ? null : root.getTextContent());
+			inputDocChars = (text == null ? 0 : text.length());
+		}
+		return inputDocChars;
+	}
 }
\ No newline at end of file
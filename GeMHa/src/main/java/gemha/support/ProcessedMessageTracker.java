@@ -0,0 +1,100 @@
+package gemha.support;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import gemha.interfaces.IAcceptProcessedMesssages;
+
+/**
+  * Keeps track of the messages dispatched to a Processor, to tell the listener from which they were accepted
+  * when each has been processed (see IAcceptProcessedMesssages), in the order they were dispatched.
+  *
+  * Responses can come back out of order (e.g. from different lanes), so a response is matched to the oldest
+  * outstanding message with the same audit key values. The listener is only told of a message once it, and
+  * every message dispatched before it, has been processed.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  *
+  * @ThreadSafe
+  */
+public class ProcessedMessageTracker {
+
+	private final IAcceptProcessedMesssages listener;
+
+	// Guarded by this
+	private final LinkedList<TrackedMessage> outstanding = new LinkedList<TrackedMessage>();	// in order of dispatch
+
+	/**
+	  * Constructor
+	  *
+	  * @param listener the listener to be told as messages are processed
+	  */
+	public ProcessedMessageTracker(IAcceptProcessedMesssages listener) {
+		if (listener == null) throw new IllegalArgumentException("ProcessedMessageTracker: listener cannot be null.");
+
+		this.listener = listener;
+	}
+
+	/**
+	  * Record a message as dispatched. Must be called in the order messages were accepted, before the message
+	  * can be processed.
+	  *
+	  * @param auditKey the audit key values of the message (can be null)
+	  * @param processed true if the message is already done with (e.g. it was skipped, so won't be processed)
+	  * @throws MessagingException if the listener could not be told of messages processed
+	  */
+	public synchronized void dispatched(String auditKey, boolean processed) throws MessagingException {
+		outstanding.add(new TrackedMessage(auditKey, processed));
+		tellListener();
+	}
+
+	/**
+	  * Record a message as processed, its response (if any) handled.
+	  *
+	  * @param auditKey the audit key values of the message (can be null)
+	  * @throws MessagingException if no such message was dispatched, or the listener could not be told of messages processed
+	  */
+	public synchronized void processed(String auditKey) throws MessagingException {
+		boolean found = false;
+		for (Iterator<TrackedMessage> it = outstanding.iterator(); it.hasNext() && ! found; ) {
+			TrackedMessage message = it.next();
+			if ( ! message.processed && (auditKey == null ? message.auditKey == null : auditKey.equals(message.auditKey))) {
+				message.processed = true;
+				found = true;
+			}
+		}
+
+		if ( ! found) {
+			throw new MessagingException("LwProcessedMessageTracker.processed(): no message with AuditKey Value " + auditKey + " awaits processing.");
+		}
+
+		tellListener();
+	}
+
+	/**
+	  * @return the number of messages dispatched whose processing the listener has not yet been told of
+	  */
+	public synchronized int getOutstanding() {
+		return outstanding.size();
+	}
+
+	/**
+	  * Tell the listener of each message processed at the head of the queue, so it's told in order of dispatch.
+	  */
+	private void tellListener() throws MessagingException {
+		while ( ! outstanding.isEmpty() && outstanding.getFirst().processed) {
+			listener.messageProcessed(outstanding.removeFirst().auditKey);
+		}
+	}
+
+	private static class TrackedMessage {
+		private final String auditKey;
+		private boolean processed;
+
+		private TrackedMessage(String auditKey, boolean processed) {
+			this.auditKey = auditKey;
+			this.processed = processed;
+		}
+	}
+}
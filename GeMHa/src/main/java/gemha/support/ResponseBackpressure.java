@@ -0,0 +1,211 @@
+package gemha.support;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.logging.*;
+
+/**
+  * Keeps track of the responses awaiting collection from a Processor, by count and by (approximate) bytes,
+  * so that accepting new messages can be paused before the response queue becomes too large.
+  *
+  * Accepting is paused when either the count or the bytes outstanding reach the high watermark, and is
+  * resumed only once both have fallen to the low watermark. The gap between the two stops accepting from
+  * flipping on and off with every response.
+  *
+  * The count limit is also the hard capacity of the response queue: submitting will block when it's reached.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  *
+  * @ThreadSafe
+  */
+public class ResponseBackpressure {
+
+    private static final Logger logger = Logger.getLogger("gemha");
+
+	private final int maxResponses;
+	private final long maxBytes;				// 0 means not bounded by bytes
+	private final int highWatermarkPercent;
+	private final int lowWatermarkPercent;
+
+	// Guarded by this
+	private int outstandingResponses = 0;	// submitted, not yet taken
+	private long outstandingBytes = 0;		// completed, not yet taken
+	private boolean paused = false;
+
+	/**
+	  * Constructor
+	  *
+	  * @param maxResponses the maximum number of responses that may be awaiting collection (1..n)
+	  * @param maxBytes the maximum approximate bytes of responses that may be awaiting collection, 0 if not bounded by bytes
+	  * @param highWatermarkPercent the percentage of either maximum at which accepting is paused (1..100)
+	  * @param lowWatermarkPercent the percentage of both maximums at or below which accepting is resumed (0..highWatermarkPercent)
+	  */
+	public ResponseBackpressure(int maxResponses, long maxBytes, int highWatermarkPercent, int lowWatermarkPercent) {
+		if (maxResponses < 1) throw new IllegalArgumentException("ResponseBackpressure: maxResponses must be at least 1.");
+		if (maxBytes < 0) throw new IllegalArgumentException("ResponseBackpressure: maxBytes cannot be negative.");
+		if (highWatermarkPercent < 1 || highWatermarkPercent > 100) throw new IllegalArgumentException("ResponseBackpressure: highWatermarkPercent must be 1..100.");
+		if (lowWatermarkPercent < 0 || lowWatermarkPercent > highWatermarkPercent) throw new IllegalArgumentException("ResponseBackpressure: lowWatermarkPercent must be 0..highWatermarkPercent.");
+
+		this.maxResponses = maxResponses;
+		this.maxBytes = maxBytes;
+		this.highWatermarkPercent = highWatermarkPercent;
+		this.lowWatermarkPercent = lowWatermarkPercent;
+	}
+
+	/**
+	  * Get helper method for maxResponses
+	  *
+	  * @return the maximum number of responses that may be awaiting collection
+	  */
+	public int getMaxResponses() {
+		return maxResponses;
+	}
+
+	/**
+	  * Get helper method for maxBytes
+	  *
+	  * @return the maximum approximate bytes of responses that may be awaiting collection, 0 if not bounded by bytes
+	  */
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	  * @return the number of responses submitted, but not yet taken
+	  */
+	public synchronized int getOutstandingResponses() {
+		return outstandingResponses;
+	}
+
+	/**
+	  * @return the approximate bytes of responses completed, but not yet taken
+	  */
+	public synchronized long getOutstandingBytes() {
+		return outstandingBytes;
+	}
+
+	/**
+	  * @return true if accepting new messages is currently paused
+	  */
+	public synchronized boolean isPaused() {
+		return paused;
+	}
+
+	/**
+	  * Record that a message has been submitted for processing, and wrap its task so that the size of its
+	  * response is recorded when it completes.
+	  *
+	  * @param task the task that will produce the response
+	  * @return the wrapped task, to be submitted in place of task
+	  */
+	public Callable<ProcessResponse> trackResponse(final Callable<ProcessResponse> task) {
+		responseSubmitted();
+
+		return new Callable<ProcessResponse>() {
+			public ProcessResponse call() throws Exception {
+				ProcessResponse response = task.call();
+				if (response != null) {
+					responseCompleted(response.getApproximateSize());
+				}
+				return response;
+			} // end Callable.call()
+		};
+	}
+
+	/**
+	  * Record that a batch of messages has been submitted for processing, and wrap its task so that the sizes
+	  * of its responses are recorded when it completes.
+	  *
+	  * @param batchTask the task that will produce one response per message
+	  * @param batchSize the number of messages in the batch
+	  * @return the wrapped task, to be submitted in place of batchTask
+	  */
+	public Callable<List<ProcessResponse>> trackResponses(final Callable<List<ProcessResponse>> batchTask, int batchSize) {
+		for (int i = 0; i < batchSize; i++) {
+			responseSubmitted();
+		}
+
+		return new Callable<List<ProcessResponse>>() {
+			public List<ProcessResponse> call() throws Exception {
+				List<ProcessResponse> responses = batchTask.call();
+				if (responses != null) {
+					for (ProcessResponse response : responses) {
+						if (response != null) {
+							responseCompleted(response.getApproximateSize());
+						}
+					}
+				}
+				return responses;
+			} // end Callable.call()
+		};
+	}
+
+	/**
+	  * Record that a message has been submitted for processing, so a response will be queued for it.
+	  */
+	public synchronized void responseSubmitted() {
+		outstandingResponses++;
+		checkHighWatermark();
+	}
+
+	/**
+	  * Record that a response has been completed, and is now held awaiting collection.
+	  *
+	  * @param bytes the approximate size of the response
+	  */
+	public synchronized void responseCompleted(long bytes) {
+		outstandingBytes += bytes;
+		checkHighWatermark();
+	}
+
+	/**
+	  * Record that a response has been taken from the queue, releasing its space.
+	  *
+	  * @param bytes the approximate size of the response, as given to responseCompleted() (0 if it never completed)
+	  */
+	public synchronized void responseTaken(long bytes) {
+		outstandingResponses--;
+		outstandingBytes -= bytes;
+
+		if (paused && atOrBelowLowWatermark()) {
+			paused = false;
+			logger.info("Response queue down to " + outstandingResponses + " response(s), " + outstandingBytes + " bytes. Resuming accepting messages.");
+			notifyAll();
+		}
+	}
+
+	/**
+	  * Block the caller while accepting new messages is paused.
+	  *
+	  * @throws InterruptedException if CALLING thread is interrupted while waiting
+	  */
+	public synchronized void awaitCapacity() throws InterruptedException {
+		while (paused) {
+			wait();
+		}
+	}
+
+	/**
+	  * Pause accepting, if either high watermark has been reached. Call holding the lock.
+	  */
+	private void checkHighWatermark() {
+		if (paused) return;
+
+		boolean countHigh = ((long) outstandingResponses * 100 >= (long) maxResponses * highWatermarkPercent);
+		boolean bytesHigh = (maxBytes > 0 && outstandingBytes * 100 >= maxBytes * highWatermarkPercent);
+		if (countHigh || bytesHigh) {
+			paused = true;
+			logger.info("Response queue up to " + outstandingResponses + " response(s), " + outstandingBytes + " bytes. Pausing accepting messages.");
+		}
+	}
+
+	/**
+	  * @return true if both count and bytes are at or below the low watermark. Call holding the lock.
+	  */
+	private boolean atOrBelowLowWatermark() {
+		boolean countLow = ((long) outstandingResponses * 100 <= (long) maxResponses * lowWatermarkPercent);
+		boolean bytesLow = (maxBytes <= 0 || outstandingBytes * 100 <= maxBytes * lowWatermarkPercent);
+		return countLow && bytesLow;
+	}
+}
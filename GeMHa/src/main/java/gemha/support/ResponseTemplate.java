@@ -0,0 +1,403 @@
+package gemha.support;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.*;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import lw.XML.XMLDocument;
+import lw.XML.XMLTagValue;
+
+/**
+  * The response message (see ResponseMainDocElementName and ResponseLiterals) compiled once into a skeleton:
+  * the top-level element, with the response literals already in place at the end of it. Per response, only
+  * the Processor's response and any minded elements are written in between, straight to the output, without
+  * building a DOM of the response.
+  *
+  * This gives the same response as the DOM only where the literals cannot land inside the Processor's
+  * response or the minded elements, nor minded elements inside the Processor's response. So the template is
+  * only compiled where all literal Locations are simple absolute paths below the top-level element, and
+  * build() checks the names of what is written in between against those of the literals (and minded elements).
+  * Anything it cannot reproduce faithfully is left to the DOM: build() returns null, and the caller should
+  * build the response from a DOM instead.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  *
+  * @ThreadSafe
+  */
+public class ResponseTemplate {
+
+    private static final Logger logger = Logger.getLogger("gemha");
+
+	private static final Pattern SIMPLE_ABSOLUTE_PATH = Pattern.compile("(/[A-Za-z_][A-Za-z0-9_.\\-]*)+");
+
+	// Factories are not guaranteed thread-safe, and are costly to look up, so one of each per thread
+	private static final ThreadLocal<XMLInputFactory> inputFactory = new ThreadLocal<XMLInputFactory>() {
+		protected XMLInputFactory initialValue() {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+			factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+			return factory;
+		}
+	};
+	private static final ThreadLocal<XMLOutputFactory> outputFactory = new ThreadLocal<XMLOutputFactory>() {
+		protected XMLOutputFactory initialValue() {
+			return XMLOutputFactory.newInstance();
+		}
+	};
+
+	private final String skeletonStart;			// the top-level start tag
+	private final String skeletonEnd;			// the literals, then the top-level end tag
+	private final Set<String> literalNames;		// names of the literals' elements directly under the top-level element
+	private final Set<String> mindedNames;		// names of the minded elements' paths directly under the top-level element
+	private final boolean mindableWithoutDOM;	// true if minded elements can be written in between
+
+	/**
+	  * Check whether a template can be compiled for the given response settings.
+	  *
+	  * @param responseMainDocElementName the name of the response's top-level element, null if none
+	  * @param responseLiterals the response literals, with their Location attributes
+	  * @return true if there is a top-level element, and all literal Locations are simple absolute paths below it
+	  */
+	public static boolean canCompile(String responseMainDocElementName, Enumeration<XMLTagValue> responseLiterals) {
+		if (responseMainDocElementName == null) { // then the Processor's response is the response
+			return false;
+		}
+		while (responseLiterals != null && responseLiterals.hasMoreElements()) {
+			String[] segments = splitPath(responseLiterals.nextElement().getAttributeValue("Location"));
+			if (segments == null || segments.length < 2 || ! segments[0].equals(responseMainDocElementName)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	  * Constructor
+	  *
+	  * @param responseMainDocElementName the name of the response's top-level element (see canCompile())
+	  * @param responseLiterals the response literals, with their Location attributes (see canCompile())
+	  * @param mindElementPlan the elements to be minded from the input message to the response
+	  */
+	public ResponseTemplate(String responseMainDocElementName, Enumeration<XMLTagValue> responseLiterals, ElementCopyPlan mindElementPlan) {
+		List<XMLTagValue> literals = new ArrayList<XMLTagValue>();
+		while (responseLiterals != null && responseLiterals.hasMoreElements()) {
+			literals.add(responseLiterals.nextElement());
+		}
+		if ( ! canCompile(responseMainDocElementName, Collections.enumeration(literals))) {
+			throw new IllegalArgumentException("ResponseTemplate: literal Locations must be simple absolute paths below the top-level element.");
+		}
+
+		// Place the literals as the DOM would: each at the first element on its path, created if not there
+		LiteralNode root = new LiteralNode(responseMainDocElementName);
+		for (XMLTagValue literal : literals) {
+			String[] segments = splitPath(literal.getAttributeValue("Location"));
+			LiteralNode node = root;
+			for (int s = 1; s < segments.length; s++) {
+				node = node.childNamed(segments[s]);
+			}
+			node.setText(literal.getTagValue());
+		}
+
+		Set<String> tempLiteralNames = new HashSet<String>();
+		StringWriter literalsOut = new StringWriter();
+		try {
+			XMLStreamWriter writer = outputFactory.get().createXMLStreamWriter(literalsOut);
+			for (LiteralNode child : root.children) {
+				tempLiteralNames.add(child.name);
+				child.writeTo(writer);
+			}
+			writer.flush();
+		}
+		catch (XMLStreamException e) { // only names checked by canCompile() are written, so not expected
+			throw new IllegalArgumentException("ResponseTemplate: could not write response literals: " + e.getMessage());
+		}
+
+		this.skeletonStart = "<" + responseMainDocElementName + ">";
+		this.skeletonEnd = literalsOut.toString() + "</" + responseMainDocElementName + ">";
+		this.literalNames = tempLiteralNames;
+
+		// Minded elements are found a place in the response by name, so must have names known now
+		Set<String> tempMindedNames = new HashSet<String>();
+		boolean tempMindableWithoutDOM = ! mindElementPlan.isCopyAll();
+		for (ElementCopyPlan.Step step : mindElementPlan.getSteps()) {
+			String[] segments = splitPath(step.getPath());
+			if (segments == null || segments.length < 2) {
+				tempMindableWithoutDOM = false;
+			}
+			else {
+				tempMindedNames.add(segments[1]);
+			}
+		}
+		for (String name : tempMindedNames) {
+			if (literalNames.contains(name)) { // a literal could land inside a minded element
+				tempMindableWithoutDOM = false;
+			}
+		}
+		this.mindedNames = tempMindedNames;
+		this.mindableWithoutDOM = tempMindableWithoutDOM;
+	}
+
+	/**
+	  * @return true if responses with minded elements can be built from this template
+	  */
+	public boolean isMindableWithoutDOM() {
+		return mindableWithoutDOM;
+	}
+
+	/**
+	  * Build the response from the template.
+	  *
+	  * @param processedResponse the response from the Processor
+	  * @param mindedDoc a document holding the minded elements under its top-level element, as they should appear in the response, null if none
+	  * @return the response, null if it must be built using a DOM instead
+	  */
+	public String build(String processedResponse, XMLDocument mindedDoc) {
+		if (mindedDoc != null && ! mindableWithoutDOM) {
+			return null;
+		}
+
+		StringWriter out = new StringWriter(skeletonStart.length() + processedResponse.length() + skeletonEnd.length() + 64);
+		out.write(skeletonStart);
+
+		try {
+			XMLStreamWriter writer = outputFactory.get().createXMLStreamWriter(out);
+
+			String responseRootName = copyResponse(processedResponse, writer);
+			if (responseRootName == null || literalNames.contains(responseRootName) || (mindedDoc != null && mindedNames.contains(responseRootName))) {
+				return null;
+			}
+
+			if (mindedDoc != null) {
+				mindedDoc.setCurrentNodeToFirstElement(); // go back to beginning of doc
+				for (Node child = mindedDoc.getCurrentNode().getFirstChild(); child != null; child = child.getNextSibling()) {
+					if ( ! copyNode(child, writer)) {
+						return null;
+					}
+				}
+			}
+
+			writer.flush();
+		}
+		catch (XMLStreamException e) {
+			logger.fine("Could not build response from template, will use DOM instead: " + e.getMessage());
+			return null;
+		}
+
+		out.write(skeletonEnd);
+		return out.toString();
+	}
+
+	/**
+	  * Copy the top-level element of the Processor's response (and all within it) to writer.
+	  *
+	  * @return the name of the top-level element, null if the response must be built using a DOM instead
+	  */
+	private static String copyResponse(String processedResponse, XMLStreamWriter writer) throws XMLStreamException {
+		XMLStreamReader reader = inputFactory.get().createXMLStreamReader(new StringReader(processedResponse));
+
+		String rootName = null;
+		int depth = 0;
+
+		try {
+			while (reader.hasNext()) { // read to the end, so a malformed response is still rejected
+				int event = reader.next();
+
+				switch (event) {
+				case XMLStreamConstants.START_ELEMENT:
+					if (usesNamespaces(reader)) {
+						return null;
+					}
+					if (depth == 0) {
+						rootName = reader.getLocalName();
+					}
+					depth++;
+					writer.writeStartElement(reader.getLocalName());
+					for (int a = 0; a < reader.getAttributeCount(); a++) {
+						writer.writeAttribute(reader.getAttributeLocalName(a), reader.getAttributeValue(a));
+					}
+					break;
+
+				case XMLStreamConstants.END_ELEMENT:
+					depth--;
+					writer.writeEndElement();
+					break;
+
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.SPACE:
+					if (depth > 0) { // only the top-level element goes into the response
+						writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					}
+					break;
+
+				case XMLStreamConstants.CDATA:
+					writer.writeCData(reader.getText());
+					break;
+
+				case XMLStreamConstants.COMMENT:
+					if (depth > 0) {
+						writer.writeComment(reader.getText());
+					}
+					break;
+
+				case XMLStreamConstants.PROCESSING_INSTRUCTION:
+					if (depth > 0) {
+						writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+					}
+					break;
+
+				case XMLStreamConstants.DTD:
+				case XMLStreamConstants.ENTITY_REFERENCE:
+					return null; // leave to the DOM
+
+				default:
+					break;
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+
+		return rootName;
+	}
+
+	/**
+	  * Copy a DOM node (and all within it) to writer.
+	  *
+	  * @return false if the node cannot be copied faithfully, so the response must be built using a DOM instead
+	  */
+	private static boolean copyNode(Node node, XMLStreamWriter writer) throws XMLStreamException {
+		switch (node.getNodeType()) {
+		case Node.ELEMENT_NODE:
+			if (node.getNodeName().indexOf(':') >= 0) {
+				return false;
+			}
+			writer.writeStartElement(node.getNodeName());
+			NamedNodeMap attributes = node.getAttributes();
+			for (int a = 0; a < attributes.getLength(); a++) {
+				Node attribute = attributes.item(a);
+				if (attribute.getNodeName().startsWith("xmlns") || attribute.getNodeName().indexOf(':') >= 0) {
+					return false;
+				}
+				writer.writeAttribute(attribute.getNodeName(), attribute.getNodeValue());
+			}
+			for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+				if ( ! copyNode(child, writer)) {
+					return false;
+				}
+			}
+			writer.writeEndElement();
+			return true;
+
+		case Node.TEXT_NODE:
+			writer.writeCharacters(node.getNodeValue());
+			return true;
+
+		case Node.CDATA_SECTION_NODE:
+			writer.writeCData(node.getNodeValue());
+			return true;
+
+		case Node.COMMENT_NODE:
+			writer.writeComment(node.getNodeValue());
+			return true;
+
+		case Node.PROCESSING_INSTRUCTION_NODE:
+			writer.writeProcessingInstruction(node.getNodeName(), node.getNodeValue());
+			return true;
+
+		default: // e.g. entity reference
+			return false;
+		}
+	}
+
+	/**
+	  * @return true if the element at which reader is positioned, or any of its attributes, uses a namespace
+	  */
+	private static boolean usesNamespaces(XMLStreamReader reader) {
+		if (reader.getNamespaceCount() > 0 || (reader.getPrefix() != null && reader.getPrefix().length() > 0)) {
+			return true;
+		}
+		for (int a = 0; a < reader.getAttributeCount(); a++) {
+			String prefix = reader.getAttributePrefix(a);
+			if (prefix != null && prefix.length() > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	  * @return the segments of a simple absolute path, null if not one
+	  */
+	private static String[] splitPath(String path) {
+		if (path == null || ! SIMPLE_ABSOLUTE_PATH.matcher(path).matches()) {
+			return null;
+		}
+		return path.substring(1).split("/");
+	}
+
+	/**
+	  * An element of the literals, holding its text, if set, and its child elements.
+	  */
+	private static class LiteralNode {
+		private final String name;
+		private final List<LiteralNode> children = new ArrayList<LiteralNode>();
+		private String text = null;
+
+		public LiteralNode(String name) {
+			this.name = name;
+		}
+
+		/**
+		  * @return the first child element with the given name, created if not there
+		  */
+		public LiteralNode childNamed(String childName) {
+			for (LiteralNode child : children) {
+				if (child.name.equals(childName)) {
+					return child;
+				}
+			}
+			LiteralNode child = new LiteralNode(childName);
+			children.add(child);
+			return child;
+		}
+
+		/**
+		  * Set the text, replacing any child elements (as setting text content does in a DOM)
+		  */
+		public void setText(String text) {
+			this.text = (text == null ? "" : text);
+			children.clear();
+		}
+
+		public void writeTo(XMLStreamWriter writer) throws XMLStreamException {
+			writer.writeStartElement(name);
+			if (text != null) {
+				writer.writeCharacters(text);
+			}
+			for (LiteralNode child : children) {
+				child.writeTo(writer);
+			}
+			writer.writeEndElement();
+		}
+	}
+}
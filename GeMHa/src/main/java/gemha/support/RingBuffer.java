@@ -0,0 +1,206 @@
+package gemha.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+  * A preallocated, bounded ring of reusable event slots, for handing events from exactly one producer thread
+  * to exactly one consumer thread without locks or per-event allocation.
+  *
+  * The producer claim()s the next sequence (waiting while the ring is full), fills in the slot from get()
+  * and publish()es it. The consumer waitForNext(), reads (and clears) the slot from get() and release()s it,
+  * so the producer can re-use it. The only shared state is the two sequence counters, each written by one side
+  * only, so no compare-and-swap is needed.
+  *
+  * How a side waits (when the ring is full, or empty) is set by the WaitStrategy: spinning gives the lowest
+  * latency but keeps a core busy; parking frees the core at the cost of wake-up latency.
+  *
+  * NOT safe for more than one producer or more than one consumer at a time - callers must see to that.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  */
+public class RingBuffer<E> {
+
+	/**
+	  * How a thread waits for the other side of the ring.
+	  */
+	public static enum WaitStrategy {
+		/** Spin on the sequence. Lowest latency, but burns a core while waiting - only use with a core free for each side. */
+		BUSY_SPIN {
+			void idle(int attempt) {
+				// just try again
+			}
+		},
+		/** Spin, giving up the core to other threads between tries. */
+		YIELD {
+			void idle(int attempt) {
+				Thread.yield();
+			}
+		},
+		/** Spin briefly, then yield, then park for short periods. Frees the core when quiet. */
+		PARK {
+			void idle(int attempt) {
+				if (attempt < SPIN_TRIES) {
+					// just try again
+				}
+				else if (attempt < SPIN_TRIES + YIELD_TRIES) {
+					Thread.yield();
+				}
+				else {
+					LockSupport.parkNanos(PARK_NANOS);
+				}
+			}
+		};
+
+		private static final int SPIN_TRIES = 100;
+		private static final int YIELD_TRIES = 100;
+		private static final long PARK_NANOS = 50000L;
+
+		/**
+		  * Wait a little before trying again.
+		  *
+		  * @param attempt the number of times already tried (0..n)
+		  */
+		abstract void idle(int attempt);
+	}
+
+	/**
+	  * Creates the events with which the ring is preallocated.
+	  */
+	public interface EventFactory<E> {
+		E newEvent();
+	}
+
+	private final Object[] slots;
+	private final int mask;
+	private final WaitStrategy waitStrategy;
+
+	private final PaddedSequence published = new PaddedSequence(-1);	// last sequence published, written by producer only
+	private final PaddedSequence released = new PaddedSequence(-1);	// last sequence released, written by consumer only
+	private long nextToClaim = 0;		// producer thread only
+	private long nextToConsume = 0;		// consumer thread only
+
+	/**
+	  * Constructor
+	  *
+	  * @param size the number of slots, must be a power of 2
+	  * @param eventFactory creates the event held in each slot
+	  * @param waitStrategy how to wait when the ring is full (producer) or empty (consumer)
+	  */
+	public RingBuffer(int size, EventFactory<E> eventFactory, WaitStrategy waitStrategy) {
+		if (size < 1 || (size & (size - 1)) != 0) throw new IllegalArgumentException("RingBuffer: size must be a power of 2.");
+		if (eventFactory == null) throw new IllegalArgumentException("RingBuffer: eventFactory cannot be null.");
+		if (waitStrategy == null) throw new IllegalArgumentException("RingBuffer: waitStrategy cannot be null.");
+
+		this.slots = new Object[size];
+		for (int i = 0; i < size; i++) {
+			slots[i] = eventFactory.newEvent();
+		}
+		this.mask = size - 1;
+		this.waitStrategy = waitStrategy;
+	}
+
+	/**
+	  * @return the number of slots in the ring
+	  */
+	public int getSize() {
+		return slots.length;
+	}
+
+	/**
+	  * Get helper method for waitStrategy
+	  *
+	  * @return how a side waits for the other
+	  */
+	public WaitStrategy getWaitStrategy() {
+		return waitStrategy;
+	}
+
+	/**
+	  * @return the number of events published but not yet released (approximate, if called while either side is busy)
+	  */
+	public int getDepth() {
+		return (int) (published.get() - released.get());
+	}
+
+	/**
+	  * Producer: claim the next slot, waiting while the ring is full.
+	  *
+	  * @return the sequence of the claimed slot
+	  * @throws InterruptedException if the producer thread is interrupted while waiting
+	  */
+	public long claim() throws InterruptedException {
+		long sequence = nextToClaim;
+		long wrapPoint = sequence - slots.length;
+
+		int attempt = 0;
+		while (wrapPoint > released.get()) { // then slot still holds an event the consumer hasn't finished with
+			if (Thread.interrupted()) throw new InterruptedException();
+			waitStrategy.idle(attempt++);
+		}
+
+		nextToClaim++;
+		return sequence;
+	}
+
+	/**
+	  * Producer: make the event in a claimed slot visible to the consumer.
+	  *
+	  * @param sequence the sequence returned by claim()
+	  */
+	public void publish(long sequence) {
+		published.lazySet(sequence); // ordered store: event fields written before this are seen by the consumer first
+	}
+
+	/**
+	  * Consumer: wait for the next event to be published.
+	  *
+	  * @return the sequence of the next event
+	  * @throws InterruptedException if the consumer thread is interrupted while waiting
+	  */
+	public long waitForNext() throws InterruptedException {
+		long sequence = nextToConsume;
+
+		int attempt = 0;
+		while (published.get() < sequence) {
+			if (Thread.interrupted()) throw new InterruptedException();
+			waitStrategy.idle(attempt++);
+		}
+
+		return sequence;
+	}
+
+	/**
+	  * Consumer: give a slot back to the producer, once finished with its event.
+	  *
+	  * @param sequence the sequence returned by waitForNext()
+	  */
+	public void release(long sequence) {
+		nextToConsume = sequence + 1;
+		released.lazySet(sequence);
+	}
+
+	/**
+	  * Get the event held in a slot. Only for the side that currently owns the slot.
+	  *
+	  * @param sequence the sequence of the slot
+	  * @return the event
+	  */
+	@SuppressWarnings("unchecked")
+	public E get(long sequence) {
+		return (E) slots[(int) sequence & mask];
+	}
+
+	/**
+	  * A sequence counter, padded so the producer's and consumer's counters don't share a cache line.
+	  */
+	@SuppressWarnings({"serial", "unused"})
+	private static final class PaddedSequence extends AtomicLong {
+		private long p1, p2, p3, p4, p5, p6, p7;
+
+		public PaddedSequence(long initialValue) {
+			super(initialValue);
+		}
+	}
+}
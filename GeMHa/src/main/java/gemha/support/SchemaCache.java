@@ -0,0 +1,146 @@
+package gemha.support;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.logging.*;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
+
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+/**
+  * Holds an XML Schema definition file compiled once, for validating any number of messages against it.
+  *
+  * A compiled Schema is threadsafe, but a Validator is not, so each thread is given its own Validator, made
+  * once and reused (reset) for each message. The file is checked for a change at most every
+  * RELOAD_CHECK_MILLIS, and compiled again if changed. Should the new version fail to compile, the old one
+  * is kept on, and the failure logged. Each thread picks up a new Validator on its next message after a reload.
+  *
+  * Messages are validated as already parsed (a DOM), so they need not be parsed a second time for validation.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  *
+  * @ThreadSafe
+  */
+public class SchemaCache {
+
+    private static final Logger logger = Logger.getLogger("gemha");
+
+	private static final long RELOAD_CHECK_MILLIS = 1000;
+
+	private final File schemaFile;
+	private final String schemaLanguage;
+
+	private volatile Schema schema;
+	private volatile long nextReloadCheck;
+	private long schemaLastModified;	// Guarded by this
+
+	// Each thread's Validator, along with the Schema it was made from
+	private final ThreadLocal<ThreadValidator> threadValidator = new ThreadLocal<ThreadValidator>();
+
+	/**
+	  * Constructor - compiles the Schema definition file
+	  *
+	  * @param schemaFileName the name of the Schema definition file, path included
+	  * @param schemaLanguage the Schema Language (e.g. http://www.w3.org/2001/XMLSchema), null for the default
+	  *
+	  * @throws SAXException if the Schema definition could not be compiled
+	  */
+	public SchemaCache(String schemaFileName, String schemaLanguage) throws SAXException {
+		if (schemaFileName == null) throw new IllegalArgumentException("SchemaCache: schemaFileName must be supplied.");
+
+		this.schemaFile = new File(schemaFileName);
+		this.schemaLanguage = (schemaLanguage == null ? XMLConstants.W3C_XML_SCHEMA_NS_URI : schemaLanguage);
+
+		this.schemaLastModified = schemaFile.lastModified();
+		this.schema = compile();
+		this.nextReloadCheck = System.currentTimeMillis() + RELOAD_CHECK_MILLIS;
+	}
+
+	/**
+	  * Validate a message, already parsed, against the Schema
+	  *
+	  * @param message the parsed message to be validated (its Document, or top-level element)
+	  *
+	  * @throws SAXException if the message is not valid
+	  * @throws IOException if the message could not be read
+	  */
+	public void validate(Node message) throws SAXException, IOException {
+		if (System.currentTimeMillis() >= nextReloadCheck) {
+			reloadIfChanged();
+		}
+
+		Schema currentSchema = schema;
+		ThreadValidator tv = threadValidator.get();
+		if (tv == null || tv.schema != currentSchema) { // first message on this thread, or Schema since reloaded
+			tv = new ThreadValidator(currentSchema);
+			threadValidator.set(tv);
+		}
+		else {
+			tv.validator.reset();
+		}
+
+		tv.validator.validate(new DOMSource(message));
+	}
+
+	/**
+	  * Get helper method for schemaFile
+	  *
+	  * @return the name of the Schema definition file, path included
+	  */
+	public String getSchemaFileName() {
+		return schemaFile.getPath();
+	}
+
+	/**
+	  * Compile the Schema again if the file has changed since last compiled. Keep the old Schema if not.
+	  */
+	private synchronized void reloadIfChanged() {
+		if (System.currentTimeMillis() < nextReloadCheck) { // another thread got here first
+			return;
+		}
+
+		long lastModified = schemaFile.lastModified();
+		if (lastModified != schemaLastModified) {
+			schemaLastModified = lastModified; // won't try again until changed again
+			try {
+				schema = compile();
+				logger.info("Reloaded changed Schema definition file " + schemaFile.getPath());
+			}
+			catch(SAXException e) {
+				logger.warning("LwSchemaCache: could not compile changed Schema definition file " + schemaFile.getPath() + ", continuing with previous version: " + e.getMessage());
+			}
+		}
+
+		nextReloadCheck = System.currentTimeMillis() + RELOAD_CHECK_MILLIS;
+	}
+
+	/**
+	  * Compile the Schema definition file
+	  *
+	  * @return the compiled Schema
+	  */
+	private Schema compile() throws SAXException {
+		SchemaFactory factory = SchemaFactory.newInstance(schemaLanguage); // SchemaFactory is not threadsafe, so one per compile
+		return factory.newSchema(schemaFile);
+	}
+
+	/**
+	  * A thread's Validator, with the Schema it was made from.
+	  */
+	private static final class ThreadValidator {
+		private final Schema schema;
+		private final Validator validator;
+
+		private ThreadValidator(Schema schema) {
+			this.schema = schema;
+			this.validator = schema.newValidator();
+		}
+	}
+}
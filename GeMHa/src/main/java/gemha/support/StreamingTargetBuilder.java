@@ -0,0 +1,514 @@
+package gemha.support;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.*;
+import java.util.regex.Pattern;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+  * Builds the message for the target (see SendElements and TargetMainDocElementName) in one streaming pass
+  * over the input message, copying the elements to be sent straight to the output, without building a DOM.
+  * Values for a list of "header" paths (e.g. audit keys) are collected during the same pass.
+  *
+  * Only simple absolute paths are supported (e.g. /MESSAGE/DELV/ORD, no predicates, wildcards or prefixes),
+  * which canStream() checks at startup. Anything the stream cannot reproduce faithfully is left to the DOM:
+  * if a message is not well-formed, uses namespaces, has a DTD or unresolved entities, build() returns null
+  * and the caller should build the target from a DOM instead.
+  *
+  * As with the DOM, only the first occurrence of each element is copied, elements are added to the target in
+  * the order configured, and each is added under its parent path (less the top-level element), created once.
+  *
+  * Alternatively (compact), the message is read into a CompactMessage, and the elements and header values
+  * looked up in that, the elements being copied as they appear in the message, without being re-written.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  * @version 1.1 16/10/2026 Optionally read the message into a CompactMessage instead of streaming it.
+  *
+  * @ThreadSafe
+  */
+public class StreamingTargetBuilder {
+
+    private static final Logger logger = Logger.getLogger("gemha");
+
+	private static final Pattern SIMPLE_ABSOLUTE_PATH = Pattern.compile("(/[A-Za-z_][A-Za-z0-9_.\\-]*)+");
+
+	// Factories are not guaranteed thread-safe, and are costly to look up, so one of each per thread
+	private static final ThreadLocal<XMLInputFactory> inputFactory = new ThreadLocal<XMLInputFactory>() {
+		protected XMLInputFactory initialValue() {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+			factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+			return factory;
+		}
+	};
+	private static final ThreadLocal<XMLOutputFactory> outputFactory = new ThreadLocal<XMLOutputFactory>() {
+		protected XMLOutputFactory initialValue() {
+			return XMLOutputFactory.newInstance();
+		}
+	};
+
+	private final boolean compact;					// true if the message is to be read into a CompactMessage, rather than streamed
+	private final boolean copyAll;
+	private final String targetMainDocElementName;	// null if that of the input message is to be used
+	private final String[][] sendPaths;				// the segments of each SendElement path, in order (none if copyAll)
+	private final String[][] headerPaths;			// the segments of each header path, in order
+
+	/**
+	  * Check whether a target can be built by streaming for the given elements and header paths.
+	  *
+	  * @param sendElementPlan the elements to be sent to the target
+	  * @param headerPaths the paths for which values are to be collected
+	  * @return true if all paths are simple absolute paths (or "*", for SendElements)
+	  */
+	public static boolean canStream(ElementCopyPlan sendElementPlan, List<String> headerPaths) {
+		for (ElementCopyPlan.Step step : sendElementPlan.getSteps()) {
+			if ( ! step.isCopyAll() && ! isSimpleAbsolutePath(step.getPath())) {
+				return false;
+			}
+		}
+		for (String headerPath : headerPaths) {
+			if ( ! isSimpleAbsolutePath(headerPath)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	  * Constructor
+	  *
+	  * @param sendElementPlan the elements to be sent to the target (see canStream())
+	  * @param targetMainDocElementName the name of the target's top-level element, null to use that of the input message
+	  * @param headerPaths the paths for which values are to be collected (see canStream())
+	  */
+	public StreamingTargetBuilder(ElementCopyPlan sendElementPlan, String targetMainDocElementName, List<String> headerPaths) {
+		this(sendElementPlan, targetMainDocElementName, headerPaths, false);
+	}
+
+	/**
+	  * Constructor
+	  *
+	  * @param sendElementPlan the elements to be sent to the target (see canStream())
+	  * @param targetMainDocElementName the name of the target's top-level element, null to use that of the input message
+	  * @param headerPaths the paths for which values are to be collected (see canStream())
+	  * @param compact true to read each message into a CompactMessage, rather than stream it
+	  */
+	public StreamingTargetBuilder(ElementCopyPlan sendElementPlan, String targetMainDocElementName, List<String> headerPaths, boolean compact) {
+		if ( ! canStream(sendElementPlan, headerPaths)) {
+			throw new IllegalArgumentException("StreamingTargetBuilder: only simple absolute paths can be streamed.");
+		}
+
+		this.compact = compact;
+		this.copyAll = sendElementPlan.isCopyAll();
+		this.targetMainDocElementName = targetMainDocElementName;
+
+		List<String[]> tempSendPaths = new ArrayList<String[]>();
+		if ( ! copyAll) {
+			for (ElementCopyPlan.Step step : sendElementPlan.getSteps()) {
+				tempSendPaths.add(splitPath(step.getPath()));
+			}
+		}
+		this.sendPaths = tempSendPaths.toArray(new String[tempSendPaths.size()][]);
+
+		this.headerPaths = new String[headerPaths.size()][];
+		for (int i = 0; i < headerPaths.size(); i++) {
+			this.headerPaths[i] = splitPath(headerPaths.get(i));
+		}
+	}
+
+	/**
+	  * Build the message for the target from the input message, in one pass.
+	  *
+	  * @param message the input message
+	  * @return the target message and header values, null if the message must be handled using a DOM instead
+	  */
+	public StreamedTarget build(String message) {
+		if (compact) {
+			return buildFromCompact(message);
+		}
+
+		try {
+			return stream(message);
+		}
+		catch (XMLStreamException e) {
+			logger.fine("Could not stream message, will use DOM instead: " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	  * Stream through the message, copying and collecting as we go.
+	  *
+	  * @return the target message and header values, null if the message must be handled using a DOM instead
+	  */
+	private StreamedTarget stream(String message) throws XMLStreamException {
+		XMLStreamReader reader = inputFactory.get().createXMLStreamReader(new StringReader(message));
+
+		List<String> currentPath = new ArrayList<String>();
+		String rootName = null;
+
+		Capture[] sendCaptures = new Capture[sendPaths.length];
+		List<Capture> activeCaptures = new ArrayList<Capture>();
+		Capture rootChildrenCapture = null;		// if copying all under a new top-level element
+
+		StringBuilder[] headerValues = new StringBuilder[headerPaths.length];
+		int[] headerDepths = new int[headerPaths.length];	// depth at which each header value is being collected, 0 if not
+		boolean[] headersFound = new boolean[headerPaths.length];
+
+		try {
+			while (reader.hasNext()) { // read to the end, even when all is found, so a malformed message is still rejected
+				int event = reader.next();
+
+				switch (event) {
+				case XMLStreamConstants.START_ELEMENT:
+					if (usesNamespaces(reader)) {
+						return null;
+					}
+
+					currentPath.add(reader.getLocalName());
+					int depth = currentPath.size();
+
+					if (depth == 1) {
+						rootName = reader.getLocalName();
+						if (copyAll && targetMainDocElementName != null) { // copy all but the top-level element itself
+							rootChildrenCapture = new Capture(0);
+							activeCaptures.add(rootChildrenCapture);
+						}
+					}
+
+					for (int i = 0; i < sendPaths.length; i++) {
+						if (sendCaptures[i] == null && pathMatches(currentPath, sendPaths[i])) {
+							sendCaptures[i] = new Capture(depth);
+							activeCaptures.add(sendCaptures[i]);
+						}
+					}
+
+					for (Capture capture : activeCaptures) {
+						if (capture == rootChildrenCapture && depth == 1) { // the top-level element itself is replaced
+							continue;
+						}
+						capture.writer.writeStartElement(reader.getLocalName());
+						for (int a = 0; a < reader.getAttributeCount(); a++) {
+							capture.writer.writeAttribute(reader.getAttributeLocalName(a), reader.getAttributeValue(a));
+						}
+					}
+
+					for (int i = 0; i < headerPaths.length; i++) {
+						if ( ! headersFound[i] && headerDepths[i] == 0 && pathMatches(currentPath, headerPaths[i])) {
+							headerDepths[i] = depth;
+							headerValues[i] = new StringBuilder();
+						}
+					}
+					break;
+
+				case XMLStreamConstants.END_ELEMENT:
+					int endDepth = currentPath.size();
+
+					for (int c = activeCaptures.size() - 1; c >= 0; c--) {
+						Capture capture = activeCaptures.get(c);
+						if (capture == rootChildrenCapture && endDepth == 1) { // the top-level element itself is replaced
+							capture.writer.flush();
+							activeCaptures.remove(c);
+							continue;
+						}
+						capture.writer.writeEndElement();
+						if (capture.depth == endDepth) {
+							capture.writer.flush();
+							activeCaptures.remove(c);
+						}
+					}
+
+					for (int i = 0; i < headerPaths.length; i++) {
+						if (headerDepths[i] == endDepth) {
+							headerDepths[i] = 0;
+							headersFound[i] = true;
+						}
+					}
+
+					currentPath.remove(endDepth - 1);
+					break;
+
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.SPACE:
+				case XMLStreamConstants.CDATA:
+					for (Capture capture : activeCaptures) {
+						if (event == XMLStreamConstants.CDATA) {
+							capture.writer.writeCData(reader.getText());
+						}
+						else {
+							capture.writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+						}
+					}
+					for (int i = 0; i < headerPaths.length; i++) {
+						if (headerDepths[i] != 0) {
+							headerValues[i].append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+						}
+					}
+					break;
+
+				case XMLStreamConstants.COMMENT:
+					for (Capture capture : activeCaptures) {
+						capture.writer.writeComment(reader.getText());
+					}
+					break;
+
+				case XMLStreamConstants.PROCESSING_INSTRUCTION:
+					for (Capture capture : activeCaptures) {
+						capture.writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+					}
+					break;
+
+				case XMLStreamConstants.DTD:
+				case XMLStreamConstants.ENTITY_REFERENCE:
+					return null; // leave to the DOM
+
+				default:
+					break;
+				}
+			}
+		}
+		finally {
+			reader.close();
+		}
+
+		if (rootName == null) { // no elements at all
+			return null;
+		}
+
+		String[] values = headerValuesOf(headerValues);
+
+		if (copyAll) {
+			if (targetMainDocElementName == null) { // the whole input message is the target
+				return new StreamedTarget(message, values);
+			}
+			return new StreamedTarget(wrap(targetMainDocElementName, (rootChildrenCapture == null ? "" : rootChildrenCapture.toString())), values);
+		}
+
+		String[] sendElements = new String[sendCaptures.length];
+		for (int i = 0; i < sendCaptures.length; i++) {
+			sendElements[i] = (sendCaptures[i] == null ? null : sendCaptures[i].toString());
+		}
+		return new StreamedTarget(assembleTarget(rootName, sendElements), values);
+	}
+
+	/**
+	  * Read the message into a CompactMessage, and look up the elements to be copied and the header values in it.
+	  *
+	  * @return the target message and header values, null if the message must be handled using a DOM instead
+	  */
+	private StreamedTarget buildFromCompact(String message) {
+		CompactMessage compactMessage = CompactMessage.parse(message);
+		if (compactMessage == null) {
+			logger.fine("Could not read message into a CompactMessage, will use DOM instead.");
+			return null;
+		}
+
+		String[] values = new String[headerPaths.length];
+		for (int i = 0; i < headerPaths.length; i++) {
+			int index = compactMessage.find(headerPaths[i]);
+			String value = (index < 0 ? null : compactMessage.getTextContent(index));
+			values[i] = (value == null || value.length() == 0 ? null : value); // empty left to the DOM to judge
+		}
+
+		if (copyAll) {
+			if (targetMainDocElementName == null) { // the whole input message is the target
+				return new StreamedTarget(message, values);
+			}
+			return new StreamedTarget(wrap(targetMainDocElementName, compactMessage.getContentMarkup(0)), values);
+		}
+
+		String[] sendElements = new String[sendPaths.length];
+		for (int i = 0; i < sendPaths.length; i++) {
+			int index = compactMessage.find(sendPaths[i]);
+			sendElements[i] = (index < 0 ? null : compactMessage.getMarkup(index));
+		}
+		return new StreamedTarget(assembleTarget(compactMessage.getName(0), sendElements), values);
+	}
+
+	/**
+	  * Put the copied elements together under the target's top-level element, each under its parent path (less
+	  * the top-level element), in the order configured.
+	  *
+	  * @param inputRootName the name of the input message's top-level element
+	  * @param sendElements the markup of each element copied, in the order configured, null for any not found
+	  */
+	private String assembleTarget(String inputRootName, String[] sendElements) {
+		OutputNode root = new OutputNode(targetMainDocElementName == null ? inputRootName : targetMainDocElementName);
+
+		for (int i = 0; i < sendPaths.length; i++) {
+			if (sendElements[i] == null) { // no prob if we don't find the element
+				continue;
+			}
+
+			OutputNode parent = root;
+			for (int s = 1; s < sendPaths[i].length - 1; s++) { // skip top-level element, and the element itself
+				parent = parent.childNamed(sendPaths[i][s]);
+			}
+			parent.content.add(sendElements[i]);
+		}
+
+		StringBuilder target = new StringBuilder();
+		root.appendTo(target);
+		return target.toString();
+	}
+
+	/**
+	  * @return true if the element at which reader is positioned, or any of its attributes, uses a namespace
+	  */
+	private static boolean usesNamespaces(XMLStreamReader reader) {
+		if (reader.getNamespaceCount() > 0 || (reader.getPrefix() != null && reader.getPrefix().length() > 0)) {
+			return true;
+		}
+		for (int a = 0; a < reader.getAttributeCount(); a++) {
+			String prefix = reader.getAttributePrefix(a);
+			if (prefix != null && prefix.length() > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	  * @return true if currentPath is exactly the path given by segments
+	  */
+	private static boolean pathMatches(List<String> currentPath, String[] segments) {
+		if (currentPath.size() != segments.length) {
+			return false;
+		}
+		for (int i = segments.length - 1; i >= 0; i--) { // last segment most likely to differ
+			if ( ! segments[i].equals(currentPath.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	  * @return the collected values, null for any not found, or found empty (left to the DOM to judge)
+	  */
+	private static String[] headerValuesOf(StringBuilder[] headerValues) {
+		String[] values = new String[headerValues.length];
+		for (int i = 0; i < headerValues.length; i++) {
+			values[i] = (headerValues[i] == null || headerValues[i].length() == 0 ? null : headerValues[i].toString());
+		}
+		return values;
+	}
+
+	private static boolean isSimpleAbsolutePath(String path) {
+		return (path != null && SIMPLE_ABSOLUTE_PATH.matcher(path).matches());
+	}
+
+	private static String[] splitPath(String path) {
+		return path.substring(1).split("/");
+	}
+
+	private static String wrap(String elementName, String content) {
+		return "<" + elementName + ">" + content + "</" + elementName + ">";
+	}
+
+	/**
+	  * An element (or the children of one) being copied to the output.
+	  */
+	private static class Capture {
+		private final int depth;		// depth of the element being copied, 0 if copying the children of the top-level element
+		private final StringWriter out = new StringWriter();
+		private final XMLStreamWriter writer;
+
+		public Capture(int depth) throws XMLStreamException {
+			this.depth = depth;
+			this.writer = outputFactory.get().createXMLStreamWriter(out);
+		}
+
+		@Override
+		public String toString() {
+			return out.toString();
+		}
+	}
+
+	/**
+	  * An element of the target message, holding its child elements and copied fragments, in order.
+	  */
+	private static class OutputNode {
+		private final String name;
+		private final List<Object> content = new ArrayList<Object>();	// OutputNode or String fragment
+
+		public OutputNode(String name) {
+			this.name = name;
+		}
+
+		/**
+		  * @return the first child element with the given name, created if not there
+		  */
+		public OutputNode childNamed(String childName) {
+			for (Object child : content) {
+				if (child instanceof OutputNode && ((OutputNode) child).name.equals(childName)) {
+					return (OutputNode) child;
+				}
+			}
+			OutputNode child = new OutputNode(childName);
+			content.add(child);
+			return child;
+		}
+
+		public void appendTo(StringBuilder target) {
+			target.append('<').append(name).append('>');
+			for (Object child : content) {
+				if (child instanceof OutputNode) {
+					((OutputNode) child).appendTo(target);
+				}
+				else {
+					target.append((String) child);
+				}
+			}
+			target.append("</").append(name).append('>');
+		}
+	}
+
+	/**
+	  * The result of streaming a message: the message for the target and the values found for the header paths.
+	  *
+	  * @Immutable
+	  */
+	public static final class StreamedTarget {
+		private final String message;
+		private final String[] headerValues;
+
+		private StreamedTarget(String message, String[] headerValues) {
+			this.message = message;
+			this.headerValues = headerValues;
+		}
+
+		/**
+		  * @return the message for the target
+		  */
+		public String getMessage() {
+			return message;
+		}
+
+		/**
+		  * @param index the position of the header path, as given to the constructor
+		  * @return the text of the first element at that path, null if not found or empty
+		  */
+		public String getHeaderValue(int index) {
+			return headerValues[index];
+		}
+
+		/**
+		  * @return the text of the first element at each header path, in the order given to the constructor, null for any not found or empty
+		  */
+		public String[] getHeaderValues() {
+			return headerValues.clone();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package gemha.support;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+  * Helpers shared by the executors that hand off results in submission order
+  * (OrderedTaskExecutor, PartitionedTaskExecutor and PipelineStage).
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  */
+public class TaskExecutorSupport {
+
+	private TaskExecutorSupport() {
+	}
+
+	/**
+	  * Place a Poison Pill (a task returning null) on the hand-off queue, behind all previously-submitted tasks,
+	  * then tell the executor(s) to shut down (no waiting).
+	  *
+	  * @param queue the queue on which results are handed off
+	  * @param pools the executor(s) to be shut down. The Poison Pill itself is run on the first.
+	  * @throws InterruptedException if interrupted while waiting for space on the hand-off queue
+	  */
+	public static <T> void submitPoisonPill(BlockingQueue<Future<T>> queue, ExecutorService... pools) throws InterruptedException {
+		queue.put(pools[0].submit( new Callable<T>() {
+			public T call() {
+				return null;
+			} // end Callable.call()
+		}));
+
+		// Flush the executor buffer(s) and shut them down (no waiting)...
+		for (ExecutorService pool : pools) {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	  * Re-throw the cause of a task's failure, as a MessagingException if that's what the task threw.
+	  *
+	  * @param cause the Throwable thrown by the task
+	  * @return never returns, declared so callers can "throw rethrow(cause)"
+	  * @throws MessagingException if that's what the task threw
+	  */
+	public static RuntimeException rethrow(Throwable cause) throws MessagingException {
+		if (cause instanceof MessagingException)
+			throw (MessagingException) cause;
+		else
+			throw launderThrowable(cause);
+	}
+
+	/**
+	  * Extract and validate a Throwable that would have been contained within another Exception (eg ExcutionException)
+	  *
+	  * @param t the Throwable to be interpreted
+	  *
+	  * @return a RuntimeException
+	  * @throws IllegalStateException if the Exception was not expected (known exceptions should have been dealt with prior to calling launderThrowable
+	  */
+	public static RuntimeException launderThrowable(Throwable t) {
+		if (t instanceof RuntimeException)
+			return (RuntimeException) t;
+		else if (t instanceof Error)
+			throw (Error) t;
+		else
+			throw new IllegalStateException("launderThrowable: Exception not checked! : ", t);
+	}
+}
@@ -0,0 +1,53 @@
+package gemha.support;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+  * Creates executors that run each message on its own thread, for work that spends nearly all its time
+  * blocked on I/O (for example, a network round trip).
+  *
+  * Up to maxInFlight threads are created, but only as messages arrive, and each is reclaimed once it has
+  * been idle for a short while. So a large in-flight limit costs nothing while traffic is light, and there's
+  * no pool to size for the peak. Messages beyond the in-flight limit wait their turn.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  */
+public class ThreadPerMessagePool {
+
+    // How long an idle thread is kept, in case another message arrives
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 30;
+
+	private ThreadPerMessagePool() {
+	}
+
+	/**
+	  * Create an executor running each task on its own thread, up to maxInFlight at a time.
+	  *
+	  * @param name used to name the threads, for logging
+	  * @param maxInFlight the maximum number of tasks that may run at the same time (1..n)
+	  * @return the new executor
+	  */
+	public static ExecutorService newExecutor(final String name, int maxInFlight) {
+		if (maxInFlight < 1) throw new IllegalArgumentException("ThreadPerMessagePool: maxInFlight must be at least 1.");
+
+		ThreadPoolExecutor execPool = new ThreadPoolExecutor(maxInFlight, maxInFlight,
+															IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+															new LinkedBlockingQueue<Runnable>(),
+															new ThreadFactory() {
+																private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+																public Thread newThread(Runnable r) {
+																	return new Thread(r, name + "-" + threadNumber.getAndIncrement());
+																}
+															});
+		execPool.allowCoreThreadTimeOut(true); // so threads are only kept while there's work for them
+
+		return execPool;
+	}
+}
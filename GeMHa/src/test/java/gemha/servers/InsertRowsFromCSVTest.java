@@ -0,0 +1,122 @@
+package gemha.servers;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import lw.utils.LwLogger;
+import gemha.support.InsertRows;
+
+/**
+  * Checks that messages of INSERTs fed from CSV files, as configured in the shipped settings files, are read by
+  * ProcessMessageForDb straight into rows (see InsertRows), with no DOM built for them.
+  *
+  * Run from the project directory, so the shipped settings files and data are found.
+  *
+  * @author Liam Wade
+  * @version 1.0 16/10/2026
+  */
+public class InsertRowsFromCSVTest {
+
+	private static final String SETTINGS_DIR = "ApplicSettingsFiles/";
+
+	// The shipped settings files feeding INSERTs from CSV files to ProcessMessageForDb
+	private static final String[] CSV_TO_DB_SETTINGS = {"Applic_CtoDBtoF.xml", "Applic_CtoDBtoF_Load_Contacts.xml"};
+
+	/**
+	  * The handler only leaves INSERTs to be read from their text for a CSV feed of INSERTs, and the Processor only
+	  * reads them so if it can find its INSERT audit keys in the rows.
+	  */
+	@Test
+	public void shippedSettingsLetProcessorReadInsertRows() throws Exception {
+		for (String settingsFileName : CSV_TO_DB_SETTINGS) {
+			Document settings = parse(SETTINGS_DIR + settingsFileName);
+
+			assertEquals(settingsFileName, "CSV", valueOf(settings, "/Applic/Input/InputSource/DataFormat").toUpperCase());
+			assertEquals(settingsFileName, "INSERT", valueOf(settings, "/Applic/Input/InputSource/InputFile/CSVParams/XMLFormat").toUpperCase());
+			assertEquals(settingsFileName, ProcessMessageForDb.class.getName(), valueOf(settings, "/Applic/Processing/MessageProcessingClassName"));
+
+			Document dbSettings = parse(SETTINGS_DIR + baseNameOf(valueOf(settings, "/Applic/Processing/MessageProcessingSettingsFileName")));
+			List<String> auditKeyNames = valuesOf(dbSettings, "/Applic/Auditing/AuditKeys[@DbAction='insert']/KeyName");
+			for (String auditKeyName : auditKeyNames) {
+				assertNotNull(settingsFileName + ": INSERT audit key " + auditKeyName + " is not a column", InsertRows.columnOfAuditKey(auditKeyName));
+			}
+		}
+	}
+
+	/**
+	  * Every message made from the shipped CSV data, as the shipped settings configure it, is read into rows.
+	  */
+	@Test
+	public void shippedCSVFeedIsReadIntoRows() throws Exception {
+		Document settings = parse(SETTINGS_DIR + CSV_TO_DB_SETTINGS[0]);
+		String csvParams = "/Applic/Input/InputSource/InputFile/CSVParams/";
+
+		AcceptMessagesFromFiles listener = new AcceptMessagesFromFiles(valueOf(settings, "/Applic/Input/InputSource/InputFile/FileDir"),
+											valueOf(settings, "/Applic/Input/InputSource/InputFile/FileNameFilter"), true,
+											new ArrayList<String>(valuesOf(settings, csvParams + "ColumnOrder/Column")), "CSV", "\t",
+											Integer.parseInt(valueOf(settings, csvParams + "MaxRecsPerMessage")), valueOf(settings, csvParams + "XMLFormat"),
+											valueOf(settings, csvParams + "InsertParams/Action_On_Error"), null,
+											valueOf(settings, csvParams + "InsertParams/Immediate_Commit"), 0);
+		listener.performSetup();
+
+		int numRows = 0;
+		String message = null;
+		while ((message = listener.acceptNextMessage()) != null) {
+			InsertRows insertRows = InsertRows.parse(message);
+			assertNotNull("Message was not read into rows: " + message, insertRows);
+			assertEquals("RESPOND", insertRows.getActionOnError());
+
+			for (InsertRows.Row row : insertRows.getRows()) {
+				assertNull(row.getPreparedStatementName()); // so inserted into the default table
+				assertTrue(row.isImmediateCommit());
+				assertNotNull(row.getValue("USERID"));
+				numRows++;
+			}
+		}
+		assertEquals(6, numRows);
+
+		File shutdownLogFile = File.createTempFile("InsertRowsFromCSVTest", ".log");
+		LwLogger shutdownLogger = new LwLogger(shutdownLogFile.getPath(), true);
+		listener.performCleanup(shutdownLogger);
+		shutdownLogger.close();
+		shutdownLogFile.delete();
+	}
+
+	private static Document parse(String fileName) throws Exception {
+		return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new File(fileName));
+	}
+
+	private static String valueOf(Document doc, String path) throws Exception {
+		XPath xpath = XPathFactory.newInstance().newXPath();
+		return xpath.evaluate(path, doc).trim();
+	}
+
+	private static List<String> valuesOf(Document doc, String path) throws Exception {
+		XPath xpath = XPathFactory.newInstance().newXPath();
+		NodeList nodes = (NodeList) xpath.evaluate(path, doc, XPathConstants.NODESET);
+		List<String> values = new ArrayList<String>();
+		for (int i = 0; i < nodes.getLength(); i++) {
+			values.add(nodes.item(i).getTextContent().trim());
+		}
+		return values;
+	}
+
+	/**
+	  * @return the name of a file, less any path (the shipped settings name Windows paths)
+	  */
+	private static String baseNameOf(String fileName) {
+		return fileName.substring(Math.max(fileName.lastIndexOf('\\'), fileName.lastIndexOf('/')) + 1);
+	}
+}